@@ -0,0 +1,298 @@
+package gurdle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The letters words may be spelled with, each given a dense index from 0.
+ * Everything that works on letters by number works on these indices: the
+ * five-bit letters of {@link WordCodes packed codes}, the bits of
+ * {@link Feedback#letterMask(int) letter masks}, the {@link Dictionary}
+ * trie, and the bytes of the board in {@link Model}. An alphabet may
+ * therefore have at most {@link #MAX_SIZE} letters.
+ * <br><br>
+ * Where a letter is kept as a byte, the byte is <code>'A'</code> plus its
+ * index (see {@link #toByte(char)}), which for {@link #LATIN} is simply
+ * the letter in ASCII. Looking up a letter's index is a subtraction and
+ * one array access, for any script.
+ *
+ * @author RIT CS
+ */
+public final class Alphabet {
+
+    /**
+     * The most letters an alphabet may have
+     */
+    public static final int MAX_SIZE = 1 << WordCodes.BITS_PER_LETTER;
+
+    /**
+     * The byte stored for anything that is not a letter of the alphabet
+     */
+    public static final byte NOT_A_LETTER = '?';
+
+    /**
+     * A to Z, on a QWERTY keyboard
+     */
+    public static final Alphabet LATIN = new Alphabet("latin",
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+            "QWERTYUIOP", "ASDFGHJKL", "ZXCVBNM");
+
+    /**
+     * The 31 letters of Macedonian Cyrillic, on the standard Macedonian
+     * keyboard
+     */
+    public static final Alphabet MACEDONIAN = new Alphabet("macedonian",
+            "АБВГДЃЕЖЗЅИЈКЛЉМНЊОПРСТЌУФХЦЧЏШ",
+            "ЉЊЕРТЅУИОПШЃ", "АСДФГХЈКЛЧЌЖ", "ЗЏЦВБНМ");
+
+    /**
+     * The alphabets a word list can be written in
+     */
+    private static final List<Alphabet> KNOWN = List.of(LATIN, MACEDONIAN);
+
+    /**
+     * What the alphabet is called
+     */
+    private final String name;
+
+    /**
+     * The letters, in index order
+     */
+    private final String letters;
+
+    /**
+     * The rows of the keyboard, top first
+     */
+    private final List<String> keyboard;
+
+    /**
+     * The lowest letter's character code
+     */
+    private final char base;
+
+    /**
+     * For each character from base up to the highest letter, its index,
+     * or -1 if it is not a letter
+     */
+    private final byte[] indices;
+
+    /**
+     * For each byte, the character it stands for (see
+     * {@link #fromByte(byte)})
+     */
+    private final char[] chars = new char[256];
+
+    /**
+     * Define an alphabet.
+     *
+     * @param name         what it is called
+     * @param letters      the letters, in alphabetical order; at most
+     *                     {@link #MAX_SIZE}, all different
+     * @param keyboardRows how the letters are laid out on a keyboard, top
+     *                     row first; every letter exactly once
+     */
+    public Alphabet(String name, String letters, String... keyboardRows) {
+        if (letters.isEmpty() || letters.length() > MAX_SIZE) {
+            throw new IllegalArgumentException("An alphabet needs 1 to " +
+                    MAX_SIZE + " letters.");
+        }
+        this.name = name;
+        this.letters = letters;
+        this.keyboard = List.of(keyboardRows);
+        char low = Character.MAX_VALUE;
+        char high = Character.MIN_VALUE;
+        for (int i = 0; i < letters.length(); ++i) {
+            low = (char) Math.min(low, letters.charAt(i));
+            high = (char) Math.max(high, letters.charAt(i));
+        }
+        this.base = low;
+        this.indices = new byte[high - low + 1];
+        Arrays.fill(this.indices, (byte) -1);
+        for (int i = 0; i < letters.length(); ++i) {
+            final int slot = letters.charAt(i) - low;
+            if (this.indices[slot] >= 0) {
+                throw new IllegalArgumentException(
+                        "Repeated letter " + letters.charAt(i) + ".");
+            }
+            this.indices[slot] = (byte) i;
+        }
+        for (int b = 0; b < this.chars.length; ++b) {
+            final int index = b - 'A';
+            this.chars[b] = index >= 0 && index < letters.length() ?
+                    letters.charAt(index) : (char) b;
+        }
+        final String keys = String.join("", keyboardRows);
+        final char[] sortedKeys = keys.toCharArray();
+        final char[] sortedLetters = letters.toCharArray();
+        Arrays.sort(sortedKeys);
+        Arrays.sort(sortedLetters);
+        if (!Arrays.equals(sortedKeys, sortedLetters)) {
+            throw new IllegalArgumentException(
+                    "The keyboard must have each letter exactly once.");
+        }
+    }
+
+    /**
+     * The alphabets a word list can be written in
+     *
+     * @return the built-in alphabets, {@link #LATIN} first
+     */
+    public static List<Alphabet> known() {
+        return KNOWN;
+    }
+
+    /**
+     * The known alphabet that spells the most of some words. Ties go to
+     * the one listed first, so a list of no words at all is Latin.
+     *
+     * @param words the words
+     * @return the alphabet they are most likely written in
+     */
+    public static Alphabet of(List<String> words) {
+        Alphabet best = LATIN;
+        int bestCount = -1;
+        for (Alphabet alphabet : KNOWN) {
+            int count = 0;
+            for (String word : words) {
+                if (alphabet.spells(word)) {
+                    count += 1;
+                }
+            }
+            if (count > bestCount) {
+                best = alphabet;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The alphabet with these letters: a known one if there is one, or
+     * else a new one with the letters in a single keyboard row
+     *
+     * @param letters the letters, in index order
+     * @return the alphabet
+     */
+    public static Alphabet withLetters(String letters) {
+        for (Alphabet alphabet : KNOWN) {
+            if (alphabet.letters.equals(letters)) {
+                return alphabet;
+            }
+        }
+        return new Alphabet("custom", letters, letters);
+    }
+
+    /**
+     * Is every character of a word a letter of this alphabet?
+     *
+     * @param word the word
+     * @return true if so
+     */
+    public boolean spells(String word) {
+        for (int c = 0; c < word.length(); ++c) {
+            if (this.index(word.charAt(c)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * What the alphabet is called
+     *
+     * @return its name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * How many letters are there?
+     *
+     * @return the number of letters
+     */
+    public int size() {
+        return this.letters.length();
+    }
+
+    /**
+     * All the letters
+     *
+     * @return the letters, in index order
+     */
+    public String letters() {
+        return this.letters;
+    }
+
+    /**
+     * The keyboard layout
+     *
+     * @return the rows of keys, top first; every letter is on it once
+     */
+    public List<String> keyboard() {
+        return this.keyboard;
+    }
+
+    /**
+     * A letter's index
+     *
+     * @param ch the character
+     * @return its index, or -1 if it is not a letter of this alphabet
+     */
+    public int index(char ch) {
+        final int slot = ch - this.base;
+        return slot >= 0 && slot < this.indices.length ?
+                this.indices[slot] : -1;
+    }
+
+    /**
+     * The letter with an index
+     *
+     * @param index the index, from 0 to {@link #size()} - 1
+     * @return the letter
+     */
+    public char letter(int index) {
+        return this.letters.charAt(index);
+    }
+
+    /**
+     * A letter as a byte: <code>'A'</code> plus its index
+     *
+     * @param ch the character
+     * @return its byte, or {@link #NOT_A_LETTER}
+     */
+    public byte toByte(char ch) {
+        final int index = this.index(ch);
+        return index < 0 ? NOT_A_LETTER : (byte) ('A' + index);
+    }
+
+    /**
+     * Undo {@link #toByte(char)}. Bytes that are not letters are taken to
+     * be ASCII, so a blank stays a blank.
+     *
+     * @param b the byte
+     * @return the character it stands for
+     */
+    public char fromByte(byte b) {
+        return this.chars[b & 0xFF];
+    }
+
+    /**
+     * Turn a word, or the start of one, into bytes.
+     *
+     * @param text the letters
+     * @return one {@link #toByte(char) byte} per character
+     */
+    public byte[] toBytes(String text) {
+        final byte[] bytes = new byte[text.length()];
+        for (int c = 0; c < bytes.length; ++c) {
+            bytes[c] = this.toByte(text.charAt(c));
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
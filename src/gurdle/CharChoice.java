@@ -15,7 +15,7 @@ public class CharChoice {
 
     @Override
     public String toString() {
-        return String.valueOf(this.ch);
+        return String.valueOf(this.getChar());
     }
 
     public Status getStatus() {
@@ -0,0 +1,808 @@
+package gurdle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * One immutable version of the word list: the words secrets are chosen
+ * from, and the words the player is allowed to guess.
+ * Once built a dictionary never changes, so any number of games and
+ * threads can share it without locking.
+ * <br><br>
+ * Words are held as {@link WordCodes packed codes}, not strings, in the
+ * {@link Alphabet} the word file is written in.
+ * A dictionary can be read from a text file, one word per line, or from
+ * the binary form written by {@link DictionaryCompiler}, which is
+ * memory-mapped and used as-is: the sorted codes and the trie described
+ * below are stored in it, so nothing is copied, sorted or built on load.
+ * <br><br>
+ * For typing, the words are also indexed by a prefix trie built when the
+ * dictionary is. Each node stores a bitmask of the letters that can follow
+ * it and where its first child is, so descending one letter is a mask test
+ * and a bit count, and every node knows the run of sorted words below it.
+ * Whether a prefix leads anywhere, and its completions, therefore cost
+ * time proportional to the prefix, not the dictionary. For
+ * {@link #search(WordQuery) searching} by letters at any position there is
+ * a {@link WordIndex} of bit sets, built the first time it is needed.
+ * <br><br>
+ * Binary layout (big-endian):
+ * <pre>
+ * int   MAGIC
+ * short VERSION
+ * byte  letters per word
+ * byte  bits per letter
+ * int   number of words
+ * int   CRC-32 of the codes
+ * int   CRC-32 of everything after the header
+ * byte  number of letters in the alphabet
+ * char[] the alphabet's letters, in index order
+ * byte[] zeros, up to a multiple of four bytes
+ * then seven int arrays, each an int length followed by the ints:
+ *       the codes, in word file order; the sorted codes; the positions
+ *       (empty if the file was sorted); and the trie's next letters,
+ *       first children, first words and word counts
+ * </pre>
+ *
+ * @author RIT CS
+ */
+public final class Dictionary {
+
+    /**
+     * First four bytes of every compiled dictionary ("GDIC")
+     */
+    static final int MAGIC = 0x47444943;
+
+    /**
+     * Format revision; bumped whenever the layout changes
+     */
+    static final short VERSION = 3;
+
+    /**
+     * Bytes before the alphabet
+     */
+    static final int HEADER_SIZE = 4 + 2 + 1 + 1 + 4 + 4 + 4;
+
+    /**
+     * How many int arrays follow the alphabet
+     */
+    static final int NUM_SECTIONS = 7;
+
+    /**
+     * File name ending of compiled dictionaries
+     */
+    public static final String COMPILED_SUFFIX = ".bin";
+
+    /**
+     * The letters the words are written in
+     */
+    private final Alphabet alphabet;
+
+    /**
+     * The file the words were read from, or null
+     */
+    private final Path source;
+
+    /**
+     * The words' codes, in file order
+     */
+    private final IntBuffer codes;
+
+    /**
+     * The same codes in ascending order, for legality checks.
+     * (The same buffer as codes if the file was already sorted.)
+     */
+    private final IntBuffer sorted;
+
+    /**
+     * For each entry of sorted, the word's position in file order; null if
+     * the file was already sorted and the two orders agree
+     */
+    private final IntBuffer positions;
+
+    /**
+     * For each trie node, the letters that may follow it, as a bitmask
+     * (bit 0 is A). Node 0 is the root; the nodes for prefixes of the
+     * same length are stored together, in alphabetical order.
+     */
+    private final IntBuffer nextLetters;
+
+    /**
+     * For each trie node, its first child. For nodes one letter short of a
+     * word the "children" are words, and this is a position in sorted.
+     */
+    private final IntBuffer firstChild;
+
+    /**
+     * For each trie node, the first position in sorted of the words that
+     * start with its prefix
+     */
+    private final IntBuffer firstWord;
+
+    /**
+     * For each trie node, how many words start with its prefix
+     */
+    private final IntBuffer wordCount;
+
+    /**
+     * CRC-32 of the codes in file order, worked out on first use; zero
+     * until then
+     */
+    private int checksum;
+
+    /**
+     * Bit set indexes for {@link #search(WordQuery)}, built on first use
+     */
+    private volatile WordIndex index;
+
+    /**
+     * The words, unpacked on demand
+     */
+    private final List<String> words = new AbstractList<>() {
+        @Override
+        public String get(int index) {
+            return Dictionary.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return Dictionary.this.size();
+        }
+    };
+
+    /**
+     * Build a dictionary from a list of words, in whichever
+     * {@link Alphabet#known() known alphabet} spells most of them.
+     * Anything that is not a word of that alphabet's letters, of the right
+     * length, is left out.
+     *
+     * @param words the legal words
+     */
+    public Dictionary(List<String> words) {
+        this(words, Alphabet.of(words), null);
+    }
+
+    /**
+     * Build a dictionary from a list of words in a given alphabet.
+     * Anything that is not a word of its letters, of the right length, is
+     * left out.
+     *
+     * @param words    the legal words
+     * @param alphabet the letters they are written in
+     */
+    public Dictionary(List<String> words, Alphabet alphabet) {
+        this(words, alphabet, null);
+    }
+
+    /**
+     * Build a dictionary from a list of words read from a file.
+     *
+     * @param words    the legal words
+     * @param alphabet the letters they are written in
+     * @param source   the file they were read from, or null
+     */
+    private Dictionary(List<String> words, Alphabet alphabet, Path source) {
+        this(words.stream()
+                .mapToInt(word -> WordCodes.pack(word, alphabet))
+                .filter(code -> code != WordCodes.NOT_A_WORD)
+                .toArray(), alphabet, source);
+    }
+
+    /**
+     * Build a dictionary from word codes.
+     *
+     * @param codes    the legal words' codes; not copied
+     * @param alphabet the letters the codes stand for
+     * @param source   the file they were read from, or null
+     */
+    private Dictionary(int[] codes, Alphabet alphabet, Path source) {
+        this.alphabet = alphabet;
+        this.source = source;
+        this.codes = IntBuffer.wrap(codes);
+        boolean ascending = true;
+        for (int i = 1; i < codes.length && ascending; ++i) {
+            ascending = codes[i - 1] < codes[i];
+        }
+        final int[] sorted;
+        if (ascending) {
+            sorted = codes;
+            this.sorted = this.codes;
+            this.positions = null;
+        } else {
+            // Sort code and position together, code in the high bits.
+            final long[] keys = new long[codes.length];
+            for (int i = 0; i < codes.length; ++i) {
+                keys[i] = (long) codes[i] << 32 | i;
+            }
+            Arrays.sort(keys);
+            sorted = new int[codes.length];
+            final int[] positions = new int[codes.length];
+            for (int i = 0; i < keys.length; ++i) {
+                sorted[i] = (int) (keys[i] >>> 32);
+                positions[i] = (int) keys[i];
+            }
+            this.sorted = IntBuffer.wrap(sorted);
+            this.positions = IntBuffer.wrap(positions);
+        }
+        // One node per distinct prefix, plus the root.
+        int nodes = 1;
+        for (int depth = 1; depth < Model.WORD_SIZE; ++depth) {
+            nodes += distinctPrefixes(sorted, depth);
+        }
+        final int[] nextLetters = new int[nodes];
+        final int[] firstChild = new int[nodes];
+        final int[] firstWord = new int[nodes];
+        final int[] wordCount = new int[nodes];
+        buildTrie(sorted, nextLetters, firstChild, firstWord, wordCount);
+        this.nextLetters = IntBuffer.wrap(nextLetters);
+        this.firstChild = IntBuffer.wrap(firstChild);
+        this.firstWord = IntBuffer.wrap(firstWord);
+        this.wordCount = IntBuffer.wrap(wordCount);
+    }
+
+    /**
+     * Use the arrays of a compiled dictionary where they lie.
+     *
+     * @param alphabet the letters the codes stand for
+     * @param checksum the codes' CRC-32
+     * @param sections the arrays, in the order they are stored
+     * @param source   the compiled file
+     */
+    private Dictionary(Alphabet alphabet, int checksum, IntBuffer[] sections,
+                       Path source) {
+        this.alphabet = alphabet;
+        this.source = source;
+        this.checksum = checksum;
+        this.codes = sections[0];
+        this.sorted = sections[1];
+        this.positions = sections[2].limit() == 0 ? null : sections[2];
+        this.nextLetters = sections[3];
+        this.firstChild = sections[4];
+        this.firstWord = sections[5];
+        this.wordCount = sections[6];
+    }
+
+    /**
+     * How many different prefixes of some length do these words have?
+     */
+    private static int distinctPrefixes(int[] sorted, int length) {
+        final int shift =
+                WordCodes.BITS_PER_LETTER * (Model.WORD_SIZE - length);
+        int count = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (i == 0 || sorted[i] >>> shift != sorted[i - 1] >>> shift) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fill in the trie one level at a time. Because the words are sorted,
+     * the nodes of each level come out in alphabetical order, and each
+     * node's children are the next nodes of the level below.
+     */
+    private static void buildTrie(int[] sorted, int[] nextLetters,
+                                  int[] firstChild, int[] firstWord,
+                                  int[] wordCount) {
+        int node = 0;
+        int nextLevel = 1;
+        for (int depth = 0; depth < Model.WORD_SIZE; ++depth) {
+            final int shift = WordCodes.BITS_PER_LETTER *
+                    (Model.WORD_SIZE - depth);
+            final int letterShift = shift - WordCodes.BITS_PER_LETTER;
+            final int letterMask = (1 << WordCodes.BITS_PER_LETTER) - 1;
+            // The root exists even if there are no words.
+            for (int i = 0; i < sorted.length || node == 0; ) {
+                // The run of words sharing this node's prefix
+                int end = i;
+                int letters = 0;
+                while (end < sorted.length &&
+                        sorted[end] >>> shift == sorted[i] >>> shift) {
+                    letters |= 1 << (sorted[end] >>> letterShift &
+                            letterMask);
+                    end += 1;
+                }
+                nextLetters[node] = letters;
+                firstWord[node] = i;
+                wordCount[node] = end - i;
+                if (depth == Model.WORD_SIZE - 1) {
+                    firstChild[node] = i;
+                } else {
+                    firstChild[node] = nextLevel;
+                    nextLevel += Integer.bitCount(letters);
+                }
+                node += 1;
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Read a word file. Files ending in {@link #COMPILED_SUFFIX} are taken
+     * to be compiled dictionaries; anything else is read as text, one word
+     * per line.
+     *
+     * @param path the word file
+     * @return the new dictionary
+     * @throws IOException if the file cannot be read or is damaged
+     */
+    public static Dictionary load(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(COMPILED_SUFFIX)) {
+            return loadCompiled(path);
+        }
+        return loadText(path, false);
+    }
+
+    /**
+     * Read a text word file.
+     *
+     * @param path   the word file
+     * @param strict whether to refuse a file with non-blank lines that are
+     *               not words; they are counted as the file is read
+     * @return the new dictionary
+     * @throws IOException if the file cannot be read, or is strictly read
+     *                     and has lines that are not words
+     */
+    private static Dictionary loadText(Path path, boolean strict)
+            throws IOException {
+        List<String> words = new ArrayList<>(2000);
+        int lines = 0;
+        try (BufferedReader wFile = Files.newBufferedReader(path)) {
+            String word;
+            while ((word = wFile.readLine()) != null) {
+                words.add(word);
+                if (!word.isBlank()) {
+                    lines += 1;
+                }
+            }
+        }
+        final Dictionary result =
+                new Dictionary(words, Alphabet.of(words), path);
+        if (strict && lines != result.size()) {
+            throw new IOException(path + " has " + (lines - result.size()) +
+                    " lines that are not words.");
+        }
+        return result;
+    }
+
+    /**
+     * Read a text word file, or its compiled form if that is at least as
+     * new as the text. This is the fast startup path.
+     *
+     * @param wordFile the text word file
+     * @return the new dictionary
+     * @throws IOException if neither file can be read
+     */
+    public static Dictionary open(Path wordFile) throws IOException {
+        return open(wordFile, false);
+    }
+
+    /**
+     * Like {@link #open(Path)}, but if the text is read, refuse it unless
+     * every non-blank line is a word, as when it is caught half-written.
+     * A compiled form was checked when it was compiled.
+     *
+     * @param wordFile the text word file
+     * @return the new dictionary
+     * @throws IOException if neither file can be read, or the text has
+     *                     lines that are not words
+     */
+    public static Dictionary openStrict(Path wordFile) throws IOException {
+        return open(wordFile, true);
+    }
+
+    /**
+     * Read a text word file, or its compiled form if that is at least as
+     * new as the text.
+     *
+     * @param wordFile the text word file
+     * @param strict   whether to refuse text with lines that are not words
+     * @return the new dictionary
+     * @throws IOException if neither file can be read, or the text is
+     *                     strictly read and has lines that are not words
+     */
+    private static Dictionary open(Path wordFile, boolean strict)
+            throws IOException {
+        final Path compiled = compiledPath(wordFile);
+        if (Files.exists(compiled) &&
+                Files.getLastModifiedTime(compiled).compareTo(
+                        Files.getLastModifiedTime(wordFile)) >= 0) {
+            try {
+                return loadCompiled(compiled);
+            } catch (IOException ioe) {
+                // Fall back to the text.
+            }
+        }
+        return loadText(wordFile, strict);
+    }
+
+    /**
+     * Where the compiled form of a text word file belongs
+     *
+     * @param wordFile the text word file
+     * @return the same path, with its extension changed to
+     * {@link #COMPILED_SUFFIX}
+     */
+    public static Path compiledPath(Path wordFile) {
+        final String name = wordFile.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return wordFile.resolveSibling(
+                (dot < 0 ? name : name.substring(0, dot)) + COMPILED_SUFFIX);
+    }
+
+    /**
+     * Map a compiled dictionary and check it is intact.
+     */
+    private static Dictionary loadCompiled(Path path) throws IOException {
+        try (FileChannel channel =
+                     FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE + 1 ||
+                    buffer.getInt(0) != MAGIC ||
+                    buffer.getShort(4) != VERSION ||
+                    buffer.get(6) != Model.WORD_SIZE ||
+                    buffer.get(7) != WordCodes.BITS_PER_LETTER) {
+                throw new IOException(path + " is not a compiled dictionary.");
+            }
+            final int count = buffer.getInt(8);
+            final int checksum = buffer.getInt(12);
+            final ByteBuffer body =
+                    buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE);
+            if (checksum(body) != buffer.getInt(16)) {
+                throw new IOException(path + " is damaged.");
+            }
+            final int letters = buffer.get(HEADER_SIZE) & 0xFF;
+            final char[] alphabet = new char[letters];
+            buffer.slice(HEADER_SIZE + 1, 2 * letters).asCharBuffer()
+                    .get(alphabet);
+            int at = align(HEADER_SIZE + 1 + 2 * letters);
+            final IntBuffer[] sections = new IntBuffer[NUM_SECTIONS];
+            for (int i = 0; i < NUM_SECTIONS; ++i) {
+                final int length = at + 4 <= buffer.limit() ?
+                        buffer.getInt(at) : -1;
+                if (length < 0 || length > (buffer.limit() - at - 4) / 4) {
+                    throw new IOException(path + " is truncated.");
+                }
+                sections[i] = buffer.slice(at + 4, 4 * length).asIntBuffer();
+                at += 4 + 4 * length;
+            }
+            final int nodes = sections[3].limit();
+            if (sections[0].limit() != count ||
+                    sections[1].limit() != count ||
+                    (sections[2].limit() != 0 &&
+                            sections[2].limit() != count) ||
+                    nodes == 0 || sections[4].limit() != nodes ||
+                    sections[5].limit() != nodes ||
+                    sections[6].limit() != nodes) {
+                throw new IOException(path + " is damaged.");
+            }
+            return new Dictionary(Alphabet.withLetters(new String(alphabet)),
+                    checksum, sections, path);
+        }
+    }
+
+    /**
+     * Round an offset up to a multiple of four bytes.
+     *
+     * @param offset the offset
+     * @return where the next int array starts
+     */
+    static int align(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    /**
+     * The arrays a compiled dictionary stores, for
+     * {@link DictionaryCompiler}
+     *
+     * @return read-only views of them, in the order they are stored
+     */
+    IntBuffer[] sections() {
+        final IntBuffer[] result = {this.codes, this.sorted,
+                this.positions == null ? IntBuffer.allocate(0) :
+                        this.positions,
+                this.nextLetters, this.firstChild, this.firstWord,
+                this.wordCount};
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = result[i].asReadOnlyBuffer();
+        }
+        return result;
+    }
+
+    /**
+     * The checksum stored in a compiled dictionary
+     *
+     * @param payload the codes' bytes
+     * @return their CRC-32
+     */
+    static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Where did these words come from?
+     *
+     * @return the file {@link #load(Path)} or {@link #open(Path)} read
+     * them from (a compiled file, if that is what was read), or null if
+     * they were not read from a file
+     */
+    public Path source() {
+        return this.source;
+    }
+
+    /**
+     * A fingerprint of the words and their order, e.g. to tell whether a
+     * file computed from a word list still matches it
+     *
+     * @return the CRC-32 of the codes, as stored in a compiled dictionary
+     */
+    public int checksum() {
+        int result = this.checksum;
+        if (result == 0) {
+            ByteBuffer payload = ByteBuffer.allocate(4 * this.size());
+            payload.asIntBuffer().put(this.codes.duplicate());
+            result = checksum(payload);
+            this.checksum = result;
+        }
+        return result;
+    }
+
+    /**
+     * Which letters are the words written in?
+     *
+     * @return the alphabet
+     */
+    public Alphabet alphabet() {
+        return this.alphabet;
+    }
+
+    /**
+     * How many words are there?
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return this.codes.limit();
+    }
+
+    /**
+     * Fetch a word by position.
+     *
+     * @param index the word's position in the file
+     * @return the word
+     */
+    public String get(int index) {
+        return WordCodes.unpack(this.codes.get(index), this.alphabet);
+    }
+
+    /**
+     * Fetch a word's code by position.
+     *
+     * @param index the word's position in the file
+     * @return the word's {@link WordCodes packed code}
+     */
+    public int code(int index) {
+        return this.codes.get(index);
+    }
+
+    /**
+     * Is this a legal guess?
+     *
+     * @param word the word the player entered
+     * @return true only if the word is in this dictionary
+     */
+    public boolean contains(String word) {
+        return this.contains(WordCodes.pack(word, this.alphabet));
+    }
+
+    /**
+     * Is this a legal guess?
+     *
+     * @param code the {@link WordCodes packed code} of a word
+     * @return true only if the word is in this dictionary
+     */
+    public boolean contains(int code) {
+        return code != WordCodes.NOT_A_WORD &&
+                binarySearch(this.sorted, code) >= 0;
+    }
+
+    /**
+     * Where is a word in the list?
+     *
+     * @param code the {@link WordCodes packed code} of a word
+     * @return the word's position in the file, or -1 if it is not a word
+     * of this dictionary
+     */
+    public int indexOf(int code) {
+        if (code == WordCodes.NOT_A_WORD) {
+            return -1;
+        }
+        final int at = binarySearch(this.sorted, code);
+        if (at < 0) {
+            return -1;
+        }
+        return this.positions == null ? at : this.positions.get(at);
+    }
+
+    /**
+     * Find a code among the sorted codes.
+     *
+     * @param sorted the codes, ascending
+     * @param code   the code to look for
+     * @return its position, or a negative number if it is not there
+     */
+    private static int binarySearch(IntBuffer sorted, int code) {
+        int low = 0;
+        int high = sorted.limit() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int found = sorted.get(mid);
+            if (found < code) {
+                low = mid + 1;
+            } else if (found > code) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the trie node for a prefix.
+     *
+     * @param letters the prefix's letters, as {@link Alphabet#toByte(char)
+     *                bytes}
+     * @param offset  where the prefix starts in letters
+     * @param length  how many letters it has; less than a word's length
+     * @return the node, or -1 if no word starts with the prefix
+     */
+    private int node(byte[] letters, int offset, int length) {
+        int node = 0;
+        for (int i = 0; i < length; ++i) {
+            final int letter = letters[offset + i] - 'A';
+            if (letter < 0 || letter >= Integer.SIZE ||
+                    (this.nextLetters.get(node) & (1 << letter)) == 0) {
+                return -1;
+            }
+            node = this.firstChild.get(node) + Integer.bitCount(
+                    this.nextLetters.get(node) & ((1 << letter) - 1));
+        }
+        return node;
+    }
+
+    /**
+     * How many words start with these letters?
+     *
+     * @param letters the prefix's letters, as {@link Alphabet#toByte(char)
+     *                bytes}
+     * @param offset  where the prefix starts in letters
+     * @param length  how many letters it has
+     * @return the number of words with that prefix; a whole word's letters
+     * give 1 or 0
+     */
+    public int countPrefixed(byte[] letters, int offset, int length) {
+        if (length >= Model.WORD_SIZE) {
+            return this.contains(WordCodes.pack(letters, offset)) ? 1 : 0;
+        }
+        final int node = this.node(letters, offset, length);
+        return node < 0 ? 0 : this.wordCount.get(node);
+    }
+
+    /**
+     * How many words start with these letters?
+     *
+     * @param prefix the start of a word, in this dictionary's alphabet
+     * @return the number of words with that prefix
+     */
+    public int countPrefixed(String prefix) {
+        return this.countPrefixed(this.alphabet.toBytes(prefix), 0,
+                prefix.length());
+    }
+
+    /**
+     * The words that start with these letters
+     *
+     * @param letters the prefix's letters, as {@link Alphabet#toByte(char)
+     *                bytes}
+     * @param offset  where the prefix starts in letters
+     * @param length  how many letters it has
+     * @param limit   the most words wanted
+     * @return up to limit words with that prefix, in alphabetical order
+     */
+    public List<String> completions(byte[] letters, int offset, int length,
+                                    int limit) {
+        if (length >= Model.WORD_SIZE) {
+            final int code = WordCodes.pack(letters, offset);
+            return limit > 0 && this.contains(code) ?
+                    List.of(WordCodes.unpack(code, this.alphabet)) :
+                    List.of();
+        }
+        final int node = this.node(letters, offset, length);
+        if (node < 0) {
+            return List.of();
+        }
+        final int count = Math.min(limit, this.wordCount.get(node));
+        final List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            result.add(WordCodes.unpack(
+                    this.sorted.get(this.firstWord.get(node) + i),
+                    this.alphabet));
+        }
+        return result;
+    }
+
+    /**
+     * The words that start with these letters
+     *
+     * @param prefix the start of a word, in this dictionary's alphabet
+     * @param limit  the most words wanted
+     * @return up to limit words with that prefix, in alphabetical order
+     */
+    public List<String> completions(String prefix, int limit) {
+        return this.completions(this.alphabet.toBytes(prefix), 0,
+                prefix.length(), limit);
+    }
+
+    /**
+     * The bit set indexes for searching, built the first time they are
+     * needed
+     *
+     * @return the index
+     */
+    private WordIndex index() {
+        WordIndex result = this.index;
+        if (result == null) {
+            result = new WordIndex(this.codes, this.alphabet);
+            this.index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Find the words that fit a query. The work is done as the stream is
+     * consumed, a block of words at a time, so taking the first few
+     * matches is quick even in a very large dictionary.
+     *
+     * @param query what to look for, in this dictionary's alphabet
+     * @return the positions of the matching words, in file order
+     */
+    public IntStream search(WordQuery query) {
+        return this.index().search(query);
+    }
+
+    /**
+     * How many words fit a query?
+     *
+     * @param query what to look for, in this dictionary's alphabet
+     * @return the number of matching words
+     */
+    public int count(WordQuery query) {
+        return this.index().count(query);
+    }
+
+    /**
+     * All the words
+     *
+     * @return a read-only list of the words, in file order
+     */
+    public List<String> words() {
+        return this.words;
+    }
+}
@@ -0,0 +1,94 @@
+package gurdle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The build step that turns a text word file into the compiled form read
+ * by {@link Dictionary#open(Path)}, so that startup can map the words,
+ * their sorted order and their prefix trie instead of parsing, sorting
+ * and indexing them.
+ * <br><br>
+ * Use: <code>java gurdle.DictionaryCompiler [word-file [compiled-file]]
+ * </code>
+ *
+ * @author RIT CS
+ */
+public class DictionaryCompiler {
+
+    /**
+     * No instances; run {@link #main(String[])}.
+     */
+    private DictionaryCompiler() {
+    }
+
+    /**
+     * Write a dictionary in compiled form. The file is written alongside
+     * and then moved into place in one step, since running programs may
+     * have the old one mapped.
+     *
+     * @param words the dictionary
+     * @param dest  where to write it
+     * @throws IOException if it cannot be written
+     */
+    public static void compile(Dictionary words, Path dest)
+            throws IOException {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        try (DataOutputStream body = new DataOutputStream(bodyBytes)) {
+            body.writeByte(words.alphabet().size());
+            body.writeChars(words.alphabet().letters());
+            final int start = Dictionary.HEADER_SIZE;
+            while (Dictionary.align(start + body.size()) !=
+                    start + body.size()) {
+                body.writeByte(0);
+            }
+            for (IntBuffer section : words.sections()) {
+                body.writeInt(section.limit());
+                for (int i = 0; i < section.limit(); ++i) {
+                    body.writeInt(section.get(i));
+                }
+            }
+        }
+        final ByteBuffer bodyBuffer = ByteBuffer.wrap(bodyBytes.toByteArray());
+        final Path temporary =
+                dest.resolveSibling(dest.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(file);
+            out.writeInt(Dictionary.MAGIC);
+            out.writeShort(Dictionary.VERSION);
+            out.writeByte(Model.WORD_SIZE);
+            out.writeByte(WordCodes.BITS_PER_LETTER);
+            out.writeInt(words.size());
+            out.writeInt(words.checksum());
+            out.writeInt(Dictionary.checksum(bodyBuffer));
+            bodyBytes.writeTo(out);
+            out.flush();
+        }
+        Files.move(temporary, dest, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Compile a word file.
+     *
+     * @param args the text word file (default {@link Model#WORD_FILE_NAME})
+     *             and where to put the result (default alongside it)
+     */
+    public static void main(String[] args) throws IOException {
+        final Path source =
+                Path.of(args.length > 0 ? args[0] : Model.WORD_FILE_NAME);
+        final Path dest = args.length > 1 ?
+                Path.of(args[1]) : Dictionary.compiledPath(source);
+        Dictionary words = Dictionary.load(source);
+        compile(words, dest);
+        System.out.println("Compiled " + words.size() + " words into " +
+                dest + ".");
+    }
+}
@@ -0,0 +1,159 @@
+package gurdle;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a {@link Dictionary} in step with its word file.
+ * A background thread watches the file's directory; when the file
+ * changes, a whole new dictionary is built off to the side and then
+ * swapped in with a single volatile write. Readers never wait: they get
+ * either the old version or the new one.
+ * <br><br>
+ * A {@link Model} takes the current version when each game starts and
+ * keeps it until the next one, so games in progress are unaffected by a
+ * reload. Nothing here holds on to old versions; each one is garbage
+ * once the last game using it has moved on.
+ * <br><br>
+ * A new version only replaces the current one if it looks complete: it
+ * must have words, and every non-blank line of the word file must have
+ * become one of them. An empty or half-written file is reported and the
+ * current version kept, so games can always be dealt.
+ *
+ * @author RIT CS
+ */
+public class DictionaryReloader implements Supplier<Dictionary>,
+        AutoCloseable {
+
+    /**
+     * How long to let a file settle after a change before re-reading it,
+     * in milliseconds, since editors often write in several steps
+     */
+    private static final long SETTLE_MS = 100;
+
+    /**
+     * The word file being watched
+     */
+    private final Path wordFile;
+
+    /**
+     * The newest complete version
+     */
+    private volatile Dictionary current;
+
+    /**
+     * Notifies us of changes to the word file's directory
+     */
+    private final WatchService watcher;
+
+    /**
+     * Where the watching and rebuilding happens
+     */
+    private final Thread watchThread;
+
+    /**
+     * Load the word file and start watching it.
+     *
+     * @param wordFile the word file
+     * @throws IOException if the file cannot be read or watched, or has
+     *                     no words
+     */
+    public DictionaryReloader(Path wordFile) throws IOException {
+        this.wordFile = wordFile.toAbsolutePath();
+        this.current = this.read(false);
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.wordFile.getParent().register(this.watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watchThread = new Thread(this::watch, "dictionary-reloader");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+    /**
+     * The version new games should use
+     *
+     * @return the newest dictionary
+     */
+    @Override
+    public Dictionary get() {
+        return this.current;
+    }
+
+    /**
+     * Wait for changes to the word file and rebuild after each one.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = this.watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // After an overflow, events were lost and any of them
+                    // may have been for the word file.
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                            this.wordFile.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(SETTLE_MS);
+                    this.reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close() was called.
+        }
+    }
+
+    /**
+     * Read the word file.
+     *
+     * @param strict whether to refuse a file with lines that are not words
+     * @return the dictionary
+     * @throws IOException if the file cannot be read or has no words, or
+     *                     is strictly read and has lines that are not words
+     */
+    private Dictionary read(boolean strict) throws IOException {
+        final Dictionary words = strict ?
+                Dictionary.openStrict(this.wordFile) :
+                Dictionary.open(this.wordFile);
+        if (words.size() == 0) {
+            throw new IOException(this.wordFile + " has no words.");
+        }
+        return words;
+    }
+
+    /**
+     * Build the new version and swap it in. If the file cannot be read,
+     * has no words, or has lines that are not words (as when it is caught
+     * half-written), keep the version we have.
+     */
+    private void reload() {
+        try {
+            this.current = this.read(true);
+        } catch (IOException ioe) {
+            System.err.println("Cannot reload word file (" +
+                    ioe.getMessage() + "); keeping old words.");
+        }
+    }
+
+    /**
+     * Stop watching the word file. The current version stays available.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.watchThread.interrupt();
+        this.watcher.close();
+    }
+}
@@ -0,0 +1,10 @@
+package gurdle;
+
+/**
+ * How hard a secret word is to find, as rated by
+ * {@link gurdle.solver.DifficultyRater}. Each tier holds about a third of
+ * the words.
+ *
+ * @author RIT CS
+ */
+public enum Difficulty {EASY, MEDIUM, HARD}
@@ -0,0 +1,251 @@
+package gurdle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How hard each word of a word list is to find as the secret, read from
+ * the sidecar file that {@link gurdle.solver.DifficultyRater} writes next
+ * to the word file. On loading, the words are ranked and split into the
+ * {@link Difficulty} tiers, one array of word positions per tier, so that
+ * picking a secret of a given difficulty is a single array lookup.
+ * <br><br>
+ * File layout (big-endian):
+ * <pre>
+ * int    MAGIC
+ * short  VERSION
+ * int    number of words
+ * int    the word list's {@link Dictionary#checksum() checksum}
+ * byte[] per word: average guesses needed, in tenths
+ * byte[] per word: most guesses needed
+ * </pre>
+ *
+ * @author RIT CS
+ */
+public final class DifficultyRatings {
+
+    /**
+     * First four bytes of every ratings file ("GDIF")
+     */
+    static final int MAGIC = 0x47444946;
+
+    /**
+     * Format revision; bumped whenever the layout changes
+     */
+    static final short VERSION = 1;
+
+    /**
+     * File name ending of ratings files
+     */
+    public static final String SUFFIX = ".difficulty";
+
+    /**
+     * The ratings last looked up for a word file, the checksum of the words
+     * they were looked up for, and when the sidecar was modified then. The
+     * ratings are null if there were none to be had.
+     *
+     * @param checksum the words' checksum
+     * @param modified the sidecar's modification time, or null if there
+     *                 was no sidecar
+     * @param ratings  the ratings, or null
+     */
+    private record Cached(int checksum, FileTime modified,
+                          DifficultyRatings ratings) {
+    }
+
+    /**
+     * What was last looked up for each word file
+     */
+    private static final Map<Path, Cached> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Checksum of the words these ratings are for
+     */
+    private final int checksum;
+
+    /**
+     * Average guesses needed for each word, in tenths
+     */
+    private final byte[] averages;
+
+    /**
+     * Most guesses needed for each word
+     */
+    private final byte[] worsts;
+
+    /**
+     * For each tier, the positions of its words in the word list
+     */
+    private final int[][] tiers;
+
+    private DifficultyRatings(int checksum, byte[] averages, byte[] worsts) {
+        this.checksum = checksum;
+        this.averages = averages;
+        this.worsts = worsts;
+        // Rank by average, then worst, then position; keep the position in
+        // the low bits so a plain sort of the keys does it.
+        final long[] keys = new long[averages.length];
+        for (int w = 0; w < keys.length; ++w) {
+            keys[w] = (long) (averages[w] & 0xFF) << 48 |
+                    (long) (worsts[w] & 0xFF) << 32 | w;
+        }
+        Arrays.sort(keys);
+        final Difficulty[] levels = Difficulty.values();
+        this.tiers = new int[levels.length][];
+        for (int t = 0; t < levels.length; ++t) {
+            final int from = keys.length * t / levels.length;
+            final int to = keys.length * (t + 1) / levels.length;
+            this.tiers[t] = new int[to - from];
+            for (int k = from; k < to; ++k) {
+                this.tiers[t][k - from] = (int) keys[k];
+            }
+        }
+    }
+
+    /**
+     * Where the ratings for a word file belong
+     *
+     * @param wordFile the text word file
+     * @return the same path, with its extension changed to {@link #SUFFIX}
+     */
+    public static Path sidecarPath(Path wordFile) {
+        final String name = wordFile.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return wordFile.resolveSibling(
+                (dot < 0 ? name : name.substring(0, dot)) + SUFFIX);
+    }
+
+    /**
+     * The ratings for a word list, from the sidecar next to the
+     * {@link Dictionary#source() file it was read from}. The sidecar is
+     * read the first time each version of each file is asked about. While
+     * a version has no ratings, the sidecar is read again whenever it has
+     * changed, so ratings computed for a running program are picked up.
+     *
+     * @param words the word list
+     * @return its ratings, or null if the list was not read from a file or
+     * they have not been computed for exactly this list
+     */
+    public static DifficultyRatings of(Dictionary words) {
+        final Path source = words.source();
+        if (source == null) {
+            return null;
+        }
+        final int checksum = words.checksum();
+        final Cached last = CACHE.get(source);
+        if (last != null && last.checksum == checksum &&
+                last.ratings != null) {
+            return last.ratings;
+        }
+        final Path sidecar = sidecarPath(source);
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(sidecar);
+        } catch (IOException ioe) {
+            modified = null;
+        }
+        if (last != null && last.checksum == checksum &&
+                Objects.equals(last.modified, modified)) {
+            return null;
+        }
+        DifficultyRatings ratings = null;
+        if (modified != null) {
+            try {
+                ratings = load(sidecar);
+                if (ratings.checksum != checksum ||
+                        ratings.averages.length != words.size()) {
+                    ratings = null;
+                }
+            } catch (IOException ioe) {
+                ratings = null;
+            }
+        }
+        CACHE.put(source, new Cached(checksum, modified, ratings));
+        return ratings;
+    }
+
+    /**
+     * Read a ratings file.
+     *
+     * @param path the file
+     * @return the ratings in it
+     * @throws IOException if the file cannot be read or is not a ratings
+     *                     file
+     */
+    public static DifficultyRatings load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException(path + " is not a ratings file.");
+            }
+            final int count = in.readInt();
+            final int checksum = in.readInt();
+            final byte[] averages = new byte[count];
+            final byte[] worsts = new byte[count];
+            in.readFully(averages);
+            in.readFully(worsts);
+            return new DifficultyRatings(checksum, averages, worsts);
+        }
+    }
+
+    /**
+     * Write a ratings file.
+     *
+     * @param path     where to write it
+     * @param words    the word list that was rated
+     * @param averages average guesses needed for each word, in tenths
+     * @param worsts   most guesses needed for each word
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Dictionary words, byte[] averages,
+                             byte[] worsts) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(path))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(words.size());
+            out.writeInt(words.checksum());
+            out.write(averages);
+            out.write(worsts);
+        }
+    }
+
+    /**
+     * The words of one difficulty
+     *
+     * @param difficulty the tier
+     * @return positions in the word list of the words in that tier; not to
+     * be modified
+     */
+    public int[] tier(Difficulty difficulty) {
+        return this.tiers[difficulty.ordinal()];
+    }
+
+    /**
+     * How many guesses a word needs on average
+     *
+     * @param word the word's position in the word list
+     * @return the average over the reference strategies
+     */
+    public double average(int word) {
+        return (this.averages[word] & 0xFF) / 10.0;
+    }
+
+    /**
+     * The most guesses a word needs
+     *
+     * @param word the word's position in the word list
+     * @return the worst of the reference strategies
+     */
+    public int worst(int word) {
+        return this.worsts[word] & 0xFF;
+    }
+}
@@ -0,0 +1,165 @@
+package gurdle;
+
+/**
+ * The coloring of a guess against a secret, packed into a single number.
+ * The rules are exactly those applied by {@link Model#confirmGuess()}:
+ * a letter in the same spot as in the secret is {@link
+ * CharChoice.Status#RIGHT_POS}, otherwise a letter found anywhere in the
+ * secret is {@link CharChoice.Status#WRONG_POS}, otherwise it is not in the
+ * word at all.
+ * <br><br>
+ * A pattern is a base-3 number with one digit per letter position,
+ * position 0 being the least significant digit:
+ * 0 = not in the word, 1 = wrong position, 2 = right position.
+ *
+ * @author RIT CS
+ */
+public final class Feedback {
+
+    /**
+     * How many different patterns a guess can produce
+     */
+    public static final int NUM_PATTERNS = pow3(Model.WORD_SIZE);
+
+    /**
+     * The pattern of a guess that is the secret itself
+     */
+    public static final int ALL_RIGHT = NUM_PATTERNS - 1;
+
+    /**
+     * Picks one letter out of a packed code
+     */
+    private static final int LETTER_MASK = (1 << WordCodes.BITS_PER_LETTER) - 1;
+
+    /**
+     * Place values of each letter position
+     */
+    private static final int[] WEIGHTS = new int[Model.WORD_SIZE];
+
+    static {
+        for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+            WEIGHTS[pos] = pow3(pos);
+        }
+    }
+
+    /**
+     * No instances; this is a utility class.
+     */
+    private Feedback() {
+    }
+
+    private static int pow3(int exp) {
+        int result = 1;
+        for (int i = 0; i < exp; ++i) {
+            result *= 3;
+        }
+        return result;
+    }
+
+    /**
+     * Color a guess.
+     *
+     * @param guess  the word the player entered
+     * @param secret the word the player is trying to guess
+     * @return the pattern the player would see
+     */
+    public static int score(String guess, String secret) {
+        int pattern = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            final char ch = guess.charAt(c);
+            if (ch == secret.charAt(c)) {
+                pattern += 2 * WEIGHTS[c];
+            } else if (secret.indexOf(ch) >= 0) {
+                pattern += WEIGHTS[c];
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * The letters a word contains, as a bit set
+     *
+     * @param code the word's {@link WordCodes packed code}
+     * @return bit n is set if letter n of the alphabet is in the word
+     */
+    public static int letterMask(int code) {
+        int mask = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            mask |= 1 << (code & LETTER_MASK);
+            code >>>= WordCodes.BITS_PER_LETTER;
+        }
+        return mask;
+    }
+
+    /**
+     * Color a guess, working on packed codes. This gives the same answer
+     * as {@link #score(String, String)} but allocates nothing and does
+     * not search the secret for each letter.
+     *
+     * @param guess      the guess's {@link WordCodes packed code}
+     * @param secret     the secret's packed code
+     * @param secretMask the secret's {@link #letterMask(int) letter mask}
+     * @return the pattern the player would see
+     */
+    public static int score(int guess, int secret, int secretMask) {
+        int pattern = 0;
+        // Codes hold the last letter in the lowest bits.
+        for (int c = Model.WORD_SIZE - 1; c >= 0; --c) {
+            final int g = guess & LETTER_MASK;
+            if (g == (secret & LETTER_MASK)) {
+                pattern += 2 * WEIGHTS[c];
+            } else if ((secretMask & (1 << g)) != 0) {
+                pattern += WEIGHTS[c];
+            }
+            guess >>>= WordCodes.BITS_PER_LETTER;
+            secret >>>= WordCodes.BITS_PER_LETTER;
+        }
+        return pattern;
+    }
+
+    /**
+     * The digit used in a pattern for a letter's status
+     *
+     * @param status the coloring of one letter
+     * @return 0, 1, or 2
+     */
+    static int digit(CharChoice.Status status) {
+        return switch (status) {
+            case RIGHT_POS -> 2;
+            case WRONG_POS -> 1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * What status does a pattern give one letter position?
+     *
+     * @param pattern the whole pattern
+     * @param pos     which letter position ("column")
+     * @return the status; letters not in the word are {@link
+     * CharChoice.Status#WRONG}
+     */
+    public static CharChoice.Status status(int pattern, int pos) {
+        return switch (pattern / WEIGHTS[pos] % 3) {
+            case 2 -> CharChoice.Status.RIGHT_POS;
+            case 1 -> CharChoice.Status.WRONG_POS;
+            default -> CharChoice.Status.WRONG;
+        };
+    }
+
+    /**
+     * Write a pattern out one digit per letter position, position 0
+     * first, e.g. for logs.
+     *
+     * @param pattern the pattern
+     * @return its digits: 0 = not in the word, 1 = wrong position,
+     * 2 = right position
+     */
+    public static String toString(int pattern) {
+        final char[] digits = new char[Model.WORD_SIZE];
+        for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+            digits[pos] = (char) ('0' + pattern / WEIGHTS[pos] % 3);
+        }
+        return new String(digits);
+    }
+}
@@ -1,11 +1,23 @@
 package gurdle;
 
+import gurdle.jfr.GuessEvent;
+import gurdle.jfr.IllegalWordEvent;
+import gurdle.jfr.NewGameEvent;
+import gurdle.jfr.NotifyEvent;
+import gurdle.solver.DecisionTree;
 import util.Observer;
+import util.ObserverRegistry;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * The model for the wordle game
@@ -19,16 +31,46 @@ public class Model {
 
     // ******** The Observable Section ********
 
-    private final List<Observer<Model, String>> observers =
-            new LinkedList<>();
+    private final ObserverRegistry<Model, String> observers =
+            new ObserverRegistry<>();
 
     public void addObserver(Observer<Model, String> obs) {
         this.observers.add(obs);
     }
 
+    /**
+     * Register an observer without keeping it alive, for hosts where
+     * views and connections come and go while the game lives on. Once
+     * nothing else refers to the observer it is no longer notified.
+     *
+     * @param obs the observer; a lambda must also be kept by its owner
+     * @see ObserverRegistry#addWeak(Observer)
+     */
+    public void addWeakObserver(Observer<Model, String> obs) {
+        this.observers.addWeak(obs);
+    }
+
+    /**
+     * Stop notifying an observer, however it was added.
+     *
+     * @param obs the observer
+     * @return false if it was not an observer of this game
+     */
+    public boolean removeObserver(Observer<Model, String> obs) {
+        return this.observers.remove(obs);
+    }
+
     public void notifyObservers(String message) {
         for (Observer<Model, String> obs : this.observers) {
+            final NotifyEvent event = new NotifyEvent();
+            event.begin();
             obs.update(this, message);
+            event.end();
+            if (event.shouldCommit()) {
+                event.observer = obs.getClass();
+                event.message = message;
+                event.commit();
+            }
         }
     }
 
@@ -62,9 +104,11 @@ public class Model {
     private int charPos;
 
     /**
-     * A list (really a multiset) of letters used in all the guesses.
+     * A multiset of letters used in all the guesses: how many times each
+     * one is on the board, indexed by its byte there (see
+     * {@link Alphabet#toByte(char)}).
      */
-    List<Character> lettersUsed;
+    final int[] lettersUsed = new int[Byte.MAX_VALUE + 1];
 
     /**
      * The word the player is trying to guess
@@ -72,16 +116,57 @@ public class Model {
     private String secret;
 
     /**
-     * The grid of guesses' letters.
+     * The grid of guesses' letters, one byte per square, row by row, as
+     * the game's {@link Alphabet#toByte(char) alphabet} encodes them.
      * (View uses this in conjunction with attempt number and position.)
+     * The same array is reused for every game.
+     */
+    private final byte[] letters;
+
+    /**
+     * Scratch space for the secret's letters as the board encodes them,
+     * so that scoring a guess compares bytes with bytes
+     */
+    private final byte[] secretLetters = new byte[WORD_SIZE];
+
+    /**
+     * The status of every square, two bits each (the status's ordinal),
+     * packed in the same order as {@link #letters}
+     */
+    private final long[] statuses;
+
+    /**
+     * Read-only views of the squares, handed out by {@link #get(int, int)}
+     */
+    private final CharChoice[] squares;
+
+    /**
+     * What an unused square holds
+     */
+    private static final byte EMPTY_LETTER = ' ';
+
+    /**
+     * Cached, since {@link CharChoice.Status#values()} copies its result
+     */
+    private static final CharChoice.Status[] STATUSES =
+            CharChoice.Status.values();
+
+    /**
+     * Bits used for each square's status
      */
-    private final CharChoice[][] guessLetters;
+    private static final int STATUS_BITS = 2;
 
     /**
-     * Words from which the next secret is chosen, and used to check for
-     * illegal words entered by the player
+     * Where each new game gets its words from
      */
-    private final List<String> legalWords;
+    private final Supplier<Dictionary> dictionaries;
+
+    /**
+     * Words from which this game's secret was chosen, and used to check for
+     * illegal words entered by the player. A game keeps the version it
+     * started with even if the word list is reloaded meanwhile.
+     */
+    private Dictionary legalWords;
 
     /**
      * Game's current state
@@ -97,41 +182,247 @@ public class Model {
             ));
 
     /**
-     * Used to randomly pick the next secret word.
+     * Used to pick the next secret word without repeats.
+     */
+    private final SecretScheduler secrets;
+
+    /**
+     * Numbers the games dealt, so that each has its own
+     * {@link #gameId() id}
+     */
+    private static final AtomicLong GAME_IDS = new AtomicLong();
+
+    /**
+     * Where the game stood after the last row was scored. Its chain of
+     * previous positions is the game's undo history. Letters typed into
+     * the next row are only on the board; {@link #position()} adds them.
      */
-    private final Random rng;
+    private Position position;
 
     /**
-     * Read in the list of words, initialize the random number generator,
+     * Positions undone, most recent first, for {@link #redo()}
+     */
+    private final Deque<Position> undone = new ArrayDeque<>();
+
+    /**
+     * Read in the list of words, initialize the secret scheduler,
      * and allocate space to record the letters of the guesses.
      * A game is not ready to be played until {@link #newGame()} or
      * {@link #newGame(String)} is called.
      */
     public Model() {
-        this.legalWords = new ArrayList<>(2000);
-        try (BufferedReader wFile = new BufferedReader(
-                new FileReader(WORD_FILE_NAME)
-        )
-        ) {
-            String word;
-            while ((word = wFile.readLine()) != null) {
-                this.legalWords.add(word);
-            }
+        this(readWordFile());
+    }
+
+    /**
+     * Like {@link #Model()}, but take the words from somewhere that may
+     * change them between games, such as a {@link DictionaryReloader}.
+     *
+     * @param dictionaries supplies the words for each new game
+     */
+    public Model(Supplier<Dictionary> dictionaries) {
+        this(dictionaries, new SecretScheduler());
+    }
+
+    /**
+     * Like {@link #Model(Supplier)}, but with a chosen scheduler, e.g. one
+     * with a known seed so that a session's secrets can be reproduced.
+     *
+     * @param dictionaries supplies the words for each new game
+     * @param secrets      picks the secret for each new game
+     */
+    public Model(Supplier<Dictionary> dictionaries, SecretScheduler secrets) {
+        this.dictionaries = dictionaries;
+        this.legalWords = dictionaries.get();
+        this.secrets = secrets;
+        this.letters = new byte[NUM_TRIES * WORD_SIZE];
+        this.statuses = new long[
+                (this.letters.length * STATUS_BITS + Long.SIZE - 1) / Long.SIZE];
+        this.squares = new CharChoice[this.letters.length];
+        for (int square = 0; square < this.squares.length; ++square) {
+            this.squares[square] = new Square(square);
+        }
+    }
+
+    /**
+     * A window onto one square of the board. It allocates nothing and
+     * always shows what the board holds now.
+     */
+    private final class Square extends CharChoice {
+        private final int square;
+
+        Square(int square) {
+            this.square = square;
+        }
+
+        @Override
+        public char getChar() {
+            return Model.this.charAt(this.square);
+        }
+
+        @Override
+        public Status getStatus() {
+            return Model.this.status(this.square);
+        }
+
+        @Override
+        public void setChar(char ch) {
+            throw new UnsupportedOperationException("The board is read-only.");
+        }
+
+        @Override
+        public void setStatus(Status status) {
+            throw new UnsupportedOperationException("The board is read-only.");
+        }
+    }
+
+    /**
+     * Where a square lives in {@link #letters}
+     *
+     * @param row which guess ("row")
+     * @param pos which letter position ("column")
+     * @return the square's index
+     */
+    private static int square(int row, int pos) {
+        return row * WORD_SIZE + pos;
+    }
+
+    /**
+     * The letter in a square
+     *
+     * @param square the square's index
+     * @return the letter, or a blank
+     */
+    private char charAt(int square) {
+        return this.legalWords.alphabet().fromByte(this.letters[square]);
+    }
+
+    /**
+     * Count the letter in a square into or out of
+     * {@link #lettersUsed}.
+     *
+     * @param square the square's index
+     * @param delta  1 if the letter was put on the board, -1 if it was
+     *               taken off
+     */
+    private void useLetter(int square, int delta) {
+        this.lettersUsed[this.letters[square] & Byte.MAX_VALUE] += delta;
+    }
+
+    /**
+     * Look up a square's status.
+     *
+     * @param square the square's index
+     * @return its status
+     */
+    private CharChoice.Status status(int square) {
+        final int bit = square * STATUS_BITS;
+        return STATUSES[(int) (this.statuses[bit / Long.SIZE] >>>
+                (bit % Long.SIZE)) & ((1 << STATUS_BITS) - 1)];
+    }
+
+    /**
+     * Change a square's status.
+     *
+     * @param square the square's index
+     * @param status its new status
+     */
+    private void setStatus(int square, CharChoice.Status status) {
+        final int bit = square * STATUS_BITS;
+        final long mask = ((1L << STATUS_BITS) - 1) << (bit % Long.SIZE);
+        this.statuses[bit / Long.SIZE] =
+                (this.statuses[bit / Long.SIZE] & ~mask) |
+                        ((long) status.ordinal() << (bit % Long.SIZE));
+    }
+
+    /**
+     * Blank out one row of the board.
+     *
+     * @param row which guess ("row")
+     */
+    private void clearRow(int row) {
+        for (int pos = 0; pos < WORD_SIZE; ++pos) {
+            this.letters[square(row, pos)] = EMPTY_LETTER;
+            this.setStatus(square(row, pos), CharChoice.Status.EMPTY);
+        }
+    }
+
+    /**
+     * The word file games are played with:
+     * {@link #WORD_FILE_NAME}, unless the <code>gurdle.words</code> system
+     * property names another, such as a list in another {@link Alphabet}
+     *
+     * @return the word file's path
+     */
+    public static Path wordFile() {
+        return Path.of(System.getProperty("gurdle.words", WORD_FILE_NAME));
+    }
+
+    /**
+     * Read the {@link #wordFile() word file} once, for models whose words
+     * never change.
+     *
+     * @return a supplier that always gives the same dictionary
+     */
+    private static Supplier<Dictionary> readWordFile() {
+        try {
+            final Dictionary words = Dictionary.open(wordFile());
+            return () -> words;
         } catch (IOException ioe) {
             System.err.println("Cannot read word file.");
             System.exit(1);
+            return null;
         }
-        this.rng = new Random();
-        this.guessLetters = new CharChoice[NUM_TRIES][WORD_SIZE];
-        this.lettersUsed = new LinkedList<>();
     }
 
     /**
      * Start a new game: pick new word, clear out all previous attempts.
+     * If the word list has been rated, the word may be of any
+     * difficulty, but is not one already dealt for a chosen difficulty.
      */
     public void newGame() {
-        this.secret = this.legalWords.get(rng.nextInt(this.legalWords.size()));
-        newGameUtil();
+        final NewGameEvent event = new NewGameEvent();
+        event.begin();
+        this.legalWords = this.dictionaries.get();
+        final DifficultyRatings ratings = DifficultyRatings.of(this.legalWords);
+        this.secret = this.legalWords.get(ratings == null ?
+                this.secrets.next(this.legalWords.size()) :
+                this.secrets.next(ratings, null));
+        newGameUtil(event, "random");
+    }
+
+    /**
+     * Start a new game whose secret is of a chosen difficulty. The secret
+     * comes from that tier of the {@link DifficultyRatings} for this word
+     * list, so choosing it costs no more than {@link #newGame()}. If the
+     * word list has not been rated, any word may be chosen.
+     *
+     * @param difficulty how hard the secret should be to find
+     */
+    public void newGame(Difficulty difficulty) {
+        final NewGameEvent event = new NewGameEvent();
+        event.begin();
+        this.legalWords = this.dictionaries.get();
+        final DifficultyRatings ratings = DifficultyRatings.of(this.legalWords);
+        this.secret = this.legalWords.get(ratings == null ?
+                this.secrets.next(this.legalWords.size()) :
+                this.secrets.next(ratings, difficulty));
+        newGameUtil(event, difficulty.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Start the daily puzzle: every player gets the same word on the same
+     * date.
+     *
+     * @param date the day whose puzzle is wanted
+     */
+    public void newDailyGame(LocalDate date) {
+        final NewGameEvent event = new NewGameEvent();
+        event.begin();
+        this.legalWords = this.dictionaries.get();
+        this.secret = this.legalWords.get(
+                SecretScheduler.daily(date, this.legalWords.size()));
+        newGameUtil(event, "daily");
     }
 
     /**
@@ -141,24 +432,37 @@ public class Model {
      * @param mandatedSecret the secret word to be used
      */
     public void newGame(String mandatedSecret) {
+        final NewGameEvent event = new NewGameEvent();
+        event.begin();
+        this.legalWords = this.dictionaries.get();
         this.secret = mandatedSecret;
-        newGameUtil();
+        newGameUtil(event, "mandated");
     }
 
     /**
      * What must be done regardless of which newGame method was called
+     *
+     * @param event the flight recorder event the caller began
+     * @param kind  how the secret was chosen, for the event
      */
-    private void newGameUtil() {
+    private void newGameUtil(NewGameEvent event, String kind) {
         this.attemptNum = 0;
         this.charPos = 0;
-        this.lettersUsed.clear();
+        Arrays.fill(this.lettersUsed, 0);
         for (int attemptNum = 0; attemptNum < NUM_TRIES; ++attemptNum) {
-            for (int pos = 0; pos < WORD_SIZE; ++pos) {
-                this.guessLetters[attemptNum][pos] = new CharChoice();
-            }
+            this.clearRow(attemptNum);
         }
         this.gameState = GameState.ONGOING;
+        this.position = Position.start(this.secret, this.legalWords,
+                GAME_IDS.incrementAndGet());
+        this.undone.clear();
         this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.dictionarySize = this.legalWords.size();
+            event.commit();
+        }
     }
 
     // ******** character-by-character guesses
@@ -173,10 +477,12 @@ public class Model {
         // Ignore extra letters
         if (this.gameState == GameState.ONGOING &&
                 this.charPos < Model.WORD_SIZE) {
-            this.guessLetters[attemptNum][this.charPos].setChar(guessChar);
-            this.lettersUsed.add(guessChar);
-            this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+            final int square = square(this.attemptNum, this.charPos);
+            this.letters[square] = this.legalWords.alphabet().toByte(guessChar);
+            this.useLetter(square, 1);
             this.charPos += 1;
+            this.undone.clear();
+            this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
         }
     }
 
@@ -185,62 +491,108 @@ public class Model {
      * reset the counters, and notify the observers to re-display.
      */
     private void illegalWordCleanup() {
+        final IllegalWordEvent event = new IllegalWordEvent();
+        event.begin();
+        final int typed = this.charPos;
         this.gameState = GameState.ILLEGAL_WORD;
-        for (int p = 0; p < Model.WORD_SIZE; ++p) {
-            this.lettersUsed.remove(
-                    Character.valueOf(
-                            this.guessLetters[this.attemptNum][p].getChar()
-                    )
-            );
-            this.guessLetters[this.attemptNum][p] = new CharChoice();
+        for (int p = 0; p < typed; ++p) {
+            this.useLetter(square(this.attemptNum, p), -1);
         }
+        this.clearRow(this.attemptNum);
         this.charPos = 0;
         this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
         this.gameState = GameState.ONGOING;
+        event.end();
+        if (event.shouldCommit()) {
+            event.attempt = this.attemptNum + 1;
+            event.letters = typed;
+            event.commit();
+        }
     }
 
     /**
      * Controller tells model that the player has indicated they have entered
      * all the letters of a guess, and that the guess should be evaluated.
+     * Each call is recorded as a {@link GuessEvent} while Flight Recorder
+     * is on.
      */
     public void confirmGuess() {
+        final GuessEvent event = new GuessEvent();
+        event.begin();
+        final int attempt = this.attemptNum;
+        if (event.isEnabled() && this.gameState == GameState.ONGOING) {
+            event.guess = this.guessWord(attempt).strip();
+        }
+        final int pattern = this.scoreGuess();
+        event.end();
+        if (event.shouldCommit()) {
+            event.attempt = attempt + 1;
+            event.result = pattern >= 0 ? Feedback.toString(pattern) : null;
+            event.state = pattern == REJECTED ?
+                    GameState.ILLEGAL_WORD.name() : this.gameState.name();
+            event.commit();
+        }
+        if (pattern == REJECTED) {
+            this.illegalWordCleanup();
+        } else if (pattern >= 0) {
+            this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+        }
+    }
+
+    /**
+     * What {@link #scoreGuess()} returns for a row that is not a legal word
+     */
+    private static final int REJECTED = -1;
+
+    /**
+     * What {@link #scoreGuess()} returns when the game is already over
+     */
+    private static final int NOT_PLAYING = -2;
+
+    /**
+     * Check and score the current row, as {@link #confirmGuess()} says.
+     * Observers are not told; the caller does that.
+     *
+     * @return the row's pattern (see {@link Feedback}), {@link #REJECTED}
+     * if the row must be cleared as illegal, or {@link #NOT_PLAYING} if the
+     * game is over
+     */
+    private int scoreGuess() {
         if (this.gameState != GameState.WON &&
                 this.gameState != GameState.LOST) { // Ongoing game
             if (this.charPos != Model.WORD_SIZE) { // unfinished guess
-                illegalWordCleanup();
+                return REJECTED;
             } else { // correct size guess
-                final CharChoice[] attempt =
-                        this.guessLetters[this.attemptNum];
+                final int row = square(this.attemptNum, 0);
                 // Check if legal
-                StringBuilder attemptSB = new StringBuilder();
-                for (CharChoice ch : attempt)
-                    attemptSB.append(ch.getChar());
-                String attemptStr = String.valueOf(attemptSB);
-                if (this.legalWords.contains(attemptStr)) { // legal guess
+                final int attemptCode = WordCodes.pack(this.letters, row);
+                if (this.legalWords.contains(attemptCode)) { // legal guess
+                    final Alphabet alphabet = this.legalWords.alphabet();
+                    final byte[] secretLetters = this.secretLetters;
+                    for (int s = 0; s < WORD_SIZE; ++s) {
+                        secretLetters[s] =
+                                alphabet.toByte(this.secret.charAt(s));
+                    }
+                    boolean match = true;
                     // For each letter in the guess...
                     for (int c = 0; c < WORD_SIZE; ++c) {
-                        final CharChoice attemptCh = attempt[c];
+                        final byte attemptCh = this.letters[row + c];
                         // Level 1: See if the secret word contains the letter.
                         for (int s = 0; s < WORD_SIZE; ++s) {
-                            if (attemptCh.getChar() ==
-                                    this.secret.charAt(s)) {
-                                attemptCh.setStatus(
+                            if (attemptCh == secretLetters[s]) {
+                                this.setStatus(row + c,
                                         CharChoice.Status.WRONG_POS);
                             }
                         }
                         // Level 2: See if this letter is in the right spot.
-                        if (attemptCh.getChar() == this.secret.charAt(c)) {
-                            attemptCh.setStatus(CharChoice.Status.RIGHT_POS);
+                        if (attemptCh == secretLetters[c]) {
+                            this.setStatus(row + c,
+                                    CharChoice.Status.RIGHT_POS);
+                        } else {
+                            // Level 3: All the letters must match exactly.
+                            match = false;
                         }
                     }
-                    // Level 3: See if all the letters match exactly.
-                    boolean match = Arrays.stream(
-                                    this.guessLetters[this.attemptNum])
-                            .map(choice ->
-                                    choice.getStatus() ==
-                                            CharChoice.Status.RIGHT_POS
-                            )
-                            .reduce(true, (x, y) -> x && y);
 
                     if (match) {
                         this.gameState = GameState.WON;
@@ -254,13 +606,181 @@ public class Model {
 
                     this.charPos = 0;
                     this.attemptNum += 1;
-                    this.notifyObservers(
-                            Model.STATE_MSGS.get(this.gameState));
+                    final int pattern = this.guessPattern(this.attemptNum - 1);
+                    this.advance(this.position.scored(attemptCode, pattern,
+                            this.gameState));
+                    return pattern;
                 } else { // illegal word entered by user
-                    this.illegalWordCleanup();
+                    return REJECTED;
                 }
             }
         }
+        return NOT_PLAYING;
+    }
+
+    // ******** undo, redo, and branching ********
+
+    /**
+     * Make a move's position the current one. Anything undone can no
+     * longer be redone.
+     *
+     * @param next the position after the move
+     */
+    private void advance(Position next) {
+        if (next != this.position) {
+            this.position = next;
+            this.undone.clear();
+        }
+    }
+
+    /**
+     * Lay out the board as a position describes it.
+     *
+     * @param position the position to show
+     */
+    private void load(Position position) {
+        this.position = position.typedCount() > 0 ?
+                position.previous() : position;
+        this.legalWords = position.words();
+        this.secret = position.secret();
+        this.gameState = position.state();
+        this.attemptNum = position.attempts();
+        this.charPos = position.typedCount();
+        Arrays.fill(this.lettersUsed, 0);
+        for (int row = 0; row < NUM_TRIES; ++row) {
+            this.clearRow(row);
+        }
+        int row = this.attemptNum;
+        for (Position.Row r = position.rows(); r != null; r = r.previous()) {
+            row -= 1;
+            for (int pos = 0; pos < WORD_SIZE; ++pos) {
+                final int shift =
+                        WordCodes.BITS_PER_LETTER * (WORD_SIZE - 1 - pos);
+                this.letters[square(row, pos)] = (byte) ('A' +
+                        (r.code() >>> shift & (Alphabet.MAX_SIZE - 1)));
+                this.useLetter(square(row, pos), 1);
+                final CharChoice.Status status =
+                        Feedback.status(r.pattern(), pos);
+                this.setStatus(square(row, pos),
+                        status == CharChoice.Status.WRONG ?
+                                CharChoice.Status.EMPTY : status);
+            }
+        }
+        for (int pos = 0; pos < this.charPos; ++pos) {
+            this.letters[square(this.attemptNum, pos)] =
+                    position.typedByte(pos);
+            this.useLetter(square(this.attemptNum, pos), 1);
+        }
+    }
+
+    /**
+     * Take back the last letter typed into the next row, or if there are
+     * none the last row scored. Does nothing at the start of a game.
+     */
+    public void undo() {
+        if (this.canUndo()) {
+            final Position now = this.position();
+            if (this.charPos > 0) {
+                this.charPos -= 1;
+                final int square = square(this.attemptNum, this.charPos);
+                this.useLetter(square, -1);
+                this.letters[square] = EMPTY_LETTER;
+            } else {
+                this.load(this.position.previous());
+            }
+            this.undone.push(now);
+            this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+        }
+    }
+
+    /**
+     * Put back the last move undone. Does nothing if nothing was undone
+     * since the last move.
+     */
+    public void redo() {
+        if (!this.undone.isEmpty()) {
+            this.load(this.undone.pop());
+            this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+        }
+    }
+
+    /**
+     * Is there a move to undo?
+     *
+     * @return true unless this is the start of a game
+     */
+    public boolean canUndo() {
+        return this.charPos > 0 ||
+                this.position != null && this.position.previous() != null;
+    }
+
+    /**
+     * Is there a move to redo?
+     *
+     * @return true if moves have been undone since the last move
+     */
+    public boolean canRedo() {
+        return !this.undone.isEmpty();
+    }
+
+    /**
+     * Where does the game stand? Positions are immutable and cheap to
+     * keep, so an analyst can hold on to as many as it likes and come
+     * back to any of them with {@link #restore(Position)}.
+     * <br><br>
+     * Only scored rows are kept as positions as the game goes on; if
+     * letters have been typed into the next row, a position holding them
+     * is made now.
+     *
+     * @return the current position
+     */
+    public Position position() {
+        if (this.charPos == 0) {
+            return this.position;
+        }
+        long typed = 0;
+        for (int pos = 0; pos < this.charPos; ++pos) {
+            typed |= (long) (this.letters[square(this.attemptNum, pos)] &
+                    0xFF) << Byte.SIZE * pos;
+        }
+        return this.position.typed(typed, this.charPos);
+    }
+
+    /**
+     * Which deal is this? Every new game gets its own id; undoing,
+     * redoing and forking keep it.
+     *
+     * @return the game's id
+     */
+    public long gameId() {
+        return this.position.game();
+    }
+
+    /**
+     * Go to any position, e.g. one saved earlier from this or another
+     * model. Its history comes with it, so it can be undone from; nothing
+     * can be redone.
+     *
+     * @param position where to go
+     */
+    public void restore(Position position) {
+        this.undone.clear();
+        this.load(position);
+        this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+    }
+
+    /**
+     * Start a second game that carries on from this one's current
+     * position, history included, so that other guesses can be tried.
+     * The two games share their positions; nothing is copied. Observers
+     * are not copied either.
+     *
+     * @return the new game
+     */
+    public Model fork() {
+        Model branch = new Model(this.dictionaries, new SecretScheduler());
+        branch.load(this.position());
+        return branch;
     }
 
     // ******** full-string-at-once guesses ********
@@ -281,9 +801,9 @@ public class Model {
          *   else,
          *     Using this.attemptNum as the row number, make a loop to copy
          *       each character of the guess into the CharChoice instance at
-         *       the appropriate spot in the guess matrix this.guessLetters.
+         *       the appropriate spot in the guess grid this.letters.
          *       (Do not mess with the CharChoice status here.)
-         *       Add each character to the List this.lettersUsed
+         *       Count each character in this.lettersUsed
          *           (useful to the GUI).
          *     this.charPos = guess.length(); // => a word has been entered.
          *     this.confirmGuess(); // <-- checks the guess
@@ -294,10 +814,11 @@ public class Model {
                 this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
                 this.gameState = GameState.ONGOING;
             } else {
-                String[] g = guess.split("");
+                final Alphabet alphabet = this.legalWords.alphabet();
                 for (int i = 0; i < Model.WORD_SIZE; i++) {
-                    this.guessLetters[attemptNum][i].setChar(g[i].charAt(0));
-                    this.lettersUsed.add(g[i].charAt(0));
+                    this.letters[square(this.attemptNum, i)] =
+                            alphabet.toByte(guess.charAt(i));
+                    this.useLetter(square(this.attemptNum, i), 1);
                 }
                 this.charPos = guess.length();
                 this.confirmGuess();
@@ -305,6 +826,37 @@ public class Model {
         }
     }
 
+    /**
+     * Make a complete guess given as a {@link WordCodes packed code}, as
+     * {@link #enterNewGuess(String)} does, without making a string. This
+     * is for hosts that carry guesses as codes from end to end.
+     *
+     * @param code the guess, packed in this game's alphabet; codes that
+     *             are not words (such as {@link WordCodes#NOT_A_WORD}) are
+     *             illegal
+     */
+    public void enterNewGuess(int code) {
+        if (this.gameState == GameState.ONGOING) {
+            if (code < 0 || code >>> WordCodes.BITS_PER_LETTER * WORD_SIZE
+                    != 0) {
+                this.gameState = GameState.ILLEGAL_WORD;
+                this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+                this.gameState = GameState.ONGOING;
+            } else {
+                for (int pos = 0; pos < WORD_SIZE; ++pos) {
+                    final int square = square(this.attemptNum, pos);
+                    final int shift =
+                            WordCodes.BITS_PER_LETTER * (WORD_SIZE - 1 - pos);
+                    this.letters[square] = (byte) ('A' +
+                            (code >>> shift & (Alphabet.MAX_SIZE - 1)));
+                    this.useLetter(square, 1);
+                }
+                this.charPos = WORD_SIZE;
+                this.confirmGuess();
+            }
+        }
+    }
+
     // ******** Queries, for View ********
 
     /**
@@ -325,7 +877,97 @@ public class Model {
      * @return the letter at the specified position
      */
     public CharChoice get(int guessNum, int pos) {
-        return this.guessLetters[guessNum][pos];
+        return this.squares[square(guessNum, pos)];
+    }
+
+    /**
+     * Spell out one row of the board.
+     *
+     * @param guessNum which guess ("row")
+     * @return the letters of that row as a word
+     */
+    public String guessWord(int guessNum) {
+        final char[] word = new char[WORD_SIZE];
+        for (int pos = 0; pos < WORD_SIZE; ++pos) {
+            word[pos] = this.charAt(square(guessNum, pos));
+        }
+        return new String(word);
+    }
+
+    /**
+     * The pattern (see {@link Feedback}) shown by one scored row
+     *
+     * @param guessNum which guess ("row"); must be less than
+     *                 {@link #numAttempts()}
+     * @return the row's pattern
+     */
+    public int guessPattern(int guessNum) {
+        int pattern = 0;
+        for (int pos = WORD_SIZE - 1; pos >= 0; --pos) {
+            pattern = pattern * 3 +
+                    Feedback.digit(this.status(square(guessNum, pos)));
+        }
+        return pattern;
+    }
+
+    /**
+     * Could the letters typed so far in the current row still become a
+     * legal word? Lets a view flag a dead end as soon as it is typed,
+     * instead of at {@link #confirmGuess()}.
+     *
+     * @return true if some word in this game's list starts with them (or
+     * nothing has been typed yet); false if no word does, or the game is
+     * over
+     */
+    public boolean isViablePrefix() {
+        return this.gameState == GameState.ONGOING &&
+                this.legalWords.countPrefixed(this.letters,
+                        square(this.attemptNum, 0), this.charPos) > 0;
+    }
+
+    /**
+     * Which legal words start with the letters typed so far in the
+     * current row?
+     *
+     * @param limit the most words wanted
+     * @return up to limit words, in alphabetical order; empty if the game
+     * is over
+     */
+    public List<String> completions(int limit) {
+        if (this.gameState != GameState.ONGOING) {
+            return List.of();
+        }
+        return this.legalWords.completions(this.letters,
+                square(this.attemptNum, 0), this.charPos, limit);
+    }
+
+    /**
+     * Look up the words of this game's list that fit a pattern, such as
+     * <code>A?E??</code>; see {@link WordQuery} for how to write one.
+     * The stream does the work as it is read, from bit set indexes, so
+     * taking the first few matches is quick in any size of list.
+     *
+     * @param pattern  what each position may hold
+     * @param required letters that must appear, or {@link WordQuery#NONE}
+     * @param excluded letters that must not appear, or
+     *                 {@link WordQuery#NONE}
+     * @return the matching words, in word file order
+     * @throws IllegalArgumentException if the query cannot be read
+     */
+    public Stream<String> search(String pattern, String required,
+                                 String excluded) {
+        final Dictionary words = this.legalWords;
+        return words.search(WordQuery.parse(pattern, required, excluded,
+                words.alphabet())).mapToObj(words::get);
+    }
+
+    /**
+     * Which words is this game being played with?
+     *
+     * @return the version of the word list the game started with
+     */
+    public Dictionary words() {
+        return this.legalWords;
     }
 
     /**
@@ -335,7 +977,9 @@ public class Model {
      * method that was not later cleared because it was in an illegal word
      */
     public boolean usedLetter(char ch) {
-        return this.lettersUsed.contains(ch);
+        final byte letter = this.legalWords.alphabet().toByte(ch);
+        return letter != Alphabet.NOT_A_LETTER &&
+                this.lettersUsed[letter] > 0;
     }
 
     /**
@@ -347,6 +991,167 @@ public class Model {
         return this.secret;
     }
 
+    /**
+     * What is the best guess to make next, according to the precomputed
+     * {@link DecisionTree}? The rows played so far are followed down the
+     * tree; nothing is computed here.
+     *
+     * @return the suggested guess, or null if the game is over, no tree has
+     * been built for this game's word list, the game is not in
+     * {@link Alphabet#LATIN} (the tree is built from the Latin word list),
+     * or the player has strayed from the tree's guesses
+     */
+    public String bestNextGuess() {
+        final DecisionTree tree = DecisionTree.of(this.legalWords);
+        if (this.gameState != GameState.ONGOING || tree == null ||
+                this.legalWords.alphabet() != Alphabet.LATIN) {
+            return null;
+        }
+        int node = tree.root();
+        for (int row = 0; row < this.attemptNum; ++row) {
+            if (!tree.guess(node).equals(this.guessWord(row))) {
+                return null;
+            }
+            node = tree.child(node, this.guessPattern(row));
+            if (node < 0) {
+                return null;
+            }
+        }
+        return tree.guess(node);
+    }
+
+    // ******** Saving and restoring ********
+
+    /**
+     * Why a saved game cannot be brought back: the version of the word
+     * list it was started with is no longer held anywhere.
+     */
+    public static final class UnknownWordListException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UnknownWordListException(int checksum) {
+            super("The word list this game was started with (" +
+                    Integer.toHexString(checksum) + ") is gone.");
+        }
+    }
+
+    /**
+     * Format revision of {@link #writeSnapshot(DataOutput)}
+     */
+    private static final int SNAPSHOT_VERSION = 4;
+
+    /**
+     * Save this game compactly: the {@link Dictionary#checksum()} of its
+     * word list, the secret, where the player is, the letters and colors
+     * on the board, and the secret scheduler's state. Observers and the
+     * words themselves are not saved.
+     *
+     * @param out where to write the snapshot
+     * @throws IOException if it cannot be written
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeByte(SNAPSHOT_VERSION);
+        out.writeInt(this.legalWords.checksum());
+        out.writeUTF(this.secret);
+        this.secrets.writeState(out);
+        out.writeByte(this.gameState.ordinal());
+        out.writeByte(this.attemptNum);
+        out.writeByte(this.charPos);
+        final int used = Math.min(this.letters.length,
+                square(this.attemptNum, this.charPos));
+        out.write(this.letters, 0, used);
+        for (long packed : this.statuses) {
+            out.writeLong(packed);
+        }
+    }
+
+    /**
+     * Bring back a game saved by {@link #writeSnapshot(DataOutput)}, if it
+     * was started with the current version of the word list.
+     *
+     * @param in           where to read the snapshot
+     * @param dictionaries supplies the words for this and later games
+     * @return the restored game, with no observers
+     * @throws UnknownWordListException if the game was started with
+     *                                  another version of the word list
+     * @throws IOException              if the snapshot cannot be read
+     */
+    public static Model readSnapshot(DataInput in,
+                                     Supplier<Dictionary> dictionaries)
+            throws IOException {
+        return readSnapshot(in, dictionaries, checksum -> {
+            final Dictionary current = dictionaries.get();
+            return current.checksum() == checksum ? current : null;
+        });
+    }
+
+    /**
+     * Bring back a game saved by {@link #writeSnapshot(DataOutput)}. The
+     * game continues with the version of the word list it was started
+     * with; the next game dealt takes the current one.
+     *
+     * @param in           where to read the snapshot
+     * @param dictionaries supplies the words for later games
+     * @param versions     finds the version of the word list with a
+     *                     {@link Dictionary#checksum()}, or gives null if
+     *                     that version is no longer held
+     * @return the restored game, with no observers
+     * @throws UnknownWordListException if the game's version of the word
+     *                                  list cannot be found
+     * @throws IOException              if the snapshot cannot be read
+     */
+    public static Model readSnapshot(DataInput in,
+                                     Supplier<Dictionary> dictionaries,
+                                     IntFunction<Dictionary> versions)
+            throws IOException {
+        if (in.readByte() != SNAPSHOT_VERSION) {
+            throw new IOException("Unknown snapshot version.");
+        }
+        final int checksum = in.readInt();
+        final Dictionary words = versions.apply(checksum);
+        if (words == null) {
+            throw new UnknownWordListException(checksum);
+        }
+        final String secret = in.readUTF();
+        Model model = new Model(dictionaries, SecretScheduler.resume(in));
+        model.legalWords = words;
+        model.secret = secret;
+        model.gameState = GameState.values()[in.readByte()];
+        model.attemptNum = in.readByte();
+        model.charPos = in.readByte();
+        final int used = Math.min(model.letters.length,
+                square(model.attemptNum, model.charPos));
+        Arrays.fill(model.letters, EMPTY_LETTER);
+        in.readFully(model.letters, 0, used);
+        for (int i = 0; i < model.statuses.length; ++i) {
+            model.statuses[i] = in.readLong();
+        }
+        for (int square = 0; square < used; ++square) {
+            model.useLetter(square, 1);
+        }
+        model.position = model.replay();
+        return model;
+    }
+
+    /**
+     * Work out how the board got to where it is, a row at a time, for a
+     * game that was laid out some other way.
+     *
+     * @return the position after the last row scored, with a history
+     */
+    private Position replay() {
+        Position replayed = Position.start(this.secret, this.legalWords,
+                GAME_IDS.incrementAndGet());
+        for (int row = 0; row < this.attemptNum; ++row) {
+            replayed = replayed.scored(
+                    WordCodes.pack(this.letters, square(row, 0)),
+                    this.guessPattern(row),
+                    row == this.attemptNum - 1 ?
+                            this.gameState : GameState.ONGOING);
+        }
+        return replayed;
+    }
+
     /**
      * How many valid guesses/attempts has the player made in this game?
      *
@@ -0,0 +1,209 @@
+package gurdle;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ranks every word as an opening guess and writes the ranking as CSV.
+ * For each guess, every secret is scored and the secrets are grouped by
+ * the pattern they produce; the groups say how much the guess narrows
+ * things down:
+ * <ul>
+ *     <li>expected: the average number of secrets left afterwards</li>
+ *     <li>worst: the most secrets that can be left afterwards</li>
+ *     <li>buckets: how many different patterns can come up</li>
+ *     <li>entropy: bits of information the pattern gives, on average</li>
+ * </ul>
+ * The guesses are split across a fork/join pool, so the run time shrinks
+ * with more cores as the guess list grows.
+ * <br><br>
+ * Use: <code>java gurdle.OpeningReport [csv-file [guess-file
+ * [secret-file]]]</code>. Without a CSV file the report goes to standard
+ * output. Both word files default to {@link Model#WORD_FILE_NAME}.
+ *
+ * @author RIT CS
+ */
+public class OpeningReport {
+
+    /**
+     * Below this many guesses a task does the work itself
+     */
+    private static final int GUESSES_PER_TASK = 32;
+
+    /**
+     * One row of the report.
+     *
+     * @param word     the opening guess
+     * @param expected average number of secrets left
+     * @param worst    most secrets left
+     * @param buckets  number of patterns that can come up
+     * @param entropy  average information gained, in bits
+     */
+    public record Row(String word, double expected, int worst, int buckets,
+                      double entropy) {
+    }
+
+    /**
+     * The words that may be guessed
+     */
+    private final Dictionary guesses;
+
+    /**
+     * Packed codes of the possible secrets
+     */
+    private final int[] secrets;
+
+    /**
+     * {@link Feedback#letterMask(int) Letter masks} of the secrets
+     */
+    private final int[] secretMasks;
+
+    /**
+     * The results, parallel to the guess list
+     */
+    private final Row[] rows;
+
+    /**
+     * Set up a report.
+     *
+     * @param guesses the words to rank
+     * @param secrets the words that may be the secret
+     */
+    public OpeningReport(Dictionary guesses, Dictionary secrets) {
+        this.guesses = guesses;
+        this.secrets = new int[secrets.size()];
+        this.secretMasks = new int[secrets.size()];
+        for (int s = 0; s < this.secrets.length; ++s) {
+            this.secrets[s] = secrets.code(s);
+            this.secretMasks[s] = Feedback.letterMask(this.secrets[s]);
+        }
+        this.rows = new Row[guesses.size()];
+    }
+
+    /**
+     * Score one guess against every secret.
+     *
+     * @param g      the guess's position in the guess list
+     * @param counts scratch space for {@link Feedback#NUM_PATTERNS} counts
+     */
+    private void rate(int g, int[] counts) {
+        Arrays.fill(counts, 0);
+        final int guess = this.guesses.code(g);
+        for (int s = 0; s < this.secrets.length; ++s) {
+            counts[Feedback.score(guess, this.secrets[s],
+                    this.secretMasks[s])] += 1;
+        }
+        final double n = this.secrets.length;
+        long squares = 0;
+        int worst = 0;
+        int buckets = 0;
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                squares += (long) count * count;
+                worst = Math.max(worst, count);
+                buckets += 1;
+                final double p = count / n;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        this.rows[g] = new Row(this.guesses.get(g), squares / n, worst,
+                buckets, entropy);
+    }
+
+    /**
+     * Rates a range of guesses, splitting it in half until it is small
+     */
+    private class RateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        RateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= GUESSES_PER_TASK) {
+                final int[] counts = new int[Feedback.NUM_PATTERNS];
+                for (int g = this.from; g < this.to; ++g) {
+                    rate(g, counts);
+                }
+            } else {
+                final int mid = (this.from + this.to) >>> 1;
+                invokeAll(new RateTask(this.from, mid),
+                        new RateTask(mid, this.to));
+            }
+        }
+    }
+
+    /**
+     * Rate every guess.
+     *
+     * @param pool where the work is done
+     * @return the rows, best opening (smallest expected) first
+     */
+    public Row[] run(ForkJoinPool pool) {
+        pool.invoke(new RateTask(0, this.rows.length));
+        Row[] ranked = this.rows.clone();
+        Arrays.sort(ranked, Comparator.comparingDouble(Row::expected)
+                .thenComparing(Comparator.comparingDouble(Row::entropy)
+                        .reversed()));
+        return ranked;
+    }
+
+    /**
+     * Write rows as CSV, with a header line. Numbers are written the same
+     * way whatever the default locale, so decimal commas never split a
+     * column.
+     *
+     * @param rows the rows
+     * @param out  where they go
+     */
+    public static void write(Row[] rows, PrintWriter out) {
+        out.println("rank,word,expected,worst,buckets,entropy");
+        for (int r = 0; r < rows.length; ++r) {
+            final Row row = rows[r];
+            out.printf(Locale.ROOT, "%d,%s,%.3f,%d,%d,%.4f%n", r + 1, row.word,
+                    row.expected, row.worst, row.buckets, row.entropy);
+        }
+        out.flush();
+    }
+
+    /**
+     * Produce the report.
+     *
+     * @param args optional CSV file, guess file and secret file
+     */
+    public static void main(String[] args) throws IOException {
+        final Dictionary guesses = Dictionary.open(
+                Path.of(args.length > 1 ? args[1] : Model.WORD_FILE_NAME));
+        final Dictionary secrets = Dictionary.open(
+                Path.of(args.length > 2 ? args[2] : Model.WORD_FILE_NAME));
+        final long start = System.nanoTime();
+        final Row[] rows =
+                new OpeningReport(guesses, secrets).run(ForkJoinPool.commonPool());
+        final long elapsed = System.nanoTime() - start;
+        if (args.length > 0) {
+            try (PrintWriter out = new PrintWriter(
+                    Files.newBufferedWriter(Path.of(args[0])))) {
+                write(rows, out);
+            }
+        } else {
+            write(rows, new PrintWriter(System.out));
+        }
+        System.err.printf("Rated %d guesses against %d secrets in %d ms " +
+                        "on %d threads.%n", guesses.size(), secrets.size(),
+                elapsed / 1_000_000, ForkJoinPool.commonPool().getParallelism());
+    }
+}
@@ -0,0 +1,218 @@
+package gurdle;
+
+/**
+ * One moment of one game, frozen: the scored rows, the letters typed into
+ * the next row, and the game's state.
+ * <br><br>
+ * Positions are immutable and share structure. Each one records only what
+ * its last move changed and points back to the position it came from, and
+ * the scored rows form a linked list that every later position reuses.
+ * Scoring a row therefore makes one small object, and any number of games
+ * can branch from a position without copying it. Letters typed into the
+ * next row are not moves of their own: a position holding them is only
+ * made when one is asked for, and points back to the position they were
+ * typed after. Following {@link #previous()} walks back through the moves;
+ * that is how {@link Model#undo()} works.
+ *
+ * @author RIT CS
+ */
+public final class Position {
+
+    /**
+     * One scored row, and the rows scored before it
+     *
+     * @param code     the guess's {@link WordCodes packed code}
+     * @param pattern  the guess's {@link Feedback} pattern
+     * @param previous the row above, or null for the first row
+     */
+    record Row(int code, int pattern, Row previous) {
+    }
+
+    /**
+     * Bits used for each typed letter
+     */
+    private static final int CHAR_BITS = Byte.SIZE;
+
+    /**
+     * The word the player is trying to guess
+     */
+    private final String secret;
+
+    /**
+     * The words the game is played with
+     */
+    private final Dictionary words;
+
+    /**
+     * Which deal this is, the same for every position in the game
+     */
+    private final long game;
+
+    /**
+     * The position before the last move, or null at the start of a game
+     */
+    private final Position previous;
+
+    /**
+     * The last row scored, or null if none has been
+     */
+    private final Row rows;
+
+    /**
+     * How many rows have been scored
+     */
+    private final int attempts;
+
+    /**
+     * The letters typed into the next row, one byte each as the board
+     * stores them (see {@link Alphabet#toByte(char)}), first letter in the
+     * lowest byte
+     */
+    private final long typed;
+
+    /**
+     * How many letters have been typed into the next row
+     */
+    private final int typedCount;
+
+    /**
+     * The game's state
+     */
+    private final Model.GameState state;
+
+    private Position(String secret, Dictionary words, long game,
+                     Position previous, Row rows, int attempts, long typed,
+                     int typedCount, Model.GameState state) {
+        this.secret = secret;
+        this.words = words;
+        this.game = game;
+        this.previous = previous;
+        this.rows = rows;
+        this.attempts = attempts;
+        this.typed = typed;
+        this.typedCount = typedCount;
+        this.state = state;
+    }
+
+    /**
+     * The start of a game
+     *
+     * @param secret the word to be guessed
+     * @param words  the words the game is played with
+     * @param game   the deal's id
+     * @return an empty board
+     */
+    static Position start(String secret, Dictionary words, long game) {
+        return new Position(secret, words, game, null, null, 0, 0, 0,
+                Model.GameState.ONGOING);
+    }
+
+    /**
+     * The position after typing letters into the next row
+     *
+     * @param letters the letters, one byte each as the board stores them,
+     *                first letter in the lowest byte
+     * @param count   how many letters there are
+     * @return the new position
+     */
+    Position typed(long letters, int count) {
+        return new Position(this.secret, this.words, this.game, this,
+                this.rows, this.attempts, letters, count, this.state);
+    }
+
+    /**
+     * The position after a row was scored
+     *
+     * @param code    the guess's {@link WordCodes packed code}
+     * @param pattern the guess's {@link Feedback} pattern
+     * @param state   the game's state afterwards
+     * @return the new position
+     */
+    Position scored(int code, int pattern, Model.GameState state) {
+        return new Position(this.secret, this.words, this.game, this,
+                new Row(code, pattern, this.rows), this.attempts + 1, 0, 0,
+                state);
+    }
+
+    /**
+     * The position before the last move
+     *
+     * @return that position, or null if this is the start of a game
+     */
+    public Position previous() {
+        return this.previous;
+    }
+
+    /**
+     * Which deal is this position from?
+     *
+     * @return the game's id, see {@link Model#gameId()}
+     */
+    public long game() {
+        return this.game;
+    }
+
+    /**
+     * How many rows have been scored?
+     *
+     * @return the number of legal guesses made
+     */
+    public int attempts() {
+        return this.attempts;
+    }
+
+    /**
+     * How does the game stand?
+     *
+     * @return the game's state
+     */
+    public Model.GameState state() {
+        return this.state;
+    }
+
+    /**
+     * What's the secret word?
+     *
+     * @return the word being guessed
+     */
+    public String secret() {
+        return this.secret;
+    }
+
+    /**
+     * Which words is the game played with?
+     *
+     * @return the game's word list
+     */
+    Dictionary words() {
+        return this.words;
+    }
+
+    /**
+     * The last row scored
+     *
+     * @return the row, which links to the ones above it, or null
+     */
+    Row rows() {
+        return this.rows;
+    }
+
+    /**
+     * How many letters have been typed into the next row?
+     *
+     * @return the number of letters
+     */
+    int typedCount() {
+        return this.typedCount;
+    }
+
+    /**
+     * One of the letters typed into the next row
+     *
+     * @param pos which letter, from 0
+     * @return the letter, as the board stores it
+     */
+    byte typedByte(int pos) {
+        return (byte) (this.typed >>> CHAR_BITS * pos);
+    }
+}
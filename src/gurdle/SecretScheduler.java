@@ -0,0 +1,372 @@
+package gurdle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which word is the secret for each game.
+ * <br><br>
+ * Secrets are dealt from a shuffled deck of word positions, so no word
+ * comes up twice until every word has. The deck is shuffled lazily
+ * (Fisher–Yates, one swap per deal), so starting a deck costs nothing
+ * beyond allocating it. A word list that has been rated has one deck per
+ * {@link Difficulty} tier instead; a secret of any difficulty is dealt
+ * from a tier chosen in proportion to the words it has left, so no word
+ * comes up twice across the tiers either.
+ * <br><br>
+ * Each scheduler has its own seeded generator, kept here so that its state
+ * can be saved: a counter stepped by the golden-ratio constant, as in
+ * {@link java.util.SplittableRandom}, with each value scrambled by the
+ * 64-bit finalizer of MurmurHash3. Sessions therefore never contend for a
+ * generator, and the same seed always deals the same secrets.
+ * <br><br>
+ * A scheduler can be saved with {@link #writeState(DataOutput)} and
+ * brought back exactly with {@link #resume(DataInput)}. Only the slots of
+ * each deck still to be dealt that have been swapped are saved, so the
+ * state is small and restoring it does not replay past deals.
+ * <br><br>
+ * The daily puzzle is separate: every date maps straight to one word,
+ * the same for everyone, and consecutive dates do not repeat a word until
+ * the list is exhausted.
+ *
+ * @author RIT CS
+ */
+public class SecretScheduler {
+
+    /**
+     * One deck of word positions, dealt without repeats
+     */
+    private final class Deck {
+
+        /**
+         * Entry i holds the position in slot i, plus one; zero means the
+         * slot has never been swapped and still holds i.
+         */
+        private int[] cards = new int[0];
+
+        /**
+         * How many cards have been dealt
+         */
+        private int dealt;
+
+        /**
+         * How many cards are left to deal?
+         *
+         * @param size how many positions the deck should hold
+         * @return the cards not dealt yet, or size if a new deck would be
+         * started
+         */
+        private int left(int size) {
+            return this.cards.length == size ? size - this.dealt : size;
+        }
+
+        /**
+         * Deal the next card. If the deck is used up, or is of a different
+         * size, a new one is started.
+         *
+         * @param size how many positions the deck should hold; positive
+         * @return the position dealt
+         */
+        private int deal(int size) {
+            if (this.cards.length != size || this.dealt == size) {
+                this.cards = new int[size];
+                this.dealt = 0;
+            }
+            final int pick = this.dealt + nextInt(size - this.dealt);
+            final int card = this.slot(pick);
+            this.cards[pick] = this.slot(this.dealt) + 1;
+            this.dealt += 1;
+            return card;
+        }
+
+        /**
+         * What is in one slot of the deck?
+         *
+         * @param slot a position in the deck
+         * @return the word position it holds
+         */
+        private int slot(int slot) {
+            return this.cards[slot] == 0 ? slot : this.cards[slot] - 1;
+        }
+
+        /**
+         * Save this deck.
+         *
+         * @param out where to write it
+         * @throws IOException if it cannot be written
+         */
+        private void write(DataOutput out) throws IOException {
+            out.writeInt(this.cards.length);
+            out.writeInt(this.dealt);
+            int swapped = 0;
+            for (int slot = this.dealt; slot < this.cards.length; ++slot) {
+                swapped += this.cards[slot] == 0 ? 0 : 1;
+            }
+            out.writeInt(swapped);
+            for (int slot = this.dealt; slot < this.cards.length; ++slot) {
+                if (this.cards[slot] != 0) {
+                    out.writeInt(slot);
+                    out.writeInt(this.cards[slot] - 1);
+                }
+            }
+        }
+
+        /**
+         * Bring back a deck saved by {@link #write(DataOutput)}.
+         *
+         * @param in where to read it
+         * @throws IOException if it cannot be read or makes no sense
+         */
+        private void read(DataInput in) throws IOException {
+            final int size = in.readInt();
+            final int dealt = in.readInt();
+            final int swapped = in.readInt();
+            if (size < 0 || dealt < 0 || dealt > size || swapped < 0 ||
+                    swapped > size - dealt) {
+                throw new IOException("Damaged secret scheduler state.");
+            }
+            this.cards = new int[size];
+            this.dealt = dealt;
+            for (int s = 0; s < swapped; ++s) {
+                final int slot = in.readInt();
+                final int word = in.readInt();
+                if (slot < dealt || slot >= size || word < 0 ||
+                        word >= size) {
+                    throw new IOException("Damaged secret scheduler state.");
+                }
+                this.cards[slot] = word + 1;
+            }
+        }
+    }
+
+    /**
+     * The seed this scheduler was created with
+     */
+    private final long seed;
+
+    /**
+     * Added to the generator's state before each number is drawn
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * This session's own generator's state
+     */
+    private long rng;
+
+    /**
+     * The deck of the whole word list, for lists that are not rated
+     */
+    private final Deck all = new Deck();
+
+    /**
+     * One deck per {@link Difficulty} tier, in order, for rated lists;
+     * each holds positions in its tier
+     */
+    private final Deck[] tiers = new Deck[Difficulty.values().length];
+
+    /**
+     * How many secrets have been dealt since this scheduler was created
+     */
+    private long deals;
+
+    /**
+     * Create a scheduler with an unpredictable seed.
+     */
+    public SecretScheduler() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create a scheduler that deals reproducibly.
+     *
+     * @param seed the same seed always gives the same secrets
+     */
+    public SecretScheduler(long seed) {
+        this.seed = seed;
+        this.rng = seed;
+        this.deals = 0;
+        for (int t = 0; t < this.tiers.length; ++t) {
+            this.tiers[t] = new Deck();
+        }
+    }
+
+    /**
+     * Save this scheduler's state.
+     *
+     * @param out where to write it
+     * @throws IOException if it cannot be written
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(this.seed);
+        out.writeLong(this.rng);
+        out.writeLong(this.deals);
+        out.writeByte(this.tiers.length);
+        this.all.write(out);
+        for (Deck tier : this.tiers) {
+            tier.write(out);
+        }
+    }
+
+    /**
+     * Recreate a scheduler saved by {@link #writeState(DataOutput)}, e.g.
+     * when a saved session is brought back.
+     *
+     * @param in where to read the state
+     * @return a scheduler that deals what the original would have next
+     * @throws IOException if the state cannot be read or makes no sense
+     */
+    public static SecretScheduler resume(DataInput in) throws IOException {
+        SecretScheduler scheduler = new SecretScheduler(in.readLong());
+        scheduler.rng = in.readLong();
+        scheduler.deals = in.readLong();
+        if (in.readByte() != scheduler.tiers.length) {
+            throw new IOException("Damaged secret scheduler state.");
+        }
+        scheduler.all.read(in);
+        for (Deck tier : scheduler.tiers) {
+            tier.read(in);
+        }
+        return scheduler;
+    }
+
+    /**
+     * The seed, so that a session can be replayed later
+     *
+     * @return the seed given to, or chosen by, the constructor
+     */
+    public long seed() {
+        return this.seed;
+    }
+
+    /**
+     * How many secrets have been dealt so far
+     *
+     * @return the number of secrets returned by the next methods
+     */
+    public long deals() {
+        return this.deals;
+    }
+
+    /**
+     * Deal the next secret from a word list that is not rated. If the
+     * deck is used up, or the word list has changed size since the last
+     * deal, a new deck is started.
+     *
+     * @param numWords how many words there are to choose from
+     * @return the position of the next secret in the word list
+     * @throws IllegalArgumentException if there are no words
+     */
+    public int next(int numWords) {
+        if (numWords <= 0) {
+            throw new IllegalArgumentException("No words to deal from.");
+        }
+        this.deals += 1;
+        return this.all.deal(numWords);
+    }
+
+    /**
+     * Deal the next secret from a rated word list. Each tier has its own
+     * deck, started anew when it is used up or its tier changes size.
+     *
+     * @param ratings    the word list's ratings
+     * @param difficulty the tier to deal from, or null for any; so is a
+     *                   tier with no words
+     * @return the position of the next secret in the word list
+     * @throws IllegalArgumentException if there are no words
+     */
+    public int next(DifficultyRatings ratings, Difficulty difficulty) {
+        final int tier = difficulty == null ||
+                ratings.tier(difficulty).length == 0 ?
+                this.anyTier(ratings) : difficulty.ordinal();
+        final int[] words = ratings.tier(Difficulty.values()[tier]);
+        this.deals += 1;
+        return words[this.tiers[tier].deal(words.length)];
+    }
+
+    /**
+     * Choose a tier to deal from, each in proportion to the words it has
+     * left, so that every word not yet dealt is as likely as any other.
+     * If every tier is used up, they are all started again.
+     *
+     * @param ratings the word list's ratings
+     * @return the tier's position in {@link Difficulty#values()}
+     * @throws IllegalArgumentException if there are no words
+     */
+    private int anyTier(DifficultyRatings ratings) {
+        final Difficulty[] levels = Difficulty.values();
+        final int[] left = new int[levels.length];
+        int total = 0;
+        for (int t = 0; t < levels.length; ++t) {
+            left[t] = this.tiers[t].left(ratings.tier(levels[t]).length);
+            total += left[t];
+        }
+        if (total == 0) {
+            for (int t = 0; t < levels.length; ++t) {
+                this.tiers[t].cards = new int[0];
+                left[t] = ratings.tier(levels[t]).length;
+                total += left[t];
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("No words to deal from.");
+        }
+        int pick = this.nextInt(total);
+        int tier = 0;
+        while (pick >= left[tier]) {
+            pick -= left[tier];
+            tier += 1;
+        }
+        return tier;
+    }
+
+    /**
+     * Draw a number from this scheduler's generator.
+     *
+     * @param bound one more than the largest number wanted; positive
+     * @return a number from 0 up to bound
+     */
+    private int nextInt(int bound) {
+        // MurmurHash3's fmix64
+        long z = this.rng += GAMMA;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z ^= z >>> 33;
+        // The top 32 bits, scaled down to the bound
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Pick the secret for a date, the same for everyone.
+     * Days are stepped through the word list by a fixed stride that shares
+     * no factor with its length, so every word is used once before any
+     * word is used again.
+     *
+     * @param date     the day of the puzzle
+     * @param numWords how many words there are to choose from
+     * @return the position of that day's secret in the word list
+     * @throws IllegalArgumentException if there are no words
+     */
+    public static int daily(LocalDate date, int numWords) {
+        if (numWords <= 0) {
+            throw new IllegalArgumentException("No words to choose from.");
+        }
+        long stride = (long) (numWords * 0.6180339887) | 1;
+        while (gcd(stride, numWords) != 1) {
+            stride += 2;
+        }
+        return Math.floorMod(stride * date.toEpochDay(), numWords);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
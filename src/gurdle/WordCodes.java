@@ -0,0 +1,133 @@
+package gurdle;
+
+/**
+ * Packs a word into a single int, five bits per letter, first letter in
+ * the most significant bits. Each letter is stored as its index in the
+ * word's {@link Alphabet}, so codes sort in the same order as the words
+ * do, and a {@link Model#WORD_SIZE}-letter word needs only 25 bits.
+ * The methods without an alphabet are for {@link Alphabet#LATIN}.
+ *
+ * @author RIT CS
+ */
+public final class WordCodes {
+
+    /**
+     * Bits used for each letter
+     */
+    public static final int BITS_PER_LETTER = 5;
+
+    /**
+     * The code returned for anything that is not a word of the alphabet's
+     * letters of the right length
+     */
+    public static final int NOT_A_WORD = -1;
+
+    /**
+     * No instances; this is a utility class.
+     */
+    private WordCodes() {
+    }
+
+    /**
+     * Pack a word.
+     *
+     * @param word the word
+     * @return its code, or {@link #NOT_A_WORD}
+     */
+    public static int pack(String word) {
+        if (word.length() != Model.WORD_SIZE) {
+            return NOT_A_WORD;
+        }
+        int code = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            final int letter = word.charAt(c) - 'A';
+            if (letter < 0 || letter >= 26) {
+                return NOT_A_WORD;
+            }
+            code = (code << BITS_PER_LETTER) | letter;
+        }
+        return code;
+    }
+
+    /**
+     * Pack a word in any alphabet. Latin words take the
+     * {@link #pack(String) Latin-only} path, so they cost no more than
+     * before alphabets existed.
+     *
+     * @param word     the word
+     * @param alphabet the alphabet it is written in
+     * @return its code, or {@link #NOT_A_WORD}
+     */
+    public static int pack(String word, Alphabet alphabet) {
+        if (alphabet == Alphabet.LATIN) {
+            return pack(word);
+        }
+        if (word.length() != Model.WORD_SIZE) {
+            return NOT_A_WORD;
+        }
+        int code = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            final int letter = alphabet.index(word.charAt(c));
+            if (letter < 0) {
+                return NOT_A_WORD;
+            }
+            code = (code << BITS_PER_LETTER) | letter;
+        }
+        return code;
+    }
+
+    /**
+     * Pack a word held as one {@link Alphabet#toByte(char) byte} per
+     * letter, without making a string. This works for every alphabet.
+     *
+     * @param letters the letters
+     * @param offset  where the word starts in letters
+     * @return its code, or {@link #NOT_A_WORD}
+     */
+    public static int pack(byte[] letters, int offset) {
+        int code = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            final int letter = letters[offset + c] - 'A';
+            if (letter < 0 || letter >= Alphabet.MAX_SIZE) {
+                return NOT_A_WORD;
+            }
+            code = (code << BITS_PER_LETTER) | letter;
+        }
+        return code;
+    }
+
+    /**
+     * Unpack a word.
+     *
+     * @param code a code made by {@link #pack(String)}
+     * @return the word
+     */
+    public static String unpack(int code) {
+        final char[] letters = new char[Model.WORD_SIZE];
+        for (int c = Model.WORD_SIZE - 1; c >= 0; --c) {
+            letters[c] = (char) ('A' + (code & ((1 << BITS_PER_LETTER) - 1)));
+            code >>>= BITS_PER_LETTER;
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Unpack a word in any alphabet. As with packing, Latin words take the
+     * {@link #unpack(int) Latin-only} path.
+     *
+     * @param code     a code made by {@link #pack(String, Alphabet)}
+     * @param alphabet the alphabet it was made with
+     * @return the word
+     */
+    public static String unpack(int code, Alphabet alphabet) {
+        if (alphabet == Alphabet.LATIN) {
+            return unpack(code);
+        }
+        final char[] letters = new char[Model.WORD_SIZE];
+        for (int c = Model.WORD_SIZE - 1; c >= 0; --c) {
+            letters[c] = alphabet.letter(code & ((1 << BITS_PER_LETTER) - 1));
+            code >>>= BITS_PER_LETTER;
+        }
+        return new String(letters);
+    }
+}
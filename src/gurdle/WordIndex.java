@@ -0,0 +1,169 @@
+package gurdle;
+
+import java.nio.IntBuffer;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Bit set indexes over a dictionary's words, for answering a
+ * {@link WordQuery} without looking at the words one by one.
+ * <br><br>
+ * There is a bit set for each letter at each position, of the words with
+ * that letter there, and one for each letter, of the words containing it
+ * anywhere. A query is answered 64 words at a time: the sets for the
+ * letters each position may hold are or'ed together (or, where most
+ * letters are allowed, the sets for the few that are not are or'ed and
+ * inverted), then and'ed with each other and with the sets of the
+ * required letters, and the sets of the excluded letters are taken away.
+ * Each block of 64 is only worked out when the results reach it, so the
+ * first matches come straight away however large the dictionary.
+ * <br><br>
+ * The index takes (positions + 1) &times; letters bits per word: about 20
+ * bytes a word for {@link Alphabet#LATIN}.
+ *
+ * @author RIT CS
+ */
+final class WordIndex {
+
+    /**
+     * How many longs each bit set has
+     */
+    private final int blocks;
+
+    /**
+     * How many words there are
+     */
+    private final int size;
+
+    /**
+     * How many letters the alphabet has
+     */
+    private final int letters;
+
+    /**
+     * The positional bit sets, one after another: the set for letter l at
+     * position p starts at (p * letters + l) * blocks
+     */
+    private final long[] positional;
+
+    /**
+     * The letter bit sets, one after another: the set for letter l starts
+     * at l * blocks
+     */
+    private final long[] presence;
+
+    /**
+     * Index some words.
+     *
+     * @param codes    the words' {@link WordCodes packed codes}, in the
+     *                 order their indices are given
+     * @param alphabet the letters they are written in
+     */
+    WordIndex(IntBuffer codes, Alphabet alphabet) {
+        this.size = codes.limit();
+        this.blocks = (this.size + Long.SIZE - 1) / Long.SIZE;
+        this.letters = alphabet.size();
+        this.positional =
+                new long[Model.WORD_SIZE * this.letters * this.blocks];
+        this.presence = new long[this.letters * this.blocks];
+        for (int w = 0; w < this.size; ++w) {
+            final int block = w / Long.SIZE;
+            final long bit = 1L << w;
+            int code = codes.get(w);
+            for (int pos = Model.WORD_SIZE - 1; pos >= 0; --pos) {
+                final int letter = code & Alphabet.MAX_SIZE - 1;
+                this.positional[(pos * this.letters + letter) * this.blocks +
+                        block] |= bit;
+                this.presence[letter * this.blocks + block] |= bit;
+                code >>>= WordCodes.BITS_PER_LETTER;
+            }
+        }
+    }
+
+    /**
+     * Which words in one block of 64 fit a query?
+     *
+     * @param query the query
+     * @param block which block
+     * @return bit i is set if word 64 &times; block + i fits
+     */
+    private long match(WordQuery query, int block) {
+        long bits = block == this.blocks - 1 && this.size % Long.SIZE != 0 ?
+                (1L << this.size % Long.SIZE) - 1 : -1L;
+        final int all = (int) ((1L << this.letters) - 1);
+        for (int pos = 0; pos < Model.WORD_SIZE && bits != 0; ++pos) {
+            final int allowed = query.allowed(pos) & all;
+            if (allowed == all) {
+                continue;
+            }
+            final int base = pos * this.letters;
+            final boolean invert =
+                    Integer.bitCount(allowed) > this.letters / 2;
+            long any = 0;
+            for (int m = invert ? all & ~allowed : allowed; m != 0;
+                 m &= m - 1) {
+                any |= this.positional[(base + Integer.numberOfTrailingZeros(
+                        m)) * this.blocks + block];
+            }
+            bits &= invert ? ~any : any;
+        }
+        for (int m = query.required(); m != 0 && bits != 0; m &= m - 1) {
+            final int letter = Integer.numberOfTrailingZeros(m);
+            bits &= letter < this.letters ?
+                    this.presence[letter * this.blocks + block] : 0;
+        }
+        for (int m = query.excluded() & all; m != 0 && bits != 0;
+             m &= m - 1) {
+            bits &= ~this.presence[Integer.numberOfTrailingZeros(m) *
+                    this.blocks + block];
+        }
+        return bits;
+    }
+
+    /**
+     * The words that fit a query, worked out as they are taken
+     *
+     * @param query the query
+     * @return their indices, in ascending order
+     */
+    IntStream search(WordQuery query) {
+        return StreamSupport.intStream(new Spliterators.AbstractIntSpliterator(
+                this.size, Spliterator.ORDERED | Spliterator.DISTINCT |
+                Spliterator.NONNULL) {
+            private int block = -1;
+            private long bits = 0;
+
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                while (this.bits == 0) {
+                    if (++this.block >= WordIndex.this.blocks) {
+                        return false;
+                    }
+                    this.bits = WordIndex.this.match(query, this.block);
+                }
+                action.accept(this.block * Long.SIZE +
+                        Long.numberOfTrailingZeros(this.bits));
+                this.bits &= this.bits - 1;
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * How many words fit a query? This goes through every block, but
+     * makes no stream.
+     *
+     * @param query the query
+     * @return the number of words
+     */
+    int count(WordQuery query) {
+        int count = 0;
+        for (int block = 0; block < this.blocks; ++block) {
+            count += Long.bitCount(this.match(query, block));
+        }
+        return count;
+    }
+}
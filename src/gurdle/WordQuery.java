@@ -0,0 +1,190 @@
+package gurdle;
+
+import java.util.Locale;
+
+/**
+ * What a word search asks for: which letters each position may hold,
+ * which letters must appear somewhere, and which may not appear at all.
+ * Letters are kept as bit masks of {@link Alphabet} indices, the same as
+ * {@link Feedback#letterMask(int) letter masks}, so a query can be
+ * checked against a word's code or answered from a
+ * {@link Dictionary#search(WordQuery) dictionary's index} without
+ * handling strings.
+ * <br><br>
+ * A query is written as three parts:
+ * <ul>
+ *     <li>a pattern with one item per position: a letter, which the
+ *     position must hold; <code>?</code>, for any letter; or letters in
+ *     brackets after <code>^</code>, which the position must not hold.
+ *     For example <code>A?E??</code>, or <code>?[^RS]E??</code>.</li>
+ *     <li>letters that must each appear somewhere in the word</li>
+ *     <li>letters that must appear nowhere in the word</li>
+ * </ul>
+ * Either list of letters may be empty, or {@link #NONE}. Case does not
+ * matter.
+ *
+ * @author RIT CS
+ */
+public final class WordQuery {
+
+    /**
+     * Stands for an empty list of letters
+     */
+    public static final String NONE = "-";
+
+    /**
+     * For each position, a mask of the letters it may hold
+     */
+    private final int[] allowed;
+
+    /**
+     * The letters that must appear
+     */
+    private final int required;
+
+    /**
+     * The letters that must not appear
+     */
+    private final int excluded;
+
+    /**
+     * Make a query from masks.
+     *
+     * @param allowed  for each position, a mask of the letters it may hold;
+     *                 not copied
+     * @param required a mask of the letters that must appear
+     * @param excluded a mask of the letters that must not appear
+     */
+    private WordQuery(int[] allowed, int required, int excluded) {
+        this.allowed = allowed;
+        this.required = required;
+        this.excluded = excluded;
+    }
+
+    /**
+     * Read a query.
+     *
+     * @param pattern  what each position may hold, e.g. <code>A?E??</code>
+     * @param required letters that must appear, or {@link #NONE}
+     * @param excluded letters that must not appear, or {@link #NONE}
+     * @param alphabet the letters the words are written in
+     * @return the query
+     * @throws IllegalArgumentException if the pattern does not have
+     *                                  {@link Model#WORD_SIZE} positions,
+     *                                  or something that should be a
+     *                                  letter is not in the alphabet
+     */
+    public static WordQuery parse(String pattern, String required,
+                                  String excluded, Alphabet alphabet) {
+        final int all = alphabet.size() == Integer.SIZE ?
+                -1 : (1 << alphabet.size()) - 1;
+        final String text = pattern.toUpperCase(Locale.ROOT);
+        final int[] allowed = new int[Model.WORD_SIZE];
+        int pos = 0;
+        for (int c = 0; c < text.length(); ++c) {
+            if (pos == Model.WORD_SIZE) {
+                throw new IllegalArgumentException("The pattern " + pattern +
+                        " is longer than " + Model.WORD_SIZE + " letters.");
+            }
+            final char ch = text.charAt(c);
+            if (ch == '?') {
+                allowed[pos++] = all;
+            } else if (ch == '[') {
+                final int end = text.indexOf(']', c);
+                if (end < 0 || c + 1 == end || text.charAt(c + 1) != '^') {
+                    throw new IllegalArgumentException("In " + pattern +
+                            ", write letters a position may not hold " +
+                            "as [^XY].");
+                }
+                allowed[pos++] = all &
+                        ~mask(text.substring(c + 2, end), alphabet);
+                c = end;
+            } else {
+                allowed[pos++] = mask(String.valueOf(ch), alphabet);
+            }
+        }
+        if (pos < Model.WORD_SIZE) {
+            throw new IllegalArgumentException("The pattern " + pattern +
+                    " is shorter than " + Model.WORD_SIZE + " letters.");
+        }
+        return new WordQuery(allowed, mask(required, alphabet),
+                mask(excluded, alphabet));
+    }
+
+    /**
+     * Turn a list of letters into a mask.
+     *
+     * @param letters  the letters, or {@link #NONE}
+     * @param alphabet the letters the words are written in
+     * @return bit n is set if letter n of the alphabet is listed
+     * @throws IllegalArgumentException if something listed is not a letter
+     */
+    private static int mask(String letters, Alphabet alphabet) {
+        if (letters.equals(NONE)) {
+            return 0;
+        }
+        final String text = letters.toUpperCase(Locale.ROOT);
+        int mask = 0;
+        for (int c = 0; c < text.length(); ++c) {
+            final int index = alphabet.index(text.charAt(c));
+            if (index < 0) {
+                throw new IllegalArgumentException("'" + letters.charAt(c) +
+                        "' is not a letter of the " + alphabet +
+                        " alphabet.");
+            }
+            mask |= 1 << index;
+        }
+        return mask;
+    }
+
+    /**
+     * Which letters may a position hold?
+     *
+     * @param pos the position, from 0
+     * @return bit n is set if letter n of the alphabet may be there
+     */
+    public int allowed(int pos) {
+        return this.allowed[pos];
+    }
+
+    /**
+     * Which letters must appear somewhere?
+     *
+     * @return bit n is set if letter n of the alphabet must appear
+     */
+    public int required() {
+        return this.required;
+    }
+
+    /**
+     * Which letters must not appear at all?
+     *
+     * @return bit n is set if letter n of the alphabet must not appear
+     */
+    public int excluded() {
+        return this.excluded;
+    }
+
+    /**
+     * Does a word fit? This checks one word at a time; a dictionary
+     * answers a whole query at once.
+     *
+     * @param code the word's {@link WordCodes packed code}
+     * @return true if it fits every part of the query
+     */
+    public boolean matches(int code) {
+        final int letters = Feedback.letterMask(code);
+        if ((letters & this.required) != this.required ||
+                (letters & this.excluded) != 0) {
+            return false;
+        }
+        for (int pos = Model.WORD_SIZE - 1; pos >= 0; --pos) {
+            if ((this.allowed[pos] & 1 << (code & Alphabet.MAX_SIZE - 1))
+                    == 0) {
+                return false;
+            }
+            code >>>= WordCodes.BITS_PER_LETTER;
+        }
+        return true;
+    }
+}
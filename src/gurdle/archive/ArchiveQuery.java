@@ -0,0 +1,433 @@
+package gurdle.archive;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import java.util.zip.Inflater;
+
+/**
+ * Aggregate statistics over an archive written by {@link ArchiveWriter}:
+ * how many guesses games take, how often each word is solved when it is
+ * the secret, how each day went, and which openings are popular.
+ * <br><br>
+ * The segments are split across a fork/join pool. Each task inflates a
+ * segment's columns into flat arrays and adds them into counters
+ * indexed by word list position; no object is made per game, so the
+ * memory needed does not grow with the archive, and the run time shrinks
+ * with more cores.
+ * <br><br>
+ * Use: <code>java gurdle.archive.ArchiveQuery archive-dir
+ * [word-file]</code>
+ *
+ * @author RIT CS
+ */
+public class ArchiveQuery {
+
+    /**
+     * Below this many segments a task does the work itself
+     */
+    private static final int SEGMENTS_PER_TASK = 1;
+
+    /**
+     * Words played fewer times than this are left out of the solve rate
+     * rankings
+     */
+    private static final int MIN_GAMES_RANKED = 20;
+
+    /**
+     * How many words to show at each end of a ranking
+     */
+    private static final int RANKING_SIZE = 10;
+
+    /**
+     * Running totals over some of an archive's games. Word counters are
+     * indexed by word list position, plus one slot for unknown words.
+     */
+    public static final class Totals {
+
+        /**
+         * How many games were won in 1..{@link Model#NUM_TRIES} guesses;
+         * slot 0 counts the games lost
+         */
+        private final long[] distribution = new long[Model.NUM_TRIES + 1];
+
+        /**
+         * How many games each word was the secret of
+         */
+        private final long[] played = new long[Segment.NO_WORD + 1];
+
+        /**
+         * How many of those games were won
+         */
+        private final long[] solved = new long[Segment.NO_WORD + 1];
+
+        /**
+         * How many games opened with each word
+         */
+        private final long[] openings = new long[Segment.NO_WORD + 1];
+
+        /**
+         * Per epoch day: games, games won, and guesses in the games won
+         */
+        private final Map<Long, long[]> days = new TreeMap<>();
+
+        /**
+         * Add another set of totals into these.
+         *
+         * @param other the totals to add
+         * @return these totals
+         */
+        private Totals merge(Totals other) {
+            add(this.distribution, other.distribution);
+            add(this.played, other.played);
+            add(this.solved, other.solved);
+            add(this.openings, other.openings);
+            other.days.forEach((day, counts) -> {
+                final long[] mine = this.days.get(day);
+                if (mine == null) {
+                    this.days.put(day, counts);
+                } else {
+                    add(mine, counts);
+                }
+            });
+            return this;
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; ++i) {
+                into[i] += from[i];
+            }
+        }
+
+        /**
+         * How many games are counted?
+         *
+         * @return the number of games
+         */
+        public long games() {
+            return Arrays.stream(this.distribution).sum();
+        }
+
+        /**
+         * How many games were won in a number of guesses?
+         *
+         * @param guesses the number of guesses, or 0 for the games lost
+         * @return the number of games
+         */
+        public long distribution(int guesses) {
+            return this.distribution[guesses];
+        }
+
+        /**
+         * How many games was a word the secret of?
+         *
+         * @param word the word's position in the word list
+         * @return the number of games
+         */
+        public long played(int word) {
+            return this.played[word];
+        }
+
+        /**
+         * How many games with a word as the secret were won?
+         *
+         * @param word the word's position in the word list
+         * @return the number of games
+         */
+        public long solved(int word) {
+            return this.solved[word];
+        }
+
+        /**
+         * How many games opened with a word?
+         *
+         * @param word the word's position in the word list
+         * @return the number of games
+         */
+        public long openings(int word) {
+            return this.openings[word];
+        }
+
+        /**
+         * The days games were played on
+         *
+         * @return for each epoch day, in order: the games, the games won,
+         * and the guesses in the games won
+         */
+        public Map<Long, long[]> days() {
+            return this.days;
+        }
+    }
+
+    /**
+     * The segment files
+     */
+    private final List<Path> segments;
+
+    /**
+     * Checksum of the word list the games must have been played with
+     */
+    private final int checksum;
+
+    /**
+     * Set up a query.
+     *
+     * @param directory the archive
+     * @param words     the words the games were played with
+     * @throws IOException if the archive cannot be listed
+     */
+    public ArchiveQuery(Path directory, Dictionary words) throws IOException {
+        this.checksum = words.checksum();
+        this.segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, "*" + Segment.SUFFIX)) {
+            files.forEach(this.segments::add);
+        }
+        this.segments.sort(Comparator.naturalOrder());
+    }
+
+    /**
+     * How many segments are there?
+     *
+     * @return the number of segment files
+     */
+    public int segments() {
+        return this.segments.size();
+    }
+
+    /**
+     * Add one segment's games into some totals.
+     *
+     * @param file     the segment
+     * @param totals   where to add them
+     * @param inflater the decompressor to use
+     * @throws IOException if the segment cannot be read, or was written
+     *                     for another word list
+     */
+    private void scan(Path file, Totals totals, Inflater inflater)
+            throws IOException {
+        final byte[] bytes = Files.readAllBytes(file);
+        final ByteBuffer header = ByteBuffer.wrap(bytes);
+        if (header.getInt() != Segment.MAGIC ||
+                header.getShort() != Segment.VERSION) {
+            throw new IOException(file + " is not an archive segment.");
+        }
+        final int games = header.getInt();
+        final int guessCount = header.getInt();
+        if (header.getInt() != this.checksum) {
+            throw new IOException(file + " is for another word list.");
+        }
+        final int columns = Segment.Column.values().length;
+        final int[] encodedLength = new int[columns];
+        final int[] offset = new int[columns + 1];
+        offset[0] = Segment.HEADER_SIZE;
+        for (int c = 0; c < columns; ++c) {
+            encodedLength[c] = header.getInt();
+            offset[c + 1] = offset[c] + header.getInt();
+        }
+        final byte[][] encoded = new byte[columns][];
+        for (int c = 0; c < columns; ++c) {
+            encoded[c] = Segment.inflate(inflater, bytes, offset[c],
+                    offset[c + 1] - offset[c], encodedLength[c]);
+        }
+        final short[] secrets = new short[games];
+        final short[] results = new short[games];
+        final short[] guesses = new short[guessCount];
+        Segment.unpack(encoded[Segment.Column.SECRET.ordinal()], games,
+                Segment.INDEX_BITS, secrets);
+        Segment.unpack(encoded[Segment.Column.RESULT.ordinal()], games,
+                Segment.RESULT_BITS, results);
+        Segment.unpack(encoded[Segment.Column.GUESSES.ordinal()], guessCount,
+                Segment.INDEX_BITS, guesses);
+
+        // Walk the day runs and the other columns side by side.
+        final ByteBuffer dayRuns =
+                ByteBuffer.wrap(encoded[Segment.Column.DAY.ordinal()]);
+        long day = 0;
+        int g = 0;
+        int firstGuess = 0;
+        while (g < games) {
+            day += Segment.readVarLong(dayRuns);
+            final int end = g + (int) Segment.readVarLong(dayRuns);
+            long won = 0;
+            long wonGuesses = 0;
+            final int runStart = g;
+            for (; g < end; ++g) {
+                final int result = results[g];
+                final int count = result & (Segment.WON - 1);
+                final int secret = secrets[g];
+                totals.played[secret] += 1;
+                if (count > 0) {
+                    totals.openings[guesses[firstGuess]] += 1;
+                }
+                firstGuess += count;
+                if ((result & Segment.WON) != 0) {
+                    totals.distribution[count] += 1;
+                    totals.solved[secret] += 1;
+                    won += 1;
+                    wonGuesses += count;
+                } else {
+                    totals.distribution[0] += 1;
+                }
+            }
+            final long[] counts =
+                    totals.days.computeIfAbsent(day, d -> new long[3]);
+            counts[0] += end - runStart;
+            counts[1] += won;
+            counts[2] += wonGuesses;
+        }
+    }
+
+    /**
+     * Scans a range of segments, splitting it in half until it is small
+     */
+    private class ScanTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ScanTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (this.to - this.from <= SEGMENTS_PER_TASK) {
+                final Totals totals = new Totals();
+                final Inflater inflater = new Inflater();
+                try {
+                    for (int s = this.from; s < this.to; ++s) {
+                        scan(segments.get(s), totals, inflater);
+                    }
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                } finally {
+                    inflater.end();
+                }
+                return totals;
+            }
+            final int mid = (this.from + this.to) >>> 1;
+            final ScanTask left = new ScanTask(this.from, mid);
+            left.fork();
+            final Totals right = new ScanTask(mid, this.to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Scan the whole archive.
+     *
+     * @param pool where the work is done
+     * @return the totals over every game
+     * @throws IOException if a segment cannot be read
+     */
+    public Totals run(ForkJoinPool pool) throws IOException {
+        try {
+            return pool.invoke(new ScanTask(0, this.segments.size()));
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /**
+     * Print a report on an archive.
+     *
+     * @param args the archive directory, and optionally the word file the
+     *             games were played with (default
+     *             {@link Model#WORD_FILE_NAME})
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println(
+                    "Use: java gurdle.archive.ArchiveQuery archive-dir " +
+                            "[word-file]");
+            System.exit(1);
+        }
+        final Dictionary words = Dictionary.open(
+                Path.of(args.length > 1 ? args[1] : Model.WORD_FILE_NAME));
+        final ArchiveQuery query = new ArchiveQuery(Path.of(args[0]), words);
+        final long start = System.nanoTime();
+        final Totals totals = query.run(ForkJoinPool.commonPool());
+        final long elapsed = System.nanoTime() - start;
+        final long games = totals.games();
+        System.out.printf("Scanned %d games in %d segments in %d ms.%n",
+                games, query.segments(), elapsed / 1_000_000);
+        if (games == 0) {
+            return;
+        }
+
+        System.out.println("\nGuesses needed:");
+        for (int n = 1; n <= Model.NUM_TRIES; ++n) {
+            printShare(Integer.toString(n), totals.distribution(n), games);
+        }
+        printShare("X", totals.distribution(0), games);
+
+        final int[] ranked = IntStream.range(0, words.size())
+                .filter(w -> totals.played(w) >= MIN_GAMES_RANKED)
+                .boxed()
+                .sorted(Comparator.comparingDouble(
+                        w -> (double) totals.solved(w) / totals.played(w)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (ranked.length > 0) {
+            System.out.printf("%nLowest solve rates (of words played at " +
+                    "least %d times):%n", MIN_GAMES_RANKED);
+            for (int r = 0; r < Math.min(RANKING_SIZE, ranked.length); ++r) {
+                printRate(words, totals, ranked[r]);
+            }
+            System.out.println("\nHighest solve rates:");
+            for (int r = ranked.length - 1;
+                 r >= Math.max(0, ranked.length - RANKING_SIZE); --r) {
+                printRate(words, totals, ranked[r]);
+            }
+        }
+
+        final int[] openings = IntStream.range(0, words.size())
+                .filter(w -> totals.openings(w) > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong(
+                        (Integer w) -> totals.openings(w)).reversed())
+                .limit(RANKING_SIZE)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        System.out.println("\nMost popular openings:");
+        for (int w : openings) {
+            printShare(words.get(w), totals.openings(w), games);
+        }
+
+        System.out.println("\nBy day:");
+        totals.days().forEach((day, counts) -> System.out.printf(
+                "%s %9d games, %5.1f%% won, %.2f guesses per win%n",
+                LocalDate.ofEpochDay(day), counts[0],
+                100.0 * counts[1] / counts[0],
+                counts[1] == 0 ? 0.0 : (double) counts[2] / counts[1]));
+    }
+
+    private static void printShare(String label, long count, long games) {
+        System.out.printf("%-6s %12d %5.1f%%%n",
+                label, count, 100.0 * count / games);
+    }
+
+    private static void printRate(Dictionary words, Totals totals, int w) {
+        System.out.printf("%s %5.1f%% of %d%n", words.get(w),
+                100.0 * totals.solved(w) / totals.played(w), totals.played(w));
+    }
+}
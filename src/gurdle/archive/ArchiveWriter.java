@@ -0,0 +1,348 @@
+package gurdle.archive;
+
+import gurdle.Alphabet;
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.WordCodes;
+import util.Observer;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.WeakHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * Appends finished games to an archive: a directory of compressed,
+ * columnar {@link Segment segment} files that {@link ArchiveQuery} scans.
+ * <br><br>
+ * Games are buffered in flat arrays, one per column, and written out as a
+ * new segment whenever {@link #GAMES_PER_SEGMENT} have been collected, and
+ * on {@link #close()}. A segment is written under a temporary name and
+ * then renamed, so readers never see half a segment. Nothing is allocated
+ * per game.
+ * <br><br>
+ * The writer is also an observer: add it to a {@link Model} and every game
+ * that model finishes is archived, dated today.
+ * <br><br>
+ * Use: <code>java gurdle.archive.ArchiveWriter archive-dir games
+ * [word-file]</code> fills an archive with made-up games, for trying out
+ * queries at scale.
+ *
+ * @author RIT CS
+ */
+public class ArchiveWriter implements Observer<Model, String>, Closeable {
+
+    /**
+     * How many games go in a full segment
+     */
+    public static final int GAMES_PER_SEGMENT = 1 << 16;
+
+    /**
+     * Where the segments go
+     */
+    private final Path directory;
+
+    /**
+     * The words the archived games are played with
+     */
+    private final Dictionary words;
+
+    /**
+     * Number of the next segment file
+     */
+    private int nextSegment;
+
+    /**
+     * Epoch day of each buffered game
+     */
+    private final long[] days = new long[GAMES_PER_SEGMENT];
+
+    /**
+     * Word list position of each buffered game's secret
+     */
+    private final short[] secrets = new short[GAMES_PER_SEGMENT];
+
+    /**
+     * Each buffered game's {@link Segment.Column#RESULT result}
+     */
+    private final short[] results = new short[GAMES_PER_SEGMENT];
+
+    /**
+     * Word list positions of every buffered guess
+     */
+    private final short[] guesses =
+            new short[GAMES_PER_SEGMENT * Model.NUM_TRIES];
+
+    /**
+     * How many games are buffered
+     */
+    private int games;
+
+    /**
+     * How many guesses are buffered
+     */
+    private int guessCount;
+
+    /**
+     * Compresses the columns
+     */
+    private final Deflater deflater = new Deflater();
+
+    /**
+     * The {@link Model#gameId() id} of the last game archived for each
+     * observed model, so that neither a repeated notification nor a game
+     * finished again after an undo is archived twice
+     */
+    private final Map<Model, Long> archived = new WeakHashMap<>();
+
+    /**
+     * Open an archive for appending. Segments already in the directory
+     * are kept; new ones are numbered after them.
+     *
+     * @param directory the archive's directory; created if need be
+     * @param words     the words the games are played with
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public ArchiveWriter(Path directory, Dictionary words) throws IOException {
+        if (words.size() > Segment.NO_WORD) {
+            throw new IllegalArgumentException("Only word lists of up to " +
+                    Segment.NO_WORD + " words can be archived.");
+        }
+        this.directory = directory;
+        this.words = words;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, "*" + Segment.SUFFIX)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                try {
+                    final int number = Integer.parseInt(name.substring(0,
+                            name.length() - Segment.SUFFIX.length()));
+                    this.nextSegment = Math.max(this.nextSegment, number + 1);
+                } catch (NumberFormatException nfe) {
+                    // Not one of ours.
+                }
+            }
+        }
+    }
+
+    /**
+     * Archive a model's game if it has just finished.
+     *
+     * @param model   the model
+     * @param message not used
+     */
+    @Override
+    public void update(Model model, String message) {
+        final Model.GameState state = model.gameState();
+        if (state != Model.GameState.WON && state != Model.GameState.LOST) {
+            return;
+        }
+        synchronized (this) {
+            final Long last = this.archived.put(model, model.gameId());
+            if (last != null && last == model.gameId()) {
+                return;
+            }
+            try {
+                this.append(model, LocalDate.now());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+    }
+
+    /**
+     * Archive a finished game. Words that are not in this archive's word
+     * list are recorded as unknown.
+     *
+     * @param model a model whose game is over
+     * @param day   the day it was played
+     * @throws IOException if a full segment cannot be written
+     */
+    public synchronized void append(Model model, LocalDate day)
+            throws IOException {
+        final Model.GameState state = model.gameState();
+        if (state != Model.GameState.WON && state != Model.GameState.LOST) {
+            throw new IllegalArgumentException("The game is not over.");
+        }
+        final int attempts = model.numAttempts();
+        final Alphabet alphabet = this.words.alphabet();
+        for (int g = 0; g < attempts; ++g) {
+            this.guesses[this.guessCount + g] = this.position(
+                    WordCodes.pack(model.guessWord(g), alphabet));
+        }
+        this.add(day.toEpochDay(),
+                this.position(WordCodes.pack(model.secret(), alphabet)),
+                attempts, state == Model.GameState.WON);
+    }
+
+    /**
+     * Archive a finished game given as word list positions.
+     *
+     * @param epochDay the day it was played
+     * @param secret   the secret's position in the word list
+     * @param guesses  the guesses' positions in the word list
+     * @param count    how many guesses were made; at most
+     *                 {@link Model#NUM_TRIES}
+     * @param won      whether the last guess was the secret
+     * @throws IOException if a full segment cannot be written
+     */
+    public synchronized void append(long epochDay, int secret, int[] guesses,
+                                    int count, boolean won)
+            throws IOException {
+        if (count > Model.NUM_TRIES) {
+            throw new IllegalArgumentException("Too many guesses: " + count);
+        }
+        for (int g = 0; g < count; ++g) {
+            this.guesses[this.guessCount + g] = (short) guesses[g];
+        }
+        this.add(epochDay, secret, count, won);
+    }
+
+    /**
+     * Buffer one game whose guesses are already in place after the last
+     * game's, and write the segment out if it is full.
+     */
+    private void add(long epochDay, int secret, int count, boolean won)
+            throws IOException {
+        this.days[this.games] = epochDay;
+        this.secrets[this.games] = (short) secret;
+        this.results[this.games] = (short) (count | (won ? Segment.WON : 0));
+        this.games += 1;
+        this.guessCount += count;
+        if (this.games == GAMES_PER_SEGMENT) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Where is a word in this archive's word list?
+     *
+     * @param code the word's packed code
+     * @return its position, or {@link Segment#NO_WORD}
+     */
+    private short position(int code) {
+        final int index = this.words.indexOf(code);
+        return (short) (index < 0 ? Segment.NO_WORD : index);
+    }
+
+    /**
+     * Write the buffered games out as a segment, if there are any.
+     *
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (this.games == 0) {
+            return;
+        }
+        final byte[][] encoded = new byte[Segment.Column.values().length][];
+        encoded[Segment.Column.DAY.ordinal()] =
+                Segment.encodeDays(this.days, this.games);
+        encoded[Segment.Column.SECRET.ordinal()] = Segment.pack(
+                this.secrets, this.games, Segment.INDEX_BITS);
+        encoded[Segment.Column.RESULT.ordinal()] = Segment.pack(
+                this.results, this.games, Segment.RESULT_BITS);
+        encoded[Segment.Column.GUESSES.ordinal()] = Segment.pack(
+                this.guesses, this.guessCount, Segment.INDEX_BITS);
+        final byte[][] deflated = new byte[encoded.length][];
+        for (int c = 0; c < encoded.length; ++c) {
+            deflated[c] = Segment.deflate(this.deflater, encoded[c]);
+        }
+        final Path target = this.directory.resolve(
+                String.format("%08d%s", this.nextSegment, Segment.SUFFIX));
+        final Path temporary = this.directory.resolve(
+                target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(temporary))) {
+            out.writeInt(Segment.MAGIC);
+            out.writeShort(Segment.VERSION);
+            out.writeInt(this.games);
+            out.writeInt(this.guessCount);
+            out.writeInt(this.words.checksum());
+            for (int c = 0; c < encoded.length; ++c) {
+                out.writeInt(encoded[c].length);
+                out.writeInt(deflated[c].length);
+            }
+            for (byte[] column : deflated) {
+                out.write(column);
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        this.nextSegment += 1;
+        this.games = 0;
+        this.guessCount = 0;
+    }
+
+    /**
+     * Write out whatever games are buffered.
+     *
+     * @throws IOException if the last segment cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.flush();
+        this.deflater.end();
+    }
+
+    /**
+     * Fill an archive with made-up games: random secrets, random wrong
+     * guesses, and a win rate and guess count spread roughly like real
+     * players', a fixed number of games per day ending today.
+     *
+     * @param args the archive directory, how many games, and optionally a
+     *             word file (default {@link Model#WORD_FILE_NAME})
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(
+                    "Use: java gurdle.archive.ArchiveWriter archive-dir " +
+                            "games [word-file]");
+            System.exit(1);
+        }
+        final long total = Long.parseLong(args[1]);
+        final Dictionary words = Dictionary.open(
+                Path.of(args.length > 2 ? args[2] : Model.WORD_FILE_NAME));
+        // Cumulative chance, out of 100, of needing at most 1..6 guesses
+        final int[] solvedBy = {1, 7, 30, 63, 87, 97};
+        final long gamesPerDay = Math.max(1, total / 365);
+        final long today = LocalDate.now().toEpochDay();
+        final long firstDay = today - (total - 1) / gamesPerDay;
+        final SplittableRandom rng = new SplittableRandom(total);
+        final int[] guesses = new int[Model.NUM_TRIES];
+        final long start = System.nanoTime();
+        try (ArchiveWriter writer =
+                     new ArchiveWriter(Path.of(args[0]), words)) {
+            for (long n = 0; n < total; ++n) {
+                final int secret = rng.nextInt(words.size());
+                final int roll = rng.nextInt(100);
+                int count = 1;
+                while (count <= Model.NUM_TRIES &&
+                        roll >= solvedBy[count - 1]) {
+                    count += 1;
+                }
+                final boolean won = count <= Model.NUM_TRIES;
+                count = Math.min(count, Model.NUM_TRIES);
+                for (int g = 0; g < count; ++g) {
+                    guesses[g] = rng.nextInt(words.size());
+                }
+                if (won) {
+                    guesses[count - 1] = secret;
+                }
+                writer.append(firstDay + n / gamesPerDay, secret, guesses,
+                        count, won);
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("Archived %d games in %d ms.%n",
+                total, elapsed / 1_000_000);
+    }
+}
@@ -0,0 +1,272 @@
+package gurdle.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The layout of one archive segment file, and the column encodings.
+ * <br><br>
+ * A segment holds up to {@link ArchiveWriter#GAMES_PER_SEGMENT} finished
+ * games, stored one column at a time so that a query only inflates the
+ * columns it reads. Words are stored as 12-bit positions in the word list
+ * the games were played with.
+ * <br><br>
+ * File layout (big-endian):
+ * <pre>
+ * int    MAGIC
+ * short  VERSION
+ * int    number of games
+ * int    number of guesses, over all games
+ * int    the word list's {@link gurdle.Dictionary#checksum() checksum}
+ * per column, in {@link Column} order:
+ *   int  encoded length
+ *   int  deflated length
+ * per column, in {@link Column} order: the deflated bytes
+ * </pre>
+ *
+ * @author RIT CS
+ */
+final class Segment {
+
+    /**
+     * First four bytes of every segment file ("GARC")
+     */
+    static final int MAGIC = 0x47415243;
+
+    /**
+     * Format revision; bumped whenever the layout changes
+     */
+    static final short VERSION = 1;
+
+    /**
+     * File name ending of segment files
+     */
+    static final String SUFFIX = ".games";
+
+    /**
+     * Bits used for a word's position in the word list
+     */
+    static final int INDEX_BITS = 12;
+
+    /**
+     * Stored in place of a word that is not in the word list; also the
+     * largest word list that can be archived
+     */
+    static final int NO_WORD = (1 << INDEX_BITS) - 1;
+
+    /**
+     * Bits used for a game's result
+     */
+    static final int RESULT_BITS = 4;
+
+    /**
+     * The result bit that is set if the game was won; the bits below it
+     * hold the number of guesses
+     */
+    static final int WON = 1 << (RESULT_BITS - 1);
+
+    /**
+     * Bytes before the first column
+     */
+    static final int HEADER_SIZE =
+            4 + 2 + 4 + 4 + 4 + 8 * Column.values().length;
+
+    /**
+     * The columns, in the order they are stored
+     */
+    enum Column {
+        /**
+         * The day each game was played, as runs of (change in epoch day,
+         * number of games) pairs, both zig-zag varints
+         */
+        DAY,
+        /**
+         * Each game's secret, {@link #INDEX_BITS} bits per game
+         */
+        SECRET,
+        /**
+         * Each game's number of guesses, plus {@link #WON},
+         * {@link #RESULT_BITS} bits per game
+         */
+        RESULT,
+        /**
+         * Every game's guesses one after the other, {@link #INDEX_BITS}
+         * bits per guess; the result column says how many belong to each
+         * game
+         */
+        GUESSES
+    }
+
+    /**
+     * Utility class; not to be instantiated
+     */
+    private Segment() {
+    }
+
+    /**
+     * Pack small numbers into a bit stream, first number in the most
+     * significant bits.
+     *
+     * @param values the numbers; each must fit in bits
+     * @param count  how many of them to pack
+     * @param bits   bits per number, at most 24
+     * @return the packed bytes, the last one padded with zeroes
+     */
+    static byte[] pack(short[] values, int count, int bits) {
+        final byte[] packed = new byte[(int) (((long) count * bits + 7) / 8)];
+        long buffer = 0;
+        int held = 0;
+        int out = 0;
+        for (int i = 0; i < count; ++i) {
+            buffer = buffer << bits | values[i] & ((1 << bits) - 1);
+            held += bits;
+            while (held >= 8) {
+                held -= 8;
+                packed[out++] = (byte) (buffer >>> held);
+            }
+        }
+        if (held > 0) {
+            packed[out] = (byte) (buffer << (8 - held));
+        }
+        return packed;
+    }
+
+    /**
+     * Undo {@link #pack}.
+     *
+     * @param packed the packed bytes
+     * @param count  how many numbers to unpack
+     * @param bits   bits per number
+     * @param values where the numbers go
+     */
+    static void unpack(byte[] packed, int count, int bits, short[] values) {
+        final int mask = (1 << bits) - 1;
+        long buffer = 0;
+        int held = 0;
+        int in = 0;
+        for (int i = 0; i < count; ++i) {
+            while (held < bits) {
+                buffer = buffer << 8 | packed[in++] & 0xFF;
+                held += 8;
+            }
+            held -= bits;
+            values[i] = (short) (buffer >>> held & mask);
+        }
+    }
+
+    /**
+     * Encode the day column.
+     *
+     * @param days  the epoch day of each game
+     * @param count how many games there are
+     * @return the encoded column
+     */
+    static byte[] encodeDays(long[] days, int count) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long last = 0;
+        int i = 0;
+        while (i < count) {
+            final long day = days[i];
+            int run = 1;
+            while (i + run < count && days[i + run] == day) {
+                run += 1;
+            }
+            writeVarLong(out, day - last);
+            writeVarLong(out, run);
+            last = day;
+            i += run;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Append a zig-zag varint.
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = value << 1 ^ value >> 63;
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) (zigzag & 0x7F | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    /**
+     * Read a zig-zag varint.
+     *
+     * @param in where to read it from; advanced past it
+     * @return the number
+     */
+    static long readVarLong(ByteBuffer in) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return zigzag >>> 1 ^ -(zigzag & 1);
+    }
+
+    /**
+     * Compress an encoded column.
+     *
+     * @param deflater the compressor to use; reset first
+     * @param column   the encoded column
+     * @return the deflated bytes
+     */
+    static byte[] deflate(Deflater deflater, byte[] column) {
+        deflater.reset();
+        deflater.setInput(column);
+        deflater.finish();
+        final ByteArrayOutputStream out =
+                new ByteArrayOutputStream(column.length / 2 + 64);
+        final byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress one column of a segment.
+     *
+     * @param inflater      the decompressor to use; reset first
+     * @param segment       the segment file's contents
+     * @param offset        where the column's deflated bytes start
+     * @param deflatedSize  how many deflated bytes there are
+     * @param encodedLength how long the encoded column is
+     * @return the encoded column
+     * @throws IOException if the bytes cannot be inflated
+     */
+    static byte[] inflate(Inflater inflater, byte[] segment, int offset,
+                          int deflatedSize, int encodedLength)
+            throws IOException {
+        inflater.reset();
+        inflater.setInput(segment, offset, deflatedSize);
+        final byte[] column = new byte[encodedLength];
+        try {
+            int done = 0;
+            while (done < encodedLength && !inflater.finished()) {
+                final int n = inflater.inflate(column, done,
+                        encodedLength - done);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                done += n;
+            }
+            if (done != encodedLength) {
+                throw new IOException(
+                        "Column is shorter than its header says.");
+            }
+        } catch (DataFormatException dfe) {
+            throw new IOException(dfe);
+        }
+        return column;
+    }
+}
@@ -0,0 +1,180 @@
+package gurdle.bench;
+
+import gurdle.Alphabet;
+import gurdle.CharChoice;
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Checks that {@link Alphabet pluggable alphabets} cost the Latin game
+ * nothing, and shows what a Cyrillic game costs.
+ * <br><br>
+ * Two things are timed:
+ * <ul>
+ *     <li>packing and unpacking every word of the Latin list, with the
+ *     original Latin-only {@link WordCodes#pack(String)} and
+ *     {@link WordCodes#unpack(int)} and with the alphabet-aware versions
+ *     given {@link Alphabet#LATIN}</li>
+ *     <li>whole guesses through {@link Model} (typed, confirmed and read
+ *     back from the board), for the Latin list and for a Macedonian one</li>
+ * </ul>
+ * Every result is also checked: codes must round-trip, and the alphabet
+ * versions must agree with the Latin-only ones.
+ * <br><br>
+ * Use: <code>java gurdle.bench.AlphabetBenchmark [latin-file
+ * [cyrillic-file]]</code>
+ *
+ * @author RIT CS
+ */
+public class AlphabetBenchmark {
+
+    /**
+     * The Macedonian word list shipped with the game
+     */
+    public static final String CYRILLIC_FILE_NAME = "data/macedonian.txt";
+
+    /**
+     * How many timed passes are made; the best is kept
+     */
+    private static final int PASSES = 5;
+
+    /**
+     * How many words are handled per timed pass
+     */
+    private static final int OPERATIONS = 2_000_000;
+
+    /**
+     * Where timed results go, so the work is not optimized away
+     */
+    private static volatile int sink;
+
+    /**
+     * Time an operation over word positions.
+     *
+     * @param n  how many words there are
+     * @param op the operation, given a word's position
+     * @return operations per second, best of {@link #PASSES} passes
+     */
+    private static double rate(int n, IntUnaryOperator op) {
+        double best = 0;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            int sink = 0;
+            final long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; ++i) {
+                sink += op.applyAsInt(i % n);
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            best = Math.max(best, OPERATIONS / seconds);
+            AlphabetBenchmark.sink += sink;
+        }
+        return best;
+    }
+
+    /**
+     * Make one guess in a new game and read its colors off the board.
+     *
+     * @return the sum of the square statuses' ordinals
+     */
+    private static int playOne(Model model, String guess, String secret) {
+        model.newGame(secret);
+        model.enterNewGuess(guess);
+        int total = 0;
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            final CharChoice square = model.get(0, c);
+            total += square.getStatus().ordinal() + square.getChar();
+        }
+        return total;
+    }
+
+    /**
+     * Time guesses through a model.
+     *
+     * @param words the word list
+     * @return guesses per second
+     */
+    private static double games(Dictionary words) {
+        final Model model = new Model(() -> words);
+        final int n = words.size();
+        return rate(n, w -> playOne(model, words.get(w),
+                words.get((w * 7 + 3) % n)));
+    }
+
+    /**
+     * Check codes against the words they came from.
+     *
+     * @param words the word list
+     * @return how many words did not round-trip
+     */
+    private static int check(Dictionary words) {
+        final Alphabet alphabet = words.alphabet();
+        int failures = 0;
+        for (int w = 0; w < words.size(); ++w) {
+            final String word = words.get(w);
+            final int code = WordCodes.pack(word, alphabet);
+            boolean ok = code == words.code(w) &&
+                    WordCodes.unpack(code, alphabet).equals(word);
+            if (alphabet == Alphabet.LATIN) {
+                ok &= code == WordCodes.pack(word) &&
+                        WordCodes.unpack(code).equals(word);
+            }
+            if (!ok) {
+                if (failures < 10) {
+                    System.out.println(alphabet + ": " + word +
+                            " does not round-trip");
+                }
+                failures += 1;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional Latin and Cyrillic word files
+     */
+    public static void main(String[] args) throws IOException {
+        final Dictionary latin = Dictionary.open(
+                Path.of(args.length > 0 ? args[0] : Model.WORD_FILE_NAME));
+        final Dictionary cyrillic = Dictionary.open(
+                Path.of(args.length > 1 ? args[1] : CYRILLIC_FILE_NAME));
+        System.out.printf("%d %s words, %d %s words%n", latin.size(),
+                latin.alphabet(), cyrillic.size(), cyrillic.alphabet());
+        final int failures = check(latin) + check(cyrillic);
+
+        final int n = latin.size();
+        final String[] text = new String[n];
+        final int[] codes = new int[n];
+        for (int w = 0; w < n; ++w) {
+            text[w] = latin.get(w);
+            codes[w] = latin.code(w);
+        }
+        final double legacyPack = rate(n, w -> WordCodes.pack(text[w]));
+        final double latinPack =
+                rate(n, w -> WordCodes.pack(text[w], Alphabet.LATIN));
+        final double legacyUnpack =
+                rate(n, w -> WordCodes.unpack(codes[w]).length());
+        final double latinUnpack = rate(n, w ->
+                WordCodes.unpack(codes[w], Alphabet.LATIN).length());
+        System.out.printf("pack     %,14.0f latin-only %,14.0f alphabet " +
+                "(%+.1f%%)%n", legacyPack, latinPack,
+                100 * (latinPack / legacyPack - 1));
+        System.out.printf("unpack   %,14.0f latin-only %,14.0f alphabet " +
+                "(%+.1f%%)%n", legacyUnpack, latinUnpack,
+                100 * (latinUnpack / legacyUnpack - 1));
+
+        final double latinGames = games(latin);
+        final double cyrillicGames = games(cyrillic);
+        System.out.printf("guesses  %,14.0f %-10s %,14.0f %s%n",
+                latinGames, latin.alphabet(), cyrillicGames,
+                cyrillic.alphabet());
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package gurdle.bench;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+import gurdle.solver.GameAnalyzer;
+import gurdle.solver.Solver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that {@link GameAnalyzer} is quick enough to show after every
+ * game. It times the first game analyzed, which also finds the best
+ * opening for the word list, then analyzes many more made-up games and
+ * prints the median, 99th percentile and worst time per game.
+ * <br><br>
+ * The games are played the way a casual player might: a random first
+ * word, then random words that could still be the secret, until the
+ * secret is found or the tries run out.
+ * <br><br>
+ * Use: <code>java gurdle.bench.AnalysisBenchmark [games [word-file]]</code>
+ *
+ * @author RIT CS
+ */
+public class AnalysisBenchmark {
+
+    /**
+     * Games analyzed if no number is given
+     */
+    private static final int DEFAULT_GAMES = 10_000;
+
+    /**
+     * Where skill and luck are added up, so the work is not optimized
+     * away
+     */
+    private static volatile long sink;
+
+    /**
+     * Play one made-up game.
+     *
+     * @param words  the word list
+     * @param secret the secret's index
+     * @param random chooses the guesses
+     * @return the rows played
+     */
+    private static List<Solver.Clue> play(Dictionary words, int secret,
+                                          Random random) {
+        final int secretCode = words.code(secret);
+        final int secretMask = Feedback.letterMask(secretCode);
+        final List<Solver.Clue> clues = new ArrayList<>();
+        int[] candidates = null;
+        for (int row = 0; row < Model.NUM_TRIES; ++row) {
+            final int guess = candidates == null ?
+                    random.nextInt(words.size()) :
+                    candidates[random.nextInt(candidates.length)];
+            final int pattern = Feedback.score(words.code(guess), secretCode,
+                    secretMask);
+            clues.add(new Solver.Clue(words.get(guess), pattern));
+            if (pattern == Feedback.ALL_RIGHT) {
+                break;
+            }
+            candidates = Solver.candidates(words, clues);
+        }
+        return clues;
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of games and word file
+     */
+    public static void main(String[] args) throws Exception {
+        final int games = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        final Dictionary words = Dictionary.open(args.length > 1 ?
+                Path.of(args[1]) : Model.wordFile());
+
+        final Random random = new Random(1);
+        long start = System.nanoTime();
+        final GameAnalyzer analyzer = GameAnalyzer.of(words);
+        final int first = random.nextInt(words.size());
+        analyzer.analyze(play(words, first, random), WordCodes.unpack(
+                words.code(first), words.alphabet()));
+        System.out.printf("%,d words: first game (and opening) in %.0f ms%n",
+                words.size(), (System.nanoTime() - start) / 1e6);
+
+        final LatencyHistogram times = new LatencyHistogram();
+        for (int game = 0; game < games; ++game) {
+            final int secret = random.nextInt(words.size());
+            final List<Solver.Clue> clues = play(words, secret, random);
+            start = System.nanoTime();
+            final GameAnalyzer.Analysis analysis =
+                    analyzer.analyze(clues, WordCodes.unpack(
+                            words.code(secret), words.alphabet()));
+            times.record(System.nanoTime() - start);
+            sink += analysis.skill() + analysis.luck();
+        }
+        System.out.printf("%,d games: p50 %.3f ms, p99 %.3f ms, " +
+                        "max %.3f ms%n", games, times.percentile(50) / 1e6,
+                times.percentile(99) / 1e6, times.max() / 1e6);
+    }
+}
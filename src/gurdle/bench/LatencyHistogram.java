@@ -0,0 +1,160 @@
+package gurdle.bench;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts of latencies, in nanoseconds, kept the way HdrHistogram keeps
+ * them: values below 2<sup>{@link #SUB_BUCKET_BITS}</sup> exactly, and
+ * larger ones in buckets that double in width with each power of two, so
+ * that every bucket is within 1 / 2<sup>{@link #SUB_BUCKET_BITS} - 1</sup>
+ * (under 2%) of the values in it. A fixed array of under 4,000 counters
+ * therefore covers every possible <code>long</code>, from nanoseconds to
+ * hours, with the same relative precision.
+ * <br><br>
+ * Any number of threads may record at once. A {@link #copy() copy} taken
+ * at the end of each reporting interval, {@link #minus(LatencyHistogram)
+ * less} the one before, gives that interval's latencies alone.
+ *
+ * @author RIT CS
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Bits of each value kept exactly
+     */
+    public static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * Values below this have a bucket each
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Buckets per power of two above {@link #SUB_BUCKETS}
+     */
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    /**
+     * The counts, by bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(
+            (Long.SIZE - SUB_BUCKET_BITS) * HALF + SUB_BUCKETS);
+
+    /**
+     * Which bucket holds a value?
+     *
+     * @param value a value, not negative
+     * @return the bucket's index
+     */
+    static int index(long value) {
+        final int shift = Math.max(0,
+                Long.SIZE - Long.numberOfLeadingZeros(value) -
+                        SUB_BUCKET_BITS);
+        return (shift * HALF) + (int) (value >>> shift);
+    }
+
+    /**
+     * The largest value a bucket holds
+     *
+     * @param index the bucket's index
+     * @return every value in the bucket is at most this
+     */
+    static long highest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / HALF - 1;
+        final long top = index - (long) shift * HALF;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Count one latency.
+     *
+     * @param nanos the latency; negative ones count as 0
+     */
+    public void record(long nanos) {
+        this.counts.incrementAndGet(index(Math.max(0, nanos)));
+    }
+
+    /**
+     * How many latencies have been recorded?
+     *
+     * @return the total count
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < this.counts.length(); ++i) {
+            total += this.counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * The latency that a given percentage of recorded ones are at or below
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the latency, to within the histogram's precision, or 0 if
+     * nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        final long total = this.count();
+        if (total == 0) {
+            return 0;
+        }
+        final long wanted = Math.max(1,
+                (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length(); ++i) {
+            seen += this.counts.get(i);
+            if (seen >= wanted) {
+                return highest(i);
+            }
+        }
+        return highest(this.counts.length() - 1);
+    }
+
+    /**
+     * The largest latency recorded
+     *
+     * @return the latency, to within the histogram's precision, or 0 if
+     * nothing has been recorded
+     */
+    public long max() {
+        for (int i = this.counts.length() - 1; i >= 0; --i) {
+            if (this.counts.get(i) != 0) {
+                return highest(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The counts as they are now. Latencies recorded while the copy is
+     * being made may or may not be in it.
+     *
+     * @return a new histogram
+     */
+    public LatencyHistogram copy() {
+        final LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < this.counts.length(); ++i) {
+            copy.counts.set(i, this.counts.get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * The latencies recorded since an earlier copy of this histogram
+     *
+     * @param earlier the earlier copy
+     * @return a new histogram of the difference
+     */
+    public LatencyHistogram minus(LatencyHistogram earlier) {
+        final LatencyHistogram difference = new LatencyHistogram();
+        for (int i = 0; i < this.counts.length(); ++i) {
+            difference.counts.set(i,
+                    this.counts.get(i) - earlier.counts.get(i));
+        }
+        return difference;
+    }
+}
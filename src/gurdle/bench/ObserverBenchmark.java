@@ -0,0 +1,161 @@
+package gurdle.bench;
+
+import util.Observer;
+import util.ObserverRegistry;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Shows what {@link ObserverRegistry} does for a subject with thousands
+ * of observers that come and go.
+ * <br><br>
+ * First, the time to notify each of {@link #OBSERVERS} observers is
+ * measured with the registry and with the {@link LinkedList} that
+ * {@link gurdle.Model} used to keep them in.
+ * <br><br>
+ * Then observers churn: in each of {@link #ROUNDS} rounds, a batch of
+ * views attaches, is notified once and is dropped, as short-lived
+ * connections to a long-lived game would be. Registered strongly and
+ * never removed (as before), they pile up and notifying gets slower
+ * every round; registered weakly, they are purged after each
+ * collection and the registry stays the size of one batch.
+ * <br><br>
+ * Use: <code>java gurdle.bench.ObserverBenchmark</code>
+ *
+ * @author RIT CS
+ */
+public class ObserverBenchmark {
+
+    /**
+     * Observers notified in the iteration test
+     */
+    private static final int OBSERVERS = 10_000;
+
+    /**
+     * How many timed passes are made; the best is kept
+     */
+    private static final int PASSES = 20;
+
+    /**
+     * Times everything is measured; only the last is printed, once the
+     * code has been compiled
+     */
+    private static final int TRIALS = 5;
+
+    /**
+     * Rounds of churn
+     */
+    private static final int ROUNDS = 10;
+
+    /**
+     * Observers attaching in each round of churn
+     */
+    private static final int BATCH = 5_000;
+
+    /**
+     * Counts notifications, so the work is not optimized away
+     */
+    private static final class View implements Observer<Object, String> {
+        private int updates;
+
+        @Override
+        public void update(Object subject, String message) {
+            this.updates += 1;
+        }
+    }
+
+    /**
+     * Nanoseconds per observer to notify every observer in a collection,
+     * best of {@link #PASSES}
+     *
+     * @param observers the observers
+     * @param n         how many there are
+     */
+    private static double notifyTime(
+            Iterable<Observer<Object, String>> observers, int n) {
+        long best = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            final long start = System.nanoTime();
+            for (Observer<Object, String> observer : observers) {
+                observer.update(null, "update");
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / n;
+    }
+
+    /**
+     * Run one kind of churn and print a line per round.
+     *
+     * @param label    what kind it is
+     * @param registry the registry
+     * @param weak     register weakly, rather than strongly
+     */
+    private static void churn(String label,
+                              ObserverRegistry<Object, String> registry,
+                              boolean weak) {
+        System.out.println(label + ":");
+        for (int round = 1; round <= ROUNDS; ++round) {
+            List<View> views = new ArrayList<>();
+            for (int i = 0; i < BATCH; ++i) {
+                final View view = new View();
+                views.add(view);
+                if (weak) {
+                    registry.addWeak(view);
+                } else {
+                    registry.add(view);
+                }
+            }
+            long best = Long.MAX_VALUE;
+            for (int pass = 0; pass < PASSES; ++pass) {
+                final long start = System.nanoTime();
+                registry.notifyObservers(null, "update");
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            views = null; // The connections close.
+            System.gc();
+            System.out.printf("  round %2d: notified in %7.3f ms; " +
+                    "%,8d registered%n", round, best / 1e6, registry.size());
+        }
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        final List<Observer<Object, String>> list = new LinkedList<>();
+        final ObserverRegistry<Object, String> strong =
+                new ObserverRegistry<>();
+        final ObserverRegistry<Object, String> weak =
+                new ObserverRegistry<>();
+        final List<View> views = new ArrayList<>();
+        for (int i = 0; i < OBSERVERS; ++i) {
+            final View view = new View();
+            views.add(view);
+            list.add(view);
+            strong.add(view);
+            weak.addWeak(view);
+        }
+        double linked = 0, registry = 0, weakly = 0;
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            linked = notifyTime(list, OBSERVERS);
+            registry = notifyTime(strong, OBSERVERS);
+            weakly = notifyTime(weak, OBSERVERS);
+        }
+        Reference.reachabilityFence(views);
+        System.out.printf("notify %,d observers, per observer:%n", OBSERVERS);
+        System.out.printf("  linked list      %6.2f ns%n", linked);
+        System.out.printf("  registry         %6.2f ns%n", registry);
+        System.out.printf("  registry (weak)  %6.2f ns%n", weakly);
+        System.out.println();
+
+        churn("churn, strong and never removed", new ObserverRegistry<>(),
+                false);
+        churn("churn, weak", new ObserverRegistry<>(), true);
+    }
+}
@@ -0,0 +1,296 @@
+package gurdle.bench;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.pipeline.CommandPipeline;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compares two ways for many network threads to play many shared games:
+ * locking each game while a thread plays on it, and handing the commands
+ * to a {@link CommandPipeline}.
+ * <br><br>
+ * In both, each publisher thread picks a random session out of
+ * {@link #SESSIONS} and either starts a new game (one time in
+ * {@link #NEW_GAME_ODDS}) or guesses a random word. Directly, the
+ * publisher locks the session's {@link Model} and plays; through the
+ * pipeline, it publishes the command and a responder thread drains the
+ * results, as the thread writing replies would.
+ * <br><br>
+ * For each run the commands per second are printed, and the bytes
+ * allocated per command by each kind of thread, so that a pipeline
+ * that allocates per command would show up. The processors' figure
+ * includes what {@link Model} itself allocates to record each guess.
+ * <br><br>
+ * Use: <code>java gurdle.bench.PipelineBenchmark [publishers
+ * [processors [seconds]]]</code>
+ *
+ * @author RIT CS
+ */
+public class PipelineBenchmark {
+
+    /**
+     * How many sessions share the games
+     */
+    private static final int SESSIONS = 4_096;
+
+    /**
+     * One command in this many starts a new game
+     */
+    private static final int NEW_GAME_ODDS = 7;
+
+    /**
+     * Commands and results each processor's rings hold
+     */
+    private static final int RING_SIZE = 4_096;
+
+    /**
+     * How long each run lasts if no time is given
+     */
+    private static final long DEFAULT_SECONDS = 10;
+
+    /**
+     * Set to let publishers start
+     */
+    private static volatile boolean go;
+
+    /**
+     * Allocation counts per thread
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)
+                    ManagementFactory.getThreadMXBean();
+
+    /**
+     * Threads whose allocations are being watched, and their counts
+     * when watching started
+     */
+    private static final class Watched {
+        private final List<Thread> threads = new ArrayList<>();
+        private long allocated;
+
+        /**
+         * The bytes the threads have allocated so far; they must all be
+         * alive
+         */
+        private long total() {
+            long total = 0;
+            for (Thread thread : this.threads) {
+                total += THREADS.getThreadAllocatedBytes(thread.getId());
+            }
+            return total;
+        }
+
+        /**
+         * Start watching the threads added so far.
+         */
+        void start() {
+            this.allocated = -this.total();
+        }
+
+        /**
+         * Stop watching, before any of the threads end.
+         */
+        void stop() {
+            this.allocated += this.total();
+        }
+
+        /**
+         * Bytes the threads allocated between {@link #start()} and
+         * {@link #stop()}
+         */
+        long allocated() {
+            return this.allocated;
+        }
+    }
+
+    /**
+     * What a publisher does with each command
+     */
+    @FunctionalInterface
+    private interface Sink {
+        void command(byte op, long session, int code);
+    }
+
+    /**
+     * Start publisher threads that send random commands until stopped.
+     * They wait for {@link #go} before starting.
+     *
+     * @param n        how many
+     * @param words    the guesses to choose from
+     * @param sink     what to do with each command
+     * @param sent     where commands are counted
+     * @param stopping set to stop them
+     * @return the threads, started
+     */
+    private static Watched publishers(int n, Dictionary words, Sink sink,
+                                      LongAdder sent,
+                                      AtomicBoolean stopping) {
+        final Watched watched = new Watched();
+        for (int p = 0; p < n; ++p) {
+            final Thread thread = new Thread(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                awaitGo();
+                long count = 0;
+                while (!stopping.get()) {
+                    final long session = random.nextInt(SESSIONS);
+                    if (random.nextInt(NEW_GAME_ODDS) == 0) {
+                        sink.command(CommandPipeline.NEW, session, 0);
+                    } else {
+                        sink.command(CommandPipeline.GUESS, session,
+                                words.code(random.nextInt(words.size())));
+                    }
+                    count += 1;
+                }
+                sent.add(count);
+            }, "publisher-" + p);
+            watched.threads.add(thread);
+            thread.start();
+        }
+        return watched;
+    }
+
+    /**
+     * Wait until publishers may start.
+     */
+    private static void awaitGo() {
+        while (!go) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Let publishers go, time them, and stop them.
+     *
+     * @param seconds  how long to run
+     * @param watched  the publishers, and any other threads to watch
+     * @param stopping set to stop them
+     * @return how long they ran, in seconds
+     */
+    private static double run(long seconds, List<Watched> watched,
+                              AtomicBoolean stopping)
+            throws InterruptedException {
+        watched.forEach(Watched::start);
+        final long start = System.nanoTime();
+        go = true;
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        watched.forEach(Watched::stop);
+        stopping.set(true);
+        final double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Thread thread : watched.get(0).threads) {
+            thread.join();
+        }
+        go = false;
+        return elapsed;
+    }
+
+    /**
+     * Print one line of allocation.
+     */
+    private static void allocation(String label, long bytes, long commands) {
+        System.out.printf("  %-12s %8.1f bytes/command%n", label,
+                (double) bytes / commands);
+    }
+
+    /**
+     * Run the comparison.
+     *
+     * @param args optional numbers of publisher and processor threads,
+     *             and seconds per run
+     */
+    public static void main(String[] args) throws Exception {
+        final int publishers = args.length > 0 ?
+                Integer.parseInt(args[0]) : 2;
+        final int processors = args.length > 1 ?
+                Integer.parseInt(args[1]) : 2;
+        final long seconds = args.length > 2 ?
+                Long.parseLong(args[2]) : DEFAULT_SECONDS;
+        final Dictionary words = Dictionary.open(Model.wordFile());
+        final Supplier<Dictionary> dictionaries = () -> words;
+        System.out.printf("%d publishers, %d processors, %d sessions, " +
+                "%d s per run%n", publishers, processors, SESSIONS, seconds);
+
+        // Directly, with a lock per game.
+        final Model[] games = new Model[SESSIONS];
+        for (int s = 0; s < SESSIONS; ++s) {
+            games[s] = new Model(dictionaries);
+            games[s].newGame();
+        }
+        final LongAdder directSent = new LongAdder();
+        final AtomicBoolean directStopping = new AtomicBoolean();
+        final Watched directPublishers = publishers(publishers, words,
+                (op, session, code) -> {
+                    final Model game = games[(int) session];
+                    synchronized (game) {
+                        if (op == CommandPipeline.NEW) {
+                            game.newGame();
+                        } else {
+                            game.enterNewGuess(code);
+                        }
+                    }
+                }, directSent, directStopping);
+        final double directTime =
+                run(seconds, List.of(directPublishers), directStopping);
+        final long direct = directSent.sum();
+        System.out.printf("locked:   %,12.0f commands/s%n",
+                direct / directTime);
+        allocation("publishers", directPublishers.allocated(), direct);
+
+        // Through the pipeline.
+        final Watched processorThreads = new Watched();
+        final CommandPipeline pipeline = new CommandPipeline(processors,
+                RING_SIZE, dictionaries, r -> {
+            final Thread thread = new Thread(r,
+                    "processor-" + processorThreads.threads.size());
+            thread.setDaemon(true);
+            processorThreads.threads.add(thread);
+            return thread;
+        });
+        final long[] counts = new long[CommandPipeline.UNKNOWN + 1];
+        final CommandPipeline.ResultHandler tally =
+                (tag, session, status, state, attempts, value) ->
+                        counts[status] += 1;
+        final LongAdder pipelineSent = new LongAdder();
+        final AtomicBoolean pipelineStopping = new AtomicBoolean();
+        final AtomicBoolean responderStopping = new AtomicBoolean();
+        final Thread responder = new Thread(() -> {
+            while (!responderStopping.get()) {
+                if (pipeline.drain(tally) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        }, "responder");
+        final Watched responderThread = new Watched();
+        responderThread.threads.add(responder);
+        responder.start();
+        for (int s = 0; s < SESSIONS; ++s) {
+            pipeline.publish(CommandPipeline.NEW, s, 0, s);
+        }
+        final Watched pipelinePublishers = publishers(publishers, words,
+                (op, session, code) -> pipeline.publish(op, session, code,
+                        session), pipelineSent, pipelineStopping);
+        final double pipelineTime = run(seconds, List.of(pipelinePublishers,
+                responderThread, processorThreads), pipelineStopping);
+        pipeline.close();
+        responderStopping.set(true);
+        responder.join();
+        pipeline.drain(tally);
+        final long sent = pipelineSent.sum();
+        final double rate = sent / pipelineTime;
+        System.out.printf("pipeline: %,12.0f commands/s " +
+                        "(%.2fx; %,d ok, %,d rejected)%n",
+                rate, rate / (direct / directTime),
+                counts[CommandPipeline.OK], counts[CommandPipeline.REJECTED]);
+        allocation("publishers", pipelinePublishers.allocated(), sent);
+        allocation("responder", responderThread.allocated(), sent);
+        allocation("processors", processorThreads.allocated(), sent);
+    }
+}
@@ -0,0 +1,308 @@
+package gurdle.bench;
+
+import gurdle.CharChoice;
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Scores every (guess, secret) pair of the word list with each scoring
+ * engine, checks every engine against a deliberately simple reference
+ * implementation, and reports how many pairs each engine scores per
+ * second on one core.
+ * <br><br>
+ * The engines are:
+ * <ul>
+ *     <li>model: the production path, {@link Model#enterNewGuess(String)}
+ *     and {@link Model#confirmGuess()}, with the board read back through
+ *     {@link Model#get(int, int)}</li>
+ *     <li>string: {@link Feedback#score(String, String)}</li>
+ *     <li>packed: {@link Feedback#score(int, int, int)}</li>
+ * </ul>
+ * Any new engine should be added to {@link #engines(Dictionary)} before it
+ * is used anywhere else.
+ * <br><br>
+ * With <code>--record file</code> the measured rates are saved as a
+ * baseline. With <code>--gate file</code> they are compared to a saved
+ * baseline and the run fails (exit status 1) if any engine is more than
+ * {@link #TOLERANCE} slower. A mismatch with the reference always fails.
+ * <br><br>
+ * Use: <code>java gurdle.bench.ScoringSuite [--record file | --gate file]
+ * </code>
+ *
+ * @author RIT CS
+ */
+public class ScoringSuite {
+
+    /**
+     * How much slower than the baseline an engine may be, as a fraction
+     */
+    private static final double TOLERANCE = 0.2;
+
+    /**
+     * How many timed passes are made over all pairs; the best is kept
+     */
+    private static final int PASSES = 3;
+
+    /**
+     * Hand-checked cases, mostly repeated letters, as guess, secret, and
+     * the row Turdle would print ('^' right spot, '*' wrong spot).
+     * These pin down the reference itself.
+     */
+    private static final String[][] KNOWN = {
+            {"EERIE", "THEME", "**  ^"},
+            {"SPEED", "ABIDE", "  ***"},
+            {"LLAMA", "HELLO", "**   "},
+            {"HELLO", "LLAMA", "  ** "},
+            {"ABBEY", "BABES", "**^^ "},
+            {"GEESE", "EAGLE", "*** ^"},
+            {"CRANE", "CRANE", "^^^^^"},
+            {"MAMMA", "MAXIM", "^^***"},
+    };
+
+    /**
+     * Where timed results go, so the work is not optimized away
+     */
+    private static volatile int sink;
+
+    /**
+     * A way of scoring a guess against a secret.
+     */
+    @FunctionalInterface
+    private interface Engine {
+        /**
+         * @param guess  position of the guess in the word list
+         * @param secret position of the secret in the word list
+         * @return the pattern, as {@link Feedback} defines it
+         */
+        int score(int guess, int secret);
+    }
+
+    /**
+     * No instances; run {@link #main(String[])}.
+     */
+    private ScoringSuite() {
+    }
+
+    /**
+     * The rules, spelled out as plainly as possible.
+     *
+     * @param guess  the guess
+     * @param secret the secret
+     * @return the pattern
+     */
+    static int reference(String guess, String secret) {
+        int pattern = 0;
+        int weight = 1;
+        for (int c = 0; c < guess.length(); ++c) {
+            int digit = 0;
+            for (int s = 0; s < secret.length(); ++s) {
+                if (guess.charAt(c) == secret.charAt(s)) {
+                    digit = 1;
+                }
+            }
+            if (guess.charAt(c) == secret.charAt(c)) {
+                digit = 2;
+            }
+            pattern += digit * weight;
+            weight *= 3;
+        }
+        return pattern;
+    }
+
+    /**
+     * Show a pattern the way Turdle does.
+     *
+     * @param pattern a pattern
+     * @return one marker per letter
+     */
+    static String markers(int pattern) {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < Model.WORD_SIZE; ++c) {
+            sb.append(switch (Feedback.status(pattern, c)) {
+                case RIGHT_POS -> '^';
+                case WRONG_POS -> '*';
+                default -> ' ';
+            });
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Score through a real game: start it with the secret, enter the
+     * guess, and read the colors off the board.
+     */
+    private static int throughModel(Model model, String guess,
+                                    String secret) {
+        model.newGame(secret);
+        model.enterNewGuess(guess);
+        int pattern = 0;
+        for (int c = Model.WORD_SIZE - 1; c >= 0; --c) {
+            final CharChoice.Status status = model.get(0, c).getStatus();
+            pattern = pattern * 3 +
+                    (status == CharChoice.Status.RIGHT_POS ? 2 :
+                            status == CharChoice.Status.WRONG_POS ? 1 : 0);
+        }
+        return pattern;
+    }
+
+    /**
+     * Everything that can score, by name
+     *
+     * @param words the word list
+     * @return the engines
+     */
+    private static Map<String, Engine> engines(Dictionary words) {
+        final Model model = new Model(() -> words);
+        final int[] masks = new int[words.size()];
+        for (int w = 0; w < masks.length; ++w) {
+            masks[w] = Feedback.letterMask(words.code(w));
+        }
+        Map<String, Engine> engines = new LinkedHashMap<>();
+        engines.put("model", (g, s) ->
+                throughModel(model, words.get(g), words.get(s)));
+        engines.put("string", (g, s) ->
+                Feedback.score(words.get(g), words.get(s)));
+        engines.put("packed", (g, s) ->
+                Feedback.score(words.code(g), words.code(s), masks[s]));
+        return engines;
+    }
+
+    /**
+     * Check the reference against the hand-checked cases.
+     *
+     * @return how many cases disagreed
+     */
+    private static int checkKnown() {
+        int failures = 0;
+        for (String[] known : KNOWN) {
+            final String got = markers(reference(known[0], known[1]));
+            if (!got.equals(known[2])) {
+                System.out.printf("reference: %s vs %s gave \"%s\", " +
+                        "expected \"%s\"%n", known[0], known[1], got, known[2]);
+                failures += 1;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Score every pair with one engine and compare with the reference.
+     *
+     * @return how many pairs disagreed
+     */
+    private static long crossCheck(String name, Engine engine,
+                                   Dictionary words, int[] expected) {
+        final int n = words.size();
+        long failures = 0;
+        for (int g = 0; g < n; ++g) {
+            for (int s = 0; s < n; ++s) {
+                final int got = engine.score(g, s);
+                if (got != expected[g * n + s]) {
+                    if (failures < 10) {
+                        System.out.printf("%s: %s vs %s gave \"%s\", " +
+                                        "reference \"%s\"%n", name,
+                                words.get(g), words.get(s), markers(got),
+                                markers(expected[g * n + s]));
+                    }
+                    failures += 1;
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Time one engine over all pairs.
+     *
+     * @return pairs scored per second, best of {@link #PASSES} passes
+     */
+    private static double rate(Engine engine, int n) {
+        double best = 0;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            int sink = 0;
+            final long start = System.nanoTime();
+            for (int g = 0; g < n; ++g) {
+                for (int s = 0; s < n; ++s) {
+                    sink += engine.score(g, s);
+                }
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            best = Math.max(best, (double) n * n / seconds);
+            ScoringSuite.sink += sink;
+        }
+        return best;
+    }
+
+    /**
+     * Run the suite.
+     *
+     * @param args optional --record or --gate, with a baseline file
+     */
+    public static void main(String[] args) throws IOException {
+        final Dictionary words = Dictionary.open(Path.of(Model.WORD_FILE_NAME));
+        final int n = words.size();
+        final int[] expected = new int[n * n];
+        long duplicatePairs = 0;
+        for (int g = 0; g < n; ++g) {
+            final String guess = words.get(g);
+            final boolean repeats = guess.chars().distinct().count() <
+                    Model.WORD_SIZE;
+            for (int s = 0; s < n; ++s) {
+                expected[g * n + s] = reference(guess, words.get(s));
+                if (repeats) {
+                    duplicatePairs += 1;
+                }
+            }
+        }
+        long failures = checkKnown();
+        System.out.printf("%d pairs, %d with a repeated letter in the " +
+                "guess%n", (long) n * n, duplicatePairs);
+
+        Properties measured = new Properties();
+        for (Map.Entry<String, Engine> entry : engines(words).entrySet()) {
+            final long wrong =
+                    crossCheck(entry.getKey(), entry.getValue(), words,
+                            expected);
+            failures += wrong;
+            final double rate = rate(entry.getValue(), n);
+            measured.setProperty(entry.getKey(), String.valueOf(rate));
+            System.out.printf("%-8s %s  %,14.0f pairs/s/core%n",
+                    entry.getKey(), wrong == 0 ? "ok  " : "FAIL", rate);
+        }
+
+        if (args.length == 2 && args[0].equals("--record")) {
+            try (Writer out = Files.newBufferedWriter(Path.of(args[1]))) {
+                measured.store(out, "ScoringSuite baseline, pairs/s/core");
+            }
+        } else if (args.length == 2 && args[0].equals("--gate")) {
+            Properties baseline = new Properties();
+            try (Reader in = Files.newBufferedReader(Path.of(args[1]))) {
+                baseline.load(in);
+            }
+            for (String name : baseline.stringPropertyNames()) {
+                final double floor = Double.parseDouble(
+                        baseline.getProperty(name)) * (1 - TOLERANCE);
+                final double rate = Double.parseDouble(
+                        measured.getProperty(name, "0"));
+                if (rate < floor) {
+                    System.out.printf("%s regressed: %,.0f < %,.0f " +
+                            "pairs/s/core%n", name, rate, floor);
+                    failures += 1;
+                }
+            }
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
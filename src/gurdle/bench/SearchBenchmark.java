@@ -0,0 +1,191 @@
+package gurdle.bench;
+
+import gurdle.Alphabet;
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.WordQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Checks that {@link Dictionary#search(WordQuery)} stays interactive on a
+ * very large word list. A made-up list of random words is searched with a
+ * few typical queries three ways:
+ * <ul>
+ *     <li>a regular expression matched against every word as a string,
+ *     with the required and excluded letters looked for in each</li>
+ *     <li>{@link WordQuery#matches(int)} on every word's code</li>
+ *     <li>the dictionary's bit set index, both for every match and for
+ *     the first screenful, as the "search" command takes them</li>
+ * </ul>
+ * The three must find the same words.
+ * <br><br>
+ * Use: <code>java gurdle.bench.SearchBenchmark [words]</code>
+ *
+ * @author RIT CS
+ */
+public class SearchBenchmark {
+
+    /**
+     * Words in the made-up list if no number is given
+     */
+    private static final int DEFAULT_WORDS = 200_000;
+
+    /**
+     * How many timed passes are made; the best is kept
+     */
+    private static final int PASSES = 20;
+
+    /**
+     * How many matches a screenful is
+     */
+    private static final int SCREEN = 60;
+
+    /**
+     * The queries: pattern, required letters, excluded letters
+     */
+    private static final String[][] QUERIES = {
+            {"A?E??", WordQuery.NONE, WordQuery.NONE},
+            {"?????", "RS", "AEIOU"},
+            {"S[^T]A??", "E", "XYZ"},
+            {"[^AEIOU]????", "QU", WordQuery.NONE},
+    };
+
+    /**
+     * Where results are added up, so the work is not optimized away
+     */
+    private static volatile long sink;
+
+    /**
+     * Something to time
+     */
+    @FunctionalInterface
+    private interface Task {
+        long run();
+    }
+
+    /**
+     * Time a task, best of {@link #PASSES} passes.
+     *
+     * @param task the task
+     * @return milliseconds
+     */
+    private static double time(Task task) {
+        long best = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            final long start = System.nanoTime();
+            sink += task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * The regular expression for a query's pattern
+     *
+     * @param pattern the pattern, as {@link WordQuery} reads it
+     * @return the same pattern as a regular expression
+     */
+    private static Pattern regex(String pattern) {
+        return Pattern.compile(pattern.replace('?', '.'));
+    }
+
+    /**
+     * Does a word have every required letter and no excluded one?
+     */
+    private static boolean letters(String word, String required,
+                                   String excluded) {
+        if (!required.equals(WordQuery.NONE)) {
+            for (char ch : required.toCharArray()) {
+                if (word.indexOf(ch) < 0) {
+                    return false;
+                }
+            }
+        }
+        if (!excluded.equals(WordQuery.NONE)) {
+            for (char ch : excluded.toCharArray()) {
+                if (word.indexOf(ch) >= 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of words
+     */
+    public static void main(String[] args) {
+        final int n = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_WORDS;
+        final Random random = new Random(1);
+        final Set<String> made = new LinkedHashSet<>();
+        final char[] word = new char[Model.WORD_SIZE];
+        while (made.size() < n) {
+            for (int c = 0; c < word.length; ++c) {
+                word[c] = (char) ('A' + random.nextInt(26));
+            }
+            made.add(new String(word));
+        }
+        final List<String> strings = new ArrayList<>(made);
+        final Dictionary words = new Dictionary(strings, Alphabet.LATIN);
+        long start = System.nanoTime();
+        words.count(WordQuery.parse("?????", WordQuery.NONE, WordQuery.NONE,
+                Alphabet.LATIN));
+        System.out.printf("%,d words: index built in %.1f ms%n", n,
+                (System.nanoTime() - start) / 1e6);
+        System.out.printf("%-28s %8s %8s %8s %8s %8s%n", "query", "found",
+                "regex", "codes", "index", "screen");
+
+        for (String[] q : QUERIES) {
+            final WordQuery query =
+                    WordQuery.parse(q[0], q[1], q[2], Alphabet.LATIN);
+            final Pattern regex = regex(q[0]);
+            final long expected = strings.stream()
+                    .filter(s -> regex.matcher(s).matches() &&
+                            letters(s, q[1], q[2]))
+                    .count();
+            final long byCode = IntStream.range(0, n)
+                    .filter(i -> query.matches(words.code(i))).count();
+            final long byIndex = words.search(query).count();
+            if (byCode != expected || byIndex != expected ||
+                    words.count(query) != expected) {
+                throw new IllegalStateException(String.join(" ", q) +
+                        ": regex " + expected + ", codes " + byCode +
+                        ", index " + byIndex);
+            }
+            final double regexTime = time(() -> {
+                long found = 0;
+                for (String s : strings) {
+                    if (regex.matcher(s).matches() &&
+                            letters(s, q[1], q[2])) {
+                        found += 1;
+                    }
+                }
+                return found;
+            });
+            final double codeTime = time(() -> {
+                long found = 0;
+                for (int i = 0; i < n; ++i) {
+                    found += query.matches(words.code(i)) ? 1 : 0;
+                }
+                return found;
+            });
+            final double indexTime = time(() -> words.count(query));
+            final double screenTime = time(() ->
+                    words.search(query).limit(SCREEN)
+                            .mapToObj(words::get).toList().size());
+            System.out.printf("%-28s %,8d %8.3f %8.3f %8.3f %8.3f ms%n",
+                    String.join(" ", q), expected, regexTime, codeTime,
+                    indexTime, screenTime);
+        }
+    }
+}
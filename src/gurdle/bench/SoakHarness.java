@@ -0,0 +1,386 @@
+package gurdle.bench;
+
+import com.sun.management.GarbageCollectorMXBean;
+import com.sun.management.GcInfo;
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.ptui.Turdle;
+import util.ptui.ConsoleApplication;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load and soak test for {@link ConsoleApplication} front ends. Many
+ * {@link Turdle}s are started in this JVM, each through
+ * {@link ConsoleApplication#launch(Class, String[], InputStream,
+ * OutputStream)} with pipes in place of standard input and output, and
+ * each is driven by a player thread typing scripted games: a new game, a
+ * few random guesses, a peek at the secret with "cheat", and the winning
+ * guess.
+ * <br><br>
+ * Together the players send commands at a fixed target rate. Each player
+ * keeps to its own schedule whether or not the replies keep up, and a
+ * command's latency is measured from when the schedule said to send it
+ * until the application's next prompt arrives, so a stall counts against
+ * every command that should have been sent during it, not just the one
+ * that was waiting. Latencies go into a {@link LatencyHistogram}.
+ * <br><br>
+ * Every {@link #REPORT_SECONDS} seconds one line is printed for the
+ * interval just ended: the commands completed, their p50, p99 and p99.9
+ * latency and the maximum, and the heap in use after the last garbage
+ * collection. Left running for hours, a heap figure that keeps rising
+ * means something is being kept that should not be; the final summary
+ * gives its trend, fitted by least squares over every interval after the
+ * first.
+ * <br><br>
+ * Use: <code>java gurdle.bench.SoakHarness [instances [commands-per-second
+ * [seconds]]]</code>
+ *
+ * @author RIT CS
+ */
+public class SoakHarness {
+
+    /**
+     * Front ends started if no number is given. Each watches the word
+     * file, so this is kept well under the usual per-user limit on file
+     * watchers.
+     */
+    private static final int DEFAULT_INSTANCES = 16;
+
+    /**
+     * Commands per second, over all instances, if no rate is given
+     */
+    private static final int DEFAULT_RATE = 2_000;
+
+    /**
+     * How long to run if no time is given
+     */
+    private static final long DEFAULT_SECONDS = 60;
+
+    /**
+     * How often a line is reported
+     */
+    private static final long REPORT_SECONDS = 10;
+
+    /**
+     * Random guesses in each scripted game, at most
+     */
+    private static final int MAX_RANDOM_GUESSES = Model.NUM_TRIES - 1;
+
+    /**
+     * Room in each pipe; enough for any one reply, so the application
+     * never waits for the player to read
+     */
+    private static final int PIPE_SIZE = 1 << 16;
+
+    /**
+     * How the front ends encode their text; they use the default charset
+     */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /**
+     * What a reply ends with
+     */
+    private static final byte[] PROMPT =
+            ConsoleApplication.PROMPT.getBytes(CHARSET);
+
+    /**
+     * One running front end and the thread typing into it
+     */
+    private static final class Player implements Runnable {
+        private final Thread application;
+        private final OutputStream commands;
+        private final InputStream replies;
+        private final Dictionary words;
+        private final long periodNanos;
+        private final LatencyHistogram latencies;
+        private final LongAdder completed;
+        private final Random random;
+        private final byte[] reply = new byte[PIPE_SIZE];
+        private int replyLength;
+        private long next;
+        private volatile boolean stopping;
+
+        /**
+         * Start a front end connected to pipes.
+         *
+         * @param number      which instance this is, from 0
+         * @param words       the guesses to choose from
+         * @param periodNanos time between this player's commands
+         * @param latencies   where latencies are counted
+         * @param completed   where commands are counted
+         * @throws IOException if the pipes cannot be made
+         */
+        Player(int number, Dictionary words, long periodNanos,
+               LatencyHistogram latencies, LongAdder completed)
+                throws IOException {
+            this.words = words;
+            this.periodNanos = periodNanos;
+            this.latencies = latencies;
+            this.completed = completed;
+            this.random = new Random(number);
+            final PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+            this.commands = new PipedOutputStream(in);
+            final PipedInputStream replies = new PipedInputStream(PIPE_SIZE);
+            final PipedOutputStream out = new PipedOutputStream(replies);
+            this.replies = replies;
+            this.application = new Thread(() -> {
+                try {
+                    ConsoleApplication.launch(Turdle.class, new String[0],
+                            in, out);
+                } finally {
+                    try {
+                        out.close(); // The player sees the end.
+                    } catch (IOException ioe) {
+                        // Nobody is reading any more.
+                    }
+                }
+            }, "soak-turdle-" + number);
+            this.application.start();
+        }
+
+        /**
+         * Read until the next prompt.
+         *
+         * @return false if the application has gone
+         */
+        private boolean awaitPrompt() throws IOException {
+            this.replyLength = 0;
+            while (true) {
+                final int n = this.replies.read(this.reply, this.replyLength,
+                        this.reply.length - this.replyLength);
+                if (n < 0) {
+                    return false;
+                }
+                this.replyLength += n;
+                if (this.replyLength >= PROMPT.length &&
+                        endsWithPrompt()) {
+                    return true;
+                }
+                if (this.replyLength == this.reply.length) {
+                    this.replyLength = 0; // Only the end matters.
+                }
+            }
+        }
+
+        /**
+         * Does the reply read so far end with the prompt?
+         */
+        private boolean endsWithPrompt() {
+            for (int i = 0; i < PROMPT.length; ++i) {
+                if (this.reply[this.replyLength - PROMPT.length + i] !=
+                        PROMPT[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Send the next command when the schedule says to, and wait for
+         * its reply.
+         *
+         * @param line the command
+         * @return the reply, without the prompt
+         * @throws EOFException if the application has gone
+         */
+        private String send(String line) throws IOException {
+            final long intended = this.next;
+            this.next += this.periodNanos;
+            final long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            this.commands.write((line + System.lineSeparator())
+                    .getBytes(CHARSET));
+            this.commands.flush();
+            if (!this.awaitPrompt()) {
+                throw new EOFException("The application stopped.");
+            }
+            this.latencies.record(System.nanoTime() - intended);
+            this.completed.increment();
+            return new String(this.reply, 0,
+                    this.replyLength - PROMPT.length, CHARSET);
+        }
+
+        /**
+         * Play scripted games until told to stop, then quit.
+         */
+        @Override
+        public void run() {
+            try {
+                if (!this.awaitPrompt()) {
+                    return;
+                }
+                this.next = System.nanoTime();
+                while (!this.stopping) {
+                    this.send("new");
+                    final int guesses = 1 +
+                            this.random.nextInt(MAX_RANDOM_GUESSES);
+                    for (int g = 0; g < guesses; ++g) {
+                        this.send("guess " + this.words.get(
+                                this.random.nextInt(this.words.size())));
+                    }
+                    this.send("guess " + this.send("cheat").strip());
+                }
+                this.commands.write((ConsoleApplication.QUIT +
+                        System.lineSeparator()).getBytes(CHARSET));
+                this.commands.flush();
+                while (this.awaitPrompt()) {
+                    // Drain anything said on the way out.
+                }
+            } catch (IOException ioe) {
+                System.err.println(Thread.currentThread().getName() + ": " +
+                        ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The heap in use just after the most recent garbage collection: what
+     * was still reachable then, rather than whatever has piled up since
+     *
+     * @return bytes, summed over the heap's memory pools, or 0 if there
+     * has been no collection yet
+     */
+    private static long heapAfterGc() {
+        GcInfo last = null;
+        for (GarbageCollectorMXBean collector :
+                ManagementFactory.getPlatformMXBeans(
+                        GarbageCollectorMXBean.class)) {
+            final GcInfo info = collector.getLastGcInfo();
+            if (info != null &&
+                    (last == null || info.getEndTime() > last.getEndTime())) {
+                last = info;
+            }
+        }
+        if (last == null) {
+            return 0;
+        }
+        long used = 0;
+        for (MemoryPoolMXBean pool :
+                ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP &&
+                    last.getMemoryUsageAfterGc().containsKey(pool.getName())) {
+                used += last.getMemoryUsageAfterGc()
+                        .get(pool.getName()).getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * The slope of the least-squares line through some points
+     *
+     * @return change in y per unit of x, or 0 with fewer than two points
+     */
+    private static double slope(List<double[]> points) {
+        if (points.size() < 2) {
+            return 0;
+        }
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (double[] p : points) {
+            sx += p[0];
+            sy += p[1];
+            sxx += p[0] * p[0];
+            sxy += p[0] * p[1];
+        }
+        final int n = points.size();
+        final double denominator = n * sxx - sx * sx;
+        return denominator == 0 ? 0 : (n * sxy - sx * sy) / denominator;
+    }
+
+    /**
+     * Print one line of latencies.
+     */
+    private static void report(String label, long commands, double seconds,
+                               LatencyHistogram latencies, long heap) {
+        System.out.printf("%8s %,10d cmds %,9.0f/s  p50 %8.3f  p99 %8.3f  " +
+                        "p99.9 %8.3f  max %8.3f ms  heap %,8.1f MB%n",
+                label, commands, commands / seconds,
+                latencies.percentile(50) / 1e6,
+                latencies.percentile(99) / 1e6,
+                latencies.percentile(99.9) / 1e6,
+                latencies.max() / 1e6, heap / 1e6);
+    }
+
+    /**
+     * Run the harness.
+     *
+     * @param args optional number of instances, target commands per
+     *             second over all of them, and seconds to run
+     */
+    public static void main(String[] args) throws Exception {
+        final int instances = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_INSTANCES;
+        final double rate = args.length > 1 ?
+                Double.parseDouble(args[1]) : DEFAULT_RATE;
+        final long seconds = args.length > 2 ?
+                Long.parseLong(args[2]) : DEFAULT_SECONDS;
+        final Dictionary words = Dictionary.open(Model.wordFile());
+        final long period = (long) (TimeUnit.SECONDS.toNanos(1) *
+                instances / rate);
+        System.out.printf("%d instances, %,.0f commands/s, %d s%n",
+                instances, rate, seconds);
+
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final LongAdder completed = new LongAdder();
+        final List<Player> players = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < instances; ++i) {
+            final Player player =
+                    new Player(i, words, period, latencies, completed);
+            final Thread thread = new Thread(player, "soak-player-" + i);
+            players.add(player);
+            threads.add(thread);
+        }
+        final long start = System.nanoTime();
+        threads.forEach(Thread::start);
+
+        final List<double[]> heap = new ArrayList<>();
+        LatencyHistogram before = latencies.copy();
+        long commandsBefore = 0;
+        long elapsed = 0;
+        while (elapsed < seconds) {
+            final long step = Math.min(REPORT_SECONDS, seconds - elapsed);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(step));
+            elapsed += step;
+            final LatencyHistogram now = latencies.copy();
+            final long commands = completed.sum();
+            final long used = heapAfterGc();
+            if (elapsed > REPORT_SECONDS) {
+                heap.add(new double[]{elapsed / 3600.0, used / 1e6});
+            }
+            report(elapsed + " s", commands - commandsBefore, step,
+                    now.minus(before), used);
+            before = now;
+            commandsBefore = commands;
+        }
+        for (Player player : players) {
+            player.stopping = true;
+        }
+        for (int i = 0; i < instances; ++i) {
+            threads.get(i).join();
+            players.get(i).application.join();
+        }
+        final double total = (System.nanoTime() - start) / 1e9;
+        report("total", completed.sum(), total, latencies, heapAfterGc());
+        System.out.printf("heap trend %+,.1f MB/hour over %d samples%n",
+                slope(heap), heap.size());
+    }
+}
@@ -0,0 +1,230 @@
+package gurdle.bench;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.server.GameServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that guesses stay quick on a {@link GameServer} that is also
+ * being asked for as many hints as it can be. A server is started on a
+ * free port, and one player guesses as fast as the replies come, starting
+ * a new game every few guesses, for a while with nothing else going on.
+ * Then, with the same player still guessing, a crowd of other clients ask
+ * for hints, several on each game, each asking again as soon as it is
+ * answered (or after a short wait if it was turned away), so that the
+ * solver lane is kept full and its per-game limit is reached.
+ * <br><br>
+ * For each phase the guesses' median, 99th percentile and worst latency
+ * are printed; for the flood, how the hint requests were answered, by
+ * status: 200 for a hint, 429 for a game with too many already, 503 for a
+ * full solver lane, 504 for a deadline missed.
+ * <br><br>
+ * Use: <code>java gurdle.bench.SolverFloodBenchmark [seconds
+ * [hinters [word-file]]]</code>
+ *
+ * @author RIT CS
+ */
+public class SolverFloodBenchmark {
+
+    /**
+     * How long each phase lasts if no time is given
+     */
+    private static final int DEFAULT_SECONDS = 10;
+
+    /**
+     * Clients asking for hints if no number is given
+     */
+    private static final int DEFAULT_HINTERS = 16;
+
+    /**
+     * How many hinters share each game
+     */
+    private static final int HINTERS_PER_GAME = 4;
+
+    /**
+     * Guesses made in each of the player's games before starting another
+     */
+    private static final int GUESSES_PER_GAME = 4;
+
+    /**
+     * How long a hinter waits after being turned away, as a polite client
+     * would, rather than asking again at once
+     */
+    private static final long BACKOFF_MILLIS = 10;
+
+    /**
+     * Finds a game's id in a response
+     */
+    private static final Pattern ID = Pattern.compile("\"id\":\"([0-9a-f]+)\"");
+
+    /**
+     * Where the server is
+     */
+    private static String base;
+
+    /**
+     * Make a request.
+     *
+     * @param method GET or POST
+     * @param path   the path and query
+     * @param body   filled in with the response's body, if not null
+     * @return the response's status
+     */
+    private static int request(String method, String path,
+                               StringBuilder body) throws IOException {
+        final HttpURLConnection connection =
+                (HttpURLConnection) new URL(base + path).openConnection();
+        connection.setRequestMethod(method);
+        final int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() :
+                connection.getErrorStream()) {
+            final String text = in == null ? "" :
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (body != null) {
+                body.append(text);
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Start a game.
+     *
+     * @return its id
+     */
+    private static String newGame() throws IOException {
+        final StringBuilder body = new StringBuilder();
+        request("POST", "/games", body);
+        final Matcher id = ID.matcher(body);
+        if (!id.find()) {
+            throw new IOException("No id in " + body);
+        }
+        return id.group(1);
+    }
+
+    /**
+     * Guess random words until time is up, starting a new game every
+     * {@link #GUESSES_PER_GAME} guesses.
+     *
+     * @param words   where guesses come from
+     * @param seconds how long to keep guessing
+     * @return the guesses' latencies
+     */
+    private static LatencyHistogram guess(Dictionary words, int seconds)
+            throws IOException {
+        final LatencyHistogram times = new LatencyHistogram();
+        final Random random = new Random(1);
+        final long end = System.nanoTime() + seconds * 1_000_000_000L;
+        String game = newGame();
+        for (int made = 0; System.nanoTime() < end; ++made) {
+            if (made == GUESSES_PER_GAME) {
+                game = newGame();
+                made = 0;
+            }
+            final String path = "/games/" + game + "/guess?word=" +
+                    words.get(random.nextInt(words.size()));
+            final long start = System.nanoTime();
+            request("POST", path, null);
+            times.record(System.nanoTime() - start);
+        }
+        return times;
+    }
+
+    /**
+     * Print one phase's guess latencies.
+     */
+    private static void report(String phase, LatencyHistogram times) {
+        System.out.printf("%-12s %,7d guesses: p50 %6.2f ms, " +
+                        "p99 %7.2f ms, max %7.2f ms%n", phase, times.count(),
+                times.percentile(50) / 1e6, times.percentile(99) / 1e6,
+                times.max() / 1e6);
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional phase length in seconds, number of hinters, and
+     *             word file
+     */
+    public static void main(String[] args) throws Exception {
+        final int seconds = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        final int hinters = args.length > 1 ?
+                Integer.parseInt(args[1]) : DEFAULT_HINTERS;
+        final Dictionary words = Dictionary.open(args.length > 2 ?
+                Path.of(args[2]) : Model.wordFile());
+        // Without this the JDK's server sends the headers and the body in
+        // separate packets, and each reply waits ~40 ms for an ACK.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        final GameServer server = new GameServer(
+                new InetSocketAddress("127.0.0.1", 0), () -> words, 1_000);
+        server.start();
+        base = "http://127.0.0.1:" + server.port();
+        System.out.printf("%,d words, %d cores, %d hinters%n", words.size(),
+                Runtime.getRuntime().availableProcessors(), hinters);
+
+        guess(words, 1); // Warm up.
+        report("alone", guess(words, seconds));
+
+        final Map<Integer, LongAdder> answers =
+                new ConcurrentHashMap<>();
+        final List<String> games = new ArrayList<>();
+        for (int h = 0; h < hinters; h += HINTERS_PER_GAME) {
+            final String game = newGame();
+            request("POST", "/games/" + game + "/guess?word=" +
+                    words.get(h % words.size()), null);
+            games.add(game);
+        }
+        final List<Thread> threads = new ArrayList<>();
+        for (int h = 0; h < hinters; ++h) {
+            final String path =
+                    "/games/" + games.get(h / HINTERS_PER_GAME) + "/hint";
+            final Thread thread = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        final int status = request("GET", path, null);
+                        answers.computeIfAbsent(status,
+                                s -> new LongAdder()).increment();
+                        if (status != 200) {
+                            Thread.sleep(BACKOFF_MILLIS);
+                        }
+                    }
+                } catch (InterruptedException ie) {
+                    // Time is up.
+                } catch (IOException ioe) {
+                    throw new RuntimeException(ioe);
+                }
+            }, "hinter-" + h);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        report("under flood", guess(words, seconds));
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        server.stop();
+
+        final Map<Integer, Long> sorted = new TreeMap<>();
+        answers.forEach((status, count) -> sorted.put(status, count.sum()));
+        System.out.println("hint answers: " + sorted);
+    }
+}
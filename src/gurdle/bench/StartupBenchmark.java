@@ -0,0 +1,189 @@
+package gurdle.bench;
+
+import gurdle.Dictionary;
+import gurdle.DictionaryCompiler;
+import gurdle.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the plain-text UI takes to start and quit.
+ * <ol>
+ *     <li>
+ *         The word file is compiled (see {@link DictionaryCompiler}) so
+ *         that {@link Dictionary#open(Path)} takes the fast path.
+ *     </li>
+ *     <li>
+ *         The app's classes are packed into a jar, since class-data
+ *         sharing only archives classes loaded from jars.
+ *     </li>
+ *     <li>
+ *         An application class-data-sharing archive of the app's classes
+ *         is dumped by a training run of {@link gurdle.ptui.Turdle}.
+ *     </li>
+ *     <li>
+ *         Fresh JVMs are started repeatedly, "cold" without the archive and
+ *         "warm" with it, and the median wall-clock time of each is
+ *         reported.
+ *     </li>
+ * </ol>
+ * The in-process cost of reading the text and compiled word files is
+ * reported as well.
+ * <br><br>
+ * Use: <code>java gurdle.bench.StartupBenchmark [runs [archive-dir]]
+ * </code>
+ *
+ * @author RIT CS
+ */
+public class StartupBenchmark {
+
+    /**
+     * How many JVMs of each kind are started if not told otherwise
+     */
+    private static final int DEFAULT_RUNS = 10;
+
+    /**
+     * Where the jar and the class-data-sharing archive go if not told
+     * otherwise
+     */
+    private static final String DEFAULT_ARCHIVE_DIR = "out/startup";
+
+    /**
+     * The app launched for every measurement
+     */
+    private static final String MAIN_CLASS = "gurdle.ptui.Turdle";
+
+    /**
+     * No instances; run {@link #main(String[])}.
+     */
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Start the app in a new JVM, tell it to quit, and wait for it.
+     *
+     * @param jar        the app's classes
+     * @param jvmOptions extra options for the new JVM
+     * @return how long it ran, in milliseconds
+     */
+    private static double launch(Path jar, String... jvmOptions)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString());
+        command.addAll(Arrays.asList(jvmOptions));
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add(MAIN_CLASS);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        final long start = System.nanoTime();
+        Process process = builder.start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write("quit\n".getBytes());
+        }
+        if (process.waitFor() != 0) {
+            throw new IOException(MAIN_CLASS + " failed to start.");
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Start several JVMs the same way.
+     *
+     * @return the median run time, in milliseconds
+     */
+    private static double median(int runs, Path jar, String... jvmOptions)
+            throws IOException, InterruptedException {
+        final double[] times = new double[runs];
+        for (int r = 0; r < runs; ++r) {
+            times[r] = launch(jar, jvmOptions);
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    /**
+     * Pack the classes this benchmark was loaded from into a jar.
+     *
+     * @param jar where to put the jar
+     */
+    private static void packClasses(Path jar) throws IOException {
+        final Path classes = Path.of(System.getProperty("java.class.path")
+                .split(File.pathSeparator)[0]);
+        if (!Files.isDirectory(classes)) {
+            Files.copy(classes, jar, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        try (JarOutputStream out =
+                     new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    out.putNextEntry(new JarEntry(classes.relativize(file)
+                            .toString().replace('\\', '/')));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Time loading a word file in this JVM, after a few warm-up loads.
+     *
+     * @return the best of several loads, in microseconds
+     */
+    private static double loadTime(Path wordFile) throws IOException {
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < 50; ++r) {
+            final long start = System.nanoTime();
+            Dictionary.load(wordFile);
+            best = Math.min(best, (System.nanoTime() - start) / 1e3);
+        }
+        return best;
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of runs and archive location
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        final int runs = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        final Path archiveDir =
+                Path.of(args.length > 1 ? args[1] : DEFAULT_ARCHIVE_DIR);
+        final Path jar = archiveDir.resolve("gurdle.jar");
+        final Path archive = archiveDir.resolve("gurdle.jsa");
+        final Path text = Path.of(Model.WORD_FILE_NAME);
+        final Path compiled = Dictionary.compiledPath(text);
+
+        DictionaryCompiler.compile(Dictionary.load(text), compiled);
+        System.out.printf("Word file load: text %.0f us, compiled %.0f us%n",
+                loadTime(text), loadTime(compiled));
+
+        Files.createDirectories(archiveDir);
+        packClasses(jar);
+        launch(jar, "-XX:ArchiveClassesAtExit=" + archive);
+        final double cold = median(runs, jar);
+        final double warm =
+                median(runs, jar, "-XX:SharedArchiveFile=" + archive);
+        System.out.printf("Startup over %d runs (median): cold %.1f ms, " +
+                "warm %.1f ms (%.0f%% faster)%n", runs, cold, warm,
+                100 * (cold - warm) / cold);
+    }
+}
@@ -1,9 +1,19 @@
 package gurdle.gui;
 
+import gurdle.Alphabet;
 import gurdle.CharChoice;
+import gurdle.Dictionary;
+import gurdle.DictionaryReloader;
 import gurdle.Model;
+import gurdle.jfr.RenderEvent;
+import gurdle.jfr.StartupEvent;
+import gurdle.solver.Solver;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import util.Observer;
@@ -13,8 +23,12 @@ import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The graphical user interface to the Wordle game model in
@@ -27,6 +41,47 @@ public class Gurdle extends Application implements Observer<Model, String> {
      * the model (the whole data/logic and rules)
      */
     private Model model;
+    /**
+     * every branch of the current deal made with the FORK button; the
+     * model being played is one of these
+     */
+    private final List<Model> branches = new ArrayList<>();
+    /**
+     * keeps the word list up to date while the window is open; null until
+     * it has been loaded
+     */
+    private volatile DictionaryReloader words;
+    /**
+     * the background loading of the word list and the first game, if it
+     * has not finished
+     */
+    private Task<Model> loading;
+    /**
+     * the board, disabled until the first game is ready
+     */
+    private GridPane board;
+    /**
+     * the keyboard and the buttons next to it, disabled until the first
+     * game is ready
+     */
+    private BorderPane controls;
+    /**
+     * the keyboard, laid out for the alphabet it currently shows
+     */
+    private final GridPane keyboard = new GridPane();
+    /**
+     * the alphabet the keyboard currently shows
+     */
+    private Alphabet keyboardAlphabet;
+    /**
+     * milliseconds from JVM start to the first frame, or 0 until then
+     */
+    private long firstFrameMs;
+    /**
+     * milliseconds from JVM start to the first game being ready, or 0
+     * until then
+     */
+    private long loadedMs;
     /**
      * the number of rows
      */
@@ -59,39 +114,74 @@ public class Gurdle extends Application implements Observer<Model, String> {
      * the label
      */
     private final Label label = new Label();
+    /**
+     * takes back the last letter or guess
+     */
+    private final Button undo = new Button("UNDO");
+    /**
+     * puts back what UNDO took back
+     */
+    private final Button redo = new Button("REDO");
+    /**
+     * the assistant panel, hidden until the player asks for it
+     */
+    private final VBox assistant = new VBox();
+    /**
+     * the assistant's suggested next guess
+     */
+    private final Label suggestion = new Label();
+    /**
+     * the assistant's count of words that could still be the secret
+     */
+    private final Label remaining = new Label();
+    /**
+     * the background thread the assistant's analysis runs on, so that the
+     * FX thread never waits for it
+     */
+    private final ExecutorService analyst =
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gurdle-assistant");
+                thread.setDaemon(true);
+                return thread;
+            });
+    /**
+     * the analysis in progress, if any
+     */
+    private Task<Void> analysis;
+    /**
+     * the rows the last finished analysis was done for
+     */
+    private List<Solver.Clue> analyzedClues;
 
     /**
-     * This method creates the Wordle model and register this object as an
-     * observer of it.
+     * This method does nothing slow: the word list is read, and the model
+     * made, in the background once the window is up (see
+     * {@link #load()}).
      */
     @Override
     public void init() {
         this.initialized = false;
-        this.model = new Model();
-        this.model.addObserver(this);
-        List<String> paramStrings = super.getParameters().getRaw();
-        if (paramStrings.size() == 1) {
-            final String firstWord = paramStrings.get(0);
-            this.model.newGame(firstWord);
-        } else {
-            this.model.newGame();
-        }
     }
 
     /**
      * The start() method has the scene and the setting of the whole stage.
+     * The window is shown at once with the board disabled, and enabled when
+     * the first game is ready.
      *
      * @param mainStage the stage
      */
     @Override
     public void start(Stage mainStage) {
         BorderPane pane = new BorderPane();
-        label.setText("Number of guesses: " + model.numAttempts());
+        label.setText("Loading words...");
         pane.setTop(label);
-        BorderPane bottom = bottom();
-        pane.setBottom(bottom);
-        GridPane center = center();
-        pane.setCenter(center);
+        controls = bottom();
+        controls.setDisable(true);
+        pane.setBottom(controls);
+        board = center();
+        board.setDisable(true);
+        pane.setCenter(board);
+        pane.setRight(assistant());
         Scene scene = new Scene(pane);
         mainStage.setResizable(false);
         this.initialized = true;
@@ -101,6 +191,89 @@ public class Gurdle extends Application implements Observer<Model, String> {
         mainStage.maxHeightProperty();
         mainStage.maximizedProperty();
         mainStage.show();
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                // The first pulse after show() draws the first frame.
+                stop();
+                firstFrameMs = uptimeMs();
+                reportStartup();
+            }
+        }.start();
+        load();
+    }
+
+    /**
+     * How long the JVM has been running
+     *
+     * @return milliseconds since it started
+     */
+    private static long uptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * This method reads the word list, builds its indexes and starts the
+     * first game on a background thread, then hands the model to the FX
+     * thread, which enables the board. Edits to the word file take effect
+     * from the next game.
+     */
+    private void load() {
+        final List<String> paramStrings = super.getParameters().getRaw();
+        loading = new Task<>() {
+            @Override
+            protected Model call() throws IOException {
+                words = new DictionaryReloader(Model.wordFile());
+                final Model first = new Model(words);
+                if (paramStrings.size() == 1) {
+                    first.newGame(paramStrings.get(0));
+                } else {
+                    first.newGame();
+                }
+                return first;
+            }
+        };
+        loading.setOnSucceeded(event -> {
+            model = loading.getValue();
+            loading = null;
+            model.addObserver(this);
+            dropOtherBranches();
+            fillKeyboard(model.words().alphabet());
+            controls.setDisable(false);
+            board.setDisable(false);
+            update(model, "Make a guess!");
+            loadedMs = uptimeMs();
+            reportStartup();
+        });
+        loading.setOnFailed(event -> {
+            label.setText("Cannot read the word list: " +
+                    loading.getException().getMessage());
+            loading = null;
+        });
+        Thread loader = new Thread(loading, "gurdle-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * This method reports how long startup took, once the first frame has
+     * been drawn and the first game is ready: on standard output, and as a
+     * Flight Recorder event. The board cannot be used before it is drawn,
+     * so it became interactive at whichever came later.
+     */
+    private void reportStartup() {
+        if (firstFrameMs == 0 || loadedMs == 0) {
+            return;
+        }
+        final long interactiveMs = Math.max(firstFrameMs, loadedMs);
+        System.out.println("First frame after " + firstFrameMs +
+                " ms; interactive after " + interactiveMs + " ms.");
+        StartupEvent event = new StartupEvent();
+        if (event.shouldCommit()) {
+            event.firstFrame = firstFrameMs;
+            event.interactive = interactiveMs;
+            event.commit();
+        }
     }
 
     /**
@@ -116,20 +289,49 @@ public class Gurdle extends Application implements Observer<Model, String> {
     }
 
     /**
-     * This method creates the keyboard at the left of the window.
+     * This method creates the keyboard at the left of the window. It shows
+     * Latin letters until the word list has been read.
      *
      * @return the keyboard
      */
     private GridPane left() {
-        GridPane result = new GridPane();
-        char ch = 'A';
-        for (int r = 0; r < 3; ++r) {
-            for (int c = 0; c < 10; ++c) {
-                String label = String.valueOf(ch);
+        fillKeyboard(Alphabet.LATIN);
+        keyboard.setStyle("-fx-font: 18px Menlo");
+        keyboard.setStyle("""
+                            -fx-padding: 2;
+                            -fx-border-style: solid inside;
+                            -fx-border-width: 1;
+                            -fx-border-insets: 5;
+                            -fx-border-radius: 2;
+                            -fx-border-color: black;
+                """);
+        keyboard.setVgap(VGAP);
+        keyboard.setHgap(HGAP);
+        keyboard.setAlignment(Pos.BOTTOM_LEFT);
+        return keyboard;
+    }
+
+    /**
+     * This method puts an alphabet's keys on the keyboard, laid out as
+     * they are on a real keyboard, unless they are there already.
+     *
+     * @param alphabet the alphabet
+     */
+    private void fillKeyboard(Alphabet alphabet) {
+        if (alphabet == keyboardAlphabet) {
+            return;
+        }
+        keyboardAlphabet = alphabet;
+        keyboard.getChildren().clear();
+        lst.clear();
+        final List<String> rows = alphabet.keyboard();
+        for (int r = 0; r < rows.size(); ++r) {
+            for (int c = 0; c < rows.get(r).length(); ++c) {
+                final char ch = rows.get(r).charAt(c);
                 Button button = new Button();
-                button.setText(label);
+                button.setText(String.valueOf(ch));
                 lst.add(button);
-                result.add(button, c, r);
+                keyboard.add(button, c, r);
                 button.setBackground(new Background(new BackgroundFill(
                         Color.WHITE, null, null)));
                 button.setStyle("""
@@ -140,33 +342,17 @@ public class Gurdle extends Application implements Observer<Model, String> {
                                     -fx-border-radius: 2;
                                     -fx-border-color: black;
                         """);
-                char finalCh = ch;
-                button.setOnAction(event -> model.enterNewGuessChar(finalCh));
-                int num = ch;
-                ++num;
-                ch = (char) num;
-                if (ch == '[') {
-                    break;
-                }
+                button.setOnAction(event -> model.enterNewGuessChar(ch));
             }
         }
-        result.setStyle("-fx-font: 18px Menlo");
-        result.setStyle("""
-                            -fx-padding: 2;
-                            -fx-border-style: solid inside;
-                            -fx-border-width: 1;
-                            -fx-border-insets: 5;
-                            -fx-border-radius: 2;
-                            -fx-border-color: black;
-                """);
-        result.setVgap(VGAP);
-        result.setHgap(HGAP);
-        result.setAlignment(Pos.BOTTOM_LEFT);
-        return result;
+        if (keyboard.getScene() != null) {
+            keyboard.getScene().getWindow().sizeToScene();
+        }
     }
 
     /**
-     * This method sets Enter, New Game and Cheat buttons.
+     * This method sets Enter, New Game, Cheat, Undo, Redo, Fork and Next
+     * Branch buttons.
      *
      * @return the VBox of buttons
      */
@@ -175,18 +361,142 @@ public class Gurdle extends Application implements Observer<Model, String> {
         Button button1 = new Button("ENTER");
         button1.setOnAction(actionEvent -> model.confirmGuess());
         Button button2 = new Button("NEW GAME");
-        button2.setOnAction(actionEvent -> model.newGame());
+        button2.setOnAction(actionEvent -> {
+            dropOtherBranches();
+            model.newGame();
+        });
         Button button3 = new Button("CHEAT");
         button3.setOnAction(actionEvent -> {
             label.setText("Number of guesses: " + model.numAttempts() +
                     "\tYou cheated! The secret word is: " + model.secret());
             model.secret();
         });
-        vBox.getChildren().addAll(button1, button2, button3);
+        undo.setOnAction(actionEvent -> model.undo());
+        redo.setOnAction(actionEvent -> model.redo());
+        Button fork = new Button("FORK");
+        fork.setOnAction(actionEvent -> fork());
+        Button next = new Button("NEXT BRANCH");
+        next.setOnAction(actionEvent -> nextBranch());
+        CheckBox helpBox = new CheckBox("ASSISTANT");
+        helpBox.setOnAction(actionEvent -> {
+            assistant.setVisible(helpBox.isSelected());
+            assistant.setManaged(helpBox.isSelected());
+            helpBox.getScene().getWindow().sizeToScene();
+            analyze();
+        });
+        vBox.getChildren().addAll(button1, button2, button3, undo, redo, fork,
+                next, helpBox);
         vBox.setAlignment(Pos.BOTTOM_RIGHT);
         return vBox;
     }
 
+    /**
+     * This method copies the game into a new branch and switches to it, so
+     * that other guesses can be tried from here.
+     */
+    private void fork() {
+        model = model.fork();
+        model.addObserver(this);
+        branches.add(model);
+        update(model, "Branch " + branches.size() + " of " +
+                branches.size());
+    }
+
+    /**
+     * This method forgets every branch but the one being played, and stops
+     * observing them, so that a new deal starts with a single branch.
+     */
+    private void dropOtherBranches() {
+        for (Model branch : branches) {
+            if (branch != model) {
+                branch.removeObserver(this);
+            }
+        }
+        branches.clear();
+        branches.add(model);
+    }
+
+    /**
+     * This method switches to the next branch, round in a circle.
+     */
+    private void nextBranch() {
+        final int next = (branches.indexOf(model) + 1) % branches.size();
+        model = branches.get(next);
+        update(model, "Branch " + (next + 1) + " of " + branches.size());
+    }
+
+    /**
+     * This method makes the assistant panel at the right of the window.
+     *
+     * @return the panel, initially hidden
+     */
+    private VBox assistant() {
+        assistant.getChildren().addAll(new Label("ASSISTANT"), suggestion,
+                remaining);
+        assistant.setSpacing(VGAP);
+        assistant.setStyle("""
+                            -fx-padding: 5;
+                            -fx-border-style: solid inside;
+                            -fx-border-width: 1;
+                            -fx-border-insets: 5;
+                            -fx-border-radius: 2;
+                            -fx-border-color: black;
+                """);
+        assistant.setVisible(false);
+        assistant.setManaged(false);
+        return assistant;
+    }
+
+    /**
+     * This method starts the assistant's analysis of the rows played so
+     * far on the background thread, cancelling any analysis still running.
+     * The rows are copied here, on the FX thread, so the background thread
+     * never touches the model. Results come back through
+     * Platform.runLater() as soon as each one is ready. While the game
+     * follows the precomputed decision tree, the suggestion is read from
+     * it rather than searched for.
+     */
+    private void analyze() {
+        if (analysis != null) {
+            analysis.cancel(true);
+            analysis = null;
+        }
+        if (!assistant.isVisible()) {
+            return;
+        }
+        final List<Solver.Clue> clues = Solver.clues(model);
+        if (clues.equals(analyzedClues)) {
+            return;
+        }
+        final Dictionary words = model.words();
+        final String fromTree = model.bestNextGuess();
+        suggestion.setText("Suggested guess: ...");
+        remaining.setText("Words left: ...");
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                final int[] candidates = Solver.candidates(words, clues);
+                Platform.runLater(() -> {
+                    if (!isCancelled()) {
+                        remaining.setText("Words left: " + candidates.length);
+                    }
+                });
+                final String best = fromTree != null ? fromTree :
+                        Solver.bestGuess(words, candidates, this::isCancelled);
+                Platform.runLater(() -> {
+                    if (!isCancelled()) {
+                        suggestion.setText("Suggested guess: " +
+                                (best == null ? "none" : best));
+                        analyzedClues = clues;
+                    }
+                });
+                return null;
+            }
+        };
+        analysis = task;
+        analyst.execute(task);
+    }
+
     /**
      * This method calls the whole center of GridPane (buttons).
      *
@@ -245,6 +555,8 @@ public class Gurdle extends Application implements Observer<Model, String> {
      */
     @Override
     public void update(Model model, String message) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
         String messages;
         if (message.equals("Make a new guess!")) {
             messages = message;
@@ -309,6 +621,43 @@ public class Gurdle extends Application implements Observer<Model, String> {
                     }
                 }
             }
+            undo.setDisable(!model.canUndo());
+            redo.setDisable(!model.canRedo());
+            if (model.gameState() == Model.GameState.ONGOING &&
+                    !model.isViablePrefix()) {
+                label.setText(label.getText() + "\tNo word starts like this.");
+                for (Button button : buttons[model.numAttempts()]) {
+                    if (!button.getText().isBlank()) {
+                        button.setBackground(new Background(new
+                                BackgroundFill(Color.LIGHTPINK,
+                                null, null)));
+                    }
+                }
+            }
+            analyze();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.message = message;
+            event.attempts = model.numAttempts();
+            event.commit();
+        }
+    }
+
+    /**
+     * The stop() method stops the assistant and any loading still going
+     * on, and stops watching the word file.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void stop() throws IOException {
+        this.analyst.shutdownNow();
+        if (this.loading != null) {
+            this.loading.cancel();
+        }
+        if (this.words != null) {
+            this.words.close();
         }
     }
 
@@ -0,0 +1,46 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A guess was confirmed: checked and scored. Observers are told about it
+ * after the event ends, so their rendering is not counted.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.Guess")
+@Label("Guess")
+@Category({"Gurdle", "Model"})
+@Description("Model.confirmGuess: legality check and scoring, " +
+        "not counting notification of observers")
+public class GuessEvent extends Event {
+
+    /**
+     * The letters of the row, as typed
+     */
+    @Label("Guess")
+    public String guess;
+
+    /**
+     * Which attempt this was, from 1
+     */
+    @Label("Attempt")
+    public int attempt;
+
+    /**
+     * The feedback the guess got, as written by
+     * {@link gurdle.Feedback#toString(int)}, or null if it was rejected
+     */
+    @Label("Result")
+    public String result;
+
+    /**
+     * The game state the guess led to, or ILLEGAL_WORD if it was rejected
+     */
+    @Label("State")
+    public String state;
+}
@@ -0,0 +1,32 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A guess was rejected and its row cleared.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.IllegalWord")
+@Label("Illegal Word")
+@Category({"Gurdle", "Model"})
+@Description("Model.illegalWordCleanup: clearing a rejected row and " +
+        "notifying observers")
+public class IllegalWordEvent extends Event {
+
+    /**
+     * Which attempt was rejected, from 1
+     */
+    @Label("Attempt")
+    public int attempt;
+
+    /**
+     * How many letters had been typed
+     */
+    @Label("Letters")
+    public int letters;
+}
@@ -0,0 +1,31 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A game was started, including re-drawing the views of it.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.NewGame")
+@Label("New Game")
+@Category({"Gurdle", "Model"})
+@Description("Model.newGame: choosing a secret and clearing the board")
+public class NewGameEvent extends Event {
+
+    /**
+     * How the secret was chosen: "random", "daily" or "mandated"
+     */
+    @Label("Kind")
+    public String kind;
+
+    /**
+     * How many words the game is played with
+     */
+    @Label("Dictionary Size")
+    public int dictionarySize;
+}
@@ -0,0 +1,34 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One observer was told the model changed. There is one of these per
+ * observer per notification, so a slow view stands out.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.Notify")
+@Label("Observer Notification")
+@Category({"Gurdle", "Model"})
+@Description("One Observer.update call made by Model.notifyObservers")
+@StackTrace(false)
+public class NotifyEvent extends Event {
+
+    /**
+     * The observer's class
+     */
+    @Label("Observer")
+    public Class<?> observer;
+
+    /**
+     * What the observer was told
+     */
+    @Label("Message")
+    public String message;
+}
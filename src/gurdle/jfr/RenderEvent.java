@@ -0,0 +1,33 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The window was brought up to date with the model.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.Render")
+@Label("Render Pass")
+@Category({"Gurdle", "View"})
+@Description("Gurdle.update: re-colouring the board and keyboard")
+@StackTrace(false)
+public class RenderEvent extends Event {
+
+    /**
+     * The model's message that caused the pass
+     */
+    @Label("Message")
+    public String message;
+
+    /**
+     * How many guesses had been scored
+     */
+    @Label("Attempts")
+    public int attempts;
+}
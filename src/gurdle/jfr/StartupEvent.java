@@ -0,0 +1,37 @@
+package gurdle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The window has started up: it has been drawn, and the first game is
+ * ready to play. Both times are measured from the start of the JVM.
+ *
+ * @author RIT CS
+ */
+@Name("gurdle.Startup")
+@Label("Startup")
+@Category({"Gurdle", "View"})
+@Description("Gurdle start-up: time to first frame and to interactive")
+@StackTrace(false)
+public class StartupEvent extends Event {
+
+    /**
+     * When the window was first drawn, with the board disabled
+     */
+    @Label("Time to First Frame")
+    @Timespan(Timespan.MILLISECONDS)
+    public long firstFrame;
+
+    /**
+     * When the board was drawn and enabled, with the first game ready
+     */
+    @Label("Time to Interactive")
+    @Timespan(Timespan.MILLISECONDS)
+    public long interactive;
+}
@@ -0,0 +1,49 @@
+package gurdle.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread with nothing to do waits for another: spin briefly, then
+ * give up the processor, then sleep for short spells. A thread that is
+ * kept busy never sleeps; one that is idle for long costs little.
+ *
+ * @author RIT CS
+ */
+final class Backoff {
+
+    /**
+     * Attempts spent spinning
+     */
+    private static final int SPINS = 100;
+
+    /**
+     * Attempts, including the spins, before sleeping
+     */
+    private static final int YIELDS = 200;
+
+    /**
+     * How long each sleep is
+     */
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * No instances; this is a utility class.
+     */
+    private Backoff() {
+    }
+
+    /**
+     * Wait a little.
+     *
+     * @param attempt how many times in a row there has been nothing to do
+     */
+    static void idle(int attempt) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else if (attempt < YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package gurdle.pipeline;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A way for a server to play many games without locking them: network
+ * threads publish commands ("new game", "guess", "cheat") into
+ * pre-allocated rings, and a fixed set of processor threads apply them.
+ * The sessions are partitioned among the processors by a hash of the
+ * session id, so each game is only ever touched by one thread, and the
+ * commands for one session are applied in the order they were published.
+ * <br><br>
+ * Each processor writes its results into a ring of its own, which
+ * {@link #drain(ResultHandler)} empties, so the thread writing replies
+ * back to the network never waits on the games either. Commands and
+ * results are slots of primitive arrays and guesses travel as
+ * {@link gurdle.WordCodes packed codes}, so nothing in the pipeline
+ * allocates per command; only starting a new session makes a
+ * {@link Model}.
+ * <br><br>
+ * Whoever publishes a command chooses its tag, such as a connection
+ * number, and gets it back with the result.
+ *
+ * @author RIT CS
+ */
+public final class CommandPipeline implements AutoCloseable {
+
+    /**
+     * Operation: start a new game, making the session if it is new.
+     * The result's value is 0.
+     */
+    public static final byte NEW = 1;
+
+    /**
+     * Operation: guess the word whose packed code is the argument. The
+     * result's value is the scored row's {@link gurdle.Feedback pattern}.
+     */
+    public static final byte GUESS = 2;
+
+    /**
+     * Operation: reveal the secret. The result's value is its packed
+     * code.
+     */
+    public static final byte CHEAT = 3;
+
+    /**
+     * Status: the command was applied.
+     */
+    public static final byte OK = 0;
+
+    /**
+     * Status: the game did not take the guess, because it is not a word
+     * or the game is over.
+     */
+    public static final byte REJECTED = 1;
+
+    /**
+     * Status: the session has no game; start one with {@link #NEW}.
+     */
+    public static final byte NO_SESSION = 2;
+
+    /**
+     * Status: the operation is not one of those above.
+     */
+    public static final byte UNKNOWN = 3;
+
+    /**
+     * What is done with each result
+     */
+    @FunctionalInterface
+    public interface ResultHandler {
+        /**
+         * Take one result. Called on the thread that is
+         * {@link #drain(ResultHandler) draining}; it must not keep the
+         * pipeline waiting.
+         *
+         * @param tag      the command's tag
+         * @param session  the command's session
+         * @param status   {@link #OK}, {@link #REJECTED},
+         *                 {@link #NO_SESSION} or {@link #UNKNOWN}
+         * @param state    the game's {@link Model.GameState} ordinal
+         *                 afterwards, or 0 for no session
+         * @param attempts the game's number of scored rows afterwards
+         * @param value    what the operation answers, or 0
+         */
+        void result(long tag, long session, int status, int state,
+                    int attempts, int value);
+    }
+
+    /**
+     * Each processor's command ring
+     */
+    private final CommandRing[] commands;
+
+    /**
+     * Each processor's result ring
+     */
+    private final ResultRing[] results;
+
+    /**
+     * The processors
+     */
+    private final CommandProcessor[] processors;
+
+    /**
+     * The processors' threads
+     */
+    private final Thread[] threads;
+
+    /**
+     * Lets only one thread drain at a time
+     */
+    private final ReentrantLock draining = new ReentrantLock();
+
+    /**
+     * Start a pipeline.
+     *
+     * @param processors   how many processor threads to run
+     * @param ringSize     how many commands, and how many results, each
+     *                     processor can hold
+     * @param dictionaries the words for each new game
+     * @param threads      makes the processor threads
+     */
+    public CommandPipeline(int processors, int ringSize,
+                           Supplier<Dictionary> dictionaries,
+                           ThreadFactory threads) {
+        if (processors < 1) {
+            throw new IllegalArgumentException(
+                    "Need a processor, not " + processors);
+        }
+        this.commands = new CommandRing[processors];
+        this.results = new ResultRing[processors];
+        this.processors = new CommandProcessor[processors];
+        this.threads = new Thread[processors];
+        for (int p = 0; p < processors; ++p) {
+            this.commands[p] = new CommandRing(ringSize);
+            this.results[p] = new ResultRing(ringSize);
+            this.processors[p] = new CommandProcessor(this.commands[p],
+                    this.results[p], dictionaries);
+            this.threads[p] = threads.newThread(this.processors[p]);
+            this.threads[p].start();
+        }
+    }
+
+    /**
+     * Start a pipeline whose processors are daemon threads named
+     * "gurdle-pipeline-N".
+     *
+     * @param processors   how many processor threads to run
+     * @param ringSize     how many commands, and how many results, each
+     *                     processor can hold
+     * @param dictionaries the words for each new game
+     */
+    public CommandPipeline(int processors, int ringSize,
+                           Supplier<Dictionary> dictionaries) {
+        this(processors, ringSize, dictionaries, new ThreadFactory() {
+            private int made = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                final Thread thread =
+                        new Thread(r, "gurdle-pipeline-" + this.made++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Which processor owns a session? The id is mixed first so that
+     * sequential ids spread evenly.
+     *
+     * @param session the session id
+     * @return its command ring
+     */
+    private CommandRing ring(long session) {
+        final long mixed = session * 0xC2B2AE3D27D4EB4FL;
+        return this.commands[Math.floorMod(mixed ^ mixed >>> 31,
+                this.commands.length)];
+    }
+
+    /**
+     * Publish a command, waiting for room if its processor is behind.
+     * Any thread may call this.
+     *
+     * @param op       {@link #NEW}, {@link #GUESS} or {@link #CHEAT}
+     * @param session  the session it is for
+     * @param argument the guess's packed code, for a guess; else ignored
+     * @param tag      anything; it comes back with the result
+     */
+    public void publish(byte op, long session, int argument, long tag) {
+        this.ring(session).publish(op, session, argument, tag);
+    }
+
+    /**
+     * Publish a command if its processor has room. Any thread may call
+     * this.
+     *
+     * @param op       {@link #NEW}, {@link #GUESS} or {@link #CHEAT}
+     * @param session  the session it is for
+     * @param argument the guess's packed code, for a guess; else ignored
+     * @param tag      anything; it comes back with the result
+     * @return false, and nothing is published, if there is no room
+     */
+    public boolean offer(byte op, long session, int argument, long tag) {
+        return this.ring(session).offer(op, session, argument, tag);
+    }
+
+    /**
+     * Hand every result waiting to a handler. Results for one session
+     * come in the order their commands were published. If another thread
+     * is draining already, this waits for it.
+     *
+     * @param handler what to do with each result
+     * @return how many results there were
+     */
+    public int drain(ResultHandler handler) {
+        this.draining.lock();
+        try {
+            int n = 0;
+            for (ResultRing ring : this.results) {
+                n += ring.drain(handler);
+            }
+            return n;
+        } finally {
+            this.draining.unlock();
+        }
+    }
+
+    /**
+     * Stop the processors once they have applied every command already
+     * published, or as many as there is room for results. Results not
+     * yet drained can still be drained. The processors stop promptly once
+     * told to, so this waits for them even if interrupted, and then
+     * leaves the interrupt set.
+     */
+    @Override
+    public void close() {
+        for (CommandProcessor processor : this.processors) {
+            processor.stop();
+        }
+        boolean interrupted = false;
+        for (Thread thread : this.threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package gurdle.pipeline;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.util.function.Supplier;
+
+/**
+ * The one thread that applies commands to the games of one partition of
+ * the sessions. Because no other thread touches those games, it needs no
+ * locks: it takes whatever commands are waiting in its
+ * {@link CommandRing} as a batch, applies each to its game in order,
+ * writes a result for each into its {@link ResultRing}, and publishes
+ * the batch's results together.
+ * <br><br>
+ * A batch is never larger than the room left for results, so a slow
+ * reader holds commands back in the command ring (and, once that is full,
+ * holds back the publishers) rather than losing results.
+ *
+ * @author RIT CS
+ */
+final class CommandProcessor implements Runnable {
+
+    /**
+     * Commands taken in one batch, at most
+     */
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * Where commands come from
+     */
+    private final CommandRing commands;
+
+    /**
+     * Where results go
+     */
+    private final ResultRing results;
+
+    /**
+     * This partition's games
+     */
+    private final SessionTable games = new SessionTable();
+
+    /**
+     * The words for each new game
+     */
+    private final Supplier<Dictionary> dictionaries;
+
+    /**
+     * Set to make {@link #run()} return once the ring is empty
+     */
+    private volatile boolean stopping;
+
+    /**
+     * Make a processor.
+     *
+     * @param commands     where its commands come from
+     * @param results      where its results go
+     * @param dictionaries the words for each new game
+     */
+    CommandProcessor(CommandRing commands, ResultRing results,
+                     Supplier<Dictionary> dictionaries) {
+        this.commands = commands;
+        this.results = results;
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Ask {@link #run()} to return once every command already published
+     * has been applied.
+     */
+    void stop() {
+        this.stopping = true;
+    }
+
+    /**
+     * Apply batches of commands until stopped.
+     */
+    @Override
+    public void run() {
+        int idle = 0;
+        while (true) {
+            final int batch = this.commands.available(
+                    Math.min(MAX_BATCH, this.results.free()));
+            if (batch == 0) {
+                if (this.stopping) {
+                    return;
+                }
+                Backoff.idle(idle++);
+                continue;
+            }
+            idle = 0;
+            for (int i = 0; i < batch; ++i) {
+                this.apply(this.commands.slot(i));
+            }
+            this.commands.release(batch);
+            this.results.flush();
+        }
+    }
+
+    /**
+     * Apply one command and write its result.
+     *
+     * @param slot where the command is in the command ring
+     */
+    private void apply(int slot) {
+        final byte op = this.commands.op(slot);
+        final long session = this.commands.session(slot);
+        final long tag = this.commands.tag(slot);
+        Model game = this.games.get(session);
+        if (op == CommandPipeline.NEW) {
+            if (game == null) {
+                game = new Model(this.dictionaries);
+                this.games.put(session, game);
+            }
+            game.newGame();
+            this.answer(tag, session, CommandPipeline.OK, game, 0);
+        } else if (game == null) {
+            this.results.put(tag, session, CommandPipeline.NO_SESSION,
+                    0, 0, 0);
+        } else if (op == CommandPipeline.GUESS) {
+            final int before = game.numAttempts();
+            game.enterNewGuess(this.commands.argument(slot));
+            final int after = game.numAttempts();
+            if (after > before) {
+                this.answer(tag, session, CommandPipeline.OK, game,
+                        game.guessPattern(after - 1));
+            } else {
+                this.answer(tag, session, CommandPipeline.REJECTED, game, 0);
+            }
+        } else if (op == CommandPipeline.CHEAT) {
+            this.answer(tag, session, CommandPipeline.OK, game,
+                    WordCodes.pack(game.secret(), game.words().alphabet()));
+        } else {
+            this.answer(tag, session, CommandPipeline.UNKNOWN, game, 0);
+        }
+    }
+
+    /**
+     * Write a result carrying a game's state.
+     */
+    private void answer(long tag, long session, byte status, Model game,
+                        int value) {
+        this.results.put(tag, session, status, game.gameState().ordinal(),
+                game.numAttempts(), value);
+    }
+}
@@ -0,0 +1,231 @@
+package gurdle.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed ring of command slots that any number of threads publish into
+ * and exactly one thread, a {@link CommandProcessor}, takes out of.
+ * <br><br>
+ * The slots are parallel arrays of primitives allocated once, so
+ * publishing a command allocates nothing. A publisher claims the next
+ * sequence number with a compare-and-set, fills in the slot, and marks it
+ * published by storing its sequence number there with release semantics.
+ * The consumer takes every slot that has been published in order, up to
+ * the first gap, as one batch, and only then tells publishers the slots
+ * may be reused. A slot is never overwritten before it has been
+ * consumed, so a full ring makes publishers wait (or {@link #offer fail})
+ * rather than lose commands.
+ *
+ * @author RIT CS
+ */
+final class CommandRing {
+
+    /**
+     * Atomic access to the elements of {@link #published}
+     */
+    private static final VarHandle PUBLISHED =
+            MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Slots in the ring, a power of two
+     */
+    private final int capacity;
+
+    /**
+     * capacity - 1, to turn a sequence number into a slot index
+     */
+    private final int mask;
+
+    /**
+     * Each slot's operation
+     */
+    private final byte[] ops;
+
+    /**
+     * Each slot's session id
+     */
+    private final long[] sessions;
+
+    /**
+     * Each slot's argument: the guess's packed code, for a guess
+     */
+    private final int[] arguments;
+
+    /**
+     * Each slot's tag, which the publisher chooses and the result carries
+     * back
+     */
+    private final long[] tags;
+
+    /**
+     * For each slot, the sequence number of the command last published in
+     * it; -1 before the first
+     */
+    private final long[] published;
+
+    /**
+     * The next sequence number to be claimed by a publisher
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * How many commands the consumer has finished with; publishers read
+     * this to see whether there is room
+     */
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * The sequence number of the consumer's next command; only the
+     * consumer uses this
+     */
+    private long head;
+
+    /**
+     * Make an empty ring.
+     *
+     * @param capacity how many commands it can hold; rounded up to a power
+     *                 of two
+     */
+    CommandRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Bad ring size " + capacity);
+        }
+        this.capacity = ceilingPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.ops = new byte[this.capacity];
+        this.sessions = new long[this.capacity];
+        this.arguments = new int[this.capacity];
+        this.tags = new long[this.capacity];
+        this.published = new long[this.capacity];
+        Arrays.fill(this.published, -1);
+    }
+
+    /**
+     * The smallest power of two at least as large as a number
+     *
+     * @param n the number, from 1 to 2<sup>30</sup>
+     * @return the power of two
+     */
+    static int ceilingPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * How many commands the ring can hold
+     *
+     * @return its capacity
+     */
+    int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Publish a command if there is room. Any thread may call this.
+     *
+     * @param op       an operation, such as {@link CommandPipeline#GUESS}
+     * @param session  the session it is for
+     * @param argument the guess's packed code, for a guess
+     * @param tag      anything; it comes back with the result
+     * @return false, and nothing is published, if the ring is full
+     */
+    boolean offer(byte op, long session, int argument, long tag) {
+        long sequence;
+        do {
+            sequence = this.claimed.get();
+            if (sequence - this.consumed.get() >= this.capacity) {
+                return false;
+            }
+        } while (!this.claimed.compareAndSet(sequence, sequence + 1));
+        final int slot = (int) sequence & this.mask;
+        this.ops[slot] = op;
+        this.sessions[slot] = session;
+        this.arguments[slot] = argument;
+        this.tags[slot] = tag;
+        PUBLISHED.setRelease(this.published, slot, sequence);
+        return true;
+    }
+
+    /**
+     * Publish a command, waiting for room if the ring is full. Any thread
+     * may call this.
+     *
+     * @param op       an operation, such as {@link CommandPipeline#GUESS}
+     * @param session  the session it is for
+     * @param argument the guess's packed code, for a guess
+     * @param tag      anything; it comes back with the result
+     */
+    void publish(byte op, long session, int argument, long tag) {
+        for (int idle = 0; !this.offer(op, session, argument, tag); ++idle) {
+            Backoff.idle(idle);
+        }
+    }
+
+    /**
+     * How many commands are ready for the consumer, in order and without
+     * gaps? Only the consumer may call this.
+     *
+     * @param limit the most that are wanted
+     * @return how many of the commands after the last ones
+     * {@link #release(int) released} have been published, up to limit
+     */
+    int available(int limit) {
+        int n = 0;
+        while (n < limit && (long) PUBLISHED.getAcquire(this.published,
+                (int) (this.head + n) & this.mask) == this.head + n) {
+            n += 1;
+        }
+        return n;
+    }
+
+    /**
+     * The slot holding one of the available commands
+     *
+     * @param i which command, counting from 0 after the last ones released
+     * @return its slot index
+     */
+    int slot(int i) {
+        return (int) (this.head + i) & this.mask;
+    }
+
+    /**
+     * A slot's operation
+     */
+    byte op(int slot) {
+        return this.ops[slot];
+    }
+
+    /**
+     * A slot's session id
+     */
+    long session(int slot) {
+        return this.sessions[slot];
+    }
+
+    /**
+     * A slot's argument
+     */
+    int argument(int slot) {
+        return this.arguments[slot];
+    }
+
+    /**
+     * A slot's tag
+     */
+    long tag(int slot) {
+        return this.tags[slot];
+    }
+
+    /**
+     * Finish with the oldest commands, so their slots can be reused. Only
+     * the consumer may call this.
+     *
+     * @param n how many, at most the number last {@link #available}
+     */
+    void release(int n) {
+        this.head += n;
+        this.consumed.setRelease(this.head);
+    }
+}
@@ -0,0 +1,145 @@
+package gurdle.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed ring of result slots with one writer, a
+ * {@link CommandProcessor}, and one reader at a time. Like the
+ * {@link CommandRing}, the slots are parallel arrays of primitives
+ * allocated once.
+ * <br><br>
+ * The writer fills slots with plain stores and makes a whole batch
+ * visible with one release store of its cursor; the reader hands every
+ * visible result to a {@link CommandPipeline.ResultHandler} and then
+ * frees their slots the same way.
+ *
+ * @author RIT CS
+ */
+final class ResultRing {
+
+    /**
+     * Slots in the ring, a power of two
+     */
+    private final int capacity;
+
+    /**
+     * capacity - 1, to turn a sequence number into a slot index
+     */
+    private final int mask;
+
+    /**
+     * Each slot's tag, copied from its command
+     */
+    private final long[] tags;
+
+    /**
+     * Each slot's session id
+     */
+    private final long[] sessions;
+
+    /**
+     * Each slot's status, such as {@link CommandPipeline#OK}
+     */
+    private final byte[] statuses;
+
+    /**
+     * Each slot's game state, as a {@link gurdle.Model.GameState} ordinal
+     */
+    private final byte[] states;
+
+    /**
+     * Each slot's number of scored rows
+     */
+    private final byte[] attempts;
+
+    /**
+     * Each slot's value: the last row's pattern, or the secret's code
+     */
+    private final int[] values;
+
+    /**
+     * How many results the writer has made visible
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * How many results the reader has finished with
+     */
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * The sequence number of the writer's next result; only the writer
+     * uses this
+     */
+    private long tail;
+
+    /**
+     * Make an empty ring.
+     *
+     * @param capacity how many results it can hold; rounded up to a power
+     *                 of two
+     */
+    ResultRing(int capacity) {
+        this.capacity = CommandRing.ceilingPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.tags = new long[this.capacity];
+        this.sessions = new long[this.capacity];
+        this.statuses = new byte[this.capacity];
+        this.states = new byte[this.capacity];
+        this.attempts = new byte[this.capacity];
+        this.values = new int[this.capacity];
+    }
+
+    /**
+     * How many more results can the writer put before the reader catches
+     * up? Only the writer may call this.
+     *
+     * @return the number of free slots
+     */
+    int free() {
+        return this.capacity - (int) (this.tail - this.consumed.get());
+    }
+
+    /**
+     * Add a result; it is not visible until the next {@link #flush()}.
+     * Only the writer may call this, and only when a slot is
+     * {@link #free()}.
+     */
+    void put(long tag, long session, byte status, int state, int attempts,
+             int value) {
+        final int slot = (int) this.tail++ & this.mask;
+        this.tags[slot] = tag;
+        this.sessions[slot] = session;
+        this.statuses[slot] = status;
+        this.states[slot] = (byte) state;
+        this.attempts[slot] = (byte) attempts;
+        this.values[slot] = value;
+    }
+
+    /**
+     * Make every result put so far visible to the reader.
+     */
+    void flush() {
+        this.published.setRelease(this.tail);
+    }
+
+    /**
+     * Hand every visible result to a handler, oldest first, and free
+     * their slots. Only one thread at a time may call this.
+     *
+     * @param handler what to do with each result
+     * @return how many results there were
+     */
+    int drain(CommandPipeline.ResultHandler handler) {
+        final long start = this.consumed.get();
+        final long end = this.published.getAcquire();
+        for (long sequence = start; sequence < end; ++sequence) {
+            final int slot = (int) sequence & this.mask;
+            handler.result(this.tags[slot], this.sessions[slot],
+                    this.statuses[slot], this.states[slot],
+                    this.attempts[slot], this.values[slot]);
+        }
+        this.consumed.setRelease(end);
+        return (int) (end - start);
+    }
+}
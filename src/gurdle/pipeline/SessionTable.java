@@ -0,0 +1,109 @@
+package gurdle.pipeline;
+
+import gurdle.Model;
+
+/**
+ * The games one {@link CommandProcessor} owns, by session id: an
+ * open-addressing hash table with primitive keys, so that looking a game
+ * up neither boxes the id nor allocates. It grows when half full; only
+ * adding sessions ever allocates.
+ * <br><br>
+ * Only the owning processor's thread uses a table, so it has no locks.
+ *
+ * @author RIT CS
+ */
+final class SessionTable {
+
+    /**
+     * Slots a table starts with
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Each slot's session id; meaningless where there is no game
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    /**
+     * Each slot's game, or null for an empty slot
+     */
+    private Model[] games = new Model[INITIAL_CAPACITY];
+
+    /**
+     * How many games there are
+     */
+    private int size;
+
+    /**
+     * Where a session's probe sequence starts
+     *
+     * @param session the session id
+     * @param mask    the table's capacity - 1
+     * @return the first slot to look in
+     */
+    private static int home(long session, int mask) {
+        final long mixed = session * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> 32) & mask;
+    }
+
+    /**
+     * Look a game up.
+     *
+     * @param session the session id
+     * @return its game, or null if there is none
+     */
+    Model get(long session) {
+        final int mask = this.keys.length - 1;
+        for (int slot = home(session, mask); ; slot = slot + 1 & mask) {
+            final Model game = this.games[slot];
+            if (game == null || this.keys[slot] == session) {
+                return game;
+            }
+        }
+    }
+
+    /**
+     * Add a game for a session that has none.
+     *
+     * @param session the session id
+     * @param game    its game
+     */
+    void put(long session, Model game) {
+        if (2 * (this.size + 1) > this.keys.length) {
+            this.grow();
+        }
+        final int mask = this.keys.length - 1;
+        int slot = home(session, mask);
+        while (this.games[slot] != null) {
+            slot = slot + 1 & mask;
+        }
+        this.keys[slot] = session;
+        this.games[slot] = game;
+        this.size += 1;
+    }
+
+    /**
+     * How many games are there?
+     *
+     * @return the number of sessions
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Double the number of slots and put every game back.
+     */
+    private void grow() {
+        final long[] oldKeys = this.keys;
+        final Model[] oldGames = this.games;
+        this.keys = new long[oldKeys.length * 2];
+        this.games = new Model[oldGames.length * 2];
+        this.size = 0;
+        for (int slot = 0; slot < oldKeys.length; ++slot) {
+            if (oldGames[slot] != null) {
+                this.put(oldKeys[slot], oldGames[slot]);
+            }
+        }
+    }
+}
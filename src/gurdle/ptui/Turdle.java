@@ -1,11 +1,14 @@
 package gurdle.ptui;
 
 import gurdle.CharChoice;
+import gurdle.DictionaryReloader;
 import gurdle.Model;
+import gurdle.solver.GameAnalyzer;
 import util.Observer;
 import util.ptui.ConsoleApplication;
 
 import java.io.PrintWriter;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
@@ -22,6 +25,17 @@ public class Turdle extends ConsoleApplication
      */
     private Model model;
 
+    /**
+     * Every branch of the current deal made with the fork command; the
+     * model being played is one of these
+     */
+    private final List<Model> branches = new ArrayList<>();
+
+    /**
+     * Keeps the word list up to date while the PTUI is running
+     */
+    private DictionaryReloader words;
+
     /**
      * Used to prevent this class displaying any info before the UI
      * has been completely set up.
@@ -47,13 +61,15 @@ public class Turdle extends ConsoleApplication
     /**
      * Create the Wordle model and register this object as an observer
      * of it. If there was a command line argument, use that as the first
-     * secret word.
+     * secret word. Edits to the word file take effect from the next game.
      */
     @Override
     public void init() throws Exception {
         this.initialized = false;
-        this.model = new Model();
+        this.words = new DictionaryReloader(Model.wordFile());
+        this.model = new Model(this.words);
         this.model.addObserver(this);
+        this.branches.add(this.model);
         List<String> paramStrings = super.getArguments();
         if (paramStrings.size() == 1) {
             final String firstWord = paramStrings.get(0);
@@ -71,6 +87,16 @@ public class Turdle extends ConsoleApplication
         }
     }
 
+    /**
+     * The most words "search" lists
+     */
+    private static final int SEARCH_LIMIT = 60;
+
+    /**
+     * Words per line in a "search" listing
+     */
+    private static final int SEARCH_COLUMNS = 10;
+
     /**
      * Markers to indicate whether letters are in the word or not
      */
@@ -86,12 +112,79 @@ public class Turdle extends ConsoleApplication
      * Tell the model to start a new game.
      */
     private void newGame() {
+        this.dropOtherBranches();
         this.model.newGame();
     }
 
+    /**
+     * Forget every branch but the one being played, and stop observing
+     * them, so that a new deal starts with a single branch.
+     */
+    private void dropOtherBranches() {
+        for (Model branch : this.branches) {
+            if (branch != this.model) {
+                branch.removeObserver(this);
+            }
+        }
+        this.branches.clear();
+        this.branches.add(this.model);
+    }
+
+    /**
+     * Take back the last guess, if there is one.
+     */
+    private void undo() {
+        if (this.model.canUndo()) {
+            this.model.undo();
+        } else {
+            this.out.println("Nothing to undo.");
+        }
+    }
+
+    /**
+     * Put back the last guess taken back, if there is one.
+     */
+    private void redo() {
+        if (this.model.canRedo()) {
+            this.model.redo();
+        } else {
+            this.out.println("Nothing to redo.");
+        }
+    }
+
+    /**
+     * Try other guesses from here: copy the current game into a new branch
+     * and switch to it.
+     */
+    private void fork() {
+        this.model = this.model.fork();
+        this.model.addObserver(this);
+        this.branches.add(this.model);
+        this.out.println("Now playing branch " + this.branches.size() +
+                " of " + this.branches.size() + ".");
+    }
+
+    /**
+     * Switch to another branch and show its board.
+     *
+     * @param branch the branch's number, from 1, as a string
+     */
+    private void branch(String branch) {
+        try {
+            this.model = this.branches.get(Integer.parseInt(branch) - 1);
+            this.out.println("Now playing branch " + branch + " of " +
+                    this.branches.size() + ".");
+            this.update(this.model, "");
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            this.out.println("There are " + this.branches.size() +
+                    " branches.");
+        }
+    }
+
     /**
      * Set up the PTUI.
-     * Here, the handlers for "guess", "cheat", and "new" are created.
+     * Here, the handlers for "guess", "cheat", "new", "daily", "undo",
+     * "redo", "fork", "branch", "analyze" and "search" are created.
      *
      * @param out the output stream to use from now on
      */
@@ -103,7 +196,27 @@ public class Turdle extends ConsoleApplication
         super.setOnCommand("cheat", 0, ": Show the " +
                 "secret word", args -> this.cheat());
         super.setOnCommand("new", 0, "Start a new " +
-                "game", args -> this.model.newGame());
+                "game", args -> this.newGame());
+        super.setOnCommand("daily", 0, ": Play today's " +
+                "puzzle", args -> {
+                    this.dropOtherBranches();
+                    this.model.newDailyGame(LocalDate.now());
+                });
+        super.setOnCommand("undo", 0, ": Take back the " +
+                "last guess", args -> this.undo());
+        super.setOnCommand("redo", 0, ": Put back the " +
+                "last guess taken back", args -> this.redo());
+        super.setOnCommand("fork", 0, ": Try other " +
+                "guesses in a copy of this game", args -> this.fork());
+        super.setOnCommand("branch", 1, "<number>: Go back " +
+                "to a copy made by fork", args -> this.branch(args[0]));
+        super.setOnCommand("analyze", 0, ": Show how much of " +
+                "the finished game was skill and how much luck",
+                args -> this.analyze());
+        super.setOnCommand("search", 3, "<pattern> <required> " +
+                "<excluded>: List words like A?E?? or ?[^RS]???, with " +
+                "the letters required and excluded (- for none)",
+                args -> this.search(args[0], args[1], args[2]));
     }
 
     /**
@@ -119,29 +232,105 @@ public class Turdle extends ConsoleApplication
     @Override
     public void update(Model model, String message) {
         if (!this.initialized) return; // Too soon; no PTUI set up yet.
+        printBoard(this.out, model, message);
+    }
+
+    /**
+     * Display a game the way this PTUI does: each legitimate guess with
+     * its colors underneath, then the message if the game is over, and the
+     * secret word if it was lost.
+     *
+     * @param out     where to print the board
+     * @param model   the game
+     * @param message the message the model last sent its observers
+     */
+    public static void printBoard(PrintWriter out, Model model,
+                                  String message) {
         for (int guessNum = 0; guessNum < model.numAttempts(); ++guessNum) {
             for (int charPos = 0; charPos < Model.WORD_SIZE; ++charPos) {
                 CharChoice cc = model.get(guessNum, charPos);
                 final char ch = cc.getChar();
-                this.out.print(ch);
+                out.print(ch);
             }
-            this.out.println();
+            out.println();
             for (int charPos = 0; charPos < Model.WORD_SIZE; ++charPos) {
                 CharChoice cc = model.get(guessNum, charPos);
                 final CharChoice.Status ccStatus = cc.getStatus();
-                this.out.print(Turdle.CHAR_FILL.get(ccStatus));
+                out.print(Turdle.CHAR_FILL.get(ccStatus));
             }
-            this.out.println();
+            out.println();
         }
         final Model.GameState gamestate = model.gameState();
         if (gamestate != Model.GameState.ONGOING) {
-            this.out.print(message);
+            out.print(message);
         }
         if (gamestate == Model.GameState.LOST) {
-            this.out.print(" The secret word was ");
-            cheat();
+            out.print(" The secret word was ");
+            out.println(model.secret());
         } else {
-            this.out.println();
+            out.println();
+        }
+    }
+
+    /**
+     * Stop watching the word file.
+     */
+    @Override
+    public void stop() throws Exception {
+        this.words.close();
+    }
+
+    /**
+     * Show each row of the finished game: how many words it left of how
+     * many, how many the best guess would have left, and the row's skill
+     * and luck. See {@link GameAnalyzer}.
+     */
+    private void analyze() {
+        final Model.GameState state = this.model.gameState();
+        if (state != Model.GameState.WON && state != Model.GameState.LOST) {
+            this.out.println("Finish the game first.");
+            return;
+        }
+        final GameAnalyzer.Analysis analysis = GameAnalyzer.analyze(this.model);
+        this.out.println("    guess  before  after  expected" +
+                "  best   expected  after  skill  luck");
+        int row = 0;
+        for (GameAnalyzer.Row r : analysis.rows()) {
+            this.out.printf("%2d  %s  %6d  %5d  %8.1f  %s  %8.1f  %5d" +
+                            "  %5d  %4d%n", ++row, r.guess(), r.candidates(),
+                    r.left(), r.expected(), r.bestGuess(), r.bestExpected(),
+                    r.bestLeft(), r.skill(), r.luck());
+        }
+        this.out.println("Skill " + analysis.skill() + ", luck " +
+                analysis.luck() + ".");
+    }
+
+    /**
+     * List the words that fit a pattern, {@link #SEARCH_LIMIT} at most.
+     *
+     * @param pattern  what each position may hold
+     * @param required letters that must appear
+     * @param excluded letters that must not appear
+     * @see gurdle.WordQuery
+     */
+    private void search(String pattern, String required, String excluded) {
+        final List<String> found;
+        try {
+            found = this.model.search(pattern, required, excluded)
+                    .limit(SEARCH_LIMIT + 1).toList();
+        } catch (IllegalArgumentException iae) {
+            this.out.println(iae.getMessage());
+            return;
+        }
+        for (int i = 0; i < Math.min(found.size(), SEARCH_LIMIT); ++i) {
+            this.out.print(found.get(i));
+            this.out.print(i % SEARCH_COLUMNS == SEARCH_COLUMNS - 1 ||
+                    i == found.size() - 1 ? System.lineSeparator() : " ");
+        }
+        if (found.isEmpty()) {
+            this.out.println("No words fit.");
+        } else if (found.size() > SEARCH_LIMIT) {
+            this.out.println("...and more.");
         }
     }
 
@@ -0,0 +1,146 @@
+package gurdle.race;
+
+import gurdle.Dictionary;
+import gurdle.SecretScheduler;
+import util.Observer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A race: several players guess the same secret at the same time, each on
+ * their own {@link RaceBoard}, and the first to find it wins.
+ * <br><br>
+ * The boards share one immutable {@link RaceDefinition} and keep their
+ * own rows without locks. Every scored row is broadcast to the race's
+ * observers as a {@link RaceUpdate} carrying only its colours, on the
+ * thread that made the guess. Joining and observing are rare next to
+ * guessing, so the player and observer lists are copied on write and can
+ * be walked without locking however many players there are.
+ *
+ * @author RIT CS
+ */
+public class Race {
+
+    /**
+     * The secret and the legal words
+     */
+    private final RaceDefinition definition;
+
+    /**
+     * Everyone who has joined, in order of joining
+     */
+    private final List<RaceBoard> boards = new CopyOnWriteArrayList<>();
+
+    /**
+     * Who is told about each scored row
+     */
+    private final List<Observer<Race, RaceUpdate>> observers =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * The first board to find the secret, once someone has
+     */
+    private final AtomicReference<RaceBoard> winner = new AtomicReference<>();
+
+    /**
+     * Set up a race.
+     *
+     * @param definition the secret and the legal words
+     */
+    public Race(RaceDefinition definition) {
+        this.definition = definition;
+    }
+
+    /**
+     * Set up a race on a secret dealt from a list of words.
+     *
+     * @param words   the legal words, which the secret is one of
+     * @param secrets deals the secret
+     * @return the race
+     */
+    public static Race deal(Dictionary words, SecretScheduler secrets) {
+        return new Race(new RaceDefinition(words,
+                words.get(secrets.next(words.size()))));
+    }
+
+    /**
+     * Register to hear about every scored row.
+     *
+     * @param observer told about each row, on the guessing thread
+     */
+    public void addObserver(Observer<Race, RaceUpdate> observer) {
+        this.observers.add(observer);
+    }
+
+    /**
+     * Stop hearing about scored rows.
+     *
+     * @param observer an observer added earlier
+     */
+    public void removeObserver(Observer<Race, RaceUpdate> observer) {
+        this.observers.remove(observer);
+    }
+
+    /**
+     * Tell every observer about a scored row.
+     *
+     * @param update the row's colours
+     */
+    void broadcast(RaceUpdate update) {
+        for (Observer<Race, RaceUpdate> observer : this.observers) {
+            observer.update(this, update);
+        }
+    }
+
+    /**
+     * A board has found the secret. Only the first to say so wins.
+     *
+     * @param board the board
+     * @return true if it is the winner
+     */
+    boolean finish(RaceBoard board) {
+        return this.winner.compareAndSet(null, board);
+    }
+
+    /**
+     * Join the race.
+     *
+     * @param player the player's name, shown to the others
+     * @return the player's board
+     */
+    public RaceBoard join(String player) {
+        RaceBoard board = new RaceBoard(this, player);
+        this.boards.add(board);
+        return board;
+    }
+
+    /**
+     * What is shared by everyone in the race
+     *
+     * @return the secret and the legal words
+     */
+    public RaceDefinition definition() {
+        return this.definition;
+    }
+
+    /**
+     * Everyone in the race
+     *
+     * @return the boards, in order of joining; read-only
+     */
+    public List<RaceBoard> boards() {
+        return Collections.unmodifiableList(this.boards);
+    }
+
+    /**
+     * Who won?
+     *
+     * @return the first board to find the secret, or null if none has yet
+     */
+    public RaceBoard winner() {
+        return this.winner.get();
+    }
+}
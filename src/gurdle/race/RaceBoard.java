@@ -0,0 +1,165 @@
+package gurdle.race;
+
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One player's board in a {@link Race}.
+ * The rows live in an immutable snapshot that is replaced with a single
+ * compare-and-set per guess, so no lock is ever taken: players never wait
+ * for each other, and even one player's own guesses arriving at once
+ * simply take turns by retrying.
+ *
+ * @author RIT CS
+ */
+public final class RaceBoard {
+
+    /**
+     * The rows scored so far. Replaced, never changed.
+     *
+     * @param codes    the guesses' {@link WordCodes packed codes}
+     * @param patterns their {@link Feedback} patterns
+     */
+    private record Rows(int[] codes, int[] patterns) {
+        private static final Rows NONE = new Rows(new int[0], new int[0]);
+
+        Rows plus(int code, int pattern) {
+            final int n = this.codes.length;
+            final int[] moreCodes = Arrays.copyOf(this.codes, n + 1);
+            final int[] morePatterns = Arrays.copyOf(this.patterns, n + 1);
+            moreCodes[n] = code;
+            morePatterns[n] = pattern;
+            return new Rows(moreCodes, morePatterns);
+        }
+
+        Model.GameState state() {
+            final int n = this.patterns.length;
+            if (n > 0 && this.patterns[n - 1] == Feedback.ALL_RIGHT) {
+                return Model.GameState.WON;
+            }
+            return n == Model.NUM_TRIES ?
+                    Model.GameState.LOST : Model.GameState.ONGOING;
+        }
+    }
+
+    /**
+     * The race this board is in
+     */
+    private final Race race;
+
+    /**
+     * The player's name
+     */
+    private final String player;
+
+    /**
+     * The current rows
+     */
+    private final AtomicReference<Rows> rows = new AtomicReference<>(Rows.NONE);
+
+    /**
+     * Create a board; only {@link Race#join(String)} does this.
+     *
+     * @param race   the race
+     * @param player the player's name
+     */
+    RaceBoard(Race race, String player) {
+        this.race = race;
+        this.player = player;
+    }
+
+    /**
+     * Make a guess. If it is scored, every observer of the race is told
+     * its colours.
+     *
+     * @param word the guess
+     * @return ILLEGAL_WORD if the guess is not a legal word (and nothing
+     * changes), otherwise the board's state afterwards; a finished board
+     * does not change
+     */
+    public Model.GameState guess(String word) {
+        final int code = WordCodes.pack(word.toUpperCase(Locale.ROOT),
+                this.race.definition().alphabet());
+        if (!this.race.definition().isLegal(code)) {
+            return Model.GameState.ILLEGAL_WORD;
+        }
+        final int pattern = this.race.definition().score(code);
+        Rows before;
+        Rows after;
+        do {
+            before = this.rows.get();
+            if (before.state() != Model.GameState.ONGOING) {
+                return before.state();
+            }
+            after = before.plus(code, pattern);
+        } while (!this.rows.compareAndSet(before, after));
+        final Model.GameState state = after.state();
+        final boolean winner =
+                state == Model.GameState.WON && this.race.finish(this);
+        this.race.broadcast(new RaceUpdate(this.player,
+                after.codes().length - 1, pattern, state, winner));
+        return state;
+    }
+
+    /**
+     * The player's name
+     *
+     * @return the name given on joining
+     */
+    public String player() {
+        return this.player;
+    }
+
+    /**
+     * How does this player's game stand?
+     *
+     * @return ONGOING, WON or LOST
+     */
+    public Model.GameState state() {
+        return this.rows.get().state();
+    }
+
+    /**
+     * How many guesses have been scored?
+     *
+     * @return the number of rows
+     */
+    public int attempts() {
+        return this.rows.get().codes().length;
+    }
+
+    /**
+     * The colours of one row, which anyone may see
+     *
+     * @param row which row, from 0
+     * @return its {@link Feedback} pattern
+     */
+    public int pattern(int row) {
+        return this.rows.get().patterns()[row];
+    }
+
+    /**
+     * The colours of every row at one moment, which anyone may see
+     *
+     * @return the rows' {@link Feedback} patterns, first row first
+     */
+    public int[] patterns() {
+        return this.rows.get().patterns().clone();
+    }
+
+    /**
+     * The letters of one row, for the player's own view only
+     *
+     * @param row which row, from 0
+     * @return the guess
+     */
+    public String guessWord(int row) {
+        return WordCodes.unpack(this.rows.get().codes()[row],
+                this.race.definition().alphabet());
+    }
+}
@@ -0,0 +1,93 @@
+package gurdle.race;
+
+import gurdle.Alphabet;
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+/**
+ * What every player in a race shares: the secret and the legal words.
+ * It is immutable, so any number of players can score guesses against it
+ * at once without coordinating. Scoring follows {@link Model}'s rules.
+ *
+ * @author RIT CS
+ */
+public final class RaceDefinition {
+
+    /**
+     * The legal words
+     */
+    private final Dictionary words;
+
+    /**
+     * The secret
+     */
+    private final String secret;
+
+    /**
+     * The secret's {@link WordCodes packed code}
+     */
+    private final int secretCode;
+
+    /**
+     * The secret's {@link Feedback#letterMask(int) letter mask}
+     */
+    private final int secretMask;
+
+    /**
+     * Define a race.
+     *
+     * @param words  the legal words
+     * @param secret the word to be found; need not be one of the words
+     * @throws IllegalArgumentException if the secret is not a word of
+     *                                  capital letters of the right length
+     */
+    public RaceDefinition(Dictionary words, String secret) {
+        this.words = words;
+        this.secret = secret;
+        this.secretCode = WordCodes.pack(secret, words.alphabet());
+        if (this.secretCode == WordCodes.NOT_A_WORD) {
+            throw new IllegalArgumentException(secret + " cannot be a secret.");
+        }
+        this.secretMask = Feedback.letterMask(this.secretCode);
+    }
+
+    /**
+     * The word to be found
+     *
+     * @return the secret
+     */
+    public String secret() {
+        return this.secret;
+    }
+
+    /**
+     * The letters words are spelled with
+     *
+     * @return the word list's alphabet
+     */
+    public Alphabet alphabet() {
+        return this.words.alphabet();
+    }
+
+    /**
+     * Is this a word that may be guessed?
+     *
+     * @param code a {@link WordCodes packed code}
+     * @return true only if it is a legal word
+     */
+    public boolean isLegal(int code) {
+        return this.words.contains(code);
+    }
+
+    /**
+     * Score a guess.
+     *
+     * @param code the guess's {@link WordCodes packed code}
+     * @return its {@link Feedback} pattern
+     */
+    public int score(int code) {
+        return Feedback.score(code, this.secretCode, this.secretMask);
+    }
+}
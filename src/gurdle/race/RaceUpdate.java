@@ -0,0 +1,18 @@
+package gurdle.race;
+
+import gurdle.Model;
+
+/**
+ * What the other players are told when someone's guess is scored: the
+ * colours of the new row, but not its letters.
+ *
+ * @param player  the name of the player who guessed
+ * @param row     which of their rows it was, from 0
+ * @param pattern the row's colours (see {@link gurdle.Feedback})
+ * @param state   how that player's game stands now
+ * @param winner  true if this row won the race
+ * @author RIT CS
+ */
+public record RaceUpdate(String player, int row, int pattern,
+                         Model.GameState state, boolean winner) {
+}
@@ -0,0 +1,867 @@
+package gurdle.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import gurdle.CharChoice;
+import gurdle.Dictionary;
+import gurdle.DictionaryReloader;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.SecretScheduler;
+import gurdle.race.Race;
+import gurdle.race.RaceBoard;
+import gurdle.solver.GameAnalyzer;
+import gurdle.solver.Solver;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An HTTP front end for {@link Model}, speaking JSON.
+ * <table>
+ *     <caption>Endpoints</caption>
+ *     <tr><td>POST /games</td><td>start a game; returns its board</td></tr>
+ *     <tr><td>GET /games/{id}</td><td>the board and keyboard</td></tr>
+ *     <tr><td>POST /games/{id}/guess?word=CRANE</td>
+ *         <td>make a guess; returns the board</td></tr>
+ *     <tr><td>GET /games/{id}/hint</td>
+ *         <td>the solver's best next guess</td></tr>
+ *     <tr><td>GET /games/{id}/analysis</td>
+ *         <td>the skill and luck of each row of a finished game</td></tr>
+ *     <tr><td>POST /batch</td>
+ *         <td>many guesses at once: the body has one
+ *         <code>id word</code> pair per line; returns an array with one
+ *         entry per non-blank line, each with the status that guess alone
+ *         would have had: the board and 200 or 422, or an error and 404
+ *         (no such game) or 400 (not an id and a word)</td></tr>
+ *     <tr><td>POST /races</td><td>start a race on a new secret</td></tr>
+ *     <tr><td>POST /races/{id}/join?name=ANN</td>
+ *         <td>join a race; returns the player's number and board</td></tr>
+ *     <tr><td>POST /races/{id}/players/{n}/guess?word=CRANE</td>
+ *         <td>make a guess in a race; returns the player's board</td></tr>
+ *     <tr><td>GET /races/{id}</td>
+ *         <td>every player's colours, but not their letters, and the
+ *         winner</td></tr>
+ * </table>
+ * A path that is not listed is answered 404, and a listed path asked for
+ * with the wrong method 405. A query that is not properly encoded is
+ * answered 400. A game that was spilled and cannot be brought back with
+ * the version of the word list it was started with is answered 410.
+ * <br><br>
+ * Each request is handled on its own virtual thread when the JDK has them,
+ * and on a cached thread pool otherwise. A game's model is only touched
+ * while holding its lock.
+ * <br><br>
+ * A hint for a game that is still following the precomputed
+ * {@link gurdle.solver.DecisionTree} is read from the tree straight away.
+ * Other hints, and analyses, take far longer than guesses, so they are run
+ * in the solver lane of a {@link LaneScheduler}: a few low-priority
+ * threads, a limit on how many such requests may wait and on how many one
+ * game may have, and a deadline for each. A request past a limit is
+ * answered 429 (too many for this game) or 503 (too many altogether)
+ * straight away, and one past its deadline 504. Everything else that
+ * touches a game runs in the fast lane, a bounded pool of its own that the
+ * solver lane gives way to; a request that finds it full is answered 503.
+ * <br><br>
+ * Only the most recently used games are kept in memory; idle ones are
+ * spilled to a temporary file by a {@link SessionStore} and read back when
+ * they are next used.
+ * <br><br>
+ * Use: <code>java gurdle.server.GameServer [port [games-in-memory]]</code>
+ *
+ * @author RIT CS
+ */
+public class GameServer {
+
+    /**
+     * The port used if none is given
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * How many games are kept in memory if no limit is given
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * How many guesses and other quick requests may wait for a fast-lane
+     * thread
+     */
+    public static final int FAST_QUEUE = 1_024;
+
+    /**
+     * How many hints and analyses may be waiting or running at once
+     */
+    public static final int SOLVER_QUEUE = 64;
+
+    /**
+     * How many hints and analyses one game may have waiting or running
+     */
+    public static final int SOLVER_PER_GAME = 2;
+
+    /**
+     * How long a hint or analysis may take, counting any wait to start
+     */
+    public static final Duration SOLVER_DEADLINE = Duration.ofSeconds(2);
+
+    /**
+     * Where the games' words come from
+     */
+    private final Supplier<Dictionary> words;
+
+    /**
+     * The games being played, by id
+     */
+    private final SessionStore sessions;
+
+    /**
+     * The races being run, by id. Races are kept in memory until the
+     * server stops.
+     */
+    private final Map<String, Race> races = new ConcurrentHashMap<>();
+
+    /**
+     * The JDK's built-in HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * The threads requests are handled on
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Keeps hints and analyses out of the way of guesses
+     */
+    private final LaneScheduler lanes;
+
+    /**
+     * Set up a server; it does not accept requests until {@link #start()}.
+     *
+     * @param address  where to listen; port 0 picks a free port
+     * @param words    where each new game gets its words
+     * @param capacity how many games to keep in memory
+     * @throws IOException if the address cannot be bound, or the spill
+     *                     file cannot be created
+     */
+    public GameServer(InetSocketAddress address, Supplier<Dictionary> words,
+                      int capacity) throws IOException {
+        this.words = words;
+        this.sessions = new SessionStore(capacity,
+                Files.createTempFile("gurdle-sessions", ".spill"), words);
+        this.server = HttpServer.create(address, 0);
+        this.executor = requestExecutor();
+        this.server.setExecutor(this.executor);
+        final int cores = Runtime.getRuntime().availableProcessors();
+        this.lanes = new LaneScheduler(cores, FAST_QUEUE,
+                Math.max(1, cores - 1), SOLVER_QUEUE, SOLVER_PER_GAME);
+        this.server.createContext("/games", guarded(this::handleGames));
+        this.server.createContext("/batch", guarded(this::handleBatch));
+        this.server.createContext("/races", guarded(this::handleRaces));
+    }
+
+    /**
+     * Why a request cannot be understood; answered 400
+     */
+    private static final class BadRequestException
+            extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Make sure every request gets an answer. A handler that throws would
+     * otherwise leave the client with a dropped connection.
+     *
+     * @param handler a request handler
+     * @return the handler, answering 400 for a {@link BadRequestException},
+     * 410 for a game that cannot be brought back, 503 for a full fast lane
+     * and 500 for anything else unexpected
+     */
+    private static HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (BadRequestException bre) {
+                error(exchange, 400, bre.getMessage());
+            } catch (Model.UnknownWordListException uwe) {
+                error(exchange, 410, uwe.getMessage());
+            } catch (RejectedExecutionException ree) {
+                error(exchange, 503, ree.getMessage());
+            } catch (RuntimeException re) {
+                if (exchange.getResponseCode() < 0) {
+                    error(exchange, 500, "Internal error.");
+                }
+                throw re;
+            }
+        };
+    }
+
+    /**
+     * A virtual thread per request if this JDK has them (21 and later),
+     * otherwise a cached pool of platform threads.
+     *
+     * @return the executor
+     */
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException roe) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Begin accepting requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stop accepting requests and let the ones in progress finish.
+     * All games are discarded.
+     *
+     * @throws IOException if the spill file cannot be removed
+     */
+    public void stop() throws IOException {
+        this.server.stop(1);
+        this.executor.shutdown();
+        this.lanes.close();
+        this.sessions.close();
+    }
+
+    /**
+     * Which port is the server listening on?
+     *
+     * @return the port number
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Something that writes a response body.
+     */
+    @FunctionalInterface
+    interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Render a JSON body into memory, so that no lock is held while the
+     * network is written.
+     */
+    private static ByteArrayOutputStream render(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        JsonWriter json = new JsonWriter(writer);
+        body.write(json);
+        json.flush();
+        return bytes;
+    }
+
+    /**
+     * Send a rendered JSON response.
+     */
+    private static void send(HttpExchange exchange, int status,
+                             ByteArrayOutputStream bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            bytes.writeTo(out);
+        }
+    }
+
+    /**
+     * Send a JSON response.
+     */
+    private static void respond(HttpExchange exchange, int status, Body body)
+            throws IOException {
+        send(exchange, status, render(body));
+    }
+
+    private static void error(HttpExchange exchange, int status,
+                              String message) throws IOException {
+        respond(exchange, status, json ->
+                json.beginObject().name("error").value(message).endObject());
+    }
+
+    /**
+     * Answer a request for a path that exists, made with a method it does
+     * not take.
+     *
+     * @param allowed the method it does take
+     */
+    private static void notAllowed(HttpExchange exchange, String allowed)
+            throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        error(exchange, 405, "Use " + allowed + ".");
+    }
+
+    /**
+     * Answer a request for a path that does not exist.
+     */
+    private static void notFound(HttpExchange exchange) throws IOException {
+        error(exchange, 404, "No such resource.");
+    }
+
+    /**
+     * Look up one query parameter.
+     *
+     * @return its value, or null if it is absent
+     * @throws BadRequestException if the value is not properly encoded
+     */
+    private static String query(URI uri, String key) {
+        final String query = uri.getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                final int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(key)) {
+                    try {
+                        return URLDecoder.decode(pair.substring(eq + 1),
+                                StandardCharsets.UTF_8);
+                    } catch (IllegalArgumentException iae) {
+                        throw new BadRequestException(
+                                "Badly encoded " + key + ".");
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start a game.
+     *
+     * @return the new game's id
+     */
+    private String newSession() {
+        Model model = new Model(this.words);
+        model.newGame();
+        return Long.toHexString(this.sessions.create(model));
+    }
+
+    /**
+     * Do something with a game, if it exists.
+     *
+     * @param id the game's id, as it appears in URLs
+     * @return what the action returned, or null if there is no such game
+     */
+    private <T> T withSession(String id, SessionStore.Action<T> action)
+            throws IOException {
+        final Long key = key(id);
+        return key == null ? null : this.lanes.fast(() ->
+                this.sessions.withSession(key, action));
+    }
+
+    /**
+     * The key a game is stored under
+     *
+     * @param id the game's id, as it appears in URLs
+     * @return the key, or null if the id is not a number
+     */
+    private static Long key(String id) {
+        try {
+            return Long.parseUnsignedLong(id, 16);
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    /**
+     * What the solver needs to know about a game, copied out of its model
+     * so that the model's lock is not held while the solver runs
+     *
+     * @param words  the game's word list
+     * @param clues  its rows so far
+     * @param state  whether it is over
+     * @param secret its secret
+     * @param tree   the precomputed tree's next guess, or null if the tree
+     *               has none for this game
+     */
+    private record Position(Dictionary words, List<Solver.Clue> clues,
+                            Model.GameState state, String secret,
+                            String tree) {
+        boolean over() {
+            return this.state == Model.GameState.WON ||
+                    this.state == Model.GameState.LOST;
+        }
+    }
+
+    /**
+     * Copy out a game's position.
+     */
+    private static Position position(Model model) {
+        synchronized (model) {
+            return new Position(model.words(), Solver.clues(model),
+                    model.gameState(), model.secret(),
+                    model.bestNextGuess());
+        }
+    }
+
+    /**
+     * Run a hint or analysis in the solver lane and send what it returns,
+     * or the reason it could not be had.
+     *
+     * @param exchange the request
+     * @param id       the game's id
+     * @param job      works out the response; returns null if cancelled
+     */
+    private void solve(HttpExchange exchange, String id,
+                       LaneScheduler.Job<ByteArrayOutputStream> job)
+            throws IOException {
+        final CompletableFuture<ByteArrayOutputStream> result =
+                this.lanes.solve(key(id), SOLVER_DEADLINE, job);
+        try {
+            send(exchange, 200, result.get());
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof TimeoutException) {
+                error(exchange, 504, "The solver ran out of time.");
+            } else if (cause instanceof
+                    LaneScheduler.QuotaExceededException) {
+                error(exchange, 429, cause.getMessage());
+            } else if (cause instanceof RejectedExecutionException) {
+                error(exchange, 503, cause.getMessage());
+            } else {
+                throw new IOException(cause);
+            }
+        } catch (InterruptedException ie) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            error(exchange, 503, "The server is stopping.");
+        }
+    }
+
+    /**
+     * Work out the solver's next guess for a game, or take it from the
+     * precomputed tree if the tree has one.
+     *
+     * @return the response, or null if cancelled
+     */
+    private static ByteArrayOutputStream hint(String id, Position position,
+                                              BooleanSupplier cancelled)
+            throws IOException {
+        final int[] candidates =
+                Solver.candidates(position.words(), position.clues());
+        final String hint = position.tree() != null ? position.tree() :
+                Solver.bestGuess(position.words(), candidates, cancelled);
+        if (hint == null && candidates.length > 0) {
+            return null;
+        }
+        return render(json -> json.beginObject()
+                .name("id").value(id)
+                .name("hint").value(hint)
+                .name("candidates").value(candidates.length)
+                .endObject());
+    }
+
+    /**
+     * Analyze a finished game.
+     *
+     * @return the response, or null if cancelled
+     */
+    private static ByteArrayOutputStream analysis(String id,
+                                                  Position position,
+                                                  BooleanSupplier cancelled)
+            throws IOException {
+        final GameAnalyzer.Analysis analysis =
+                GameAnalyzer.of(position.words()).analyze(position.clues(),
+                        position.secret(), cancelled);
+        if (analysis == null) {
+            return null;
+        }
+        return render(json -> {
+            json.beginObject();
+            json.name("id").value(id);
+            json.name("skill").value(analysis.skill());
+            json.name("luck").value(analysis.luck());
+            json.name("rows").beginArray();
+            for (GameAnalyzer.Row row : analysis.rows()) {
+                json.beginObject();
+                json.name("guess").value(row.guess());
+                json.name("candidates").value(row.candidates());
+                json.name("left").value(row.left());
+                json.name("best").value(row.bestGuess());
+                json.name("bestLeft").value(row.bestLeft());
+                json.name("skill").value(row.skill());
+                json.name("luck").value(row.luck());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    /**
+     * Make a guess in a game.
+     *
+     * @return true if the guess was accepted as a legal word
+     */
+    private static boolean guess(Model model, String word) {
+        synchronized (model) {
+            final int before = model.numAttempts();
+            model.enterNewGuess(word.toUpperCase(Locale.ROOT));
+            return model.numAttempts() > before;
+        }
+    }
+
+    /**
+     * Describe a game: its state, its scored rows, and the best status
+     * each letter has earned so far (the keyboard).
+     */
+    private static void writeBoard(JsonWriter json, String id, Model model)
+            throws IOException {
+        writeBoard(json, id, 0, model);
+    }
+
+    /**
+     * Describe a game, as the result of one operation of a batch.
+     *
+     * @param outcome the operation's status, or 0 to leave it out
+     */
+    private static void writeBoard(JsonWriter json, String id, int outcome,
+                                   Model model) throws IOException {
+        synchronized (model) {
+            final Model.GameState state = model.gameState();
+            json.beginObject();
+            json.name("id").value(id);
+            if (outcome != 0) {
+                json.name("status").value(outcome);
+            }
+            json.name("state").value(state.name());
+            json.name("attempts").value(model.numAttempts());
+            if (state == Model.GameState.WON || state == Model.GameState.LOST) {
+                json.name("secret").value(model.secret());
+            }
+            final Map<Character, CharChoice.Status> keyboard = new TreeMap<>();
+            json.name("rows").beginArray();
+            for (int row = 0; row < model.numAttempts(); ++row) {
+                final String guess = model.guessWord(row);
+                final int pattern = model.guessPattern(row);
+                json.beginObject().name("guess").value(guess);
+                json.name("colors").beginArray();
+                for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+                    final CharChoice.Status status =
+                            Feedback.status(pattern, pos);
+                    json.value(status.name());
+                    keyboard.merge(guess.charAt(pos), status,
+                            (a, b) -> a.compareTo(b) >= 0 ? a : b);
+                }
+                json.endArray().endObject();
+            }
+            json.endArray();
+            json.name("keyboard").beginObject();
+            for (Map.Entry<Character, CharChoice.Status> key :
+                    keyboard.entrySet()) {
+                json.name(String.valueOf(key.getKey()))
+                        .value(key.getValue().name());
+            }
+            json.endObject();
+            json.endObject();
+        }
+    }
+
+    /**
+     * /games, /games/{id}, /games/{id}/guess, /games/{id}/hint, and
+     * /games/{id}/analysis
+     */
+    private void handleGames(HttpExchange exchange) throws IOException {
+        final String[] parts =
+                exchange.getRequestURI().getPath().split("/");
+        final String method = exchange.getRequestMethod();
+        // parts[0] is empty and parts[1] is "games".
+        final String action = parts.length == 4 ? parts[3] : "";
+        final String allowed =
+                parts.length == 2 || action.equals("guess") ? "POST" : "GET";
+        if (parts.length < 2 || !parts[1].equals("games") ||
+                parts.length > 4 || (parts.length == 4 &&
+                !List.of("guess", "hint", "analysis").contains(action))) {
+            notFound(exchange);
+        } else if (!method.equals(allowed)) {
+            notAllowed(exchange, allowed);
+        } else if (parts.length == 2) {
+            final String id = this.newSession();
+            send(exchange, 201, this.withSession(id, model ->
+                    render(json -> writeBoard(json, id, model))));
+        } else if (parts.length == 3) {
+            final ByteArrayOutputStream board = this.withSession(parts[2],
+                    model -> render(json -> writeBoard(json, parts[2], model)));
+            if (board == null) {
+                error(exchange, 404, "No such game.");
+            } else {
+                send(exchange, 200, board);
+            }
+        } else if (action.equals("guess")) {
+            final String word = query(exchange.getRequestURI(), "word");
+            if (word == null) {
+                error(exchange, 400, "Missing word.");
+                return;
+            }
+            final boolean[] accepted = new boolean[1];
+            final ByteArrayOutputStream board = this.withSession(parts[2],
+                    model -> {
+                        accepted[0] = guess(model, word);
+                        return render(json ->
+                                writeBoard(json, parts[2], model));
+                    });
+            if (board == null) {
+                error(exchange, 404, "No such game.");
+            } else {
+                send(exchange, accepted[0] ? 200 : 422, board);
+            }
+        } else {
+            final Position position =
+                    this.withSession(parts[2], GameServer::position);
+            if (position == null) {
+                error(exchange, 404, "No such game.");
+            } else if (parts[3].equals("hint") && position.over()) {
+                error(exchange, 409, "The game is over.");
+            } else if (parts[3].equals("analysis") && !position.over()) {
+                error(exchange, 409, "The game is not over.");
+            } else if (parts[3].equals("hint") && position.tree() != null) {
+                send(exchange, 200, hint(parts[2], position, () -> false));
+            } else if (parts[3].equals("hint")) {
+                this.solve(exchange, parts[2], cancelled ->
+                        hint(parts[2], position, cancelled));
+            } else {
+                this.solve(exchange, parts[2], cancelled ->
+                        analysis(parts[2], position, cancelled));
+            }
+        }
+    }
+
+    /**
+     * /batch: apply many guesses, possibly to many games, in one request.
+     */
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/batch")) {
+            notFound(exchange);
+            return;
+        } else if (!exchange.getRequestMethod().equals("POST")) {
+            notAllowed(exchange, "POST");
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            respond(exchange, 200, json -> {
+                json.beginArray();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    final String[] op = line.trim().split("\\s+");
+                    if (op.length != 2) {
+                        json.beginObject().name("status").value(400)
+                                .name("error").value("Expected an id " +
+                                        "and a word: " + line.trim())
+                                .endObject();
+                        continue;
+                    }
+                    final Model model = this.withSession(op[0], game -> {
+                        final boolean accepted = guess(game, op[1]);
+                        writeBoard(json, op[0], accepted ? 200 : 422, game);
+                        return game;
+                    });
+                    if (model == null) {
+                        json.beginObject().name("id").value(op[0])
+                                .name("status").value(404)
+                                .name("error").value("No such game.")
+                                .endObject();
+                    }
+                }
+                json.endArray();
+            });
+        }
+    }
+
+    /**
+     * Describe a racer's own board, letters included.
+     */
+    private static void writeRacer(JsonWriter json, int number,
+                                   RaceBoard board) throws IOException {
+        json.beginObject();
+        json.name("player").value(number);
+        json.name("name").value(board.player());
+        json.name("state").value(board.state().name());
+        json.name("rows").beginArray();
+        final int[] patterns = board.patterns();
+        for (int row = 0; row < patterns.length; ++row) {
+            json.beginObject().name("guess").value(board.guessWord(row));
+            writeColors(json, patterns[row]);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * Write one row's colours as a "colors" member.
+     */
+    private static void writeColors(JsonWriter json, int pattern)
+            throws IOException {
+        json.name("colors").beginArray();
+        for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+            json.value(Feedback.status(pattern, pos).name());
+        }
+        json.endArray();
+    }
+
+    /**
+     * Describe a race as anyone may see it: every player's colours, but
+     * not their letters. The secret is shown once someone has won.
+     */
+    private static void writeRace(JsonWriter json, String id, Race race)
+            throws IOException {
+        final RaceBoard winner = race.winner();
+        json.beginObject();
+        json.name("id").value(id);
+        json.name("winner").value(winner == null ? null : winner.player());
+        if (winner != null) {
+            json.name("secret").value(race.definition().secret());
+        }
+        json.name("players").beginArray();
+        for (RaceBoard board : race.boards()) {
+            json.beginObject();
+            json.name("name").value(board.player());
+            json.name("state").value(board.state().name());
+            json.name("rows").beginArray();
+            for (int pattern : board.patterns()) {
+                json.beginObject();
+                writeColors(json, pattern);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * /races, /races/{id}, /races/{id}/join, and
+     * /races/{id}/players/{n}/guess
+     */
+    private void handleRaces(HttpExchange exchange) throws IOException {
+        final String[] parts =
+                exchange.getRequestURI().getPath().split("/");
+        final String method = exchange.getRequestMethod();
+        // parts[0] is empty and parts[1] is "races".
+        if (parts.length < 2 || !parts[1].equals("races")) {
+            notFound(exchange);
+            return;
+        } else if (parts.length == 2 && !method.equals("POST")) {
+            notAllowed(exchange, "POST");
+            return;
+        } else if (parts.length == 2) {
+            final Race race =
+                    Race.deal(this.words.get(), new SecretScheduler());
+            final String id =
+                    Long.toHexString(ThreadLocalRandom.current().nextLong());
+            this.races.put(id, race);
+            respond(exchange, 201, json -> writeRace(json, id, race));
+            return;
+        }
+        final Race race = this.races.get(parts[2]);
+        final boolean join = parts.length == 4 && parts[3].equals("join");
+        final boolean guess = parts.length == 6 &&
+                parts[3].equals("players") && parts[5].equals("guess");
+        if (race == null) {
+            error(exchange, 404, "No such race.");
+        } else if (parts.length != 3 && !join && !guess) {
+            notFound(exchange);
+        } else if (parts.length == 3 && !method.equals("GET")) {
+            notAllowed(exchange, "GET");
+        } else if (parts.length != 3 && !method.equals("POST")) {
+            notAllowed(exchange, "POST");
+        } else if (parts.length == 3) {
+            respond(exchange, 200, json -> writeRace(json, parts[2], race));
+        } else if (join) {
+            final String name = query(exchange.getRequestURI(), "name");
+            if (name == null) {
+                error(exchange, 400, "Missing name.");
+                return;
+            }
+            final RaceBoard board = race.join(name);
+            final int number = race.boards().indexOf(board);
+            respond(exchange, 201, json -> writeRacer(json, number, board));
+        } else {
+            final int number;
+            try {
+                number = Integer.parseInt(parts[4]);
+            } catch (NumberFormatException nfe) {
+                error(exchange, 404, "No such player.");
+                return;
+            }
+            final List<RaceBoard> boards = race.boards();
+            final String word = query(exchange.getRequestURI(), "word");
+            if (number < 0 || number >= boards.size()) {
+                error(exchange, 404, "No such player.");
+            } else if (word == null) {
+                error(exchange, 400, "Missing word.");
+            } else {
+                final RaceBoard board = boards.get(number);
+                final boolean accepted = this.lanes.fast(() ->
+                        board.guess(word)) != Model.GameState.ILLEGAL_WORD;
+                respond(exchange, accepted ? 200 : 422, json ->
+                        writeRacer(json, number, board));
+            }
+        }
+    }
+
+    /**
+     * Run a server until the process is killed.
+     *
+     * @param args an optional port number, then an optional number of
+     *             games to keep in memory
+     */
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_PORT;
+        final int capacity = args.length > 1 ?
+                Integer.parseInt(args[1]) : DEFAULT_CAPACITY;
+        // Send each reply's headers and body without waiting for an ACK in
+        // between, which otherwise adds ~40 ms to every guess.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        GameServer server = new GameServer(new InetSocketAddress(port),
+                new DictionaryReloader(Model.wordFile()),
+                capacity);
+        server.start();
+        System.out.println("Gurdle server listening on port " +
+                server.port() + ".");
+    }
+}
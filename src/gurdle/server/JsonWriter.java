@@ -0,0 +1,194 @@
+package gurdle.server;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes JSON straight to a stream, one token at a time, with no
+ * reflection and no intermediate tree. The writer keeps track of where
+ * commas and colons go; the caller is responsible for balancing begin and
+ * end calls.
+ * <br><br>
+ * Demonstration of Use
+ * <pre>
+ * json.beginObject()
+ *     .name("id").value("1f3a")
+ *     .name("attempts").value(2)
+ *     .endObject();
+ * </pre>
+ *
+ * @author RIT CS
+ */
+public class JsonWriter {
+
+    /**
+     * Where the text goes
+     */
+    private final Writer out;
+
+    /**
+     * For each open object or array, whether it is still empty
+     */
+    private final Deque<Boolean> empty = new ArrayDeque<>();
+
+    /**
+     * Was the last thing written a member name, so no comma is needed?
+     */
+    private boolean afterName;
+
+    /**
+     * Create a writer.
+     *
+     * @param out where the JSON text goes; not closed by this class
+     */
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Put a comma before every value but the first in its container.
+     */
+    private void separate() throws IOException {
+        if (this.afterName) {
+            this.afterName = false;
+        } else if (!this.empty.isEmpty()) {
+            if (!this.empty.pop()) {
+                this.out.write(',');
+            }
+            this.empty.push(false);
+        }
+    }
+
+    /**
+     * Open an object.
+     *
+     * @return this writer
+     */
+    public JsonWriter beginObject() throws IOException {
+        this.separate();
+        this.out.write('{');
+        this.empty.push(true);
+        return this;
+    }
+
+    /**
+     * Close the innermost object.
+     *
+     * @return this writer
+     */
+    public JsonWriter endObject() throws IOException {
+        this.empty.pop();
+        this.out.write('}');
+        return this;
+    }
+
+    /**
+     * Open an array.
+     *
+     * @return this writer
+     */
+    public JsonWriter beginArray() throws IOException {
+        this.separate();
+        this.out.write('[');
+        this.empty.push(true);
+        return this;
+    }
+
+    /**
+     * Close the innermost array.
+     *
+     * @return this writer
+     */
+    public JsonWriter endArray() throws IOException {
+        this.empty.pop();
+        this.out.write(']');
+        return this;
+    }
+
+    /**
+     * Start an object member; the value must be written next.
+     *
+     * @param name the member's name
+     * @return this writer
+     */
+    public JsonWriter name(String name) throws IOException {
+        this.separate();
+        this.string(name);
+        this.out.write(':');
+        this.afterName = true;
+        return this;
+    }
+
+    /**
+     * Write a string, or null.
+     *
+     * @return this writer
+     */
+    public JsonWriter value(String value) throws IOException {
+        this.separate();
+        if (value == null) {
+            this.out.write("null");
+        } else {
+            this.string(value);
+        }
+        return this;
+    }
+
+    /**
+     * Write a number.
+     *
+     * @return this writer
+     */
+    public JsonWriter value(long value) throws IOException {
+        this.separate();
+        this.out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Write true or false.
+     *
+     * @return this writer
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        this.separate();
+        this.out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Write a quoted, escaped string.
+     */
+    private void string(String s) throws IOException {
+        this.out.write('"');
+        for (int i = 0; i < s.length(); ++i) {
+            final char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> this.out.write("\\\"");
+                case '\\' -> this.out.write("\\\\");
+                case '\n' -> this.out.write("\\n");
+                case '\r' -> this.out.write("\\r");
+                case '\t' -> this.out.write("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        this.out.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        this.out.write(ch);
+                    }
+                }
+            }
+        }
+        this.out.write('"');
+    }
+
+    /**
+     * Push everything written so far to the stream.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+}
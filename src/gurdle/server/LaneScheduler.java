@@ -0,0 +1,372 @@
+package gurdle.server;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps cheap work, such as guesses and board reads, quick however much
+ * expensive work, such as hints and post-game analysis, is asked for at
+ * the same time. There are two lanes:
+ * <ul>
+ *     <li>The fast lane is a bounded pool of its own that
+ *     {@link #fast(Work)} hands work to and waits on. Only so much work
+ *     may wait for a thread; past that, work is turned away at once. Work
+ *     asked for from a fast-lane thread is run there and then, so it
+ *     cannot wait on itself.</li>
+ *     <li>The solver lane is a bounded work-stealing pool that
+ *     {@link #solve(long, Duration, Job)} hands jobs to. At most
+ *     {@link #queueLimit} jobs may be waiting or running, and at most
+ *     {@link #perSession} for any one session; past either limit a job is
+ *     turned away at once rather than queued. Every job has a deadline, and
+ *     a job still running when its deadline passes, or when its future is
+ *     cancelled, is told to stop.</li>
+ * </ul>
+ * A job learns it should stop by polling the {@link BooleanSupplier} it is
+ * given, as {@link gurdle.solver.Solver#bestGuess} does. The same poll is
+ * where the solver lane gives way: once a job has run for a slice of
+ * {@link #SLICE_NANOS}, the poll that finds fast-lane work waiting or
+ * running parks the job until that work is done, but for no more than
+ * {@link #YIELD_NANOS}. Guesses thus get the cores they need within a
+ * slice, even with fewer cores than solver threads, while the solver lane
+ * still gets most of the time under a steady stream of guesses rather
+ * than none of it until its deadline.
+ *
+ * @author RIT CS
+ */
+public final class LaneScheduler implements AutoCloseable {
+
+    /**
+     * Why a job was turned away: its session already has as many jobs
+     * as it may.
+     */
+    public static final class QuotaExceededException
+            extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        QuotaExceededException(long session) {
+            super("Session " + Long.toHexString(session) +
+                    " has too many requests running.");
+        }
+    }
+
+    /**
+     * Something to do in the fast lane
+     *
+     * @param <T> what it returns
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Something to do in the solver lane
+     *
+     * @param <T> what it returns
+     */
+    @FunctionalInterface
+    public interface Job<T> {
+        /**
+         * Do the job.
+         *
+         * @param cancelled poll this often; when it says true, stop and
+         *                  return anything (it will be ignored). It may
+         *                  also pause briefly to let fast-lane work run.
+         * @return the result
+         * @throws Exception if the job fails; its future fails with it
+         */
+        T run(BooleanSupplier cancelled) throws Exception;
+    }
+
+    /**
+     * How long a job runs before it gives way to fast-lane work
+     */
+    private static final long SLICE_NANOS = 1_000_000;
+
+    /**
+     * The longest a job waits each time it gives way
+     */
+    private static final long YIELD_NANOS = 100_000;
+
+    /**
+     * How long a waiting job sleeps before looking at the fast lane again
+     */
+    private static final long PAUSE_NANOS = 20_000;
+
+    /**
+     * A fast-lane thread, which knows whose lane it is in
+     */
+    private static final class FastThread extends Thread {
+        /**
+         * The scheduler whose fast lane this thread is in
+         */
+        private final LaneScheduler lanes;
+
+        FastThread(LaneScheduler lanes, Runnable task, String name) {
+            super(task, name);
+            this.lanes = lanes;
+        }
+    }
+
+    /**
+     * The fast lane's threads
+     */
+    private final ThreadPoolExecutor fastPool;
+
+    /**
+     * The solver lane's threads
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The most jobs that may be waiting or running
+     */
+    private final int queueLimit;
+
+    /**
+     * The most jobs one session may have waiting or running
+     */
+    private final int perSession;
+
+    /**
+     * How many jobs are waiting or running
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * How many jobs each session has waiting or running; sessions with
+     * none are left out
+     */
+    private final Map<Long, Integer> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * How many pieces of fast-lane work are waiting or running
+     */
+    private final AtomicInteger fastBusy = new AtomicInteger();
+
+    /**
+     * Start both lanes.
+     *
+     * @param fastThreads how many fast-lane threads there are
+     * @param fastQueue   the most pieces of fast-lane work that may wait
+     *                    for a thread
+     * @param threads     how many solver threads there are
+     * @param queueLimit  the most jobs that may be waiting or running
+     * @param perSession  the most jobs any one session may have waiting or
+     *                    running
+     */
+    public LaneScheduler(int fastThreads, int fastQueue, int threads,
+                         int queueLimit, int perSession) {
+        this.queueLimit = queueLimit;
+        this.perSession = perSession;
+        final AtomicInteger fastMade = new AtomicInteger();
+        this.fastPool = new ThreadPoolExecutor(fastThreads, fastThreads,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(fastQueue),
+                task -> {
+                    final Thread thread = new FastThread(this, task,
+                            "gurdle-fast-" + fastMade.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> {
+                    throw new RejectedExecutionException(
+                            "The server is busy.");
+                });
+        this.fastPool.allowCoreThreadTimeOut(true);
+        final AtomicInteger made = new AtomicInteger();
+        this.pool = new ForkJoinPool(threads, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool
+                    .defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("gurdle-solver-" + made.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, true);
+    }
+
+    /**
+     * Do some cheap work in the fast lane and wait for it. The wait is not
+     * cut short by an interrupt, since the work may already have changed
+     * a game; the interrupt is kept for the caller to see.
+     *
+     * @param work the work
+     * @return what it returned
+     * @throws IOException if the work did
+     * @throws RejectedExecutionException if the fast lane is full or
+     *                                    closed
+     */
+    public <T> T fast(Work<T> work) throws IOException {
+        if (Thread.currentThread() instanceof FastThread thread &&
+                thread.lanes == this) {
+            return work.run();
+        }
+        final FutureTask<T> task = new FutureTask<>(work::run) {
+            @Override
+            protected void done() {
+                LaneScheduler.this.fastBusy.decrementAndGet();
+            }
+        };
+        this.fastBusy.incrementAndGet();
+        try {
+            this.fastPool.execute(task);
+        } catch (RejectedExecutionException ree) {
+            this.fastBusy.decrementAndGet();
+            throw ree;
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            } else if (cause instanceof RuntimeException re) {
+                throw re;
+            } else if (cause instanceof Error e) {
+                throw e;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hand an expensive job to the solver lane.
+     *
+     * @param session  the session it is for, which its quota is charged to
+     * @param timeout  how long it may take, counting any wait to start
+     * @param job      the job
+     * @return its result; this fails with a
+     * {@link java.util.concurrent.TimeoutException} if the deadline passes
+     * first, with a {@link QuotaExceededException} if the session has too
+     * many jobs already, or with a {@link RejectedExecutionException} if
+     * the lane is full. Cancelling it stops the job.
+     */
+    public <T> CompletableFuture<T> solve(long session, Duration timeout,
+                                          Job<T> job) {
+        if (this.pending.incrementAndGet() > this.queueLimit) {
+            this.pending.decrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("The solver is busy."));
+        }
+        if (!this.charge(session)) {
+            this.pending.decrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new QuotaExceededException(session));
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            this.pool.execute(() -> {
+                try {
+                    if (!result.isDone()) {
+                        final long[] slice = {System.nanoTime()};
+                        result.complete(job.run(
+                                () -> this.pause(result, slice)));
+                    }
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    this.release(session);
+                }
+            });
+        } catch (RejectedExecutionException ree) { // Closed
+            this.release(session);
+            result.completeExceptionally(ree);
+        }
+        return result;
+    }
+
+    /**
+     * Count a job against its session's quota, if there is room.
+     *
+     * @param session the session
+     * @return false if the session already has as many jobs as it may
+     */
+    private boolean charge(long session) {
+        final boolean[] charged = {false};
+        this.sessions.compute(session, (key, jobs) -> {
+            final int n = jobs == null ? 0 : jobs;
+            if (n >= this.perSession) {
+                return jobs;
+            }
+            charged[0] = true;
+            return n + 1;
+        });
+        return charged[0];
+    }
+
+    /**
+     * A job has finished, one way or another.
+     *
+     * @param session the session it was for
+     */
+    private void release(long session) {
+        this.sessions.computeIfPresent(session,
+                (key, jobs) -> jobs == 1 ? null : jobs - 1);
+        this.pending.decrementAndGet();
+    }
+
+    /**
+     * What a job's cancellation check does: at the end of each slice, wait
+     * a little while fast-lane work is waiting or running, then say
+     * whether the job should stop.
+     *
+     * @param result the job's future
+     * @param slice  when the job's current slice began; updated here
+     * @return true if the job has timed out or been cancelled
+     */
+    private boolean pause(CompletableFuture<?> result, long[] slice) {
+        final long now = System.nanoTime();
+        if (now - slice[0] >= SLICE_NANOS) {
+            while (this.fastBusy.get() > 0 && !result.isDone() &&
+                    System.nanoTime() - now < YIELD_NANOS) {
+                LockSupport.parkNanos(PAUSE_NANOS);
+            }
+            slice[0] = System.nanoTime();
+        }
+        return result.isDone();
+    }
+
+    /**
+     * How many solver jobs are waiting or running?
+     *
+     * @return the number of jobs
+     */
+    public int pending() {
+        return this.pending.get();
+    }
+
+    /**
+     * Stop both lanes. Fast-lane work already handed over is finished;
+     * solver jobs still running are told to stop when their futures are
+     * next checked, and jobs waiting never start.
+     */
+    @Override
+    public void close() {
+        this.fastPool.shutdown();
+        this.pool.shutdownNow();
+    }
+}
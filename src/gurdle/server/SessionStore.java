@@ -0,0 +1,660 @@
+package gurdle.server;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds many games with a fixed number of them in memory.
+ * The most recently used games stay on the heap as {@link Model}s; when
+ * there are more than the capacity, the least recently used idle game is
+ * saved with {@link Model#writeSnapshot(java.io.DataOutput)} to a spill
+ * file and dropped. The next time that game is used it is read back
+ * transparently. A spilled game costs a few dozen bytes of disk and about
+ * 32 bytes of heap for its index entry.
+ * <br><br>
+ * Games are only reached through {@link #withSession(long, Action)},
+ * which holds the game's lock for the action and keeps the game from being
+ * spilled meanwhile. Spilled games lose their observers, but not their
+ * words: the store holds on to the version of the word list each spilled
+ * game was using, so a game comes back with the words it started with
+ * even if the list has been reloaded since.
+ * <br><br>
+ * The store's own lock only guards the bookkeeping: which games are in
+ * memory, where the spilled ones are, and where the file ends. Spilling
+ * and restoring a game hold one of {@link #STRIPES} locks, chosen by the
+ * game's id, while its snapshot is written or read, so disk I/O for one
+ * game never holds up the others. A spill reserves its place at the end
+ * of the file under the store's lock and writes outside it.
+ * <br><br>
+ * Once most of the file belongs to games that have been restored, it is
+ * compacted on a background thread: the live records are copied to a new
+ * file while games go on being spilled to the old one, and only the final
+ * swap, which also copies records spilled during the copy, stops spills
+ * and restores.
+ *
+ * @author RIT CS
+ */
+public class SessionStore implements AutoCloseable {
+
+    /**
+     * Bytes of each spill record before the snapshot: id and length
+     */
+    private static final int RECORD_HEADER = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Never bother compacting a spill file smaller than this
+     */
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    /**
+     * How many locks spilling and restoring are spread over; a power of 2
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Something to do with one game.
+     *
+     * @param <T> what the action produces
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+        T apply(Model model) throws IOException;
+    }
+
+    /**
+     * A game in memory, how many threads are using it, and whether it is
+     * being spilled
+     */
+    private static final class Entry {
+        private final Model model;
+        private int pins;
+        private boolean spilling;
+
+        Entry(Model model) {
+            this.model = model;
+        }
+    }
+
+    /**
+     * A version of the word list, and how many spilled games use it
+     */
+    private static final class Version {
+        private final Dictionary words;
+        private int games;
+
+        Version(Dictionary words) {
+            this.words = words;
+        }
+    }
+
+    /**
+     * How many games may be held in memory at once
+     */
+    private final int capacity;
+
+    /**
+     * Where games get their words for each new deal
+     */
+    private final Supplier<Dictionary> words;
+
+    /**
+     * The versions of the word list spilled games use, by checksum
+     */
+    private final Map<Integer, Version> versions = new HashMap<>();
+
+    /**
+     * Games in memory, least recently used first
+     */
+    private final LinkedHashMap<Long, Entry> active =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * How many games in {@link #active} are being spilled
+     */
+    private int spilling;
+
+    /**
+     * Where each spilled game's record starts
+     */
+    private final SpillIndex spilled = new SpillIndex();
+
+    /**
+     * Held by whoever is spilling or restoring a game, by id
+     */
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Shared by reads and writes of the spill file, which may overlap;
+     * held exclusively while a compaction swaps in a new file
+     */
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    /**
+     * Where compactions run
+     */
+    private final ExecutorService compactor;
+
+    /**
+     * The spill file's location
+     */
+    private final Path spillPath;
+
+    /**
+     * The spill file; records are only ever appended until a compaction
+     */
+    private FileChannel spill;
+
+    /**
+     * Where the next record will go: the end of the spill file, counting
+     * records still being written
+     */
+    private long fileEnd;
+
+    /**
+     * Bytes of the spill file belonging to games still spilled
+     */
+    private long liveBytes;
+
+    /**
+     * Whether a compaction has been started and not yet finished
+     */
+    private boolean compacting;
+
+    /**
+     * Create a store.
+     *
+     * @param capacity  how many games to keep in memory
+     * @param spillPath where to put idle games; any existing file there
+     *                  is replaced
+     * @param words     where restored games get their words
+     * @throws IOException if the spill file cannot be created
+     */
+    public SessionStore(int capacity, Path spillPath,
+                        Supplier<Dictionary> words) throws IOException {
+        this.capacity = capacity;
+        this.words = words;
+        this.spillPath = spillPath;
+        this.spill = FileChannel.open(spillPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.fileEnd = 0;
+        this.liveBytes = 0;
+        for (int s = 0; s < STRIPES; ++s) {
+            this.stripes[s] = new Object();
+        }
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            final Thread thread = new Thread(task, "session-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The lock for spilling and restoring a game
+     *
+     * @param id the game's id
+     * @return its stripe's lock
+     */
+    private Object stripe(long id) {
+        return this.stripes[(int) ((id * 0x9E3779B97F4A7C15L) >>> 58)];
+    }
+
+    /**
+     * Add a game under a new, random id.
+     *
+     * @param model the game
+     * @return its id
+     */
+    public long create(Model model) {
+        final long id;
+        synchronized (this) {
+            long candidate;
+            do {
+                candidate = ThreadLocalRandom.current().nextLong();
+            } while (this.active.containsKey(candidate) ||
+                    this.spilled.get(candidate) >= 0);
+            id = candidate;
+            this.active.put(id, new Entry(model));
+        }
+        try {
+            this.evict();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return id;
+    }
+
+    /**
+     * Do something with a game, restoring it first if it was spilled.
+     * The game's lock is held during the action.
+     *
+     * @param id     the game's id
+     * @param action what to do
+     * @param <T>    what the action produces
+     * @return the action's result, or null if there is no such game
+     * @throws IOException if the game cannot be restored, or the action
+     *                     fails
+     */
+    public <T> T withSession(long id, Action<T> action) throws IOException {
+        final Entry entry = this.pin(id);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            this.evict();
+            synchronized (entry.model) {
+                return action.apply(entry.model);
+            }
+        } finally {
+            synchronized (this) {
+                entry.pins -= 1;
+            }
+            this.evict();
+        }
+    }
+
+    /**
+     * Find a game, restoring it if it was spilled, and keep it in memory
+     * until it is unpinned.
+     *
+     * @param id the game's id
+     * @return the game's entry, or null if there is no such game
+     * @throws IOException if the game cannot be restored
+     */
+    private Entry pin(long id) throws IOException {
+        synchronized (this) {
+            final Entry found = this.active.get(id);
+            if (found != null && !found.spilling) {
+                found.pins += 1;
+                return found;
+            }
+        }
+        // Missing, or on its way out: wait for any spill to finish.
+        synchronized (this.stripe(id)) {
+            synchronized (this) {
+                final Entry found = this.active.get(id);
+                if (found != null) {
+                    found.pins += 1;
+                    return found;
+                }
+            }
+            final Model model = this.restore(id);
+            if (model == null) {
+                return null;
+            }
+            final Entry restored = new Entry(model);
+            restored.pins = 1;
+            synchronized (this) {
+                this.active.put(id, restored);
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * How many games are in memory?
+     *
+     * @return the number of games not spilled
+     */
+    public synchronized int activeCount() {
+        return this.active.size() - this.spilling;
+    }
+
+    /**
+     * How many games are on disk?
+     *
+     * @return the number of spilled games
+     */
+    public synchronized int spilledCount() {
+        return this.spilled.size();
+    }
+
+    /**
+     * Spill least recently used idle games until back within capacity.
+     *
+     * @throws IOException if a game cannot be spilled
+     */
+    private void evict() throws IOException {
+        while (true) {
+            long id = 0;
+            Entry victim = null;
+            synchronized (this) {
+                if (this.active.size() - this.spilling <= this.capacity) {
+                    return;
+                }
+                Iterator<Map.Entry<Long, Entry>> it =
+                        this.active.entrySet().iterator();
+                while (victim == null && it.hasNext()) {
+                    Map.Entry<Long, Entry> eldest = it.next();
+                    if (eldest.getValue().pins == 0 &&
+                            !eldest.getValue().spilling) {
+                        id = eldest.getKey();
+                        victim = eldest.getValue();
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                victim.spilling = true;
+                this.spilling += 1;
+            }
+            this.spillOut(id, victim);
+        }
+    }
+
+    /**
+     * Write a game to the spill file and drop it from memory, unless it
+     * was pinned while waiting for its stripe.
+     *
+     * @param id    the game's id
+     * @param entry the game, already marked as spilling
+     * @throws IOException if the game cannot be written
+     */
+    private void spillOut(long id, Entry entry) throws IOException {
+        synchronized (this.stripe(id)) {
+            boolean spilled = false;
+            try {
+                synchronized (this) {
+                    if (entry.pins > 0) {
+                        return;
+                    }
+                }
+                this.write(id, entry.model);
+                spilled = true;
+            } finally {
+                synchronized (this) {
+                    entry.spilling = false;
+                    this.spilling -= 1;
+                    if (spilled) {
+                        this.active.remove(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Append a game's snapshot to the spill file.
+     */
+    private void write(long id, Model model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(id);
+        out.writeInt(0);
+        final Dictionary words;
+        synchronized (model) {
+            model.writeSnapshot(out);
+            words = model.words();
+        }
+        out.flush();
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(Long.BYTES, record.limit() - RECORD_HEADER);
+        this.fileLock.readLock().lock();
+        try {
+            final long offset;
+            synchronized (this) {
+                offset = this.fileEnd;
+                this.fileEnd += record.limit();
+            }
+            while (record.hasRemaining()) {
+                this.spill.write(record, offset + record.position());
+            }
+            synchronized (this) {
+                this.spilled.put(id, offset);
+                this.liveBytes += record.limit();
+                this.versions.computeIfAbsent(words.checksum(),
+                        checksum -> new Version(words)).games += 1;
+            }
+        } finally {
+            this.fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Take a game out of the spill file.
+     *
+     * @return the game, or null if it was not spilled
+     */
+    private Model restore(long id) throws IOException {
+        final byte[] record;
+        this.fileLock.readLock().lock();
+        try {
+            final long offset;
+            synchronized (this) {
+                offset = this.spilled.get(id);
+            }
+            if (offset < 0) {
+                return null;
+            }
+            record = read(this.spill, offset);
+            synchronized (this) {
+                this.spilled.remove(id);
+                this.liveBytes -= record.length;
+            }
+        } finally {
+            this.fileLock.readLock().unlock();
+        }
+        Model model = Model.readSnapshot(new DataInputStream(
+                new ByteArrayInputStream(record, RECORD_HEADER,
+                        record.length - RECORD_HEADER)), this.words,
+                this::release);
+        this.compactIfSparse();
+        return model;
+    }
+
+    /**
+     * Hand a game being restored the version of the word list it was
+     * using, and stop holding the version for it.
+     *
+     * @param checksum the version's {@link Dictionary#checksum()}
+     * @return the version, or null if no spilled game uses it
+     */
+    private synchronized Dictionary release(int checksum) {
+        final Version version = this.versions.get(checksum);
+        if (version == null) {
+            return null;
+        } else if (--version.games == 0) {
+            this.versions.remove(checksum);
+        }
+        return version.words;
+    }
+
+    /**
+     * Read a whole record, header included.
+     */
+    private static byte[] read(FileChannel file, long offset)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (header.hasRemaining()) {
+            if (file.read(header, offset + header.position()) < 0) {
+                throw new IOException("Spill file is truncated.");
+            }
+        }
+        ByteBuffer record =
+                ByteBuffer.allocate(RECORD_HEADER + header.getInt(Long.BYTES));
+        while (record.hasRemaining()) {
+            if (file.read(record, offset + record.position()) < 0) {
+                throw new IOException("Spill file is truncated.");
+            }
+        }
+        return record.array();
+    }
+
+    /**
+     * Start a compaction in the background once the records of restored
+     * games make up most of the spill file.
+     */
+    private void compactIfSparse() {
+        synchronized (this) {
+            if (this.compacting || this.fileEnd < MIN_COMPACT_BYTES ||
+                    this.fileEnd < 2 * this.liveBytes) {
+                return;
+            }
+            this.compacting = true;
+        }
+        try {
+            this.compactor.execute(() -> {
+                try {
+                    this.compact();
+                } catch (IOException ioe) {
+                    System.err.println("Cannot compact " + this.spillPath +
+                            ": " + ioe.getMessage());
+                } finally {
+                    synchronized (this) {
+                        this.compacting = false;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            synchronized (this) { // Closed
+                this.compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Rewrite the spill file without the records of restored games.
+     *
+     * @throws IOException if the new file cannot be written; the old one
+     *                     stays in use
+     */
+    private void compact() throws IOException {
+        final Path temp = this.spillPath.resolveSibling(
+                this.spillPath.getFileName() + ".compact");
+        try (FileChannel compacted = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Copy what is live now, while spills and restores go on.
+            final SpillIndex copiedFrom = new SpillIndex();
+            synchronized (this) {
+                this.spilled.forEach(copiedFrom::put);
+            }
+            final SpillIndex copiedTo = new SpillIndex();
+            this.fileLock.readLock().lock();
+            try {
+                final IOException[] failure = new IOException[1];
+                copiedFrom.forEach((id, offset) -> {
+                    if (failure[0] == null) {
+                        try {
+                            copiedTo.put(id, append(compacted,
+                                    read(this.spill, offset)));
+                        } catch (IOException ioe) {
+                            failure[0] = ioe;
+                        }
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            } finally {
+                this.fileLock.readLock().unlock();
+            }
+            // Catch up with what changed meanwhile, and swap. Holding the
+            // file lock exclusively keeps the index from changing.
+            this.fileLock.writeLock().lock();
+            try {
+                final SpillIndex current = new SpillIndex();
+                synchronized (this) {
+                    this.spilled.forEach(current::put);
+                }
+                final SpillIndex moved = new SpillIndex();
+                final IOException[] failure = new IOException[1];
+                current.forEach((id, offset) -> {
+                    if (failure[0] == null) {
+                        try {
+                            moved.put(id, copiedFrom.get(id) == offset ?
+                                    copiedTo.get(id) : append(compacted,
+                                    read(this.spill, offset)));
+                        } catch (IOException ioe) {
+                            failure[0] = ioe;
+                        }
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                compacted.force(false);
+                this.spill.close();
+                try {
+                    Files.move(temp, this.spillPath,
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    this.spill = FileChannel.open(this.spillPath,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                synchronized (this) {
+                    this.fileEnd = this.spill.size();
+                    moved.forEach(this.spilled::put);
+                }
+            } finally {
+                this.fileLock.writeLock().unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Add a record to the end of a file.
+     *
+     * @return where it starts
+     */
+    private static long append(FileChannel file, byte[] record)
+            throws IOException {
+        final long offset = file.size();
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            file.write(buffer, offset + buffer.position());
+        }
+        return offset;
+    }
+
+    /**
+     * Close the spill file once any compaction has finished. Spilled games
+     * are lost.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        this.fileLock.writeLock().lock();
+        try {
+            this.spill.close();
+            Files.deleteIfExists(this.spillPath);
+        } finally {
+            this.fileLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package gurdle.server;
+
+import java.util.Arrays;
+
+/**
+ * Where each spilled session lives in the spill file: a map from session
+ * id to file offset, kept in two flat arrays with open addressing so that
+ * millions of entries cost about 32 bytes each and no objects.
+ * Not thread-safe.
+ *
+ * @author RIT CS
+ */
+class SpillIndex {
+
+    /**
+     * Marks a free slot; offsets are never negative
+     */
+    private static final long FREE = -1;
+
+    /**
+     * Marks a slot whose entry was removed; probing continues past it
+     */
+    private static final long REMOVED = -2;
+
+    private long[] keys;
+
+    private long[] offsets;
+
+    /**
+     * Number of live entries
+     */
+    private int size;
+
+    /**
+     * Number of live or removed slots, which governs when to grow
+     */
+    private int used;
+
+    SpillIndex() {
+        this.allocate(1024);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.offsets = new long[capacity];
+        Arrays.fill(this.offsets, FREE);
+        this.size = 0;
+        this.used = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (this.keys.length - 1);
+    }
+
+    /**
+     * How many sessions are spilled?
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Find a session.
+     *
+     * @return its offset, or -1 if it is not spilled
+     */
+    long get(long key) {
+        for (int s = this.slot(key); ; s = (s + 1) & (this.keys.length - 1)) {
+            if (this.offsets[s] == FREE) {
+                return -1;
+            } else if (this.offsets[s] != REMOVED && this.keys[s] == key) {
+                return this.offsets[s];
+            }
+        }
+    }
+
+    /**
+     * Record (or move) a session.
+     */
+    void put(long key, long offset) {
+        if ((this.used + 1) * 2 > this.keys.length) {
+            this.rehash();
+        }
+        int target = -1;
+        for (int s = this.slot(key); ; s = (s + 1) & (this.keys.length - 1)) {
+            if (this.offsets[s] == FREE) {
+                if (target < 0) {
+                    target = s;
+                    this.used += 1;
+                }
+                break;
+            } else if (this.offsets[s] == REMOVED) {
+                if (target < 0) {
+                    target = s;
+                }
+            } else if (this.keys[s] == key) {
+                this.offsets[s] = offset;
+                return;
+            }
+        }
+        this.keys[target] = key;
+        this.offsets[target] = offset;
+        this.size += 1;
+    }
+
+    /**
+     * Forget a session.
+     *
+     * @return its offset, or -1 if it was not spilled
+     */
+    long remove(long key) {
+        for (int s = this.slot(key); ; s = (s + 1) & (this.keys.length - 1)) {
+            if (this.offsets[s] == FREE) {
+                return -1;
+            } else if (this.offsets[s] != REMOVED && this.keys[s] == key) {
+                final long offset = this.offsets[s];
+                this.offsets[s] = REMOVED;
+                this.size -= 1;
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Visit every entry.
+     */
+    void forEach(Visitor visitor) {
+        for (int s = 0; s < this.keys.length; ++s) {
+            if (this.offsets[s] >= 0) {
+                visitor.visit(this.keys[s], this.offsets[s]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long key, long offset);
+    }
+
+    /**
+     * Grow if mostly live, or just sweep out removed slots.
+     */
+    private void rehash() {
+        final long[] oldKeys = this.keys;
+        final long[] oldOffsets = this.offsets;
+        final int capacity = this.size * 4 > oldKeys.length ?
+                oldKeys.length * 2 : oldKeys.length;
+        this.allocate(capacity);
+        for (int s = 0; s < oldKeys.length; ++s) {
+            if (oldOffsets[s] >= 0) {
+                this.put(oldKeys[s], oldOffsets[s]);
+            }
+        }
+    }
+}
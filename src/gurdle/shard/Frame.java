@@ -0,0 +1,150 @@
+package gurdle.shard;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One message between the {@link ShardRouter} and a {@link ShardWorker}.
+ * Requests carry an operation, responses a status; both name the session
+ * they are about.
+ * <br><br>
+ * Wire layout (big-endian):
+ * <pre>
+ * int    length of what follows
+ * byte   operation or status
+ * long   session id
+ * byte[] body
+ * </pre>
+ *
+ * @param op      the operation (requests) or status (responses)
+ * @param session the session id, or 0 if the message is not about one
+ * @param body    the payload; never null
+ * @author RIT CS
+ */
+record Frame(byte op, long session, byte[] body) {
+
+    /**
+     * Request: run a Turdle command line, given as UTF-8, in a session;
+     * "new" creates the session if it does not exist. The response is the
+     * text the command prints.
+     */
+    static final byte COMMAND = 1;
+
+    /**
+     * Request: remove a session and return its
+     * {@link gurdle.Model#writeSnapshot(java.io.DataOutput) snapshot}
+     */
+    static final byte EXPORT = 2;
+
+    /**
+     * Request: take in a session from the snapshot in the body
+     */
+    static final byte IMPORT = 3;
+
+    /**
+     * Request: list the sessions held, as a body of longs
+     */
+    static final byte IDS = 4;
+
+    /**
+     * Request: stop the worker process
+     */
+    static final byte SHUTDOWN = 5;
+
+    /**
+     * Response: done
+     */
+    static final byte OK = 0;
+
+    /**
+     * Response: the request failed; the body is the reason, in UTF-8
+     */
+    static final byte ERROR = -1;
+
+    /**
+     * Response: the worker has no such session
+     */
+    static final byte MISSING = -2;
+
+    /**
+     * Bytes after the length and before the body
+     */
+    private static final int HEADER = 1 + Long.BYTES;
+
+    /**
+     * Longest body accepted
+     */
+    private static final int MAX_BODY = 1 << 24;
+
+    /**
+     * An empty body
+     */
+    static final byte[] NONE = new byte[0];
+
+    /**
+     * Send this message.
+     *
+     * @param channel a blocking channel
+     * @throws IOException if it cannot be sent
+     */
+    void write(SocketChannel channel) throws IOException {
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(Integer.BYTES + HEADER + this.body.length);
+        buffer.putInt(HEADER + this.body.length).put(this.op)
+                .putLong(this.session).put(this.body).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Receive a message.
+     *
+     * @param channel a blocking channel
+     * @return the message, or null if the other end closed the channel
+     * between messages
+     * @throws IOException if the message cannot be read
+     */
+    static Frame read(SocketChannel channel) throws IOException {
+        final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        if (!fill(channel, length, true)) {
+            return null;
+        }
+        final int size = length.flip().getInt();
+        if (size < HEADER || size > HEADER + MAX_BODY) {
+            throw new IOException("Bad frame length " + size + ".");
+        }
+        final ByteBuffer rest = ByteBuffer.allocate(size);
+        fill(channel, rest, false);
+        rest.flip();
+        final byte op = rest.get();
+        final long session = rest.getLong();
+        final byte[] body = new byte[rest.remaining()];
+        rest.get(body);
+        return new Frame(op, session, body);
+    }
+
+    /**
+     * Read until a buffer is full.
+     *
+     * @param channel where to read
+     * @param buffer  what to fill
+     * @param mayEnd  whether the channel may end before anything is read
+     * @return false if the channel ended before anything was read
+     * @throws IOException if it cannot be read, or ends too soon
+     */
+    private static boolean fill(SocketChannel channel, ByteBuffer buffer,
+                                boolean mayEnd) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (mayEnd && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed mid-message.");
+            }
+        }
+        return true;
+    }
+}
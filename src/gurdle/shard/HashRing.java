@@ -0,0 +1,105 @@
+package gurdle.shard;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing: decides which of several nodes owns each key, so
+ * that adding or removing a node only moves the keys that node gains or
+ * loses.
+ * <br><br>
+ * Every node is placed at {@link #REPLICAS} pseudo-random points on a ring
+ * of 64-bit hashes, and a key belongs to the first point at or after the
+ * key's own hash. The many points per node keep the shares even.
+ *
+ * @param <T> the type of the nodes
+ * @author RIT CS
+ */
+public final class HashRing<T> {
+
+    /**
+     * Points on the ring per node
+     */
+    public static final int REPLICAS = 128;
+
+    /**
+     * The points, by hash
+     */
+    private final TreeMap<Long, T> points;
+
+    /**
+     * Make an empty ring.
+     */
+    public HashRing() {
+        this.points = new TreeMap<>();
+    }
+
+    /**
+     * Copy a ring, e.g. to work out where keys would go after a change
+     * before making it.
+     *
+     * @param ring the ring to copy; later changes to either are not seen
+     *             by the other
+     */
+    public HashRing(HashRing<T> ring) {
+        this.points = new TreeMap<>(ring.points);
+    }
+
+    /**
+     * Scramble the bits of a number (the SplitMix64 finalizer), so that
+     * nearby keys land far apart on the ring.
+     *
+     * @param key the number
+     * @return its hash
+     */
+    static long mix(long key) {
+        long z = key;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Put a node on the ring.
+     *
+     * @param name a name unique to the node; its points depend only on this
+     * @param node the node
+     */
+    public void add(String name, T node) {
+        for (int r = 0; r < REPLICAS; ++r) {
+            this.points.put(point(name, r), node);
+        }
+    }
+
+    /**
+     * Take a node off the ring.
+     *
+     * @param name the name it was added with
+     */
+    public void remove(String name) {
+        for (int r = 0; r < REPLICAS; ++r) {
+            this.points.remove(point(name, r));
+        }
+    }
+
+    /**
+     * Where one of a node's points is
+     */
+    private static long point(String name, int replica) {
+        return mix((long) name.hashCode() << 32 | replica);
+    }
+
+    /**
+     * Which node owns a key?
+     *
+     * @param key the key
+     * @return its owner, or null if the ring is empty
+     */
+    public T owner(long key) {
+        if (this.points.isEmpty()) {
+            return null;
+        }
+        final Map.Entry<Long, T> next = this.points.ceilingEntry(mix(key));
+        return (next != null ? next : this.points.firstEntry()).getValue();
+    }
+}
@@ -0,0 +1,154 @@
+package gurdle.shard;
+
+import util.ptui.ConsoleApplication;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A plain-text front end to a {@link ShardRouter}: play games that live in
+ * worker processes with the usual Turdle commands, and add or remove
+ * workers while they are being played.
+ * <br><br>
+ * Use: <code>java gurdle.shard.ShardConsole [workers]</code>
+ *
+ * @author RIT CS
+ */
+public class ShardConsole extends ConsoleApplication {
+
+    /**
+     * Workers started if no number is given
+     */
+    private static final int DEFAULT_WORKERS = 2;
+
+    /**
+     * Where the games are
+     */
+    private ShardRouter router;
+
+    /**
+     * The session commands go to, once one has been opened
+     */
+    private Long session;
+
+    /**
+     * Where this class's messages must be sent
+     */
+    private PrintWriter out;
+
+    /**
+     * Start the workers.
+     */
+    @Override
+    public void init() throws Exception {
+        final List<String> args = super.getArguments();
+        this.router = new ShardRouter(args.isEmpty() ?
+                DEFAULT_WORKERS : Integer.parseInt(args.get(0)));
+    }
+
+    /**
+     * Something to do that may fail to reach a worker
+     */
+    @FunctionalInterface
+    private interface Action {
+        void run() throws IOException;
+    }
+
+    /**
+     * Do something, reporting rather than throwing any failure.
+     */
+    private void attempt(Action action) {
+        try {
+            action.run();
+        } catch (IOException | RuntimeException e) {
+            this.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Send a Turdle command to the current session and show the result.
+     *
+     * @param line the command
+     */
+    private void forward(String line) {
+        if (this.session == null) {
+            this.out.println("Open or use a session first.");
+            return;
+        }
+        this.attempt(() -> {
+            final String text = this.router.command(this.session, line);
+            this.out.print(text == null ? "No such session.\n" : text);
+        });
+    }
+
+    /**
+     * Set up the commands: the Turdle ones, which go to the current
+     * session, and ones to pick sessions and manage workers.
+     *
+     * @param out where to print things
+     */
+    @Override
+    public void start(PrintWriter out) {
+        this.out = out;
+        super.setOnCommand("open", 0, ": Start a session with a " +
+                "new game", args -> this.attempt(() -> {
+            this.session = this.router.open();
+            out.println("Session " + Long.toHexString(this.session) + ".");
+        }));
+        super.setOnCommand("use", 1, "<id>: Switch to another " +
+                "session", args -> {
+            try {
+                this.session = Long.parseUnsignedLong(args[0], 16);
+                this.forward("show");
+            } catch (NumberFormatException nfe) {
+                out.println("Session ids are hexadecimal.");
+            }
+        });
+        super.setOnCommand("guess", 1, "<word>: Make a guess",
+                args -> this.forward("guess " + args[0]));
+        final String[][] plain = {
+                {"new", ": Start a new game"},
+                {"daily", ": Play today's puzzle"},
+                {"undo", ": Take back the last guess"},
+                {"redo", ": Put back the last guess taken back"},
+                {"cheat", ": Show the secret word"},
+                {"show", ": Show the board"}
+        };
+        for (String[] command : plain) {
+            super.setOnCommand(command[0], 0, command[1],
+                    args -> this.forward(command[0]));
+        }
+        super.setOnCommand("workers", 0, ": Show how many " +
+                "sessions each worker holds", args -> this.attempt(() -> {
+            for (Map.Entry<String, Integer> worker :
+                    this.router.sessionCounts().entrySet()) {
+                out.println(worker.getKey() + ": " + worker.getValue());
+            }
+        }));
+        super.setOnCommand("add", 0, ": Start another worker",
+                args -> this.attempt(() -> out.println("Moved " +
+                        this.router.addWorker() + " sessions.")));
+        super.setOnCommand("remove", 1, "<worker>: Stop a worker",
+                args -> this.attempt(() -> out.println("Moved " +
+                        this.router.removeWorker(args[0]) + " sessions.")));
+    }
+
+    /**
+     * Stop the workers.
+     */
+    @Override
+    public void stop() throws Exception {
+        this.router.close();
+    }
+
+    /**
+     * Start up the console application.
+     *
+     * @param args an optional number of workers to start with
+     */
+    public static void main(String[] args) {
+        ConsoleApplication.launch(ShardConsole.class, args);
+    }
+}
@@ -0,0 +1,422 @@
+package gurdle.shard;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Spreads game sessions over several {@link ShardWorker} processes on this
+ * machine, so that no one JVM's heap and garbage collector has to carry
+ * them all.
+ * <br><br>
+ * Each session lives in exactly one worker, chosen by
+ * {@link HashRing consistent hashing} on the session id, and the router
+ * forwards Turdle commands to it over a Unix-domain socket. When a worker
+ * is added or removed, only the sessions whose owner changes are moved:
+ * the old owner exports each one as a {@link gurdle.Model} snapshot and
+ * the new owner imports it. Commands wait while sessions are being moved.
+ * The moves are worked out on a copy of the ring, which replaces the old
+ * one only once every session is in place; if a move fails, the sessions
+ * already moved are moved back, and the workers stay as they were.
+ * A moved game keeps its board and can still be undone, but guesses that
+ * were taken back can no longer be redone.
+ *
+ * @author RIT CS
+ */
+public class ShardRouter implements AutoCloseable {
+
+    /**
+     * How long to wait for a new worker to start listening
+     */
+    private static final long START_TIMEOUT_MS = 10_000;
+
+    /**
+     * How long to wait between attempts to reach a starting worker
+     */
+    private static final long START_POLL_MS = 20;
+
+    /**
+     * How long to wait for a worker to exit after being told to
+     */
+    private static final long STOP_TIMEOUT_MS = 5_000;
+
+    /**
+     * A worker process, and the connection to it
+     */
+    private static final class Worker {
+        private final String name;
+        private final Process process;
+        private final SocketChannel channel;
+
+        Worker(String name, Process process, SocketChannel channel) {
+            this.name = name;
+            this.process = process;
+            this.channel = channel;
+        }
+
+        /**
+         * Send a request and wait for the response.
+         *
+         * @param op      the operation
+         * @param session the session it is about
+         * @param body    its payload
+         * @return the response
+         * @throws IOException if the worker cannot be reached, or reports
+         *                     an error
+         */
+        synchronized Frame call(byte op, long session, byte[] body)
+                throws IOException {
+            new Frame(op, session, body).write(this.channel);
+            final Frame response = Frame.read(this.channel);
+            if (response == null) {
+                throw new IOException(this.name + " closed the connection.");
+            }
+            if (response.op() == Frame.ERROR) {
+                throw new IOException(this.name + ": " + new String(
+                        response.body(), StandardCharsets.UTF_8));
+            }
+            return response;
+        }
+
+        /**
+         * Which sessions does this worker hold?
+         *
+         * @return their ids
+         * @throws IOException if the worker cannot be reached
+         */
+        long[] ids() throws IOException {
+            final ByteBuffer body = ByteBuffer.wrap(
+                    this.call(Frame.IDS, 0, Frame.NONE).body());
+            final long[] ids = new long[body.remaining() / Long.BYTES];
+            for (int i = 0; i < ids.length; ++i) {
+                ids[i] = body.getLong();
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Where the workers' sockets go
+     */
+    private final Path directory;
+
+    /**
+     * The running workers, by name, in the order they were added
+     */
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+
+    /**
+     * Which worker owns which session; replaced, never changed, when
+     * workers come and go
+     */
+    private HashRing<Worker> ring = new HashRing<>();
+
+    /**
+     * A session that was moved, and the workers it was moved between
+     *
+     * @param id   the session's id
+     * @param from its old owner
+     * @param to   its new owner
+     */
+    private record Move(long id, Worker from, Worker to) {
+    }
+
+    /**
+     * Held for reading to run commands, and for writing to change the
+     * set of workers
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of the next worker started
+     */
+    private int nextWorker;
+
+    /**
+     * Start a router and its first workers.
+     *
+     * @param workers how many workers to start with; at least 1
+     * @throws IOException if a worker cannot be started
+     */
+    public ShardRouter(int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker needed.");
+        }
+        this.directory = Files.createTempDirectory("gurdle-shards");
+        try {
+            for (int w = 0; w < workers; ++w) {
+                this.addWorker();
+            }
+        } catch (IOException ioe) {
+            this.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Start a worker process in this JVM's class path and connect to it.
+     *
+     * @param name the worker's name
+     * @return the worker
+     * @throws IOException if it does not start listening in time
+     */
+    private Worker launch(String name) throws IOException {
+        final Path socket = this.directory.resolve(name + ".sock");
+        final Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java")
+                        .toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ShardWorker.class.getName(), socket.toString())
+                .inheritIO()
+                .start();
+        final long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (true) {
+            if (Files.exists(socket)) {
+                final SocketChannel channel =
+                        SocketChannel.open(StandardProtocolFamily.UNIX);
+                try {
+                    channel.connect(UnixDomainSocketAddress.of(socket));
+                    return new Worker(name, process, channel);
+                } catch (IOException ioe) {
+                    channel.close(); // Not listening yet.
+                }
+            }
+            if (!process.isAlive() ||
+                    System.currentTimeMillis() > deadline) {
+                process.destroyForcibly();
+                throw new IOException(name + " did not start.");
+            }
+            try {
+                Thread.sleep(START_POLL_MS);
+            } catch (InterruptedException ie) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException(name + " did not start.", ie);
+            }
+        }
+    }
+
+    /**
+     * Start another worker and move to it the sessions it now owns.
+     *
+     * @return how many sessions were moved
+     * @throws IOException if the worker cannot be started, or sessions
+     *                     cannot be moved
+     */
+    public int addWorker() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            final String name = "worker-" + this.nextWorker++;
+            final Worker added = this.launch(name);
+            final HashRing<Worker> next = new HashRing<>(this.ring);
+            next.add(name, added);
+            final List<Move> moved = new ArrayList<>();
+            try {
+                for (Worker other : this.workers.values()) {
+                    for (long id : other.ids()) {
+                        if (next.owner(id) == added) {
+                            move(id, other, added);
+                            moved.add(new Move(id, other, added));
+                        }
+                    }
+                }
+            } catch (IOException ioe) {
+                undo(moved, ioe);
+                stop(added);
+                throw ioe;
+            }
+            this.workers.put(name, added);
+            this.ring = next;
+            return moved.size();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move a worker's sessions to the workers that now own them, and stop
+     * it.
+     *
+     * @param name the worker's name
+     * @return how many sessions were moved
+     * @throws IOException if sessions cannot be moved
+     */
+    public int removeWorker(String name) throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            final Worker removed = this.workers.get(name);
+            if (removed == null) {
+                throw new IllegalArgumentException("No worker " + name + ".");
+            }
+            if (this.workers.size() == 1) {
+                throw new IllegalStateException(
+                        "The last worker cannot be removed.");
+            }
+            final HashRing<Worker> next = new HashRing<>(this.ring);
+            next.remove(name);
+            final List<Move> moved = new ArrayList<>();
+            try {
+                for (long id : removed.ids()) {
+                    final Worker to = next.owner(id);
+                    move(id, removed, to);
+                    moved.add(new Move(id, removed, to));
+                }
+            } catch (IOException ioe) {
+                undo(moved, ioe);
+                throw ioe;
+            }
+            this.workers.remove(name);
+            this.ring = next;
+            stop(removed);
+            return moved.size();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move one session from one worker to another. If the new worker
+     * will not take it, it is put back.
+     */
+    private static void move(long id, Worker from, Worker to)
+            throws IOException {
+        final Frame exported = from.call(Frame.EXPORT, id, Frame.NONE);
+        if (exported.op() != Frame.OK) {
+            return; // Gone meanwhile.
+        }
+        try {
+            to.call(Frame.IMPORT, id, exported.body());
+        } catch (IOException ioe) {
+            from.call(Frame.IMPORT, id, exported.body());
+            throw ioe;
+        }
+    }
+
+    /**
+     * Put back sessions moved before a move failed, last first. Sessions
+     * that cannot be put back are lost; why is added to the failure.
+     *
+     * @param moved   the sessions moved
+     * @param failure why the moves are being undone
+     */
+    private static void undo(List<Move> moved, IOException failure) {
+        for (int m = moved.size() - 1; m >= 0; --m) {
+            final Move move = moved.get(m);
+            try {
+                move(move.id(), move.to(), move.from());
+            } catch (IOException ioe) {
+                failure.addSuppressed(ioe);
+            }
+        }
+    }
+
+    /**
+     * Tell a worker to stop, and wait for it to.
+     */
+    private static void stop(Worker worker) {
+        try {
+            worker.call(Frame.SHUTDOWN, 0, Frame.NONE);
+            worker.channel.close();
+            if (!worker.process.waitFor(STOP_TIMEOUT_MS,
+                    TimeUnit.MILLISECONDS)) {
+                worker.process.destroyForcibly();
+            }
+        } catch (IOException ioe) {
+            worker.process.destroyForcibly();
+        } catch (InterruptedException ie) {
+            worker.process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a session with a new game.
+     *
+     * @return the session's id
+     * @throws IOException if its worker cannot be reached
+     */
+    public long open() throws IOException {
+        final long id = ThreadLocalRandom.current().nextLong();
+        this.command(id, "new");
+        return id;
+    }
+
+    /**
+     * Run a Turdle command in a session: guess &lt;word&gt;, new, daily,
+     * undo, redo, cheat or show. "new" starts the session if need be.
+     *
+     * @param session the session's id
+     * @param line    the command
+     * @return what the command printed, or null if there is no such
+     * session
+     * @throws IOException if the session's worker cannot be reached
+     */
+    public String command(long session, String line) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            final Frame response = this.ring.owner(session).call(
+                    Frame.COMMAND, session,
+                    line.getBytes(StandardCharsets.UTF_8));
+            return response.op() == Frame.OK ?
+                    new String(response.body(), StandardCharsets.UTF_8) :
+                    null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * How are the sessions spread?
+     *
+     * @return for each worker, by name, how many sessions it holds
+     * @throws IOException if a worker cannot be reached
+     */
+    public Map<String, Integer> sessionCounts() throws IOException {
+        this.lock.readLock().lock();
+        try {
+            final Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Worker worker : this.workers.values()) {
+                counts.put(worker.name, worker.ids().length);
+            }
+            return counts;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stop every worker. Their sessions are lost.
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            for (Worker worker : this.workers.values()) {
+                this.ring.remove(worker.name);
+                stop(worker);
+            }
+            this.workers.clear();
+            try (Stream<Path> leftovers = Files.list(this.directory)) {
+                for (Path file : (Iterable<Path>) leftovers::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(this.directory);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package gurdle.shard;
+
+import gurdle.Dictionary;
+import gurdle.DictionaryReloader;
+import gurdle.Model;
+import gurdle.ptui.Turdle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * One worker process of a sharded game service. It holds the sessions the
+ * {@link ShardRouter} assigns it, as {@link Model}s, and answers
+ * {@link Frame}s on a Unix-domain socket: Turdle commands for a session,
+ * and the snapshot export and import the router uses to move sessions
+ * between workers. An imported session keeps the version of the word list
+ * it was started with, which must be this worker's current one, one of
+ * its sessions', or that of the session it last exported; otherwise the
+ * import is refused.
+ * <br><br>
+ * The worker stops when told to, or when the process that started it
+ * exits.
+ * <br><br>
+ * Use: <code>java gurdle.shard.ShardWorker socket-path</code>
+ *
+ * @author RIT CS
+ */
+public class ShardWorker {
+
+    /**
+     * A game, and the last message it sent its observers
+     */
+    private static final class Session {
+        private final Model model;
+        private String message = "";
+
+        Session(Model model) {
+            this.model = model;
+            model.addObserver((m, message) -> this.message = message);
+        }
+    }
+
+    /**
+     * Where games get their words
+     */
+    private final Supplier<Dictionary> words;
+
+    /**
+     * The sessions held, by id
+     */
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * The word list of the session last exported, kept so that a move that
+     * fails can put the session back
+     */
+    private volatile Dictionary exported;
+
+    /**
+     * The channel being served; closed to stop serving
+     */
+    private volatile ServerSocketChannel server;
+
+    /**
+     * Create a worker with no sessions.
+     *
+     * @param words where games get their words
+     */
+    public ShardWorker(Supplier<Dictionary> words) {
+        this.words = words;
+    }
+
+    /**
+     * Answer connections until told to shut down. Each connection is
+     * served by its own thread.
+     *
+     * @param server a bound server channel
+     * @throws IOException if the channel fails
+     */
+    public void serve(ServerSocketChannel server) throws IOException {
+        this.server = server;
+        while (server.isOpen()) {
+            final SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (AsynchronousCloseException ace) {
+                break; // Shut down.
+            }
+            final Thread thread = new Thread(() -> this.converse(channel),
+                    "shard-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Answer requests on one connection until it closes.
+     */
+    private void converse(SocketChannel channel) {
+        try (channel) {
+            Frame request;
+            while ((request = Frame.read(channel)) != null) {
+                Frame response;
+                try {
+                    response = this.answer(request);
+                } catch (IOException | RuntimeException e) {
+                    response = new Frame(Frame.ERROR, request.session(),
+                            String.valueOf(e.getMessage())
+                                    .getBytes(StandardCharsets.UTF_8));
+                }
+                response.write(channel);
+                if (request.op() == Frame.SHUTDOWN) {
+                    this.server.close();
+                }
+            }
+        } catch (IOException ioe) {
+            // The router went away; nothing to answer.
+        }
+    }
+
+    /**
+     * Carry out one request.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException if a snapshot cannot be read or written
+     */
+    private Frame answer(Frame request) throws IOException {
+        final long id = request.session();
+        switch (request.op()) {
+            case Frame.COMMAND: {
+                final String text = this.command(id, new String(
+                        request.body(), StandardCharsets.UTF_8));
+                return text == null ?
+                        new Frame(Frame.MISSING, id, Frame.NONE) :
+                        new Frame(Frame.OK, id,
+                                text.getBytes(StandardCharsets.UTF_8));
+            }
+            case Frame.EXPORT: {
+                final Session session = this.sessions.remove(id);
+                if (session == null) {
+                    return new Frame(Frame.MISSING, id, Frame.NONE);
+                }
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                synchronized (session) {
+                    session.model.writeSnapshot(new DataOutputStream(bytes));
+                    this.exported = session.model.words();
+                }
+                return new Frame(Frame.OK, id, bytes.toByteArray());
+            }
+            case Frame.IMPORT: {
+                final Model model = Model.readSnapshot(new DataInputStream(
+                        new ByteArrayInputStream(request.body())), this.words,
+                        this::version);
+                this.sessions.put(id, new Session(model));
+                return new Frame(Frame.OK, id, Frame.NONE);
+            }
+            case Frame.IDS: {
+                final Long[] ids = this.sessions.keySet().toArray(new Long[0]);
+                final ByteBuffer body = ByteBuffer.allocate(
+                        Long.BYTES * ids.length);
+                for (long held : ids) {
+                    body.putLong(held);
+                }
+                return new Frame(Frame.OK, 0, body.array());
+            }
+            case Frame.SHUTDOWN:
+                return new Frame(Frame.OK, 0, Frame.NONE);
+            default:
+                return new Frame(Frame.ERROR, id,
+                        "Unknown request.".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Find a version of the word list held by this worker.
+     *
+     * @param checksum the version's {@link Dictionary#checksum()}
+     * @return the current version, the last exported session's, or any
+     * held session's with that checksum; null if there is none
+     */
+    private Dictionary version(int checksum) {
+        final Dictionary current = this.words.get();
+        final Dictionary exported = this.exported;
+        if (current.checksum() == checksum) {
+            return current;
+        } else if (exported != null && exported.checksum() == checksum) {
+            return exported;
+        }
+        for (Session session : this.sessions.values()) {
+            final Dictionary words;
+            synchronized (session) {
+                words = session.model.words();
+            }
+            if (words.checksum() == checksum) {
+                return words;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run a Turdle command in a session: guess, new, daily, undo, redo,
+     * cheat or show.
+     *
+     * @param id   the session
+     * @param line the command and its argument, if any
+     * @return what the command printed, or null if there is no such
+     * session and the command was not "new"
+     */
+    private String command(long id, String line) {
+        final String[] operands = line.trim().split("\\s+");
+        final String name = operands[0].toLowerCase(Locale.ROOT);
+        Session session = this.sessions.get(id);
+        if (session == null) {
+            if (!name.equals("new")) {
+                return null;
+            }
+            session = this.sessions.computeIfAbsent(id,
+                    key -> new Session(new Model(this.words)));
+        }
+        final StringWriter text = new StringWriter();
+        final PrintWriter out = new PrintWriter(text);
+        synchronized (session) {
+            final Model model = session.model;
+            switch (name) {
+                case "guess" -> {
+                    if (operands.length != 2) {
+                        out.println("Use: guess <word>");
+                        break;
+                    }
+                    model.enterNewGuess(operands[1].toUpperCase(Locale.ROOT));
+                }
+                case "new" -> model.newGame();
+                case "daily" -> model.newDailyGame(LocalDate.now());
+                case "undo" -> {
+                    if (model.canUndo()) {
+                        model.undo();
+                    } else {
+                        out.println("Nothing to undo.");
+                    }
+                }
+                case "redo" -> {
+                    if (model.canRedo()) {
+                        model.redo();
+                    } else {
+                        out.println("Nothing to redo.");
+                    }
+                }
+                case "cheat" -> out.println(model.secret());
+                case "show" -> {
+                }
+                default -> out.println("Illegal command");
+            }
+            if (!name.equals("cheat")) {
+                Turdle.printBoard(out, model, session.message);
+            }
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    /**
+     * Run a worker.
+     *
+     * @param args the path of the socket to listen on; any file there is
+     *             replaced
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Use: java gurdle.shard.ShardWorker " +
+                    "socket-path");
+            System.exit(1);
+        }
+        ProcessHandle.current().parent().ifPresent(parent ->
+                parent.onExit().thenRun(() -> System.exit(0)));
+        final Path socket = Path.of(args[0]);
+        Files.deleteIfExists(socket);
+        final DictionaryReloader words =
+                new DictionaryReloader(Model.wordFile());
+        try (ServerSocketChannel server =
+                     ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            new ShardWorker(words).serve(server);
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+}
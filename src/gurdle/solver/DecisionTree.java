@@ -0,0 +1,285 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+
+/**
+ * A read-only view of a decision tree written by {@link
+ * DecisionTreeBuilder}. Each node holds the guess to make next; its
+ * children are keyed by the pattern (see {@link gurdle.Feedback}) that guess
+ * produced. The file is memory-mapped, so no node is decoded until a walk
+ * reaches it.
+ * <br><br>
+ * A tree is only good for the word list it was built from, so the file
+ * records that list's size and {@link Dictionary#checksum()}, and
+ * {@link #of(Dictionary)} hands out a tree only for a list that matches.
+ * <br><br>
+ * File layout (big-endian):
+ * <pre>
+ * int   MAGIC
+ * short VERSION
+ * int   number of words
+ * int   checksum of the word list
+ * int   offset of the root node
+ * byte[WORD_SIZE] per word (the word table)
+ * nodes: short guess index, byte child count,
+ *        then per child: byte pattern, int child node offset
+ * </pre>
+ *
+ * @author RIT CS
+ */
+public class DecisionTree {
+
+    /**
+     * Where the precomputed tree for {@link Model#WORD_FILE_NAME}
+     * lives
+     */
+    public static final String TREE_FILE_NAME = "data/wordle.tree";
+
+    /**
+     * First four bytes of every tree file ("GTRE")
+     */
+    static final int MAGIC = 0x47545245;
+
+    /**
+     * Format revision; bumped whenever the layout changes
+     */
+    static final short VERSION = 2;
+
+    /**
+     * Bytes before the word table
+     */
+    static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 4;
+
+    /**
+     * How often {@link #of(Dictionary)} looks to see whether the default
+     * tree's file has been rebuilt
+     */
+    private static final long RECHECK_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * The mapped file
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * How many words are in the word table
+     */
+    private final int numWords;
+
+    /**
+     * Length of every word in the table
+     */
+    private final int wordSize;
+
+    /**
+     * Checksum of the word list the tree was built from
+     */
+    private final int checksum;
+
+    /**
+     * Offset of the root node
+     */
+    private final int root;
+
+    /**
+     * The default tree as last mapped, and when its file was modified
+     *
+     * @param modified the file's modification time, or null if there was
+     *                 no file
+     * @param tree     the tree, or null if there was none or it could not
+     *                 be read
+     * @param checked  when the file was last looked at, from
+     *                 {@link System#nanoTime()}
+     */
+    private record Loaded(FileTime modified, DecisionTree tree,
+                          long checked) {
+    }
+
+    /**
+     * The default tree, mapped on first use and again whenever its file
+     * is found to have changed
+     */
+    private static volatile Loaded loaded;
+
+    private DecisionTree(ByteBuffer buffer, int wordSize) throws IOException {
+        this.buffer = buffer;
+        this.wordSize = wordSize;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC ||
+                buffer.getShort(4) != VERSION) {
+            throw new IOException("Not a decision tree file.");
+        }
+        this.numWords = buffer.getInt(6);
+        this.checksum = buffer.getInt(10);
+        this.root = buffer.getInt(14);
+        final long nodeStart = HEADER_SIZE + (long) this.numWords * wordSize;
+        if (this.numWords < 0 || this.root < nodeStart ||
+                this.root + 3L > buffer.limit()) {
+            throw new IOException("The decision tree file is damaged.");
+        }
+    }
+
+    /**
+     * The tree in {@link #TREE_FILE_NAME}, if it was built from a word
+     * list. The file is mapped on first use, and mapped again if it is
+     * found to have been rebuilt since, so a missing tree is picked up
+     * once it is built. The file is looked at no more often than every
+     * {@link #RECHECK_NANOS}.
+     *
+     * @param words the word list a game is using
+     * @return the tree, or null if none has been built or it was built from
+     * a different word list
+     */
+    public static DecisionTree of(Dictionary words) {
+        final DecisionTree tree = current();
+        return tree != null && tree.matches(words) ? tree : null;
+    }
+
+    /**
+     * The default tree, mapped again if it is time to look at its file and
+     * the file has changed.
+     *
+     * @return the tree, or null if there is none that can be read
+     */
+    private static DecisionTree current() {
+        final Loaded last = loaded;
+        if (last != null && System.nanoTime() - last.checked < RECHECK_NANOS) {
+            return last.tree;
+        }
+        return recheck();
+    }
+
+    /**
+     * Look at the default tree's file, and map it again if it has changed.
+     *
+     * @return the tree, or null if there is none that can be read
+     */
+    private static synchronized DecisionTree recheck() {
+        final long now = System.nanoTime();
+        final Loaded last = loaded;
+        if (last != null && now - last.checked < RECHECK_NANOS) {
+            return last.tree; // Another thread just looked
+        }
+        final Path path = Path.of(TREE_FILE_NAME);
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(path);
+        } catch (IOException ioe) {
+            modified = null;
+        }
+        DecisionTree tree = last == null ? null : last.tree;
+        if (last == null || !Objects.equals(modified, last.modified)) {
+            tree = null;
+            if (modified != null) {
+                try {
+                    tree = load(path);
+                } catch (IOException ioe) {
+                    // Treat it as missing until it is rebuilt.
+                }
+            }
+        }
+        loaded = new Loaded(modified, tree, now);
+        return tree;
+    }
+
+    /**
+     * Map a tree file into memory.
+     *
+     * @param path the file written by {@link DecisionTreeBuilder}
+     * @return the tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     */
+    public static DecisionTree load(Path path) throws IOException {
+        try (FileChannel channel =
+                     FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, Files.size(path));
+            return new DecisionTree(buffer, Model.WORD_SIZE);
+        }
+    }
+
+    /**
+     * Where every walk begins
+     *
+     * @return the root node
+     */
+    public int root() {
+        return this.root;
+    }
+
+    /**
+     * How many words the tree was built from
+     *
+     * @return the size of the word table
+     */
+    public int numWords() {
+        return this.numWords;
+    }
+
+    /**
+     * Was this tree built from a word list?
+     *
+     * @param words the word list
+     * @return true if the list has the size and checksum the tree records
+     */
+    public boolean matches(Dictionary words) {
+        return words.size() == this.numWords &&
+                words.checksum() == this.checksum;
+    }
+
+    /**
+     * Fetch a word from the word table.
+     *
+     * @param index the word's position in the table
+     * @return the word
+     */
+    public String word(int index) {
+        byte[] letters = new byte[this.wordSize];
+        this.buffer.get(HEADER_SIZE + index * this.wordSize, letters);
+        return new String(letters, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * What should be guessed at a node?
+     *
+     * @param node a node offset
+     * @return the guess
+     */
+    public String guess(int node) {
+        return word(this.buffer.getShort(node) & 0xFFFF);
+    }
+
+    /**
+     * Move down the tree.
+     *
+     * @param node    a node offset
+     * @param pattern the pattern the node's guess produced
+     * @return the child node offset, or -1 if that pattern cannot occur
+     * (including when the guess was right)
+     */
+    public int child(int node, int pattern) {
+        final int numChildren = this.buffer.get(node + 2) & 0xFF;
+        int entry = node + 3;
+        for (int c = 0; c < numChildren; ++c, entry += 5) {
+            final int childPattern = this.buffer.get(entry) & 0xFF;
+            if (childPattern == pattern) {
+                return this.buffer.getInt(entry + 1);
+            } else if (childPattern > pattern) {
+                break;
+            }
+        }
+        return -1;
+    }
+}
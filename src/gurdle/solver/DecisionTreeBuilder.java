@@ -0,0 +1,370 @@
+package gurdle.solver;
+
+import gurdle.Alphabet;
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An offline job that computes a decision tree over the answer list and
+ * writes it in the format read by {@link DecisionTree}.
+ * <br><br>
+ * The search is a branch-and-bound over the total number of guesses
+ * needed to solve every secret. At each node only the most promising
+ * guesses (those leaving the smallest expected number of candidates) are
+ * tried; how many depends on the depth. Candidate first guesses are
+ * explored in parallel on a fork/join pool and share the best cost found
+ * so far, so a branch is abandoned as soon as it cannot beat it.
+ * <br><br>
+ * Use: <code>java gurdle.solver.DecisionTreeBuilder [root-width]
+ * [word-file] [tree-file]</code>
+ *
+ * @author RIT CS
+ */
+public class DecisionTreeBuilder {
+
+    /**
+     * How many guesses are tried at each depth below the root
+     */
+    private static final int[] WIDTHS = {0, 3, 2, 1, 1, 1};
+
+    /**
+     * How many first guesses are tried if no width is given
+     */
+    private static final int DEFAULT_ROOT_WIDTH = 8;
+
+    /**
+     * An infeasible or pruned branch
+     */
+    private static final int NO_SOLUTION = Integer.MAX_VALUE;
+
+    /**
+     * One node of the tree while it is being built.
+     *
+     * @param guess    index of the word to guess
+     * @param cost     total guesses needed for all the secrets under here
+     * @param patterns the patterns that lead to children, ascending
+     * @param children the subtrees, parallel to patterns
+     */
+    private record Node(int guess, int cost, int[] patterns, Node[] children) {
+    }
+
+    /**
+     * All the patterns of the answer list
+     */
+    private final FeedbackTable table;
+
+    /**
+     * The answer list's checksum, recorded in the tree file
+     */
+    private final int checksum;
+
+    /**
+     * How many first guesses are tried
+     */
+    private final int rootWidth;
+
+    /**
+     * Set up a builder.
+     *
+     * @param words     the answer list
+     * @param rootWidth how many first guesses to try
+     * @throws IllegalArgumentException if there are more than
+     *                                  {@link FeedbackTable#MAX_WORDS} words,
+     *                                  or they are not in
+     *                                  {@link Alphabet#LATIN}
+     */
+    public DecisionTreeBuilder(Dictionary words, int rootWidth) {
+        if (words.alphabet() != Alphabet.LATIN) {
+            // The word table is written one ASCII byte per letter.
+            throw new IllegalArgumentException(
+                    "A tree can only be built from Latin words.");
+        }
+        this.table = new FeedbackTable(words);
+        this.checksum = words.checksum();
+        this.rootWidth = rootWidth;
+    }
+
+    /**
+     * Rank guesses for a set of candidates: smallest sum of squared bucket
+     * sizes first, with candidates themselves winning ties.
+     *
+     * @param candidates the secrets still possible
+     * @param width      how many guesses to return
+     * @return the best-looking guesses
+     */
+    private int[] shortlist(int[] candidates, int width) {
+        final int n = this.table.size();
+        final boolean[] isCandidate = new boolean[n];
+        for (int c : candidates) {
+            isCandidate[c] = true;
+        }
+        // Among two or three candidates, one of them is always good enough.
+        final int pool = candidates.length <= 3 ? 0 : n;
+        final long[] keyed = new long[pool + candidates.length];
+        final int[] counts = new int[Feedback.NUM_PATTERNS];
+        int k = 0;
+        for (int g = 0; g < pool; ++g) {
+            keyed[k++] = key(g, isCandidate[g], candidates, counts);
+        }
+        if (pool == 0) {
+            for (int g : candidates) {
+                keyed[k++] = key(g, true, candidates, counts);
+            }
+        }
+        Arrays.sort(keyed, 0, k);
+        final int[] result = new int[Math.min(width, k)];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = (int) (keyed[i] & 0xFFFFFFFFL);
+        }
+        return result;
+    }
+
+    private long key(int guess, boolean isCandidate, int[] candidates,
+                     int[] counts) {
+        this.table.partition(guess, candidates, counts);
+        long squares = 0;
+        for (int count : counts) {
+            squares += (long) count * count;
+        }
+        return ((squares * 2 + (isCandidate ? 0 : 1)) << 32) | guess;
+    }
+
+    /**
+     * Find the cheapest tree for a set of candidates, if it is cheaper
+     * than a bound.
+     *
+     * @param candidates the secrets still possible
+     * @param depth      how many guesses have been made already
+     * @param bound      the cost that must be beaten
+     * @return the tree, or null if none within the bound and the allowed
+     * number of tries was found
+     */
+    private Node solve(int[] candidates, int depth, int bound) {
+        final int m = candidates.length;
+        if (depth >= Model.NUM_TRIES || 2 * m - 1 >= bound) {
+            return null;
+        }
+        if (m == 1) {
+            return new Node(candidates[0], 1, new int[0], new Node[0]);
+        }
+        Node best = null;
+        final int[] counts = new int[Feedback.NUM_PATTERNS];
+        for (int guess : shortlist(candidates, WIDTHS[depth])) {
+            Node node = tryGuess(guess, candidates, depth, bound, counts);
+            if (node != null && node.cost < bound) {
+                best = node;
+                bound = node.cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Cost out one guess at a node.
+     *
+     * @return the node, or null if it cannot beat the bound
+     */
+    private Node tryGuess(int guess, int[] candidates, int depth, int bound,
+                          int[] counts) {
+        this.table.partition(guess, candidates, counts);
+        // Every candidate pays for this guess; every other bucket needs at
+        // least one more guess per secret, minus one lucky one.
+        int lower = candidates.length;
+        int numChildren = 0;
+        for (int p = 0; p < Feedback.ALL_RIGHT; ++p) {
+            if (counts[p] > 0) {
+                lower += 2 * counts[p] - 1;
+                numChildren += 1;
+            }
+        }
+        if (lower >= bound) {
+            return null;
+        }
+        final int[][] buckets = new int[Feedback.NUM_PATTERNS][];
+        final int[] fill = new int[Feedback.NUM_PATTERNS];
+        for (int p = 0; p < Feedback.ALL_RIGHT; ++p) {
+            if (counts[p] > 0) {
+                buckets[p] = new int[counts[p]];
+            }
+        }
+        for (int s : candidates) {
+            final int p = this.table.get(guess, s);
+            if (p != Feedback.ALL_RIGHT) {
+                buckets[p][fill[p]++] = s;
+            }
+        }
+        final int[] patterns = new int[numChildren];
+        final Node[] children = new Node[numChildren];
+        int cost = lower;
+        int c = 0;
+        for (int p = 0; p < Feedback.ALL_RIGHT; ++p) {
+            if (buckets[p] == null) continue;
+            final int estimate = 2 * buckets[p].length - 1;
+            final Node child =
+                    solve(buckets[p], depth + 1, bound - (cost - estimate));
+            if (child == null) {
+                return null;
+            }
+            cost += child.cost - estimate;
+            patterns[c] = p;
+            children[c] = child;
+            ++c;
+        }
+        return new Node(guess, cost, patterns, children);
+    }
+
+    /**
+     * One candidate first guess, explored on the pool
+     */
+    private class RootTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final int guess;
+        private final int[] candidates;
+        private final AtomicInteger bestCost;
+
+        RootTask(int guess, int[] candidates, AtomicInteger bestCost) {
+            this.guess = guess;
+            this.candidates = candidates;
+            this.bestCost = bestCost;
+        }
+
+        @Override
+        protected Node compute() {
+            Node node = tryGuess(this.guess, this.candidates, 0,
+                    this.bestCost.get(), new int[Feedback.NUM_PATTERNS]);
+            if (node != null) {
+                this.bestCost.accumulateAndGet(node.cost, Math::min);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Build the whole tree.
+     *
+     * @param pool where the first guesses are explored
+     * @return the root
+     */
+    private Node build(ForkJoinPool pool) {
+        final int n = this.table.size();
+        final int[] all = new int[n];
+        for (int i = 0; i < n; ++i) {
+            all[i] = i;
+        }
+        final AtomicInteger bestCost = new AtomicInteger(NO_SOLUTION);
+        final List<RootTask> tasks = new ArrayList<>();
+        for (int guess : shortlist(all, this.rootWidth)) {
+            tasks.add(new RootTask(guess, all, bestCost));
+        }
+        return pool.submit(() -> {
+            for (RootTask task : tasks) {
+                task.fork();
+            }
+            return tasks.stream()
+                    .map(RecursiveTask::join)
+                    .filter(node -> node != null)
+                    .min(Comparator.comparingInt(Node::cost))
+                    .orElse(null);
+        }).join();
+    }
+
+    /**
+     * Lay out nodes children-first so each parent knows its children's
+     * offsets when it is written.
+     *
+     * @return the offset of the node just written, relative to nodeStart
+     */
+    private static int writeNode(Node node, DataOutputStream out,
+                                 int nodeStart) throws IOException {
+        final int[] childOffsets = new int[node.children.length];
+        for (int c = 0; c < node.children.length; ++c) {
+            childOffsets[c] = writeNode(node.children[c], out, nodeStart);
+        }
+        final int offset = nodeStart + out.size();
+        out.writeShort(node.guess);
+        out.writeByte(node.children.length);
+        for (int c = 0; c < node.children.length; ++c) {
+            out.writeByte(node.patterns[c]);
+            out.writeInt(childOffsets[c]);
+        }
+        return offset;
+    }
+
+    /**
+     * Write a tree in {@link DecisionTree}'s format.
+     */
+    private void write(Node root, OutputStream dest) throws IOException {
+        final int n = this.table.size();
+        final int nodeStart = DecisionTree.HEADER_SIZE + n * Model.WORD_SIZE;
+        ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+        final int rootOffset;
+        try (DataOutputStream nodes = new DataOutputStream(nodeBytes)) {
+            rootOffset = writeNode(root, nodes, nodeStart);
+        }
+        DataOutputStream out = new DataOutputStream(dest);
+        out.writeInt(DecisionTree.MAGIC);
+        out.writeShort(DecisionTree.VERSION);
+        out.writeInt(n);
+        out.writeInt(this.checksum);
+        out.writeInt(rootOffset);
+        for (int w = 0; w < n; ++w) {
+            out.write(this.table.word(w).getBytes(StandardCharsets.US_ASCII));
+        }
+        nodeBytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Build the tree and save it.
+     *
+     * @param args optional root width, word file, and tree file
+     */
+    public static void main(String[] args) throws IOException {
+        final int rootWidth = args.length > 0 ?
+                Integer.parseInt(args[0]) : DEFAULT_ROOT_WIDTH;
+        final Path wordFile =
+                Path.of(args.length > 1 ? args[1] : Model.WORD_FILE_NAME);
+        final Path treeFile =
+                Path.of(args.length > 2 ? args[2] : DecisionTree.TREE_FILE_NAME);
+        final long start = System.nanoTime();
+        DecisionTreeBuilder builder = new DecisionTreeBuilder(
+                Dictionary.load(wordFile), rootWidth);
+        Node root = builder.build(ForkJoinPool.commonPool());
+        if (root == null) {
+            System.err.println("No tree solves every word within " +
+                    Model.NUM_TRIES + " tries.");
+            System.exit(1);
+        }
+        // Running games have the old file mapped; replace it whole.
+        final Path temporary =
+                treeFile.resolveSibling(treeFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            builder.write(root, out);
+        }
+        Files.move(temporary, treeFile, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        System.out.printf("Tree rooted at %s: %.4f guesses on average, " +
+                        "built in %d ms.%n",
+                builder.table.word(root.guess),
+                (double) root.cost / builder.table.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
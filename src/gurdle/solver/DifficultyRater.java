@@ -0,0 +1,272 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Difficulty;
+import gurdle.DifficultyRatings;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An offline job that rates how hard every word is to find as the secret,
+ * and writes the ratings where {@link DifficultyRatings} looks for them.
+ * <br><br>
+ * Each secret is played by a fixed set of reference strategies, from a
+ * strong solver down to a careless player, and the average and the worst
+ * number of guesses they need are recorded. Games are not cut off after
+ * {@link Model#NUM_TRIES} guesses, so the hardest words are told apart.
+ * The secrets are split across a fork/join pool.
+ * <br><br>
+ * Use: <code>java gurdle.solver.DifficultyRater [word-file]</code>
+ *
+ * @author RIT CS
+ */
+public class DifficultyRater {
+
+    /**
+     * Below this many secrets a task does the work itself
+     */
+    private static final int SECRETS_PER_TASK = 16;
+
+    /**
+     * Give up on a game after this many guesses; no strategy here should
+     * ever need it, since every guess but the last rules out a candidate
+     */
+    private static final int MAX_GUESSES = 100;
+
+    /**
+     * How the reference players choose their next guess
+     */
+    private enum Strategy {
+        /**
+         * Whichever word leaves the fewest candidates on average
+         * ({@link Solver#bestGuess})
+         */
+        GREEDY,
+        /**
+         * The first word, in list order, that could be the secret
+         */
+        FIRST_CANDIDATE,
+        /**
+         * Any word that could be the secret, chosen at random (but the
+         * same way on every run)
+         */
+        RANDOM_CANDIDATE
+    }
+
+    /**
+     * The words being rated
+     */
+    private final Dictionary words;
+
+    /**
+     * {@link Feedback#letterMask(int) Letter masks} of the words
+     */
+    private final int[] masks;
+
+    /**
+     * The greedy strategy's first guess, the same for every secret
+     */
+    private final int greedyOpening;
+
+    /**
+     * The greedy strategy's second guess for each pattern its first guess
+     * can get, plus one; zero until some secret needs it
+     */
+    private final AtomicIntegerArray greedySecond =
+            new AtomicIntegerArray(Feedback.NUM_PATTERNS);
+
+    /**
+     * Average guesses needed for each word, in tenths
+     */
+    private final byte[] averages;
+
+    /**
+     * Most guesses needed for each word
+     */
+    private final byte[] worsts;
+
+    /**
+     * Set up a rating job.
+     *
+     * @param words the words to rate
+     */
+    public DifficultyRater(Dictionary words) {
+        this.words = words;
+        this.masks = new int[words.size()];
+        for (int w = 0; w < this.masks.length; ++w) {
+            this.masks[w] = Feedback.letterMask(words.code(w));
+        }
+        final int[] everything = new int[words.size()];
+        Arrays.setAll(everything, w -> w);
+        final String opening = Solver.bestGuess(words, everything, () -> false);
+        this.greedyOpening = opening == null ?
+                0 : WordCodes.pack(opening, words.alphabet());
+        this.averages = new byte[words.size()];
+        this.worsts = new byte[words.size()];
+    }
+
+    /**
+     * Play one game.
+     *
+     * @param strategy how guesses are chosen
+     * @param s        the secret's position in the word list
+     * @return how many guesses it took
+     */
+    private int play(Strategy strategy, int s) {
+        final int secret = this.words.code(s);
+        final int secretMask = this.masks[s];
+        final SplittableRandom rng = new SplittableRandom(s);
+        int[] candidates = new int[this.words.size()];
+        Arrays.setAll(candidates, w -> w);
+        int count = candidates.length;
+        int firstPattern = 0;
+        for (int guesses = 1; guesses < MAX_GUESSES; ++guesses) {
+            final int guess = switch (strategy) {
+                case GREEDY -> this.greedyGuess(guesses, firstPattern,
+                        Arrays.copyOf(candidates, count));
+                case FIRST_CANDIDATE -> this.words.code(candidates[0]);
+                case RANDOM_CANDIDATE ->
+                        this.words.code(candidates[rng.nextInt(count)]);
+            };
+            if (guess == secret) {
+                return guesses;
+            }
+            final int pattern = Feedback.score(guess, secret, secretMask);
+            if (guesses == 1) {
+                firstPattern = pattern;
+            }
+            int kept = 0;
+            for (int c = 0; c < count; ++c) {
+                final int w = candidates[c];
+                if (Feedback.score(guess, this.words.code(w), this.masks[w])
+                        == pattern) {
+                    candidates[kept++] = w;
+                }
+            }
+            count = kept;
+        }
+        return MAX_GUESSES;
+    }
+
+    /**
+     * The greedy strategy's next guess. The first two guesses depend only
+     * on the first pattern, so they are worked out once and shared.
+     *
+     * @param guesses      which guess this is, from 1
+     * @param firstPattern the pattern the first guess got
+     * @param candidates   the words that could still be the secret
+     * @return the guess's code
+     */
+    private int greedyGuess(int guesses, int firstPattern, int[] candidates) {
+        if (guesses == 1) {
+            return this.greedyOpening;
+        }
+        if (guesses == 2) {
+            final int known = this.greedySecond.get(firstPattern);
+            if (known != 0) {
+                return known - 1;
+            }
+        }
+        final int guess = WordCodes.pack(
+                Solver.bestGuess(this.words, candidates, () -> false),
+                this.words.alphabet());
+        if (guesses == 2) {
+            this.greedySecond.set(firstPattern, guess + 1);
+        }
+        return guess;
+    }
+
+    /**
+     * Play every strategy against one secret and record the results.
+     *
+     * @param s the secret's position in the word list
+     */
+    private void rate(int s) {
+        int total = 0;
+        int worst = 0;
+        for (Strategy strategy : Strategy.values()) {
+            final int guesses = this.play(strategy, s);
+            total += guesses;
+            worst = Math.max(worst, guesses);
+        }
+        final int tenths = Math.round(total * 10f / Strategy.values().length);
+        this.averages[s] = (byte) Math.min(tenths, 0xFF);
+        this.worsts[s] = (byte) Math.min(worst, 0xFF);
+    }
+
+    /**
+     * Rates a range of secrets, splitting it in half until it is small
+     */
+    private class RateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        RateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SECRETS_PER_TASK) {
+                for (int s = this.from; s < this.to; ++s) {
+                    rate(s);
+                }
+            } else {
+                final int mid = (this.from + this.to) >>> 1;
+                invokeAll(new RateTask(this.from, mid),
+                        new RateTask(mid, this.to));
+            }
+        }
+    }
+
+    /**
+     * Rate every word and write the ratings.
+     *
+     * @param pool where the work is done
+     * @param path where the ratings go
+     * @throws IOException if they cannot be written
+     */
+    public void run(ForkJoinPool pool, Path path) throws IOException {
+        pool.invoke(new RateTask(0, this.words.size()));
+        DifficultyRatings.write(path, this.words, this.averages, this.worsts);
+    }
+
+    /**
+     * Rate the words of a word file and write the sidecar file next to it.
+     *
+     * @param args an optional word file; the default is
+     *             {@link Model#WORD_FILE_NAME}
+     */
+    public static void main(String[] args) throws IOException {
+        final Path wordFile =
+                Path.of(args.length > 0 ? args[0] : Model.WORD_FILE_NAME);
+        final Dictionary words = Dictionary.open(wordFile);
+        final Path sidecar = DifficultyRatings.sidecarPath(wordFile);
+        final long start = System.nanoTime();
+        new DifficultyRater(words).run(ForkJoinPool.commonPool(), sidecar);
+        final long elapsed = System.nanoTime() - start;
+        final DifficultyRatings ratings = DifficultyRatings.load(sidecar);
+        System.out.printf("Rated %d words in %d ms; wrote %s.%n",
+                words.size(), elapsed / 1_000_000, sidecar);
+        for (Difficulty tier : Difficulty.values()) {
+            final int[] members = ratings.tier(tier);
+            if (members.length > 0) {
+                System.out.printf("%-6s %4d words, %.1f to %.1f guesses%n",
+                        tier, members.length, ratings.average(members[0]),
+                        ratings.average(members[members.length - 1]));
+            }
+        }
+    }
+}
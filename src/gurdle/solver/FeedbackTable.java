@@ -0,0 +1,138 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every (guess, secret) pattern for a word list, computed once.
+ * Solvers look patterns up here instead of comparing letters over and over.
+ * The table takes a byte per pair of words, so lists longer than
+ * {@link #MAX_WORDS} are refused.
+ *
+ * @author RIT CS
+ */
+public class FeedbackTable {
+
+    /**
+     * The longest word list a table may be made for: its table takes a
+     * quarter of a gigabyte
+     */
+    public static final int MAX_WORDS = 16_384;
+
+    /**
+     * The words, in index order
+     */
+    private final List<String> words;
+
+    /**
+     * Row-major patterns: guess index times size plus secret index
+     */
+    private final byte[] patterns;
+
+    /**
+     * Score every word against every other word.
+     *
+     * @param words the words used both as guesses and as secrets
+     */
+    public FeedbackTable(List<String> words) {
+        this.words = List.copyOf(words);
+        final int n = this.words.size();
+        this.patterns = new byte[cells(n)];
+        for (int g = 0; g < n; ++g) {
+            final String guess = this.words.get(g);
+            for (int s = 0; s < n; ++s) {
+                this.patterns[g * n + s] =
+                        (byte) Feedback.score(guess, this.words.get(s));
+            }
+        }
+    }
+
+    /**
+     * Score every word of a dictionary against every other word, working
+     * on packed codes, which is much faster than scoring strings.
+     *
+     * @param words the words used both as guesses and as secrets
+     */
+    public FeedbackTable(Dictionary words) {
+        this.words = words.words();
+        final int n = words.size();
+        final int[] masks = new int[n];
+        for (int s = 0; s < n; ++s) {
+            masks[s] = Feedback.letterMask(words.code(s));
+        }
+        this.patterns = new byte[cells(n)];
+        for (int g = 0; g < n; ++g) {
+            final int guess = words.code(g);
+            for (int s = 0; s < n; ++s) {
+                this.patterns[g * n + s] = (byte) Feedback.score(guess,
+                        words.code(s), masks[s]);
+            }
+        }
+    }
+
+    /**
+     * How big must a table be?
+     *
+     * @param n how many words it is for
+     * @return the number of patterns it holds
+     * @throws IllegalArgumentException if there are more than
+     *                                  {@link #MAX_WORDS} words
+     */
+    private static int cells(int n) {
+        final long cells = (long) n * n;
+        if (cells > (long) MAX_WORDS * MAX_WORDS) {
+            throw new IllegalArgumentException(n + " words are too many " +
+                    "for a feedback table; the most is " + MAX_WORDS + ".");
+        }
+        return (int) cells;
+    }
+
+    /**
+     * How many words are in the table?
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return this.words.size();
+    }
+
+    /**
+     * Fetch one word.
+     *
+     * @param index the word's position in the list
+     * @return the word
+     */
+    public String word(int index) {
+        return this.words.get(index);
+    }
+
+    /**
+     * Look up a pattern.
+     *
+     * @param guess  index of the guessed word
+     * @param secret index of the secret word
+     * @return the pattern, as produced by {@link Feedback#score}
+     */
+    public int get(int guess, int secret) {
+        return this.patterns[guess * this.words.size() + secret] & 0xFF;
+    }
+
+    /**
+     * Split candidate secrets by the pattern a guess would produce.
+     *
+     * @param guess      index of the guessed word
+     * @param candidates indices of the secrets still possible
+     * @param counts     filled in with the number of candidates per pattern;
+     *                   must hold {@link Feedback#NUM_PATTERNS} entries
+     */
+    public void partition(int guess, int[] candidates, int[] counts) {
+        Arrays.fill(counts, 0);
+        final int base = guess * this.words.size();
+        for (int s : candidates) {
+            counts[this.patterns[base + s] & 0xFF] += 1;
+        }
+    }
+}
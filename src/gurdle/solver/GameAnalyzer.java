@@ -0,0 +1,404 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Looks back over a finished game and separates the player's skill from
+ * their luck, row by row.
+ * <br><br>
+ * For each row it finds how many words could still have been the secret
+ * before the guess, how many the guess left, and how many it was expected
+ * to leave, averaged over those candidates. It also finds the guess that
+ * would have left the fewest on average (as {@link Solver#bestGuess}
+ * does) and how many that guess would really have left. Then:
+ * <ul>
+ *     <li>skill, out of 100, is the best guess's expected number of
+ *     candidates left divided by the player's guess's, so that 100 means
+ *     no guess was better on average</li>
+ *     <li>luck, out of 100, is how the number actually left ranks among
+ *     everything the guess might have left: the share of candidate
+ *     secrets that would have left more, counting ties as half, so that
+ *     50 is what the guess deserved</li>
+ * </ul>
+ * An analyzer keeps the candidates as bit sets and scores guesses against
+ * them as it goes, on packed codes, so its memory grows only with the
+ * length of the word list. Searching for the best guess scores every word
+ * against every candidate; past {@link #SAMPLE} candidates, it scores
+ * against an evenly spaced sample of them instead, so that a long list
+ * costs time in proportion to its length rather than its square. The best
+ * opening guess is the same for every game, so it is found the first
+ * time it is needed and kept, and there is one analyzer per word list,
+ * kept by {@link #of(Dictionary)}.
+ *
+ * @author RIT CS
+ */
+public final class GameAnalyzer {
+
+    /**
+     * What one row of a game did.
+     *
+     * @param guess        the word guessed
+     * @param candidates   how many words could have been the secret before
+     * @param left         how many still could after this row
+     * @param expected     how many this guess leaves, on average over the
+     *                     candidates
+     * @param bestGuess    the guess that leaves the fewest on average
+     * @param bestExpected how many that guess leaves on average
+     * @param bestLeft     how many that guess would have left in this game
+     * @param skill        out of 100; see {@link GameAnalyzer}
+     * @param luck         out of 100; see {@link GameAnalyzer}
+     */
+    public record Row(String guess, int candidates, int left,
+                      double expected, String bestGuess,
+                      double bestExpected, int bestLeft, int skill,
+                      int luck) {
+    }
+
+    /**
+     * What a whole game did.
+     *
+     * @param rows  each row, first one first; rows after the candidates
+     *              run out (possible only if the word list changed under
+     *              the game) are left out
+     * @param skill the rows' average skill
+     * @param luck  the rows' average luck
+     */
+    public record Analysis(List<Row> rows, int skill, int luck) {
+    }
+
+    /**
+     * What the search for the best guess found.
+     *
+     * @param guess   the guess's index
+     * @param squares the sum of squares of its partition of the candidates
+     *                (estimated from the sample, if there was one)
+     */
+    private record Best(int guess, long squares) {
+    }
+
+    /**
+     * The most candidates the best-guess search scores every guess
+     * against; past this it uses a sample of about this many
+     */
+    static final int SAMPLE = 4096;
+
+    /**
+     * The analyzer for the word list used last
+     */
+    private static volatile GameAnalyzer last;
+
+    /**
+     * The words games are analyzed against
+     */
+    private final Dictionary words;
+
+    /**
+     * Each word's packed code, by index
+     */
+    private final int[] codes;
+
+    /**
+     * Each word's {@link Feedback#letterMask letter mask}, by index
+     */
+    private final int[] masks;
+
+    /**
+     * The best opening guess, or null until it is first needed
+     */
+    private volatile Best opening;
+
+    /**
+     * Get ready to analyze games played with a word list.
+     *
+     * @param words the word list
+     */
+    public GameAnalyzer(Dictionary words) {
+        this.words = words;
+        this.codes = new int[words.size()];
+        this.masks = new int[words.size()];
+        for (int w = 0; w < this.codes.length; ++w) {
+            this.codes[w] = words.code(w);
+            this.masks[w] = Feedback.letterMask(this.codes[w]);
+        }
+    }
+
+    /**
+     * The analyzer for a word list, made the first time it is asked for.
+     * Only the most recent list's analyzer is kept, since games move to
+     * a new list when the word file changes.
+     *
+     * @param words the word list
+     * @return its analyzer
+     */
+    public static GameAnalyzer of(Dictionary words) {
+        GameAnalyzer analyzer = last;
+        if (analyzer == null || analyzer.words != words) {
+            analyzer = new GameAnalyzer(words);
+            last = analyzer;
+        }
+        return analyzer;
+    }
+
+    /**
+     * Analyze a finished game. Call this on the thread that owns the
+     * model.
+     *
+     * @param model a game that is over
+     * @return the analysis
+     * @throws IllegalStateException if the game is not over
+     */
+    public static Analysis analyze(Model model) {
+        final Model.GameState state = model.gameState();
+        if (state != Model.GameState.WON && state != Model.GameState.LOST) {
+            throw new IllegalStateException("The game is not over.");
+        }
+        return of(model.words()).analyze(Solver.clues(model), model.secret());
+    }
+
+    /**
+     * Analyze a game's rows.
+     *
+     * @param clues  the rows, first one first, each a guess from this
+     *               analyzer's word list
+     * @param secret the secret
+     * @return the analysis
+     * @throws IllegalArgumentException if a guess is not in the word list
+     */
+    public Analysis analyze(List<Solver.Clue> clues, String secret) {
+        return this.analyze(clues, secret, () -> false);
+    }
+
+    /**
+     * Analyze a game's rows, unless told to stop.
+     *
+     * @param clues     the rows, first one first, each a guess from this
+     *                  analyzer's word list
+     * @param secret    the secret
+     * @param cancelled checked between guesses while looking for the best
+     *                  one; when it says true the analysis is abandoned
+     * @return the analysis, or null if it was cancelled
+     * @throws IllegalArgumentException if a guess is not in the word list
+     */
+    public Analysis analyze(List<Solver.Clue> clues, String secret,
+                            BooleanSupplier cancelled) {
+        final int n = this.words.size();
+        final int secretCode = WordCodes.pack(secret, this.words.alphabet());
+        final int secretMask = Feedback.letterMask(secretCode);
+        final long[] live = new long[(n + Long.SIZE - 1) / Long.SIZE];
+        for (int w = 0; w < n; ++w) {
+            live[w / Long.SIZE] |= 1L << w;
+        }
+        final int[] candidates = new int[n];
+        final int[] patterns = new int[n];
+        final int[] counts = new int[Feedback.NUM_PATTERNS];
+        final List<Row> rows = new ArrayList<>(clues.size());
+        int skill = 0;
+        int luck = 0;
+        for (int row = 0; row < clues.size(); ++row) {
+            final int m = expand(live, candidates);
+            if (m == 0) {
+                break;
+            }
+            final int[] before = Arrays.copyOf(candidates, m);
+            final Solver.Clue clue = clues.get(row);
+            final int guess = this.words.indexOf(
+                    WordCodes.pack(clue.guess(), this.words.alphabet()));
+            if (guess < 0) {
+                throw new IllegalArgumentException(
+                        clue.guess() + " is not in the word list.");
+            }
+
+            // The player's guess: what it could leave, and what it did.
+            Arrays.fill(counts, 0);
+            for (int c = 0; c < m; ++c) {
+                final int s = before[c];
+                patterns[c] = Feedback.score(this.codes[guess],
+                        this.codes[s], this.masks[s]);
+                counts[patterns[c]] += 1;
+            }
+            final int left = counts[clue.pattern()];
+            final double expected = squares(counts) / (double) m;
+            int worse = 0;
+            for (int count : counts) {
+                worse += count > left ? count : 0;
+            }
+            final int rowLuck = (int) Math.round(
+                    100.0 * (worse + left / 2.0 * countOf(counts, left)) / m);
+
+            // The best guess: what it could leave, and what it would have.
+            Best best = row == 0 ? this.opening : null;
+            if (best == null) {
+                best = this.best(before, guess, counts, cancelled);
+                if (best == null) {
+                    return null;
+                }
+                if (row == 0) {
+                    this.opening = best;
+                }
+            }
+            final int bestGuess = best.guess();
+            final double bestExpected = best.squares() / (double) m;
+            final int bestPattern = Feedback.score(this.codes[bestGuess],
+                    secretCode, secretMask);
+            int bestLeft = 0;
+            for (int s : before) {
+                bestLeft += Feedback.score(this.codes[bestGuess],
+                        this.codes[s], this.masks[s]) == bestPattern ? 1 : 0;
+            }
+            final int rowSkill = (int) Math.round(
+                    100.0 * bestExpected / expected);
+
+            // Rule out the candidates this row did not fit.
+            for (int c = 0; c < m; ++c) {
+                if (patterns[c] != clue.pattern()) {
+                    live[before[c] / Long.SIZE] &= ~(1L << before[c]);
+                }
+            }
+            rows.add(new Row(clue.guess(), m, left, expected,
+                    this.words.get(bestGuess), bestExpected, bestLeft,
+                    rowSkill, rowLuck));
+            skill += rowSkill;
+            luck += rowLuck;
+        }
+        final int played = Math.max(1, rows.size());
+        return new Analysis(List.copyOf(rows),
+                Math.round((float) skill / played),
+                Math.round((float) luck / played));
+    }
+
+    /**
+     * How many patterns leave some number of candidates?
+     *
+     * @param counts candidates per pattern
+     * @param left   the number
+     * @return how many patterns have exactly that count
+     */
+    private static int countOf(int[] counts, int left) {
+        int patterns = 0;
+        for (int count : counts) {
+            patterns += count == left ? 1 : 0;
+        }
+        return patterns;
+    }
+
+    /**
+     * The sum of the squares of a partition's counts: the number of
+     * candidates a guess is expected to leave, times the number there were
+     *
+     * @param counts candidates per pattern
+     * @return the sum of squares
+     */
+    private static long squares(int[] counts) {
+        long squares = 0;
+        for (int count : counts) {
+            squares += (long) count * count;
+        }
+        return squares;
+    }
+
+    /**
+     * List the words in a bit set.
+     *
+     * @param live       the bit set
+     * @param candidates filled in with the words' indices, in order
+     * @return how many there are
+     */
+    private static int expand(long[] live, int[] candidates) {
+        int m = 0;
+        for (int i = 0; i < live.length; ++i) {
+            for (long bits = live[i]; bits != 0; bits &= bits - 1) {
+                candidates[m++] = i * Long.SIZE +
+                        Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Which guess leaves the fewest candidates on average? Among equally
+     * good guesses, one that could itself be the secret wins, then the
+     * first in the list. A guess is dropped as soon as its partial sum of
+     * squares shows it cannot win, so the search starts by scoring a guess
+     * that is likely to be good, to have a bound to drop the others by.
+     * Past {@link #SAMPLE} candidates, every k-th one stands for the rest.
+     *
+     * @param candidates the words that could be the secret, in order
+     * @param hint       the index of a guess that is likely to be good,
+     *                   such as the player's
+     * @param counts     scratch space for {@link Feedback#NUM_PATTERNS}
+     *                   counts
+     * @param cancelled  checked before each guess
+     * @return the best guess, or null if the search was cancelled
+     */
+    private Best best(int[] candidates, int hint, int[] counts,
+                      BooleanSupplier cancelled) {
+        final int n = this.codes.length;
+        final long[] isCandidate = new long[(n + Long.SIZE - 1) / Long.SIZE];
+        for (int s : candidates) {
+            isCandidate[s / Long.SIZE] |= 1L << s;
+        }
+        final int step = (candidates.length + SAMPLE - 1) / SAMPLE;
+        final int sampled = (candidates.length + step - 1) / step;
+        final int[] secrets = new int[sampled];
+        final int[] secretMasks = new int[sampled];
+        for (int i = 0; i < sampled; ++i) {
+            secrets[i] = this.codes[candidates[i * step]];
+            secretMasks[i] = this.masks[candidates[i * step]];
+        }
+        // Any guess as good as the hint beats this, the hint included, so
+        // the first of the best still wins.
+        long bestKey = 1 + this.key(hint, secrets, secretMasks, isCandidate,
+                Long.MAX_VALUE, counts);
+        int best = hint;
+        for (int g = 0; g < n; ++g) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            final long key = this.key(g, secrets, secretMasks, isCandidate,
+                    bestKey, counts);
+            if (key < bestKey) {
+                bestKey = key;
+                best = g;
+            }
+        }
+        final double scale = (double) candidates.length / sampled;
+        return new Best(best, Math.round(bestKey / 2 * scale * scale));
+    }
+
+    /**
+     * How good is a guess? Its sum of squares, doubled, plus one if it
+     * cannot be the secret; smaller is better.
+     *
+     * @param g           the guess's index
+     * @param secrets     the candidates' codes
+     * @param secretMasks the candidates' letter masks
+     * @param isCandidate bit set of the candidates' indices
+     * @param bound       once the key is sure to be at least this, scoring
+     *                    stops and something at least as large is returned
+     * @param counts      scratch space for {@link Feedback#NUM_PATTERNS}
+     *                    counts
+     * @return the key
+     */
+    private long key(int g, int[] secrets, int[] secretMasks,
+                     long[] isCandidate, long bound, int[] counts) {
+        Arrays.fill(counts, 0);
+        final int guess = this.codes[g];
+        final long limit = bound / 2;
+        long squares = 0;
+        for (int c = 0; c < secrets.length && squares <= limit; ++c) {
+            // (k + 1)^2 - k^2 = 2k + 1
+            squares += 2L * counts[Feedback.score(guess, secrets[c],
+                    secretMasks[c])]++ + 1;
+        }
+        final boolean candidate = (isCandidate[g / Long.SIZE] & 1L << g) != 0;
+        return squares * 2 + (candidate ? 0 : 1);
+    }
+}
@@ -0,0 +1,130 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.WordCodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Works out what the player knows and what to guess next, from nothing but
+ * a word list and the rows played so far. Nothing here touches a
+ * {@link Model}, so it can safely run on any thread while the game goes on.
+ *
+ * @author RIT CS
+ */
+public final class Solver {
+
+    /**
+     * One scored row of a game.
+     *
+     * @param guess   the word that was guessed
+     * @param pattern the coloring it got (see {@link Feedback})
+     */
+    public record Clue(String guess, int pattern) {
+    }
+
+    /**
+     * No instances; this is a utility class.
+     */
+    private Solver() {
+    }
+
+    /**
+     * Copy the scored rows out of a game.
+     * Call this on the thread that owns the model.
+     *
+     * @param model the game
+     * @return its rows so far, first one first
+     */
+    public static List<Clue> clues(Model model) {
+        List<Clue> clues = new ArrayList<>(model.numAttempts());
+        for (int row = 0; row < model.numAttempts(); ++row) {
+            clues.add(new Clue(model.guessWord(row), model.guessPattern(row)));
+        }
+        return clues;
+    }
+
+    /**
+     * Which words could still be the secret?
+     *
+     * @param words the word list
+     * @param clues the rows played so far
+     * @return positions in the word list of the words that would have
+     * produced exactly these rows
+     */
+    public static int[] candidates(Dictionary words, List<Clue> clues) {
+        final int[] guesses = new int[clues.size()];
+        for (int c = 0; c < guesses.length; ++c) {
+            guesses[c] = WordCodes.pack(clues.get(c).guess(), words.alphabet());
+        }
+        final int[] result = new int[words.size()];
+        int count = 0;
+        for (int s = 0; s < words.size(); ++s) {
+            final int secret = words.code(s);
+            final int mask = Feedback.letterMask(secret);
+            boolean fits = true;
+            for (int c = 0; c < guesses.length && fits; ++c) {
+                fits = Feedback.score(guesses[c], secret, mask) ==
+                        clues.get(c).pattern();
+            }
+            if (fits) {
+                result[count++] = s;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Which guess leaves the fewest candidates, on average?
+     * Among equally good guesses, one that could itself be the secret wins.
+     *
+     * @param words      the word list; every word is considered as a guess
+     * @param candidates positions of the words that could be the secret
+     * @param cancelled  checked between guesses; when it says true the
+     *                   search is abandoned
+     * @return the best guess, or null if there are no candidates or the
+     * search was cancelled
+     */
+    public static String bestGuess(Dictionary words, int[] candidates,
+                                   BooleanSupplier cancelled) {
+        if (candidates.length <= 2) {
+            return candidates.length == 0 ? null : words.get(candidates[0]);
+        }
+        final int[] secrets = new int[candidates.length];
+        final int[] masks = new int[candidates.length];
+        final boolean[] isCandidate = new boolean[words.size()];
+        for (int c = 0; c < candidates.length; ++c) {
+            secrets[c] = words.code(candidates[c]);
+            masks[c] = Feedback.letterMask(secrets[c]);
+            isCandidate[candidates[c]] = true;
+        }
+        final int[] counts = new int[Feedback.NUM_PATTERNS];
+        long bestKey = Long.MAX_VALUE;
+        int best = -1;
+        for (int g = 0; g < words.size(); ++g) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            Arrays.fill(counts, 0);
+            final int guess = words.code(g);
+            for (int c = 0; c < secrets.length; ++c) {
+                counts[Feedback.score(guess, secrets[c], masks[c])] += 1;
+            }
+            long squares = 0;
+            for (int count : counts) {
+                squares += (long) count * count;
+            }
+            final long key = squares * 2 + (isCandidate[g] ? 0 : 1);
+            if (key < bestKey) {
+                bestKey = key;
+                best = g;
+            }
+        }
+        return words.get(best);
+    }
+}
@@ -1,4 +1,8 @@
 module Guirdle {
     requires transitive javafx.controls;
+    requires java.management;
+    requires jdk.httpserver;
+    requires jdk.management;
+    requires jdk.jfr;
     exports gurdle.gui;
 }
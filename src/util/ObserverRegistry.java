@@ -0,0 +1,252 @@
+package util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The observers registered with one subject, for subjects that may have
+ * thousands of them and may outlive them.
+ * <br><br>
+ * Iterating takes a snapshot of the observers, so it needs no lock and
+ * no copy, and an observer may add or remove observers while being
+ * notified. (It is then the next notification that sees the change.)
+ * Adding goes into spare room at the end of the array, beyond what any
+ * snapshot can see, so registering thousands of observers costs no more
+ * than filling an array list; removing copies the array.
+ * <br><br>
+ * An observer can be registered {@link #addWeak weakly}, so that the
+ * registry does not keep it alive. Once the garbage collector has cleared
+ * it, it is skipped, and it is dropped from the array the next time the
+ * registry is added to, removed from or iterated over.
+ * <br><br>
+ * Any thread may use a registry.
+ *
+ * @param <Subject>    the type of object being observed
+ * @param <ClientData> what the subject sends its observers
+ * @author RIT CS
+ */
+public final class ObserverRegistry<Subject, ClientData>
+        implements Iterable<Observer<Subject, ClientData>> {
+
+    /**
+     * Room for registrations an empty registry starts with
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * An observer registered weakly
+     */
+    private static final class WeakEntry<S, D>
+            extends WeakReference<Observer<S, D>> {
+        WeakEntry(Observer<S, D> observer,
+                  ReferenceQueue<Observer<S, D>> queue) {
+            super(observer, queue);
+        }
+    }
+
+    /**
+     * The registrations at one moment: the first size elements of an
+     * array. Those elements never change; later registrations may fill
+     * the rest.
+     */
+    private static final class Snapshot {
+        private final Object[] entries;
+        private final int size;
+
+        Snapshot(Object[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Weak entries the garbage collector has cleared
+     */
+    private final ReferenceQueue<Observer<Subject, ClientData>> cleared =
+            new ReferenceQueue<>();
+
+    /**
+     * Every registration, in order: each an {@link Observer}, or a
+     * {@link WeakEntry} for one registered weakly
+     */
+    private volatile Snapshot current =
+            new Snapshot(new Object[INITIAL_CAPACITY], 0);
+
+    /**
+     * Register an observer. The registry keeps it alive until it is
+     * removed.
+     *
+     * @param observer the observer
+     */
+    public void add(Observer<Subject, ClientData> observer) {
+        this.append(Objects.requireNonNull(observer));
+    }
+
+    /**
+     * Register an observer without keeping it alive: once nothing else
+     * refers to it, it stops being notified and is dropped. An observer
+     * made just to be registered, such as a lambda, must be kept
+     * somewhere else too or it may vanish at once.
+     *
+     * @param observer the observer
+     */
+    public void addWeak(Observer<Subject, ClientData> observer) {
+        this.append(new WeakEntry<>(Objects.requireNonNull(observer),
+                this.cleared));
+    }
+
+    /**
+     * Put a registration at the end.
+     *
+     * @param entry an observer or a {@link WeakEntry}
+     */
+    private synchronized void append(Object entry) {
+        this.purge();
+        final Snapshot old = this.current;
+        Object[] entries = old.entries;
+        if (old.size == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * entries.length);
+        }
+        entries[old.size] = entry;
+        this.current = new Snapshot(entries, old.size + 1);
+    }
+
+    /**
+     * Unregister an observer, whether it was registered strongly or
+     * weakly. If it was registered more than once, only the first
+     * registration is removed.
+     *
+     * @param observer the observer
+     * @return false if it was not registered
+     */
+    public synchronized boolean remove(Observer<?, ?> observer) {
+        this.purge();
+        final Snapshot old = this.current;
+        for (int i = 0; i < old.size; ++i) {
+            if (Objects.equals(observer(old.entries[i]), observer)) {
+                final Object[] entries = new Object[
+                        Math.max(INITIAL_CAPACITY, old.entries.length)];
+                System.arraycopy(old.entries, 0, entries, 0, i);
+                System.arraycopy(old.entries, i + 1, entries, i,
+                        old.size - 1 - i);
+                this.current = new Snapshot(entries, old.size - 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How many observers are registered? Weak ones that have been
+     * cleared but not yet dropped are counted.
+     *
+     * @return the number of registrations
+     */
+    public int size() {
+        return this.current.size;
+    }
+
+    /**
+     * The observer a registration is for
+     *
+     * @param entry an observer or a {@link WeakEntry}
+     * @return the observer, or null if it was weak and has been cleared
+     */
+    @SuppressWarnings("unchecked")
+    private static <S, D> Observer<S, D> observer(Object entry) {
+        return entry instanceof WeakEntry ?
+                ((WeakEntry<S, D>) entry).get() : (Observer<S, D>) entry;
+    }
+
+    /**
+     * Drop every weak registration whose observer has been cleared, if
+     * any has been since the last time. This costs one read when none
+     * has.
+     */
+    private void purge() {
+        if (this.cleared.poll() == null) {
+            return;
+        }
+        while (this.cleared.poll() != null) {
+            // Every cleared entry is found below.
+        }
+        synchronized (this) {
+            final Snapshot old = this.current;
+            final Object[] entries = new Object[old.entries.length];
+            int n = 0;
+            for (int i = 0; i < old.size; ++i) {
+                final Object entry = old.entries[i];
+                if (!(entry instanceof WeakEntry) ||
+                        !((Reference<?>) entry).refersTo(null)) {
+                    entries[n++] = entry;
+                }
+            }
+            this.current = new Snapshot(entries, n);
+        }
+    }
+
+    /**
+     * Notify every observer, in the order they were registered.
+     *
+     * @param subject what is being observed
+     * @param data    what to tell them
+     */
+    public void notifyObservers(Subject subject, ClientData data) {
+        for (Observer<Subject, ClientData> observer : this) {
+            observer.update(subject, data);
+        }
+    }
+
+    /**
+     * Go through the observers registered now, in the order they were
+     * registered, skipping weak ones that have been cleared. Observers
+     * added or removed meanwhile make no difference.
+     *
+     * @return an iterator that cannot remove; use {@link #remove}
+     */
+    @Override
+    public Iterator<Observer<Subject, ClientData>> iterator() {
+        this.purge();
+        final Snapshot snapshot = this.current;
+        final Object[] entries = snapshot.entries;
+        final int size = snapshot.size;
+        return new Iterator<>() {
+            private int index = 0;
+            private Observer<Subject, ClientData> next = this.advance();
+
+            /**
+             * The next observer still alive, from index on
+             */
+            private Observer<Subject, ClientData> advance() {
+                while (this.index < size) {
+                    final Observer<Subject, ClientData> observer =
+                            observer(entries[this.index++]);
+                    if (observer != null) {
+                        return observer;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Observer<Subject, ClientData> next() {
+                final Observer<Subject, ClientData> observer = this.next;
+                if (observer == null) {
+                    throw new NoSuchElementException();
+                }
+                this.next = this.advance();
+                return observer;
+            }
+        };
+    }
+}
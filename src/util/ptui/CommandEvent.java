@@ -0,0 +1,39 @@
+package util.ptui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One console command was read and run.
+ *
+ * @author RIT CS
+ */
+@Name("util.ptui.Command")
+@Label("Console Command")
+@Category({"Console Application"})
+@Description("One command line handled by ConsoleApplication")
+@StackTrace(false)
+class CommandEvent extends Event {
+
+    /**
+     * The command's name, as typed
+     */
+    @Label("Command")
+    String command;
+
+    /**
+     * How many arguments followed it
+     */
+    @Label("Arguments")
+    int arguments;
+
+    /**
+     * Was it a known command with the right number of arguments?
+     */
+    @Label("Legal")
+    boolean legal;
+}
@@ -1,5 +1,7 @@
 package util.ptui;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
@@ -31,6 +33,18 @@ public abstract class ConsoleApplication {
 
     private Thread eventThread;
 
+    /**
+     * Where commands are read from: standard input, unless the application
+     * was launched with another stream
+     */
+    private InputStream consoleIn;
+
+    /**
+     * Where output is written: standard output, unless the application
+     * was launched with another stream
+     */
+    private OutputStream consoleOut;
+
     /* *** Support code for registering actions in the PTUI *************** */
 
     /**
@@ -150,7 +164,9 @@ public abstract class ConsoleApplication {
      *     <li>
      *         A {@link Scanner Scanner} and
      *         {@link java.io.Writer Writer} are created and connected to a
-     *         text console (currently stdin and stdout).
+     *         text console (stdin and stdout, unless
+     *         {@link #launch(Class, String[], InputStream, OutputStream)}
+     *         was given other streams).
      *     </li>
      *     <li>
      *         The class's {@link #start(PrintWriter) start} method is
@@ -166,7 +182,8 @@ public abstract class ConsoleApplication {
      *         After the start method returns, this application processes
      *         commands that have been set up, gives an error message for
      *         badly formed commands, and then terminates when the user types
-     *         {@link #QUIT the quit string}.
+     *         {@link #QUIT the quit string}. Each command is timed as a
+     *         Flight Recorder event named <code>util.ptui.Command</code>.
      *     </li>
      *     </ol>
      * </li>
@@ -184,12 +201,37 @@ public abstract class ConsoleApplication {
     public static void launch(
             Class<? extends ConsoleApplication> ptuiClass,
             String[] args
+    ) {
+        launch(ptuiClass, args, System.in, System.out);
+    }
+
+    /**
+     * Run a console application, with command line arguments, connected
+     * to streams other than the standard ones -- for instance pipes, so
+     * that a program can drive the application the way a user would.
+     * Everything else is as in {@link #launch(Class, String[])}. This
+     * method returns once the application has stopped; the input stream
+     * is closed by then, but the output stream is not.
+     *
+     * @param ptuiClass the class object that refers to the class to
+     *                  be instantiated
+     * @param args      the array of strings from the command line
+     * @param in        where the application reads its commands
+     * @param out       where the application writes its output
+     */
+    public static void launch(
+            Class<? extends ConsoleApplication> ptuiClass,
+            String[] args,
+            InputStream in,
+            OutputStream out
     ) {
         try {
             Constructor<?> ctor = ptuiClass.getConstructor();
             ConsoleApplication ptuiApp =
                     (ConsoleApplication) ctor.newInstance();
             ptuiApp.cmdLineArgs = Arrays.copyOf(args, args.length);
+            ptuiApp.consoleIn = in;
+            ptuiApp.consoleOut = out;
 
             try {
                 try {
@@ -247,16 +289,19 @@ public abstract class ConsoleApplication {
             // We don't put the PrintWriter in try-with-resources because
             // we don't want it to be closed. The Scanner can close.
             ConsoleApplication.this.out = null;
-            try (Scanner consoleIn = new Scanner(System.in)) {
+            try (Scanner consoleIn =
+                         new Scanner(ConsoleApplication.this.consoleIn)) {
                 try {
-                    out = new PrintWriter(
-                            new OutputStreamWriter(System.out), true);
+                    out = new PrintWriter(new OutputStreamWriter(
+                            ConsoleApplication.this.consoleOut), true);
                     ConsoleApplication.this.start(out);
                     boolean quit = false;
                     out.print(PROMPT);
                     out.flush();
                     while (consoleIn.hasNextLine()) {
                         String nextCommand = consoleIn.nextLine();
+                        CommandEvent event = new CommandEvent();
+                        event.begin();
                         String[] operands = nextCommand.split("\\s+");
                         String commandName = operands[0].toLowerCase();
                         if (commandName.equals(QUIT)) {
@@ -266,9 +311,10 @@ public abstract class ConsoleApplication {
                         }
                         Map<String, CommandInfo> actionMap =
                                 ConsoleApplication.this.actions;
-                        if (actionMap.containsKey(commandName) &&
+                        boolean legal = actionMap.containsKey(commandName) &&
                                 actionMap.get(commandName).numArgs ==
-                                        operands.length - 1) {
+                                        operands.length - 1;
+                        if (legal) {
                             operands = Arrays.copyOfRange(
                                     operands, 1, operands.length
                             );
@@ -280,6 +326,14 @@ public abstract class ConsoleApplication {
                         }
                         out.print(PROMPT);
                         out.flush();
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.command = commandName;
+                            event.arguments = legal ?
+                                    operands.length : operands.length - 1;
+                            event.legal = legal;
+                            event.commit();
+                        }
                     }
                     if (!quit) {
                         out.println("End of console input reached.");
@@ -314,6 +368,8 @@ public abstract class ConsoleApplication {
      * For an exception that occurs during the init phase
      */
     private static class InitException extends Exception {
+        private static final long serialVersionUID = 1L;
+
         public InitException(Exception orig) {
             super("ConsoleApplication launch: init phase failed.", orig);
         }
@@ -0,0 +1,156 @@
+package gurdle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A compiled dictionary must answer every question exactly as the text
+ * dictionary it was compiled from does.
+ *
+ * @author RIT CS
+ */
+public class DictionaryTest {
+
+    /**
+     * Where compiled files are written
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Compile a dictionary and map it back.
+     *
+     * @param words the dictionary
+     * @return the compiled copy
+     */
+    private Dictionary compiled(Dictionary words) throws IOException {
+        final Path file = this.dir.resolve("words" +
+                Dictionary.COMPILED_SUFFIX);
+        DictionaryCompiler.compile(words, file);
+        return Dictionary.load(file);
+    }
+
+    /**
+     * Check that two dictionaries agree on everything.
+     *
+     * @param expected the dictionary built from text
+     * @param actual   the compiled copy
+     */
+    private static void assertSame(Dictionary expected, Dictionary actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.alphabet().letters(),
+                actual.alphabet().letters());
+        assertEquals(expected.checksum(), actual.checksum());
+        assertEquals(expected.words(), actual.words());
+        for (int w = 0; w < expected.size(); ++w) {
+            final int code = expected.code(w);
+            assertEquals(code, actual.code(w));
+            assertEquals(expected.indexOf(code), actual.indexOf(code));
+        }
+        final String letters = expected.alphabet().letters();
+        final Random random = new Random(1);
+        for (int i = 0; i < 500; ++i) {
+            final StringBuilder prefix = new StringBuilder();
+            final int length = 1 + random.nextInt(Model.WORD_SIZE);
+            for (int l = 0; l < length; ++l) {
+                prefix.append(letters.charAt(random.nextInt(
+                        letters.length())));
+            }
+            final String p = prefix.toString();
+            assertEquals(expected.countPrefixed(p), actual.countPrefixed(p),
+                    p);
+            assertEquals(expected.completions(p, 20),
+                    actual.completions(p, 20), p);
+            assertEquals(expected.contains(p), actual.contains(p), p);
+        }
+        for (int w = 0; w < expected.size(); w += 7) {
+            final String word = expected.get(w);
+            for (int l = 1; l <= Model.WORD_SIZE; ++l) {
+                final String p = word.substring(0, l);
+                assertEquals(expected.countPrefixed(p),
+                        actual.countPrefixed(p), p);
+                assertEquals(expected.completions(p, 50),
+                        actual.completions(p, 50), p);
+            }
+        }
+        final WordQuery query = WordQuery.parse(
+                "?" + letters.charAt(0) + "???", WordQuery.NONE,
+                letters.substring(1, 2), expected.alphabet());
+        assertArrayEquals(expected.search(query).toArray(),
+                actual.search(query).toArray());
+    }
+
+    /**
+     * The shipped word list survives compiling.
+     */
+    @Test
+    public void compiledWordListMatchesText() throws IOException {
+        final Dictionary text = Dictionary.load(Path.of(Model.WORD_FILE_NAME));
+        assertSame(text, this.compiled(text));
+    }
+
+    /**
+     * A list in no particular order, which needs the positions section,
+     * survives compiling.
+     */
+    @Test
+    public void compiledShuffledListMatchesText() throws IOException {
+        final List<String> words = new ArrayList<>(Dictionary.load(
+                Path.of(Model.WORD_FILE_NAME)).words());
+        Collections.shuffle(words, new Random(2));
+        final Dictionary text = new Dictionary(words.subList(0, 300));
+        assertSame(text, this.compiled(text));
+    }
+
+    /**
+     * A list written in another alphabet survives compiling.
+     */
+    @Test
+    public void compiledMacedonianListMatchesText() throws IOException {
+        final Dictionary text =
+                Dictionary.load(Path.of("data/macedonian.txt"));
+        assertSame(text, this.compiled(text));
+    }
+
+    /**
+     * An empty list survives compiling.
+     */
+    @Test
+    public void compiledEmptyListMatchesText() throws IOException {
+        final Dictionary text = new Dictionary(List.of(), Alphabet.LATIN);
+        final Dictionary compiled = this.compiled(text);
+        assertEquals(0, compiled.size());
+        assertEquals(0, compiled.countPrefixed("A"));
+    }
+
+    /**
+     * A damaged or truncated compiled file is refused.
+     */
+    @Test
+    public void damagedFileIsRefused() throws IOException {
+        final Dictionary text = Dictionary.load(Path.of(Model.WORD_FILE_NAME));
+        this.compiled(text);
+        final Path file = this.dir.resolve("words" +
+                Dictionary.COMPILED_SUFFIX);
+        final byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> Dictionary.load(file));
+        final byte[] shorter = new byte[bytes.length - 4];
+        System.arraycopy(bytes, 0, shorter, 0, shorter.length);
+        Files.write(file, shorter);
+        assertThrows(IOException.class, () -> Dictionary.load(file));
+    }
+}
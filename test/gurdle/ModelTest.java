@@ -0,0 +1,270 @@
+package gurdle;
+
+import gurdle.archive.ArchiveQuery;
+import gurdle.archive.ArchiveWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Undo, redo and forking must put the board back exactly as it was, and a
+ * snapshot must bring back the game it was taken of.
+ *
+ * @author RIT CS
+ */
+public class ModelTest {
+
+    /**
+     * The words every game here is played with
+     */
+    private static final Dictionary WORDS;
+
+    static {
+        try {
+            WORDS = Dictionary.load(Path.of(Model.WORD_FILE_NAME));
+        } catch (IOException ioe) {
+            throw new ExceptionInInitializerError(ioe);
+        }
+    }
+
+    /**
+     * Where archives are written
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Start a game with a known secret.
+     *
+     * @param secret the word to be guessed
+     * @return the game
+     */
+    private static Model game(String secret) {
+        final Model model = new Model(() -> WORDS, new SecretScheduler(1));
+        model.newGame(secret);
+        return model;
+    }
+
+    /**
+     * Type letters into the next row without confirming them.
+     *
+     * @param model the game
+     * @param word  the letters
+     */
+    private static void type(Model model, String word) {
+        for (char ch : word.toCharArray()) {
+            model.enterNewGuessChar(ch);
+        }
+    }
+
+    /**
+     * Describe everything a player can see on a board.
+     *
+     * @param model the game
+     * @return the rows, their letters and statuses, and the game's state
+     */
+    private static String board(Model model) {
+        final StringBuilder board = new StringBuilder();
+        board.append(model.gameState()).append(' ')
+                .append(model.numAttempts()).append(' ')
+                .append(model.secret());
+        for (int row = 0; row < Model.NUM_TRIES; ++row) {
+            board.append('\n');
+            for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+                final CharChoice square = model.get(row, pos);
+                board.append(square.getChar())
+                        .append(square.getStatus().name().charAt(0));
+            }
+        }
+        return board.toString();
+    }
+
+    /**
+     * Typed letters are undone and redone one at a time, and only scored
+     * rows are kept as positions.
+     */
+    @Test
+    public void undoTypedLetters() {
+        final Model model = game("CRANE");
+        final Position start = model.position();
+        type(model, "S");
+        final String one = board(model);
+        type(model, "LA");
+        assertTrue(model.canUndo());
+        assertSame(start, model.position().previous());
+        final String typed = board(model);
+        model.undo();
+        model.undo();
+        assertEquals(one, board(model));
+        assertTrue(model.usedLetter('S'));
+        assertFalse(model.usedLetter('L'));
+        model.undo();
+        assertSame(start, model.position());
+        assertFalse(model.canUndo());
+        assertFalse(model.usedLetter('S'));
+        model.redo();
+        assertEquals(one, board(model));
+        model.redo();
+        model.redo();
+        assertEquals(typed, board(model));
+        assertFalse(model.canRedo());
+        assertTrue(model.usedLetter('A'));
+        type(model, "TE");
+        model.confirmGuess();
+        assertSame(start, model.position().previous());
+    }
+
+    /**
+     * Scored rows are undone one at a time, redone in order, and typing
+     * after an undo means nothing can be redone.
+     */
+    @Test
+    public void undoRedoRows() {
+        final Model model = game("CRANE");
+        final String empty = board(model);
+        model.enterNewGuess("SLATE");
+        final String one = board(model);
+        model.enterNewGuess("AUDIO");
+        final String two = board(model);
+        model.undo();
+        assertEquals(one, board(model));
+        model.undo();
+        assertEquals(empty, board(model));
+        assertFalse(model.canUndo());
+        model.redo();
+        model.redo();
+        assertEquals(two, board(model));
+        assertFalse(model.canRedo());
+        model.undo();
+        type(model, "R");
+        assertFalse(model.canRedo());
+    }
+
+    /**
+     * A fork carries on from the same place, typed letters included, and
+     * the two games then go their own ways.
+     */
+    @Test
+    public void fork() {
+        final Model model = game("CRANE");
+        model.enterNewGuess("SLATE");
+        type(model, "CR");
+        final String before = board(model);
+        final Model branch = model.fork();
+        assertEquals(before, board(branch));
+        assertEquals(model.gameId(), branch.gameId());
+        type(branch, "ANE");
+        branch.confirmGuess();
+        assertEquals(Model.GameState.WON, branch.gameState());
+        assertEquals(before, board(model));
+        branch.undo();
+        model.undo();
+        model.undo();
+        assertEquals(board(model), board(branch));
+    }
+
+    /**
+     * Undoing keeps the deal's id; a new deal gets a new one.
+     */
+    @Test
+    public void gameId() {
+        final Model model = game("CRANE");
+        final long id = model.gameId();
+        model.enterNewGuess("SLATE");
+        model.undo();
+        assertEquals(id, model.gameId());
+        model.newGame("CRANE");
+        assertNotEquals(id, model.gameId());
+    }
+
+    /**
+     * A game won, undone and won again is archived once; the next deal
+     * is archived as a game of its own.
+     */
+    @Test
+    public void archivedOnce() throws IOException {
+        try (ArchiveWriter archive = new ArchiveWriter(this.dir, WORDS)) {
+            final Model model = game("CRANE");
+            model.addObserver(archive);
+            model.enterNewGuess("SLATE");
+            model.enterNewGuess("CRANE");
+            model.undo();
+            model.enterNewGuess("AUDIO");
+            model.enterNewGuess("CRANE");
+            assertEquals(Model.GameState.WON, model.gameState());
+            model.newGame("SLATE");
+            model.enterNewGuess("SLATE");
+        }
+        final ArchiveQuery query = new ArchiveQuery(this.dir, WORDS);
+        assertEquals(2, query.run(ForkJoinPool.commonPool()).games());
+    }
+
+    /**
+     * A snapshot brings back the board, the letters typed, and the
+     * history of scored rows.
+     */
+    @Test
+    public void snapshot() throws IOException {
+        final Model model = game("CRANE");
+        model.enterNewGuess("SLATE");
+        model.enterNewGuess("AUDIO");
+        type(model, "CR");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeSnapshot(new DataOutputStream(bytes));
+        final Model copy = Model.readSnapshot(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())), () -> WORDS);
+        assertEquals(board(model), board(copy));
+        for (char ch = 'A'; ch <= 'Z'; ++ch) {
+            assertEquals(model.usedLetter(ch), copy.usedLetter(ch));
+        }
+        for (int step = 0; step < 3; ++step) { // R, C, then AUDIO
+            copy.undo();
+            model.undo();
+            assertEquals(board(model), board(copy));
+        }
+        copy.enterNewGuess("CRANE");
+        assertEquals(Model.GameState.WON, copy.gameState());
+        assertEquals(2, copy.numAttempts());
+    }
+
+    /**
+     * A snapshot comes back with the version of the word list it was
+     * taken with, or not at all; the next deal takes the current version.
+     */
+    @Test
+    public void snapshotKeepsWordList() throws IOException {
+        final Model model = game("CRANE");
+        model.enterNewGuess("SLATE");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeSnapshot(new DataOutputStream(bytes));
+        final Dictionary reloaded =
+                new Dictionary(WORDS.words().subList(0, 10));
+        assertThrows(Model.UnknownWordListException.class, () ->
+                Model.readSnapshot(new DataInputStream(
+                        new ByteArrayInputStream(bytes.toByteArray())),
+                        () -> reloaded));
+        final Model copy = Model.readSnapshot(new DataInputStream(
+                        new ByteArrayInputStream(bytes.toByteArray())),
+                () -> reloaded,
+                checksum -> checksum == WORDS.checksum() ? WORDS : null);
+        assertSame(WORDS, copy.words());
+        copy.enterNewGuess("CRANE");
+        assertEquals(Model.GameState.WON, copy.gameState());
+        copy.newGame();
+        assertSame(reloaded, copy.words());
+    }
+}
@@ -0,0 +1,265 @@
+package gurdle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A scheduler must not deal a word twice until every word has been dealt,
+ * whichever tiers the secrets are asked from, and a resumed scheduler must
+ * deal exactly what the original would have.
+ *
+ * @author RIT CS
+ */
+public class SecretSchedulerTest {
+
+    /**
+     * How many words the rated list has
+     */
+    private static final int WORDS = 300;
+
+    /**
+     * Where the word file and its ratings are written
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Write a word file and made-up ratings for it, and read it back.
+     *
+     * @return the word list, read from a file with a sidecar
+     */
+    private Dictionary rated() throws IOException {
+        final Dictionary words = this.unrated("words.txt");
+        rate(words);
+        return words;
+    }
+
+    /**
+     * Write a word file, and read it back.
+     *
+     * @param name the file's name
+     * @return the word list, read from a file with no sidecar
+     */
+    private Dictionary unrated(String name) throws IOException {
+        final List<String> all =
+                Dictionary.load(Path.of(Model.WORD_FILE_NAME)).words();
+        final Path file = this.dir.resolve(name);
+        Files.write(file, all.subList(0, WORDS));
+        return Dictionary.load(file);
+    }
+
+    /**
+     * Write made-up ratings for a word list read from a file.
+     *
+     * @param words the word list
+     */
+    private static void rate(Dictionary words) throws IOException {
+        final Path file = words.source();
+        final Random random = new Random(7);
+        final byte[] averages = new byte[words.size()];
+        final byte[] worsts = new byte[words.size()];
+        for (int w = 0; w < averages.length; ++w) {
+            averages[w] = (byte) (20 + random.nextInt(40));
+            worsts[w] = (byte) (3 + random.nextInt(4));
+        }
+        DifficultyRatings.write(DifficultyRatings.sidecarPath(file), words,
+                averages, worsts);
+    }
+
+    /**
+     * Deal a secret of a random difficulty, or of any.
+     *
+     * @param secrets the scheduler
+     * @param ratings the word list's ratings
+     * @param random  chooses the difficulty
+     * @return the position of the secret
+     */
+    private static int deal(SecretScheduler secrets,
+                            DifficultyRatings ratings, Random random) {
+        final Difficulty[] levels = Difficulty.values();
+        final int level = random.nextInt(levels.length + 1);
+        return secrets.next(ratings,
+                level == levels.length ? null : levels[level]);
+    }
+
+    /**
+     * Save a scheduler and bring it back.
+     *
+     * @param secrets the scheduler
+     * @return the copy
+     */
+    private static SecretScheduler copy(SecretScheduler secrets)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        secrets.writeState(new DataOutputStream(bytes));
+        return SecretScheduler.resume(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    /**
+     * The ratings are the sidecar of the file the words were read from;
+     * words not read from a file have none.
+     */
+    @Test
+    public void ratingsFromSource() throws IOException {
+        final Dictionary words = this.rated();
+        final DifficultyRatings ratings = DifficultyRatings.of(words);
+        assertNotNull(ratings);
+        int tiered = 0;
+        for (Difficulty level : Difficulty.values()) {
+            tiered += ratings.tier(level).length;
+        }
+        assertEquals(words.size(), tiered);
+        assertNull(DifficultyRatings.of(new Dictionary(words.words())));
+    }
+
+    /**
+     * Ratings written after a list was first looked up are picked up, and
+     * the ratings of two lists are each kept while both are in use.
+     */
+    @Test
+    public void ratingsRatedLater() throws IOException {
+        final Dictionary first = this.unrated("first.txt");
+        final Dictionary second = this.rated();
+        assertNull(DifficultyRatings.of(first));
+        rate(first);
+        final DifficultyRatings ratings = DifficultyRatings.of(first);
+        assertNotNull(ratings);
+        final DifficultyRatings other = DifficultyRatings.of(second);
+        assertNotNull(other);
+        assertSame(ratings, DifficultyRatings.of(first));
+        assertSame(other, DifficultyRatings.of(second));
+    }
+
+    /**
+     * Each tier deals all its own words before any again.
+     */
+    @Test
+    public void eachTier() throws IOException {
+        final DifficultyRatings ratings = DifficultyRatings.of(this.rated());
+        final SecretScheduler secrets = new SecretScheduler(1);
+        for (Difficulty level : Difficulty.values()) {
+            final Set<Integer> tier = new HashSet<>();
+            for (int word : ratings.tier(level)) {
+                tier.add(word);
+            }
+            final Set<Integer> dealt = new HashSet<>();
+            for (int d = 0; d < tier.size(); ++d) {
+                final int word = secrets.next(ratings, level);
+                assertTrue(tier.contains(word));
+                assertTrue(dealt.add(word), "Dealt twice: " + word);
+            }
+        }
+    }
+
+    /**
+     * However the tiers are mixed, with or without a save and resume in
+     * the middle, no word comes up twice until every word of its tier has,
+     * whether it was dealt for its tier or for any difficulty.
+     */
+    @Test
+    public void noRepeatAcrossTiers() throws IOException {
+        final DifficultyRatings ratings = DifficultyRatings.of(this.rated());
+        final Difficulty[] levels = Difficulty.values();
+        final Map<Integer, Integer> tierOf = new HashMap<>();
+        final List<Set<Integer>> dealt = new ArrayList<>();
+        for (int t = 0; t < levels.length; ++t) {
+            for (int word : ratings.tier(levels[t])) {
+                tierOf.put(word, t);
+            }
+            dealt.add(new HashSet<>());
+        }
+        final Random random = new Random(3);
+        SecretScheduler secrets = new SecretScheduler(2);
+        for (int d = 0; d < 10 * WORDS; ++d) {
+            if (random.nextInt(50) == 0) {
+                secrets = copy(secrets);
+            }
+            final int word = deal(secrets, ratings, random);
+            final int tier = tierOf.get(word);
+            assertTrue(dealt.get(tier).add(word), "Dealt twice: " + word);
+            if (dealt.get(tier).size() == ratings.tier(levels[tier]).length) {
+                dealt.get(tier).clear();
+            }
+        }
+    }
+
+    /**
+     * Deals of any difficulty alone go through every word once per round.
+     */
+    @Test
+    public void anyDifficulty() throws IOException {
+        final Dictionary words = this.rated();
+        final DifficultyRatings ratings = DifficultyRatings.of(words);
+        final SecretScheduler secrets = new SecretScheduler(4);
+        for (int round = 0; round < 2; ++round) {
+            final Set<Integer> dealt = new HashSet<>();
+            for (int d = 0; d < words.size(); ++d) {
+                assertTrue(dealt.add(secrets.next(ratings, null)));
+            }
+        }
+    }
+
+    /**
+     * A resumed scheduler deals exactly what the original does, from
+     * every deck.
+     */
+    @Test
+    public void resumeExactly() throws IOException {
+        final DifficultyRatings ratings = DifficultyRatings.of(this.rated());
+        final SecretScheduler original = new SecretScheduler(5);
+        final Random random = new Random(6);
+        for (int d = 0; d < 150; ++d) {
+            deal(original, ratings, random);
+            original.next(WORDS);
+        }
+        final SecretScheduler resumed = copy(original);
+        assertEquals(original.seed(), resumed.seed());
+        assertEquals(original.deals(), resumed.deals());
+        final Random again = new Random(8);
+        final Random same = new Random(8);
+        for (int d = 0; d < 500; ++d) {
+            assertEquals(deal(original, ratings, again),
+                    deal(resumed, ratings, same));
+            assertEquals(original.next(WORDS), resumed.next(WORDS));
+        }
+    }
+
+    /**
+     * A damaged state is refused.
+     */
+    @Test
+    public void damagedState() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertThrows(IOException.class, () -> {
+            final DataOutputStream out = new DataOutputStream(bytes);
+            new SecretScheduler(9).writeState(out);
+            final byte[] state = bytes.toByteArray();
+            state[3 * Long.BYTES] = 99; // The number of tiers
+            SecretScheduler.resume(new DataInputStream(
+                    new ByteArrayInputStream(state)));
+        });
+    }
+}
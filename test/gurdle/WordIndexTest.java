@@ -0,0 +1,209 @@
+package gurdle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Searching a dictionary's index must find exactly the words that a plain
+ * scan of the word strings finds, in the same order.
+ *
+ * @author RIT CS
+ */
+public class WordIndexTest {
+
+    /**
+     * Random queries tried against each word list
+     */
+    private static final int QUERIES = 500;
+
+    /**
+     * Where compiled files are written
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * A query, as text, and the scan it should agree with
+     *
+     * @param pattern  what each position may hold
+     * @param required letters that must appear
+     * @param excluded letters that must not appear
+     */
+    private record Query(String pattern, String required, String excluded) {
+
+        /**
+         * Check a word against the query by reading its letters.
+         *
+         * @param word the word
+         * @return true if it fits
+         */
+        boolean fits(String word) {
+            int pos = 0;
+            for (int c = 0; c < this.pattern.length(); ++c, ++pos) {
+                final char ch = this.pattern.charAt(c);
+                if (ch == '[') {
+                    final int end = this.pattern.indexOf(']', c);
+                    if (this.pattern.substring(c + 2, end)
+                            .indexOf(word.charAt(pos)) >= 0) {
+                        return false;
+                    }
+                    c = end;
+                } else if (ch != '?' && ch != word.charAt(pos)) {
+                    return false;
+                }
+            }
+            for (char ch : this.required.toCharArray()) {
+                if (word.indexOf(ch) < 0) {
+                    return false;
+                }
+            }
+            for (char ch : this.excluded.toCharArray()) {
+                if (word.indexOf(ch) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The query as a dictionary takes it
+         *
+         * @param alphabet the dictionary's alphabet
+         * @return the parsed query
+         */
+        WordQuery parse(Alphabet alphabet) {
+            return WordQuery.parse(this.pattern, this.required.isEmpty() ?
+                    WordQuery.NONE : this.required, this.excluded.isEmpty() ?
+                    WordQuery.NONE : this.excluded, alphabet);
+        }
+    }
+
+    /**
+     * Make up a query, taking its letters from a real word now and then
+     * so that some queries match something.
+     *
+     * @param words  the word list
+     * @param random makes the choices
+     * @return the query
+     */
+    private static Query randomQuery(Dictionary words, Random random) {
+        final String letters = words.alphabet().letters();
+        final String word = words.get(random.nextInt(words.size()));
+        final StringBuilder pattern = new StringBuilder();
+        for (int pos = 0; pos < Model.WORD_SIZE; ++pos) {
+            switch (random.nextInt(4)) {
+                case 0 -> pattern.append(word.charAt(pos));
+                case 1 -> pattern.append("[^")
+                        .append(letters.charAt(random.nextInt(
+                                letters.length())))
+                        .append(letters.charAt(random.nextInt(
+                                letters.length())))
+                        .append(']');
+                default -> pattern.append('?');
+            }
+        }
+        final StringBuilder required = new StringBuilder();
+        final StringBuilder excluded = new StringBuilder();
+        for (int n = random.nextInt(3); n > 0; --n) {
+            required.append(word.charAt(random.nextInt(word.length())));
+        }
+        for (int n = random.nextInt(4); n > 0; --n) {
+            final char ch = letters.charAt(random.nextInt(letters.length()));
+            if (required.indexOf(String.valueOf(ch)) < 0) {
+                excluded.append(ch);
+            }
+        }
+        return new Query(pattern.toString(), required.toString(),
+                excluded.toString());
+    }
+
+    /**
+     * Check random queries, and some fixed ones, against a scan.
+     *
+     * @param words the word list
+     * @param seed  for the random queries
+     */
+    private static void checkAgainstScan(Dictionary words, long seed) {
+        final Random random = new Random(seed);
+        final List<Query> queries = new ArrayList<>(List.of(
+                new Query("?????", "", ""),
+                new Query("?????", words.alphabet().letters(), "")));
+        for (int q = 0; q < QUERIES; ++q) {
+            queries.add(randomQuery(words, random));
+        }
+        for (Query query : queries) {
+            final List<Integer> expected = new ArrayList<>();
+            for (int w = 0; w < words.size(); ++w) {
+                if (query.fits(words.get(w))) {
+                    expected.add(w);
+                }
+            }
+            final WordQuery parsed = query.parse(words.alphabet());
+            assertEquals(expected, words.search(parsed).boxed()
+                    .collect(Collectors.toList()), query.toString());
+            assertEquals(expected.size(), words.count(parsed),
+                    query.toString());
+            assertEquals(expected.subList(0, Math.min(3, expected.size())),
+                    words.search(parsed).limit(3).boxed()
+                            .collect(Collectors.toList()), query.toString());
+            for (int w = 0; w < words.size(); ++w) {
+                assertEquals(expected.contains(w),
+                        parsed.matches(words.code(w)), query.toString());
+            }
+        }
+    }
+
+    /**
+     * The English list, read from text.
+     */
+    @Test
+    public void latin() throws IOException {
+        checkAgainstScan(Dictionary.load(Path.of(Model.WORD_FILE_NAME)), 1);
+    }
+
+    /**
+     * The English list, compiled and mapped back, and cut to a length
+     * that leaves a part-filled block at the end.
+     */
+    @Test
+    public void compiledPartBlock() throws IOException {
+        final List<String> all =
+                Dictionary.load(Path.of(Model.WORD_FILE_NAME)).words();
+        final Dictionary text = new Dictionary(all.subList(0, 1_000));
+        final Path file = this.dir.resolve("words" +
+                Dictionary.COMPILED_SUFFIX);
+        DictionaryCompiler.compile(text, file);
+        checkAgainstScan(Dictionary.load(file), 2);
+    }
+
+    /**
+     * A list in another alphabet.
+     */
+    @Test
+    public void macedonian() throws IOException {
+        checkAgainstScan(Dictionary.load(Path.of("data/macedonian.txt")), 3);
+    }
+
+    /**
+     * A query that names a letter outside the alphabet is refused.
+     */
+    @Test
+    public void foreignLetter() throws IOException {
+        final Dictionary words =
+                Dictionary.load(Path.of(Model.WORD_FILE_NAME));
+        assertThrows(IllegalArgumentException.class, () -> WordQuery.parse(
+                "?????", "Ж", WordQuery.NONE, words.alphabet()));
+        assertThrows(IllegalArgumentException.class, () -> WordQuery.parse(
+                "????", WordQuery.NONE, WordQuery.NONE, words.alphabet()));
+    }
+}
@@ -0,0 +1,104 @@
+package gurdle.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Adding and removing workers must move exactly the sessions whose owner
+ * changes, and every session must come through with its board intact.
+ *
+ * @author RIT CS
+ */
+public class ShardRouterTest {
+
+    /**
+     * How many sessions are spread over the workers
+     */
+    private static final int SESSIONS = 60;
+
+    /**
+     * Every session's board
+     *
+     * @param router the router
+     * @param ids    the sessions
+     * @return what "show" prints for each, by id
+     */
+    private static Map<Long, String> boards(ShardRouter router,
+                                            List<Long> ids)
+            throws IOException {
+        final Map<Long, String> boards = new LinkedHashMap<>();
+        for (long id : ids) {
+            boards.put(id, router.command(id, "show"));
+        }
+        return boards;
+    }
+
+    /**
+     * How many sessions the workers hold between them
+     *
+     * @param router the router
+     * @return the total
+     */
+    private static int total(ShardRouter router) throws IOException {
+        return router.sessionCounts().values().stream()
+                .mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Sessions survive a worker being added and another being removed.
+     */
+    @Test
+    public void rebalance() throws IOException {
+        try (ShardRouter router = new ShardRouter(2)) {
+            final List<Long> ids = new ArrayList<>();
+            for (int s = 0; s < SESSIONS; ++s) {
+                final long id = router.open();
+                final String secret = router.command(id, "cheat").strip();
+                router.command(id, "guess " +
+                        (secret.equals("CRANE") ? "SLATE" : "CRANE"));
+                ids.add(id);
+            }
+            final Map<Long, String> before = boards(router, ids);
+
+            final int added = router.addWorker();
+            assertTrue(added > 0, "Nothing moved to the new worker.");
+            final Map<String, Integer> counts = router.sessionCounts();
+            assertEquals(3, counts.size());
+            assertEquals(added, (int) counts.get("worker-2"));
+            assertEquals(SESSIONS, total(router));
+            assertEquals(before, boards(router, ids));
+
+            final int held = counts.get("worker-0");
+            assertEquals(held, router.removeWorker("worker-0"));
+            assertFalse(router.sessionCounts().containsKey("worker-0"));
+            assertEquals(SESSIONS, total(router));
+            assertEquals(before, boards(router, ids));
+        }
+    }
+
+    /**
+     * A worker that does not exist, or the last one, cannot be removed.
+     */
+    @Test
+    public void removeRefused() throws IOException {
+        try (ShardRouter router = new ShardRouter(1)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> router.removeWorker("worker-9"));
+            assertThrows(IllegalStateException.class,
+                    () -> router.removeWorker("worker-0"));
+            final long id = router.open();
+            assertNotNull(router.command(id, "show"));
+        }
+    }
+}
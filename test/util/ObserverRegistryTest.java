@@ -0,0 +1,99 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Observers must be told in order, may change the registry while being
+ * told, and weak ones must be dropped once nothing else refers to them.
+ *
+ * @author RIT CS
+ */
+public class ObserverRegistryTest {
+
+    /**
+     * How many weak observers are registered and left to be collected
+     */
+    private static final int WEAK = 1_000;
+
+    /**
+     * How many times to ask for a collection before giving up
+     */
+    private static final int TRIES = 50;
+
+    /**
+     * Observers are told in the order they were registered, and only the
+     * first of two identical registrations is removed.
+     */
+    @Test
+    public void order() {
+        final ObserverRegistry<String, Integer> registry =
+                new ObserverRegistry<>();
+        final List<String> told = new ArrayList<>();
+        final Observer<String, Integer> a = (s, d) -> told.add("a" + d);
+        final Observer<String, Integer> b = (s, d) -> told.add("b" + d);
+        registry.add(a);
+        registry.addWeak(b);
+        registry.add(a);
+        registry.notifyObservers("subject", 1);
+        assertEquals(List.of("a1", "b1", "a1"), told);
+        assertTrue(registry.remove(a));
+        assertTrue(registry.remove(b));
+        assertEquals(1, registry.size());
+        assertFalse(registry.remove(b));
+        told.clear();
+        registry.notifyObservers("subject", 2);
+        assertEquals(List.of("a2"), told);
+    }
+
+    /**
+     * An observer added while others are being told is not told until the
+     * next notification.
+     */
+    @Test
+    public void addWhileNotifying() {
+        final ObserverRegistry<String, Integer> registry =
+                new ObserverRegistry<>();
+        final int[] told = {0};
+        final Observer<String, Integer> counter = (s, d) -> told[0] += 1;
+        registry.add((s, d) -> registry.add(counter));
+        registry.notifyObservers("subject", 1);
+        assertEquals(0, told[0]);
+        registry.notifyObservers("subject", 2);
+        assertEquals(1, told[0]);
+        assertEquals(3, registry.size());
+    }
+
+    /**
+     * Weak observers nothing else refers to are collected and dropped;
+     * strong ones, and weak ones still referred to, stay.
+     */
+    @Test
+    public void weakPurge() throws InterruptedException {
+        final ObserverRegistry<String, Integer> registry =
+                new ObserverRegistry<>();
+        final int[] told = {0};
+        final Observer<String, Integer> kept = (s, d) -> told[0] += 1;
+        registry.add(kept);
+        registry.addWeak(kept);
+        for (int w = 0; w < WEAK; ++w) {
+            final int[] mine = {0};
+            registry.addWeak((s, d) -> mine[0] += 1);
+        }
+        assertEquals(WEAK + 2, registry.size());
+        for (int t = 0; t < TRIES && registry.size() > 2; ++t) {
+            System.gc();
+            Thread.sleep(20);
+            registry.iterator(); // Purges
+        }
+        assertEquals(2, registry.size());
+        registry.notifyObservers("subject", 1);
+        assertEquals(2, told[0]);
+    }
+}